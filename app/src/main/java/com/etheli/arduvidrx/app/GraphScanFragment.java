@@ -7,7 +7,6 @@ package com.etheli.arduvidrx.app;
 
 import android.app.Fragment;
 import android.content.DialogInterface;
-import android.graphics.Canvas;
 import android.graphics.Color;
 import android.os.Bundle;
 import android.os.Handler;
@@ -21,31 +20,24 @@ import android.widget.Button;
 import android.widget.TextView;
 
 import com.etheli.arduvidrx.R;
+import com.etheli.arduvidrx.rec.FreqRssiParser;
 import com.etheli.arduvidrx.rec.FrequencyTable;
+import com.etheli.arduvidrx.rec.PeakDetector;
+import com.etheli.arduvidrx.rec.ScanFrameBuffer;
+import com.etheli.arduvidrx.rec.ScanHistoryStore;
+import com.etheli.arduvidrx.rec.ScanTraceAccumulator;
+import com.etheli.arduvidrx.rec.SessionRecorder;
 import com.etheli.arduvidrx.rec.VidReceiverManager;
+import com.etheli.util.AppScheduler;
 import com.etheli.util.DialogUtils;
+import com.etheli.util.FrameUpdateScheduler;
 import com.etheli.util.GuiUtils;
+import com.etheli.util.LineView;
 import com.etheli.util.PausableThread;
-import com.github.mikephil.charting.buffer.BarBuffer;
-import com.github.mikephil.charting.charts.BarChart;
-import com.github.mikephil.charting.components.AxisBase;
-import com.github.mikephil.charting.components.XAxis;
-import com.github.mikephil.charting.components.YAxis;
-import com.github.mikephil.charting.data.BarData;
-import com.github.mikephil.charting.data.BarDataSet;
-import com.github.mikephil.charting.data.BarEntry;
-import com.github.mikephil.charting.data.Entry;
-import com.github.mikephil.charting.formatter.IAxisValueFormatter;
-import com.github.mikephil.charting.formatter.IValueFormatter;
-import com.github.mikephil.charting.highlight.Highlight;
-import com.github.mikephil.charting.interfaces.datasets.IBarDataSet;
-import com.github.mikephil.charting.listener.OnChartValueSelectedListener;
-import com.github.mikephil.charting.renderer.BarChartRenderer;
-import com.github.mikephil.charting.utils.Utils;
-import com.github.mikephil.charting.utils.ViewPortHandler;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Class GraphScanFragment defines a fragment for graph showing scan data.
@@ -54,22 +46,68 @@ public class GraphScanFragment extends Fragment
 {
   private static final int MIN_PEAKLABELS_RSSI = 5;        //min RSSI for peak labels on graph
   private static final int MAX_ENTRIESLIST_SIZE = 200;     //max size for 'graphScanEntriesList'
+  private static final int MAX_HISTORY_ROWS = 240;         //number of sweeps in waterfall
+  private static final int PEAK_HYSTERESIS_RSSI = 2;       //RSSI drop needed to confirm peak
+  private static final float REGION_MAX_VISIBLE_FRACT = 0.75f;  //zoom needed for region sweep
   private static final float LABELS_TEXT_SIZE = 14.0f;     //size for graph text labels
+         //colors for max-hold, min-hold, exponential-average and N-sweep-average traces:
+  private static final int [] TRACE_COLORS_ARR =
+                            { Color.RED, Color.BLUE, Color.MAGENTA, Color.rgb(255,140,0) };
+         //serial lane for button actions (they block while pausing the data-scan thread):
+  private static final AppScheduler.SerialLane graphActionsLaneObj =
+                                   AppScheduler.getAppScheduler().createSerialLane("graphActions");
   private View graphScanFragmentViewObj = null;
-  private BarChart graphScanBarChartObj = null;
-  private List<BarEntry> graphScanEntriesList = null;
-  private int graphScanEntriesIndex = 0;
+  private SpectrumView graphScanSpectrumViewObj = null;
+  private List<ScanItemBarEntry> graphScanEntriesList = null;
+         //frames of scan values passed from data-scan thread to UI thread:
+  private final ScanFrameBuffer scanFrameBufferObj =
+                                                new ScanFrameBuffer(MAX_ENTRIESLIST_SIZE);
+  private long appliedScanFrameSeqNum = 0L;      //used only by UI thread
+  private int appliedScanFrameNumEntries = 0;
+         //history of completed sweeps (for waterfall display):
+  private final ScanHistoryStore scanHistoryStoreObj =
+                                new ScanHistoryStore(MAX_HISTORY_ROWS,MAX_ENTRIESLIST_SIZE);
+  private WaterfallView graphScanWaterfallViewObj = null;
+         //max-hold, min-hold and averaged traces (updated by data-scan thread):
+  private final ScanTraceAccumulator scanTraceAccumulatorObj =
+                                           new ScanTraceAccumulator(MAX_ENTRIESLIST_SIZE);
+  private int scanTraceBinIdx = 0;               //used only by data-scan thread
+         //recorder for sweeps when session recording (used only by data-scan thread):
+  private SessionRecorder sweepSessionRecorderObj = null;
+         //values for full-band sweep in progress, entered into channel-occupancy
+         // statistics when sweep completes (used only by data-scan thread):
+  private final int [] occupancySweepFreqsArr = new int[MAX_ENTRIESLIST_SIZE];
+  private final int [] occupancySweepRssiArr = new int[MAX_ENTRIESLIST_SIZE];
+  private int occupancySweepNumVals = -1;        //-1 when not a full-band sweep
+         //peak detector updated as sweep entries are applied (used only by UI thread):
+  private final PeakDetector sweepPeakDetectorObj = new PeakDetector(MAX_ENTRIESLIST_SIZE);
+         //peak detector for full passes over 'graphScanEntriesList' (used while paused):
+  private final PeakDetector listPeakDetectorObj = new PeakDetector(MAX_ENTRIESLIST_SIZE);
   private int graphScanLastHighlightFreqVal = 0;
   private int graphScanLastFoundPeakFreqVal = 0;
   private int graphScanMinPeakLabelsSpacing = 10;
+              //frequency window for region sweeps (low value in upper 32 bits,
+              // high value in lower 32 bits), or 0 for full-band sweeps:
+  private volatile long regionSweepWindowVal = 0L;
   private TextView graphScanStatusTextViewObj = null;
   private Button graphScanValuesButtonObj = null;
   private Button graphScanPauseButtonObj = null;
   private boolean graphScanPausedFlag = false;
   private final ReceiverScanDataThread receiverScanDataThreadObj = new ReceiverScanDataThread();
   private VidReceiverManager vidReceiverManagerObj = null;
+         //collapses graph updates into at most one redraw per display frame:
+  private final FrameUpdateScheduler graphFrameSchedulerObj = new FrameUpdateScheduler(
+      new Runnable()
+        {
+          public void run()
+          {
+            doGraphFrameUpdate();
+          }
+        });
+         //highlighted bar to be applied on next graph frame (or 'NO_HIGHLIGHT_PENDING'):
+  private static final int NO_HIGHLIGHT_PENDING = Integer.MIN_VALUE;
+  private final AtomicInteger pendingHighlightFreqVal = new AtomicInteger(NO_HIGHLIGHT_PENDING);
     //message codes for 'widgetUpdateHandlerObj':
-  private static final int UPD_HIGHLIGHT_MSG = 1;     //update highlighted bar on graph
   private static final int UPD_STATUSTEXT_MSG = 2;    //update status text view
     /** Tag string for logging. */
   public static final String LOG_TAG = "GraphScanFragment";
@@ -116,84 +154,46 @@ public class GraphScanFragment extends Fragment
   public void onStart()
   {
     super.onStart();
-    if(graphScanBarChartObj == null)
+    if(graphScanSpectrumViewObj == null)
     {  //this is the first time through
-      graphScanBarChartObj = (BarChart)getActivity().findViewById(R.id.graphScanChart);
+      graphScanSpectrumViewObj = (SpectrumView)getActivity().findViewById(R.id.graphScanChart);
+      if((graphScanWaterfallViewObj=
+                    (WaterfallView)getActivity().findViewById(R.id.graphScanWaterfall)) != null)
+      {  //waterfall view found OK; setup history store for it
+        graphScanWaterfallViewObj.setScanHistoryStoreObj(scanHistoryStoreObj);
+      }
       setGraphScanChartHeight();                 //adjust chart height for good fit
       addPeakLabelsSpacingLayoutListener();      //setup listener for peak-labels spacing
       adjustMinPeakLabelsSpacing();              //do initial call to listener function
-      graphScanBarChartObj.setDrawGridBackground(false);
-      graphScanBarChartObj.setDrawBarShadow(false);
-      graphScanBarChartObj.getLegend().setEnabled(false);
-      graphScanBarChartObj.getAxisRight().setEnabled(false);
-      graphScanBarChartObj.getDescription().setEnabled(false);
-      graphScanBarChartObj.setPinchZoom(true);
-         //set custom renderer that can show X values above bars:
-      graphScanBarChartObj.setRenderer(new GraphScanChartRenderer());
-
-//      final Typeface tf = Typeface.defaultFromStyle(Typeface.NORMAL);
-      final YAxis leftAxis = graphScanBarChartObj.getAxisLeft();
-//      leftAxis.setTypeface(tf);
-      leftAxis.setAxisMinimum(0f);
-      leftAxis.setAxisMaximum(110f);
-//      leftAxis.setTypeface(Typeface.defaultFromStyle(Typeface.NORMAL));
-//      leftAxis.setLabelCount(8, false);
-//      leftAxis.setLabelCount(8);
-      leftAxis.setValueFormatter(new SimpleIntAxisValueFormatter());
-//      leftAxis.setPosition(YAxis.YAxisLabelPosition.OUTSIDE_CHART);
-//      leftAxis.setSpaceTop(15f);
-      leftAxis.setTextSize(LABELS_TEXT_SIZE);
-
-      final XAxis xAxis = graphScanBarChartObj.getXAxis();
-      xAxis.setEnabled(true);
-      xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
-      xAxis.setDrawGridLines(false);
-      xAxis.setValueFormatter(new SimpleIntAxisValueFormatter());
-      xAxis.setTextSize(LABELS_TEXT_SIZE);
-      xAxis.setSpaceMin(20.0f);        //configure some margin space left/right for bars
-      xAxis.setSpaceMax(20.0f);
-      xAxis.setYOffset(0.0f);          //tweak so Y-axis labels aren't too low
-
+      graphScanSpectrumViewObj.setLabelsTextSizeDp(LABELS_TEXT_SIZE);
               //get initial set of entries for frequency values:
       graphScanEntriesList = getInitialEntriesList();
-              //setup listener to handle selection of bars on chart:
-      graphScanBarChartObj.setOnChartValueSelectedListener(
-          new OnChartValueSelectedListener()
+              //setup listener to handle selection of bars on graph and zoom/drag gestures:
+      graphScanSpectrumViewObj.setSpectrumViewListener(
+          new SpectrumView.SpectrumViewListener()
             {
               @Override
-              public void onValueSelected(Entry entryObj, Highlight hlObj)
+              public void barSelected(int idx)
               {
-                if(graphScanPausedFlag && entryObj instanceof ScanItemBarEntry)
+                final ScanItemBarEntry itemObj;
+                if(graphScanPausedFlag && (itemObj=entriesListIdxToScanItem(idx)) != null)
                 {  //data-scan thread is paused and item-entry object OK
-                  final ScanItemBarEntry itemObj = (ScanItemBarEntry)entryObj;
                   graphScanLastHighlightFreqVal = itemObj.getFreqVal();   //track highlight
                   showChannelInStatusTextView(itemObj,false);   //update status text view
                   tuneToScanItemChannel(itemObj,true);          //tune chan; update highlight
                 }
               }
               @Override
-              public void onNothingSelected()
-              {              //if unselect then reselect so bar stays highlighted
-                if(graphScanLastHighlightFreqVal > 0)
-                  setHighlightBarAndUpdateGraph(graphScanLastHighlightFreqVal);
+              public void visibleRangeChanged()
+              {              //update region-sweep window for new visible range
+                updateRegionSweepWindow();
               }
             });
-
-//      System.out.print("DEBUG: ");
-//      for(BarEntry entryObj : graphScanEntriesList)
-//        System.out.print(" " + Math.round(entryObj.getX()));
-//      System.out.println();
-//      System.out.println("DEBUG:  entriesListSize = " + graphScanEntriesList.size());
-
-      setupBarChartEntriesListData();            //setup data objects for chart
-      graphScanBarChartObj.invalidate();         //do initial render
-      graphScanEntriesIndex = 0;                 //initialize update index
+      setupSpectrumViewBars();                   //enter entries into graph
+      for(int t=0; t<ScanTraceAccumulator.NUM_TRACE_TYPES; ++t)
+        graphScanSpectrumViewObj.setTraceColor(t,TRACE_COLORS_ARR[t]);
       graphScanPausedFlag = false;               //data-scan thread will be running
 
-//      for(BarEntry entryObj : graphScanEntriesList)
-//        entryObj.setY(((int)entryObj.getX())%100 / 2 + 10);
-//      graphScanBarChartObj.invalidate();
-
       graphScanStatusTextViewObj = (TextView)getActivity().findViewById(R.id.statusGraphTextView);
               //if not large screen then reduce margins to leave more room for chart:
       if(GuiUtils.isSmallOrNormalScreenSize(getActivity()))
@@ -225,7 +225,19 @@ public class GraphScanFragment extends Fragment
                 }
               });
       }
-      final Button buttonObj;
+      Button buttonObj;
+      if((buttonObj=(Button)getActivity().findViewById(R.id.tracesGraphButton)) != null)
+      {  //button found OK; setup click action
+        buttonObj.setOnClickListener(
+            new View.OnClickListener()
+              {
+                @Override
+                public void onClick(View vObj)
+                {
+                  showGraphTracesDialog();
+                }
+              });
+      }
       if((buttonObj=(Button)getActivity().findViewById(R.id.closeGraphButton)) != null)
       {  //button found OK; setup click action
         buttonObj.setOnClickListener(
@@ -255,9 +267,35 @@ public class GraphScanFragment extends Fragment
   {
     if(receiverScanDataThreadObj.isAlive())
       receiverScanDataThreadObj.pauseThread(0);       //pause data-scanning thread
+    final SpectrumView viewObj = graphScanSpectrumViewObj;
+    Log.d(LOG_TAG, "Graph updates:  " + graphFrameSchedulerObj.getCountsStr() +
+             ((viewObj != null) ? (", maxDrawUs=" + viewObj.getMaxDrawTimeUs()) : ""));
     super.onStop();
   }
 
+  /**
+   * Pauses the data-scanning thread while the connection to the receiver
+   * is being re-established (so it does not use the receiver while the
+   * manager resyncs).
+   */
+  public void pauseForReconnect()
+  {
+    if(receiverScanDataThreadObj.isAlive())
+      receiverScanDataThreadObj.pauseThread(0);       //pause data-scanning thread
+  }
+
+  /**
+   * Resumes the data-scanning thread after the connection to the receiver
+   * was re-established and the manager has resynced (the thread starts a
+   * new sweep).  Has no effect if the scan was paused via the button or
+   * the fragment is not showing.
+   */
+  public void resumeAfterReconnect()
+  {
+    if((!graphScanPausedFlag) && isVisible() && receiverScanDataThreadObj.isThreadPaused())
+      receiverScanDataThreadObj.resumeThread();
+  }
+
   /**
    * Called when the fragment is no longer in use.
    */
@@ -265,6 +303,7 @@ public class GraphScanFragment extends Fragment
   public void onDestroy()
   {
     receiverScanDataThreadObj.terminate(500);    //stop data-scanning thread (wait for terminate)
+    graphFrameSchedulerObj.cancel();
     super.onDestroy();
   }
 
@@ -276,13 +315,15 @@ public class GraphScanFragment extends Fragment
   {
     try
     {
-      final ViewGroup.LayoutParams lParamsObj = graphScanBarChartObj.getLayoutParams();
+      final ViewGroup.LayoutParams lParamsObj = graphScanSpectrumViewObj.getLayoutParams();
               //adjust height-scaling factor to make chart larger when screen not large:
       final float factVal = (GuiUtils.isSmallOrNormalScreenSize(getActivity())) ? 10 : 15;
               //estimate the height of the status text view and the buttons
               // and subtract that value to get the height value for the chart:
       lParamsObj.height = GuiUtils.getShorterScreenSizeValue(getActivity()) -
                           Math.round(GuiUtils.getFontMetricsHeightViaUtilPaint() * factVal);
+      if(graphScanWaterfallViewObj != null)      //leave room for waterfall view
+        lParamsObj.height -= graphScanWaterfallViewObj.getLayoutParams().height;
     }
     catch(Exception ex)
     {  //some kind of exception error; log it
@@ -291,24 +332,51 @@ public class GraphScanFragment extends Fragment
   }
 
   /**
-   * Sets up the data objects for rendering the scan-entries list values on the bar chart.
+   * Updates the frequency window for region sweeps using the range of
+   * frequencies visible on the graph.  If the graph is zoomed in far
+   * enough then the data-scan thread sweeps only the bins inside the
+   * visible window (so the refresh rate scales with the window width);
+   * otherwise it does full-band sweeps.  This method should be called
+   * via the UI thread.
    */
-  private void setupBarChartEntriesListData()
+  private void updateRegionSweepWindow()
   {
-         //setup data objects for bar chart:
-    final BarDataSet barDataSetObj = new BarDataSet(graphScanEntriesList,"Scan Data");
-    barDataSetObj.setColor(Color.BLACK,255);
-    barDataSetObj.setDrawValues(true);
-    barDataSetObj.setValueFormatter(new SimpleIntValueFormatter());
-    barDataSetObj.setValueTextSize(LABELS_TEXT_SIZE);
-         //setup color for highlighted bar:
-    barDataSetObj.setHighLightColor(Color.GREEN);
-    barDataSetObj.setHighLightAlpha(255);
-    barDataSetObj.setHighlightEnabled(true);
-         //craate data set and enter into chart:
-    final BarData barDataObj = new BarData(barDataSetObj);
-    barDataObj.setBarWidth(10.0f);
-    graphScanBarChartObj.setData(barDataObj);
+    try
+    {
+      final int listSize = graphScanEntriesList.size();
+      if(listSize <= 1)
+        return;
+      final float fullRangeVal = graphScanEntriesList.get(listSize-1).getFreqVal() -
+                                                     graphScanEntriesList.get(0).getFreqVal();
+      final int lowFreqVal = (int)Math.floor(graphScanSpectrumViewObj.getVisibleLowFreq());
+      final int highFreqVal = (int)Math.ceil(graphScanSpectrumViewObj.getVisibleHighFreq());
+      if(highFreqVal - lowFreqVal < fullRangeVal * REGION_MAX_VISIBLE_FRACT)
+      {  //graph is zoomed in; set window for region sweeps
+        regionSweepWindowVal = ((long)lowFreqVal << 32) | highFreqVal;
+      }
+      else  //graph not zoomed in (much); do full-band sweeps
+        regionSweepWindowVal = 0L;
+    }
+    catch(Exception ex)
+    {  //some kind of exception error; log it
+      Log.e(LOG_TAG, "Exception in 'updateRegionSweepWindow()'", ex);
+    }
+  }
+
+  /**
+   * Enters the values from the scan-entries list into the bars on the graph
+   * (used when the number of entries changes).
+   */
+  private void setupSpectrumViewBars()
+  {
+    final int listSize = graphScanEntriesList.size();
+    graphScanSpectrumViewObj.setNumBars(listSize);
+    ScanItemBarEntry entryObj;
+    for(int idx=0; idx<listSize; ++idx)
+    {  //for each entry in list
+      entryObj = graphScanEntriesList.get(idx);
+      graphScanSpectrumViewObj.setBarValues(idx,entryObj.getFreqVal(),entryObj.getRssiVal());
+    }
   }
 
   /**
@@ -318,7 +386,7 @@ public class GraphScanFragment extends Fragment
    */
   private void addPeakLabelsSpacingLayoutListener()
   {
-      graphScanBarChartObj.addOnLayoutChangeListener(new View.OnLayoutChangeListener()
+      graphScanSpectrumViewObj.addOnLayoutChangeListener(new View.OnLayoutChangeListener()
           {
             @Override
             public void onLayoutChange(View view, int i, int i1, int i2, int i3,
@@ -357,9 +425,9 @@ public class GraphScanFragment extends Fragment
    * Returns an initial list of entries for the graph.
    * @return A new list of 'ScanItemBarEntry' objects.
    */
-  private List<BarEntry> getInitialEntriesList()
+  private List<ScanItemBarEntry> getInitialEntriesList()
   {
-    final ArrayList<BarEntry> entriesList = new ArrayList<BarEntry>();
+    final ArrayList<ScanItemBarEntry> entriesList = new ArrayList<ScanItemBarEntry>();
     try
     {              //get full list of frequency-channel items:
       final FrequencyTable freqTableObj =
@@ -429,7 +497,7 @@ public class GraphScanFragment extends Fragment
     {    //create array of frequency-scan items for dialog:
       final ScanItemBarEntry [] scanItemEntriesArr =
                                                new ScanItemBarEntry[graphScanEntriesList.size()];
-      graphScanEntriesList.toArray((BarEntry[])scanItemEntriesArr);
+      graphScanEntriesList.toArray(scanItemEntriesArr);
               //create listener to be invoked when an item is selected:
       final DialogUtils.DialogItemSelectedListener itemSelListenerObj =
           new DialogUtils.DialogItemSelectedListener()
@@ -476,97 +544,296 @@ public class GraphScanFragment extends Fragment
   }
 
   /**
-   * Updates the next entry (frequency-value slot) on the graph.
-   * @param freqVal frequency to be updated, or 0 to reset to first slot.
+   * Begins a new frame of scan values for the graph.  This method should
+   * only be called by the data-scan thread.
+   */
+  private void beginGraphScanFrame()
+  {
+    scanFrameBufferObj.beginFrame();
+    scanTraceBinIdx = 0;
+    occupancySweepNumVals = 0;               //full-band sweep; track values
+    if(sweepSessionRecorderObj != null)
+      sweepSessionRecorderObj.beginSweep(0,false);
+  }
+
+  /**
+   * Begins a new frame of scan values for a region of the graph.  This
+   * method should only be called by the data-scan thread.
+   * @param firstIdx index into the graph entries for the first entry in
+   * the region.
+   */
+  private void beginGraphScanRegionFrame(int firstIdx)
+  {
+    scanFrameBufferObj.beginRegionFrame(firstIdx,true);
+    scanTraceBinIdx = firstIdx;
+    occupancySweepNumVals = -1;              //region sweep; not for occupancy stats
+    if(sweepSessionRecorderObj != null)
+      sweepSessionRecorderObj.beginSweep(firstIdx,true);
+  }
+
+  /**
+   * Enters the next entry (frequency-value slot) for the graph, updates the
+   * traces for it and requests a graph update.  The frame in progress is
+   * published if a graph frame is not already pending (so at most one
+   * partial frame is published per graph frame).  This method should only
+   * be called by the data-scan thread.
+   * @param freqVal frequency value for entry.
    * @param rssiVal RSSI value for entry.
    * @param chanCodeStr channel-code value for entry (i.e., "F4"), or null for none.
    */
-  private void updateNextGraphEntry(int freqVal, int rssiVal, String chanCodeStr)
+  private void putGraphScanEntry(int freqVal, int rssiVal, String chanCodeStr)
+  {
+    if(scanFrameBufferObj.putEntry(freqVal,rssiVal,chanCodeStr))
+    {  //entry added OK
+      scanTraceAccumulatorObj.enterValue(scanTraceBinIdx++,freqVal,rssiVal);
+      if(sweepSessionRecorderObj != null)
+        sweepSessionRecorderObj.putSweepEntry(freqVal,rssiVal);
+      if(occupancySweepNumVals >= 0 && occupancySweepNumVals < occupancySweepFreqsArr.length)
+      {  //full-band sweep in progress; track value for occupancy stats
+        occupancySweepFreqsArr[occupancySweepNumVals] = freqVal;
+        occupancySweepRssiArr[occupancySweepNumVals++] = rssiVal;
+      }
+      if(!graphFrameSchedulerObj.isFramePending())     //if no graph frame pending then
+        scanFrameBufferObj.publishFrame(false);        //publish partial frame
+      graphFrameSchedulerObj.requestUpdate();
+    }
+  }
+
+  /**
+   * Ends the frame of scan values for the graph, publishes it and requests
+   * a graph update.  This method should only be called by the data-scan
+   * thread.
+   */
+  private void endGraphScanFrame()
+  {
+    scanFrameBufferObj.publishFrame(true);
+    graphFrameSchedulerObj.requestUpdate();
+    if(sweepSessionRecorderObj != null)
+      sweepSessionRecorderObj.endSweep();
+  }
+
+  /**
+   * Performs the graph update for a display frame:  applies the latest
+   * published scan frame and then any pending change to the highlighted
+   * bar.  Invoked via the UI thread by the frame-update scheduler, which
+   * collapses all update requests between two frames into one call.
+   */
+  private void doGraphFrameUpdate()
   {
-    if(freqVal > 0)
-    {  //valid frequency value
-      final ScanItemBarEntry barEntryObj;
-      if(graphScanEntriesIndex < graphScanEntriesList.size())
+    try
+    {
+      applyLatestScanFrame();
+      final int hlVal;
+      if((hlVal=pendingHighlightFreqVal.getAndSet(NO_HIGHLIGHT_PENDING)) != NO_HIGHLIGHT_PENDING)
+      {  //highlighted-bar change pending
+        graphScanSpectrumViewObj.setHighlightFreqVal(hlVal);    //(also invalidates view)
+      }
+    }
+    catch(Exception ex)
+    {  //some kind of exception error; log it
+      Log.e(LOG_TAG, "Exception in 'doGraphFrameUpdate()'", ex);
+    }
+  }
+
+  /**
+   * Applies the latest published scan frame to the entries on the graph,
+   * marks peaks and updates the highlighted bar.  Only entries not
+   * already applied (from earlier partial frames of the same sweep) are
+   * updated; entries for a region frame are applied starting at the
+   * region's first entry.  This method should only be called via the UI
+   * thread.
+   */
+  private void applyLatestScanFrame()
+  {
+    final ScanFrameBuffer.ScanFrame frameObj;
+    if((frameObj=scanFrameBufferObj.takeLatestFrame()) == null)
+      return;             //no new frame
+    final int numEntries = frameObj.getNumEntries();
+    final int firstIdx = frameObj.getFirstEntryIdx();
+    final PeakDetector detectorObj = sweepPeakDetectorObj;
+    int idx, listIdx;
+    if(frameObj.getSequenceNum() == appliedScanFrameSeqNum)
+      idx = appliedScanFrameNumEntries;     //continue sweep from last applied entry
+    else
+    {  //new sweep; start at first entry
+      idx = 0;
+      detectorObj.setParams(MIN_PEAKLABELS_RSSI,graphScanMinPeakLabelsSpacing,
+                                                                    PEAK_HYSTERESIS_RSSI);
+      detectorObj.beginSweep();
+    }
+    final SpectrumView viewObj = graphScanSpectrumViewObj;
+    ScanItemBarEntry barEntryObj = null;
+    int freqVal, rssiVal, peakIdx;
+    while(idx < numEntries)
+    {  //for each entry not yet applied
+      freqVal = frameObj.getFreqVal(idx);
+      rssiVal = frameObj.getRssiVal(idx);
+      if((listIdx=firstIdx+idx) < graphScanEntriesList.size())
       {  //slot-position exists in list; update values in entry
-        barEntryObj = (ScanItemBarEntry)graphScanEntriesList.get(graphScanEntriesIndex);
+        barEntryObj = graphScanEntriesList.get(listIdx);
         barEntryObj.setFreqVal(freqVal);
         barEntryObj.setRssiVal(rssiVal);
-        barEntryObj.setChanCodeStr(chanCodeStr);
-        ++graphScanEntriesIndex;
-      }       //slot-position does not exist in list; create new entry with values (if room)
-      else if(graphScanEntriesList.size() < MAX_ENTRIESLIST_SIZE)
-      {  //slot-position does not exist and not too many in list; create new entry with values
-        barEntryObj = new ScanItemBarEntry(freqVal,rssiVal,chanCodeStr);
-        graphScanEntriesList.add(barEntryObj);
-        ++graphScanEntriesIndex;
-        setupBarChartEntriesListData();          //redo setup to handle size change
+        barEntryObj.setChanCodeStr(frameObj.getChanCodeStr(idx));
       }
       else
-      {  //too many entries
-        freqVal = 0;
-        barEntryObj = null;
+      {  //slot-position does not exist in list; create new entry with values
+        barEntryObj = new ScanItemBarEntry(freqVal,rssiVal,frameObj.getChanCodeStr(idx));
+        graphScanEntriesList.add(barEntryObj);
+        viewObj.setNumBars(graphScanEntriesList.size());
+      }
+      viewObj.setBarValues(listIdx,freqVal,rssiVal);
+      viewObj.setPeakFlag(listIdx,false);
+      copyTraceValsToSpectrumView(listIdx);
+              //update peak detection with new entry; mark any peak it confirms:
+      if((peakIdx=detectorObj.addBin(freqVal,rssiVal)) >= 0)
+        viewObj.setPeakFlag(firstIdx+peakIdx,true);
+      ++idx;
+    }
+    appliedScanFrameSeqNum = frameObj.getSequenceNum();
+    appliedScanFrameNumEntries = numEntries;
+    if(frameObj.isComplete())
+    {  //end of sweep; mark any last peak, add sweep to history and draw row on waterfall
+      if((peakIdx=detectorObj.endSweep()) >= 0)
+        viewObj.setPeakFlag(firstIdx+peakIdx,true);
+      if(!frameObj.isRegion())
+      {  //full-band sweep; add to history (region sweeps are not shown on waterfall)
+        scanHistoryStoreObj.addRow(frameObj);
+        if(graphScanWaterfallViewObj != null)
+          graphScanWaterfallViewObj.updateFromHistoryStore();
       }
-      markPeaksInScanEntriesList();              //find and mark peak entries
-              //set highlighted bar and update displayed graph:
-      setHighlightBarAndUpdateGraph(freqVal);
+      if(vidReceiverManagerObj != null)          //enter sweep into recent-scan cache
+        vidReceiverManagerObj.getRecentScanCacheObj().enterFrame(frameObj);
+      graphScanLastHighlightFreqVal = -1;
+      viewObj.setHighlightIdx(-1);          //clear highlight (also invalidates view)
+                                            //update peak freq in status text view:
+      final int maxIdx = detectorObj.getMaxRssiBinIdx();
+      graphScanLastFoundPeakFreqVal =
+                       showPeakChanInStatusTextView((maxIdx >= 0) ? firstIdx+maxIdx : -1);
+    }
+    else if(barEntryObj != null)
+    {  //partial sweep; highlight last-updated bar (also invalidates view)
+      freqVal = barEntryObj.getFreqVal();
+      graphScanLastHighlightFreqVal = freqVal;
+      viewObj.setHighlightIdx(firstIdx+numEntries-1);
               //if just updated displayed peak entry then update status text view now:
-      if(freqVal == graphScanLastFoundPeakFreqVal && freqVal > 0 && rssiVal >= MIN_PEAKLABELS_RSSI)
+      if(freqVal == graphScanLastFoundPeakFreqVal &&
+                                            barEntryObj.getRssiVal() >= MIN_PEAKLABELS_RSSI)
+      {
         showChannelInStatusTextView(barEntryObj,true);
+      }
     }
     else
-    {  //given frequency value is zero
-      graphScanEntriesIndex = 0;            //reset index to first slot
-      setHighlightBarAndUpdateGraph(-1);    //clear highlight
-                                            //update peak freq in status text view:
-      graphScanLastFoundPeakFreqVal = showPeakChanInStatusTextView();
+      viewObj.invalidate();
+  }
+
+  /**
+   * Copies the values for the shown traces at the given entry from the
+   * trace accumulator to the graph.  This method should only be called
+   * via the UI thread.
+   * @param idx index of entry.
+   */
+  private void copyTraceValsToSpectrumView(int idx)
+  {
+    final SpectrumView viewObj = graphScanSpectrumViewObj;
+    for(int t=0; t<ScanTraceAccumulator.NUM_TRACE_TYPES; ++t)
+    {  //for each trace type; if shown then copy value
+      if(viewObj.isTraceShown(t))
+        viewObj.setTraceValue(t,idx,scanTraceAccumulatorObj.getTraceVal(t,idx));
+    }
+  }
+
+  /**
+   * Copies the values for the shown traces at all entries from the trace
+   * accumulator to the graph, and invalidates the graph.  This method
+   * should only be called via the UI thread.
+   */
+  private void refreshSpectrumViewTraces()
+  {
+    final int numBars = graphScanSpectrumViewObj.getNumBars();
+    for(int idx=0; idx<numBars; ++idx)
+      copyTraceValsToSpectrumView(idx);
+    graphScanSpectrumViewObj.invalidate();
+  }
+
+  /**
+   * Shows a multi-choice dialog for selecting the traces shown on the graph
+   * (live values, max hold, min hold and averages), with a button to reset
+   * the traces.  This method should only be called via the UI thread.
+   */
+  private void showGraphTracesDialog()
+  {
+    try
+    {
+      final SpectrumView viewObj = graphScanSpectrumViewObj;
+      final CharSequence [] itemsArr = new CharSequence[] {
+                               getString(R.string.graphtrace_live_name),
+                               getString(R.string.graphtrace_maxhold_name),
+                               getString(R.string.graphtrace_minhold_name),
+                               getString(R.string.graphtrace_expavg_name),
+                               getString(R.string.graphtrace_sweepavg_name,
+                                              scanTraceAccumulatorObj.getNumAvgSweeps()) };
+              //item 0 is live values (bars); others are trace types:
+      final boolean [] selFlagsArr = new boolean[itemsArr.length];
+      selFlagsArr[0] = viewObj.isBarsShown();
+      for(int t=0; t<ScanTraceAccumulator.NUM_TRACE_TYPES; ++t)
+        selFlagsArr[t+1] = viewObj.isTraceShown(t);
+      DialogUtils.showMultiChoiceDialogFragment(getActivity(),R.string.graphtraces_dialog_title,
+                                                                           itemsArr,selFlagsArr,
+               R.string.alert_dialog_cancel,R.string.alert_dialog_ok,R.string.alert_dialog_reset,
+                                       0, new DialogUtils.MultiChoiceClickUpdater(selFlagsArr),
+          new DialogInterface.OnClickListener()
+            {                //listener invoked when dialog is closed
+              @Override
+              public void onClick(DialogInterface dialogObj, int which)
+              {
+                try
+                {
+                  if(which == DialogInterface.BUTTON_POSITIVE ||
+                                                      which == DialogInterface.BUTTON_NEUTRAL)
+                  {  //'OK' or 'Reset' button was pressed; update traces shown on graph
+                    if(which == DialogInterface.BUTTON_NEUTRAL)
+                    {  //'Reset' button was pressed; reset traces
+                      scanTraceAccumulatorObj.resetAllTraces();
+                      for(int t=0; t<ScanTraceAccumulator.NUM_TRACE_TYPES; ++t)
+                        viewObj.clearTraceValues(t);
+                    }
+                    viewObj.setBarsShown(selFlagsArr[0]);
+                    for(int t=0; t<ScanTraceAccumulator.NUM_TRACE_TYPES; ++t)
+                      viewObj.setTraceShown(t,selFlagsArr[t+1]);
+                    refreshSpectrumViewTraces();
+                  }
+                }
+                catch(Exception ex)
+                {  //some kind of exception error; log it
+                  Log.e(LOG_TAG, "Exception in 'showGraphTracesDialog()' response", ex);
+                }
+              }
+            });
+    }
+    catch(Exception ex)
+    {  //some kind of exception error; log it
+      Log.e(LOG_TAG, "Exception in 'showGraphTracesDialog()' setup", ex);
     }
   }
 
   /**
-   * Scans 'graphScanEntriesList' and marks peak entries (by setting
-   * 'showFreqAboveBarFlag' on entries).
+   * Scans 'graphScanEntriesList' and marks peak entries (by setting peak
+   * labels on the bars of the graph).  This method should only be used
+   * while the graph-data-scan thread is paused.
    */
   private void markPeaksInScanEntriesList()
   {
     try
     {
-      final int listSize = graphScanEntriesList.size();
-      int prevMaxEntIdx = -1, curMaxEntIdx = -1;
-      int j, yVal, lastYVal = 0, curMaxYVal = MIN_PEAKLABELS_RSSI;
-      ScanItemBarEntry entryObj;
-      for(int idx=0; idx<listSize; ++idx)
-      {  //for each entry in list
-        entryObj = (ScanItemBarEntry)graphScanEntriesList.get(idx);
-        entryObj.setShowFreqAboveBarFlag(false);      //initialize entries while scanning
-        yVal = entryObj.getRssiVal();
-        if(yVal > lastYVal && yVal > curMaxYVal)
-        {  //Y-value increasing and larger than currently-tracked maximum
-          curMaxYVal = yVal;
-          curMaxEntIdx = idx;
-        }
-        else if(curMaxEntIdx >= 0 && (prevMaxEntIdx < 0 ||
-                                curMaxEntIdx - prevMaxEntIdx >= graphScanMinPeakLabelsSpacing) &&
-                                             idx - curMaxEntIdx >= graphScanMinPeakLabelsSpacing)
-        {  //current peak has enough space from previous peak (if any) and scan pos; mark peak
-          j = curMaxEntIdx;       //check if 3+ bars at max level
-          while(j < listSize-1 &&
-                    ((ScanItemBarEntry)graphScanEntriesList.get(j+1)).getRssiVal() == curMaxYVal)
-          {
-            ++j;
-          }
-          if((j=j-curMaxEntIdx) >= 3)       //if 3+ bars at max level then
-            curMaxEntIdx += j / 2;          //move index up to center bar
-          ((ScanItemBarEntry)graphScanEntriesList.get(curMaxEntIdx)).setShowFreqAboveBarFlag(true);
-          prevMaxEntIdx = curMaxEntIdx;          //save as new "previous" peak
-          curMaxEntIdx = -1;                     //reset "current" peak index
-          curMaxYVal = MIN_PEAKLABELS_RSSI;      //reset "current" peak Y-value
+      synchronized(listPeakDetectorObj)
+      {
+        runPeakDetectorOverEntriesList();
+        graphScanSpectrumViewObj.clearPeakFlags();
+        final int numPeaks = listPeakDetectorObj.getNumPeaks();
+        for(int i=0; i<numPeaks; ++i)
+        {  //for each peak found; mark bar
+          graphScanSpectrumViewObj.setPeakFlag(listPeakDetectorObj.getPeakBinIdx(i),true);
         }
-        lastYVal = yVal;
-      }
-      if(curMaxEntIdx >= 0 &&
-            (prevMaxEntIdx < 0 || curMaxEntIdx - prevMaxEntIdx >= graphScanMinPeakLabelsSpacing))
-      {  //last "current" peak has enough space from previous peak (if any); mark peak
-        ((ScanItemBarEntry)graphScanEntriesList.get(curMaxEntIdx)).setShowFreqAboveBarFlag(true);
       }
     }
     catch(Exception ex)
@@ -575,13 +842,34 @@ public class GraphScanFragment extends Fragment
     }
   }
 
+  /**
+   * Enters all the entries in 'graphScanEntriesList' into the list peak
+   * detector (as a single sweep).  The caller should hold the lock for
+   * 'listPeakDetectorObj'.
+   */
+  private void runPeakDetectorOverEntriesList()
+  {
+    final PeakDetector detectorObj = listPeakDetectorObj;
+    detectorObj.setParams(MIN_PEAKLABELS_RSSI,graphScanMinPeakLabelsSpacing,
+                                                                    PEAK_HYSTERESIS_RSSI);
+    detectorObj.beginSweep();
+    final int listSize = graphScanEntriesList.size();
+    ScanItemBarEntry entryObj;
+    for(int idx=0; idx<listSize; ++idx)
+    {  //for each entry in list
+      entryObj = graphScanEntriesList.get(idx);
+      detectorObj.addBin(entryObj.getFreqVal(),entryObj.getRssiVal());
+    }
+    detectorObj.endSweep();
+  }
+
   /**
    * Invokes 'markPeaksInScanEntriesList()' and updates the graph, using a
    * worker thread.
    */
   private void doMarkPeaksAndUpdateGraph()
   {
-    (new Thread(new Runnable()
+    AppScheduler.getAppScheduler().execute("doMarkPeaksAndUpdateGraph",new Runnable()
         {
           @Override
           public void run()
@@ -589,14 +877,14 @@ public class GraphScanFragment extends Fragment
             try
             {
               markPeaksInScanEntriesList();
-              graphScanBarChartObj.postInvalidate();
+              graphScanSpectrumViewObj.postInvalidate();
             }
             catch(Exception ex)
             {  //some kind of exception error; log it
               Log.e(LOG_TAG, "Exception in 'doMarkPeaksAndUpdateGraph()' worker", ex);
             }
           }
-        }, "doMarkPeaksAndUpdateGraph")).start();
+        });
   }
 
   /**
@@ -613,8 +901,8 @@ public class GraphScanFragment extends Fragment
   private void doValuesButtonAction()
   {
     graphScanValuesButtonObj.setEnabled(false);  //disable button while preparing/showing dialog
-    (new Thread("valuesButtonAction")
-        {          //use separate thread (because 'pauseThread()' can take time)
+    graphActionsLaneObj.execute("valuesButtonAction",new Runnable()
+        {          //use background task (because 'pauseThread()' can take time)
           public void run()
           {
             try
@@ -655,7 +943,7 @@ public class GraphScanFragment extends Fragment
               Log.e(LOG_TAG, "Exception in 'doValuesButtonAction()'", ex);
             }
           }
-        }).start();
+        });
   }
 
   /**
@@ -691,8 +979,8 @@ public class GraphScanFragment extends Fragment
       if(!graphScanPausedFlag)
       {  //data-scan thread is currently running
         graphScanPausedFlag = true;
-        (new Thread("pauseButtonAction")
-            {           //use separate thread (because 'pauseThread()' can take time)
+        graphActionsLaneObj.execute("pauseButtonAction",new Runnable()
+            {           //use background task (because 'pauseThread()' can take time)
               public void run()
               {
                 try
@@ -706,7 +994,7 @@ public class GraphScanFragment extends Fragment
                   Log.e(LOG_TAG, "Exception in 'setGraphScanDataThreadState()' post", ex);
                 }
               }
-            }).start();
+            });
       }
       if(graphScanPauseButtonObj != null)   //set button name to "Resume"
         graphScanPauseButtonObj.setText(R.string.resumegraph_button_name);
@@ -762,16 +1050,13 @@ public class GraphScanFragment extends Fragment
   }
 
   /**
-   * Finds the item from the 'graphScanEntriesList' with the highest
-   * RSSI value and displays it in the status text view.  This method
-   * should only be used while the graph-data-scan thread is paused or
-   * between updates.
-   * @return The frequency value for the found/displayed item, or 0
-   * if none found.
+   * Displays the given item from the 'graphScanEntriesList' (the item
+   * with the highest RSSI value) in the status text view.
+   * @param idx index into 'graphScanEntriesList' for item.
+   * @return The frequency value for the displayed item, or 0 if none.
    */
-  private int showPeakChanInStatusTextView()
+  private int showPeakChanInStatusTextView(int idx)
   {
-    final int idx = findHighestRssiScanItem();
     final ScanItemBarEntry itemObj;
     if((itemObj=entriesListIdxToScanItem(idx)) != null)
     {
@@ -791,28 +1076,10 @@ public class GraphScanFragment extends Fragment
   {
     try
     {
-      final int listSize;
-      if((listSize=graphScanEntriesList.size()) > 0)
-      {  //list not empty
-        int maxItemIdx = 0;
-        int maxItemRssiVal = ((ScanItemBarEntry)graphScanEntriesList.get(0)).getRssiVal();
-        for(int idx=1; idx<listSize; ++idx)
-        {  //for each item in list
-          if(((ScanItemBarEntry)graphScanEntriesList.get(idx)).getRssiVal() > maxItemRssiVal)
-          {  //new maximum
-            maxItemIdx = idx;
-            maxItemRssiVal = ((ScanItemBarEntry)graphScanEntriesList.get(idx)).getRssiVal();
-          }
-        }
-        int j = maxItemIdx;       //check if 3+ bars at max level
-        while(j < listSize-1 &&
-                ((ScanItemBarEntry)graphScanEntriesList.get(j+1)).getRssiVal() == maxItemRssiVal)
-        {
-          ++j;
-        }
-        if((j=j-maxItemIdx) >= 3)      //if 3+ bars at max level then
-          maxItemIdx += j / 2;         //select center bar
-        return maxItemIdx;
+      synchronized(listPeakDetectorObj)
+      {
+        runPeakDetectorOverEntriesList();
+        return listPeakDetectorObj.getMaxRssiBinIdx();
       }
     }
     catch(Exception ex)
@@ -830,7 +1097,7 @@ public class GraphScanFragment extends Fragment
   private ScanItemBarEntry entriesListIdxToScanItem(int idx)
   {
     return (idx >= 0 && idx < graphScanEntriesList.size()) ?
-                     (ScanItemBarEntry)graphScanEntriesList.get(idx) : null;
+                     graphScanEntriesList.get(idx) : null;
   }
 
   /**
@@ -859,7 +1126,7 @@ public class GraphScanFragment extends Fragment
       final int listSize = graphScanEntriesList.size();
       for(int idx=0; idx<listSize; ++idx)
       {  //for each entry in list; check if frequency matches
-        if(((ScanItemBarEntry)graphScanEntriesList.get(idx)).getFreqVal() == freqVal)
+        if(graphScanEntriesList.get(idx).getFreqVal() == freqVal)
           return idx;
       }
     }
@@ -906,13 +1173,14 @@ public class GraphScanFragment extends Fragment
   }
 
   /**
-   * Sets the highlighted bar and posts an update to the graph.
+   * Sets the highlighted bar and requests an update to the graph.
    * @param xVal X-axis (frequency) value for bar entry to be highlighted, or -1 for none.
    */
   private void setHighlightBarAndUpdateGraph(int xVal)
   {
     graphScanLastHighlightFreqVal = xVal;        //track highlighted freq / bar
-    widgetUpdateHandlerObj.obtainMessage(UPD_HIGHLIGHT_MSG,xVal,0).sendToTarget();
+    pendingHighlightFreqVal.set(xVal);
+    graphFrameSchedulerObj.requestUpdate();
   }
 
   /**
@@ -935,13 +1203,6 @@ public class GraphScanFragment extends Fragment
               {
                 switch(msgObj.what)
                 {
-                  case UPD_HIGHLIGHT_MSG:       //update highlighted bar on graph
-                    if(msgObj.arg1 > 0)     //value is valid
-                      graphScanBarChartObj.highlightValue(msgObj.arg1,0,false);
-                    else                    //value not valid; clear highlight
-                      graphScanBarChartObj.highlightValue(0,-1,false);
-                             // call to 'highlightValue()' will also invoke 'invalidate()'
-                    break;
                   case UPD_STATUSTEXT_MSG:       //update status text view
                     if(msgObj.obj instanceof String)
                       graphScanStatusTextViewObj.setText((String)msgObj.obj);
@@ -956,109 +1217,6 @@ public class GraphScanFragment extends Fragment
           };
 
 
-  /**
-   * Class SimpleIntAxisValueFormatter defines an axis-value formatter for
-   * integer values.
-   */
-  public static class SimpleIntAxisValueFormatter implements IAxisValueFormatter
-  {
-    @Override
-    public String getFormattedValue(float value, AxisBase axis)
-    {
-      return Integer.toString(Math.round(value));
-    }
-  }
-
-
-  /**
-   * Class SimpleIntValueFormatter defines a value formatter for integer values.
-   */
-  public static class SimpleIntValueFormatter implements IValueFormatter
-  {
-    @Override
-    public String getFormattedValue(float value, Entry entry, int dataSetIndex,
-                                                                 ViewPortHandler viewPortHandler)
-    {
-      return Integer.toString(Math.round(value));
-    }
-  }
-
-  /**
-   * Class GraphScanChartRenderer extends BarChartRenderer to add support
-   * for showing X-axis values above the bars on flagged entries.
-   */
-  private class GraphScanChartRenderer extends BarChartRenderer
-  {
-    /**
-     * Creates a renderer using 'graphScanBarChartObj'.
-     */
-    public GraphScanChartRenderer()
-    {
-      super(graphScanBarChartObj,
-                  graphScanBarChartObj.getAnimator(), graphScanBarChartObj.getViewPortHandler());
-    }
-
-    /**
-     * Code from BarChartRenderer, modified to show X-axis values above
-     * the bars on flagged entries.
-     * @param canvasObj target canvas to draw on.
-     */
-    @Override
-    public void drawValues(Canvas canvasObj)
-    {
-      List<IBarDataSet> dataSets = mChart.getBarData().getDataSets();
-      final float valueOffsetPlus = Utils.convertDpToPixel(4.5f);
-      float posOffset = 0f;
-      float negOffset = 0f;
-      boolean drawValueAboveBar = mChart.isDrawValueAboveBarEnabled();
-      for(int i = 0; i < mChart.getBarData().getDataSetCount(); i++)
-      {
-        IBarDataSet dataSet = dataSets.get(i);
-        if(!shouldDrawValues(dataSet))
-          continue;
-        // apply the text-styling defined by the DataSet
-        applyValueTextStyle(dataSet);
-        boolean isInverted = mChart.isInverted(dataSet.getAxisDependency());
-        // calculate the correct offset depending on the draw position of the value
-        float valueTextHeight = Utils.calcTextHeight(mValuePaint, "8");
-        posOffset = (drawValueAboveBar ? -valueOffsetPlus : valueTextHeight + valueOffsetPlus);
-        negOffset = (drawValueAboveBar ? valueTextHeight + valueOffsetPlus : -valueOffsetPlus);
-        if(isInverted)
-        {
-          posOffset = -posOffset - valueTextHeight;
-          negOffset = -negOffset - valueTextHeight;
-        }
-        // get the buffer
-        BarBuffer buffer = mBarBuffers[i];
-        final float phaseY = mAnimator.getPhaseY();
-        // if only single values are drawn (sum)
-        if(!dataSet.isStacked())
-        {
-          for(int j = 0; j < buffer.buffer.length * mAnimator.getPhaseX(); j += 4)
-          {
-            float x = (buffer.buffer[j] + buffer.buffer[j + 2]) / 2f;
-            if(!mViewPortHandler.isInBoundsRight(x))
-              break;
-            if(!mViewPortHandler.isInBoundsY(buffer.buffer[j + 1])
-                       || !mViewPortHandler.isInBoundsLeft(x))
-            {
-              continue;
-            }
-            BarEntry entry = dataSet.getEntryForIndex(j / 4);
-            if(entry instanceof ScanItemBarEntry &&
-                                             ((ScanItemBarEntry)entry).getShowFreqAboveBarFlag())
-            {  //show X (frequency) value above bar
-              float val = entry.getX();
-              drawValue(canvasObj, dataSet.getValueFormatter(), val, entry, i, x,
-                    val >= 0 ? (buffer.buffer[j + 1] + posOffset) : (buffer.buffer[j + 3] + negOffset),
-                    dataSet.getValueTextColor(j / 4));
-            }
-          }
-        }
-      }
-    }
-  }
-
   /**
    * Class ReceiverScanDataThread defines a background-worker thread for
    * reading data from the receiver and sending it to the graphing handler.
@@ -1066,6 +1224,12 @@ public class GraphScanFragment extends Fragment
   private class ReceiverScanDataThread extends PausableThread
   {
     private boolean threadPauseOrTerminateFlag = false;
+    private final LineView respLineViewObj =
+                                          new LineView(VidReceiverManager.BUFF_MAX_LINECHARS);
+    private FreqRssiParser freqRssiParserObj = null;
+              //frequencies from last full-band sweep (used for region sweeps):
+    private final int [] fullSweepFreqsArr = new int[MAX_ENTRIESLIST_SIZE];
+    private int fullSweepNumFreqs = 0;
 
     /**
      * Creates a background-worker thread.
@@ -1092,42 +1256,65 @@ public class GraphScanFragment extends Fragment
               //setup minimum count for set of frequencies considered valid:
         final int minFreqsCount = ProgramResources.getProgramResourcesObj().
                                          getFrequencyTableObj().getFreqChanItemsArrLength() / 2;
+        freqRssiParserObj = new FreqRssiParser(
+                                   ProgramResources.getProgramResourcesObj().getFrequencyTableObj());
         vidRecvrMgrObj.pauseReceiverUpdateWorker();   //make sure manager worker is paused
         vidReceiverManagerObj = vidRecvrMgrObj;       //make mgr available to other methods
+        sweepSessionRecorderObj = vidRecvrMgrObj.getSessionRecorderObj();
         waitForNotify(100);
-        String respStr;
         boolean errFlag = false;
         int freqVal, freqCount;
+        long windowVal;
         while(!isTerminated())
-        {  //for each iteration of "XF" command and response
-//          System.out.println("DEBUG ReceiverScanDataThread sending XF");
-          vidRecvrMgrObj.outputFullBandScanCommand();      //send "XF" command
-          updateNextGraphEntry(0,0,null);        //make sure at start of graph
-          freqCount = 0;                         //initialize count for freq set
-          while(true)
-          {  //for each "freqCC=rssi" line received
-            if((respStr=vidRecvrMgrObj.getNextReceivedLine(
-                                                   VidReceiverManager.RESP_WAIT_TIMEMS)) == null)
-            {  //error fetching line
-              errFlag = true;
-              break;
-            }
-//            System.out.println("DEBUG ReceiverScanDataThread " + respStr);
-            if((freqVal=parseFreqRssiAndDoUpdate(respStr)) < 0)
-            {  //error parsing line
-              errFlag = true;
-              break;
-            }
-            if(freqVal == 0)
-            {  //data line "0=0" received (end of data set)
-              if(freqCount < minFreqsCount)      //if not enough received then
-                errFlag = true;                  //set error to clear buffer, etc
-              break;              //exit inner loop (end of set)
-            }
-            ++freqCount;                    //increment count for freq set
-            if(threadPauseOrTerminateFlag)
-            {  //thread is pausing or terminating; send CR to abort rest of scan
-              vidRecvrMgrObj.transmitCarriageReturn();
+        {  //for each sweep (iteration of "XF" command and response, or region sweep)
+          if((windowVal=regionSweepWindowVal) != 0L && fullSweepNumFreqs > 0)
+          {  //graph is zoomed to a region; sweep only the bins inside it
+            errFlag = !doRegionSweep(vidRecvrMgrObj,(int)(windowVal >>> 32),(int)windowVal);
+          }
+          else
+          {
+//            System.out.println("DEBUG ReceiverScanDataThread sending XF");
+            vidRecvrMgrObj.outputFullBandScanCommand();      //send "XF" command
+            beginGraphScanFrame();                 //start new frame of graph values
+            freqCount = 0;                         //initialize count for freq set
+            while(true)
+            {  //for each "freqCC=rssi" line received
+              if(!vidRecvrMgrObj.getNextReceivedLine(respLineViewObj,
+                                                            VidReceiverManager.RESP_WAIT_TIMEMS))
+              {  //error fetching line
+                errFlag = true;
+                break;
+              }
+//              System.out.println("DEBUG ReceiverScanDataThread " + respLineViewObj);
+              if((freqVal=parseFreqRssiAndDoUpdate(respLineViewObj)) < 0)
+              {  //error parsing line
+                errFlag = true;
+                break;
+              }
+              if(freqVal == 0)
+              {  //data line "0=0" received (end of data set)
+                endGraphScanFrame();               //publish complete frame of values
+                if(freqCount < minFreqsCount)      //if not enough received then
+                  errFlag = true;                  //set error to clear buffer, etc
+                else
+                {  //complete set received
+                  fullSweepNumFreqs = Math.min(freqCount,fullSweepFreqsArr.length);
+                  if(!threadPauseOrTerminateFlag && occupancySweepNumVals > 0)
+                  {  //sweep not aborted; enter values into channel-occupancy stats
+                    vidRecvrMgrObj.enterOccupancySweep(occupancySweepFreqsArr,
+                                               occupancySweepRssiArr,occupancySweepNumVals);
+                  }
+                }
+                occupancySweepNumVals = -1;
+                break;              //exit inner loop (end of set)
+              }
+              if(freqCount < fullSweepFreqsArr.length)
+                fullSweepFreqsArr[freqCount] = freqVal;     //track freqs for region sweeps
+              ++freqCount;                    //increment count for freq set
+              if(threadPauseOrTerminateFlag)
+              {  //thread is pausing or terminating; send CR to abort rest of scan
+                vidRecvrMgrObj.transmitCarriageReturn();
+              }
             }
           }
           if(errFlag)
@@ -1192,34 +1379,60 @@ public class GraphScanFragment extends Fragment
     }
 
     /**
-     * Parses frequency and RSSI values from the given string and sends them
-     * as a graph update.
-     * @param respStr response string, "freqCC=rssi".
-     * @return Parsed frequency value if successful; -1 if parsing error.
+     * Performs a phone-driven sweep of the bins (from the last full-band
+     * sweep) inside the given frequency window, tuning the receiver to each
+     * bin and querying its RSSI.  The receiver firmware has no command for
+     * sweeping a region, so the "T" and "~" commands are used.  The sweep
+     * is abandoned (without error) if the thread is pausing or terminating.
+     * @param vidRecvrMgrObj video-receiver manager.
+     * @param lowFreqVal lowest frequency value in window.
+     * @param highFreqVal highest frequency value in window.
+     * @return true if successful; false if error.
      */
-    private int parseFreqRssiAndDoUpdate(String respStr)
+    private boolean doRegionSweep(VidReceiverManager vidRecvrMgrObj, int lowFreqVal,
+                                                                         int highFreqVal)
     {
-      try
-      {       //parse "freqCC=rssi" response
-        if(respStr.startsWith(">"))         //ignore any leading '>' prompt
-          respStr = respStr.substring(1);
-        respStr = respStr.trim();           //remove leading space
-        final int p;
-        if((p=respStr.indexOf('=')) > 0)
-        {  //length of response OK; parse digits as frequency (max of 4)
-          final int freqVal = Integer.parseInt(respStr.substring(0, ((p<4) ? p : 4)));
-          final String chCodeStr = (p >= 6) ? respStr.substring(4,6) : null;
-          int q;             //check for trailing space
-          if((q=respStr.indexOf(' ',p+1)) < 0)
-            q = respStr.length();      //if no trailing space then end of string
-          final int rssiVal = Integer.parseInt(respStr.substring(p+1,q));
-                             //send values as graph update:
-          updateNextGraphEntry(freqVal,rssiVal,chCodeStr);
-          return freqVal;    //indicate success
+      int firstIdx = 0;
+      while(firstIdx < fullSweepNumFreqs && fullSweepFreqsArr[firstIdx] < lowFreqVal)
+        ++firstIdx;
+      int endIdx = firstIdx;
+      while(endIdx < fullSweepNumFreqs && fullSweepFreqsArr[endIdx] <= highFreqVal)
+        ++endIdx;
+      if(endIdx <= firstIdx)
+      {  //no bins inside window
+        waitForNotify(100);
+        return true;
+      }
+      beginGraphScanRegionFrame(firstIdx);       //start new frame of graph values
+      for(int idx=firstIdx; idx<endIdx; ++idx)
+      {  //for each bin inside window; tune to it and get "freqCC=rssi" response
+        if(threadPauseOrTerminateFlag)
+          return true;
+        if(!vidRecvrMgrObj.outputTuneReportRssiCommand(fullSweepFreqsArr[idx],respLineViewObj) ||
+                                                parseFreqRssiAndDoUpdate(respLineViewObj) <= 0)
+        {  //error fetching or parsing response
+          return false;
         }
       }
-      catch(NumberFormatException ex)
-      {  //error parsing; return -1 for error
+      endGraphScanFrame();                       //publish complete frame of values
+      return true;
+    }
+
+    /**
+     * Parses frequency and RSSI values from the given line and enters them
+     * into the frame of graph values.
+     * @param respSeq response line, "freqCC=rssi".
+     * @return Parsed frequency value if successful; -1 if parsing error.
+     */
+    private int parseFreqRssiAndDoUpdate(CharSequence respSeq)
+    {
+      final FreqRssiParser parserObj = freqRssiParserObj;
+      if(parserObj.parseFreqChanRssi(respSeq,1))
+      {  //"freqCC=rssi" response parsed OK; enter values for graph update
+        final int freqVal = parserObj.getFreqVal();
+        if(freqVal > 0)
+          putGraphScanEntry(freqVal,parserObj.getRssiVal(),parserObj.getChanCodeStr());
+        return freqVal;      //indicate success
       }
       return -1;
     }
@@ -1232,22 +1445,23 @@ public class GraphScanFragment extends Fragment
       final int numTestFreqs = graphScanEntriesList.size();
          //create array of frequency-scan items for test output:
       final ScanItemBarEntry [] testEntriesArr = new ScanItemBarEntry[numTestFreqs];
-      graphScanEntriesList.toArray((BarEntry[])testEntriesArr);
+      graphScanEntriesList.toArray(testEntriesArr);
       int rssiVal, curSignalIdx = 0;
       waitForNotify(100);         //do initial delay (in case graph needs to setup)
       while(!isTerminated())
       {  //for each simulated "signal" frequency (while thread not terminated)
+        beginGraphScanFrame();                   //start new frame of graph values
         for(int updIdx=0; updIdx<numTestFreqs; ++updIdx)
         {  //for each frequency-scan item in array
                    //generate test value using index of frequency vs "signal" frequency
           rssiVal = Math.abs(50 - Math.abs(updIdx-curSignalIdx)*2);
-          updateNextGraphEntry(testEntriesArr[updIdx].getFreqVal(),rssiVal,
+          putGraphScanEntry(testEntriesArr[updIdx].getFreqVal(),rssiVal,
                                                         testEntriesArr[updIdx].getChanCodeStr());
           waitForNotify(5);
           if(isTerminated())
             return;
         }
-        updateNextGraphEntry(0,0,null);          //indicate end of set
+        endGraphScanFrame();                     //indicate end of set
         if(++curSignalIdx >= numTestFreqs)       //increment "signal" frequency
           curSignalIdx = 0;                      // (with wrap-around)
         waitForNotify(100);
@@ -1260,10 +1474,12 @@ public class GraphScanFragment extends Fragment
    * Defines a bar-graph entry item for frequency/RSSI-scan values.  An array of
    * ScanItemBarEntry objects may be handled like an array of String objects.
    */
-  public static class ScanItemBarEntry extends BarEntry implements CharSequence
+  public static class ScanItemBarEntry implements CharSequence
   {
+    private int freqValue;
+    private int rssiValue;
+    private String chanCodeString;
     protected String displayString;
-    private boolean showFreqAboveBarFlag = false;
     protected boolean dataModifiedFlag = true;
     private float codeFreqFieldWidth = 0.0f, rssiValFieldWidth = 0.0f;
 
@@ -1275,7 +1491,9 @@ public class GraphScanFragment extends Fragment
      */
     public ScanItemBarEntry(int freqVal, int rssiVal, String chanCodeStr)
     {
-      super((float)freqVal,(float)rssiVal,chanCodeStr);
+      freqValue = freqVal;
+      rssiValue = rssiVal;
+      chanCodeString = chanCodeStr;
     }
 
     /**
@@ -1288,7 +1506,8 @@ public class GraphScanFragment extends Fragment
         codeFreqFieldWidth = GuiUtils.measureTextViaUtilPaint("mm ");
       if(rssiValFieldWidth <= 0.0f)
         rssiValFieldWidth = GuiUtils.measureTextViaUtilPaint("100");
-      final Object codeStr = (getData()!=null)?(getData()+" "):"";     //pad string for chan-code column:
+                                            //pad string for chan-code column:
+      final Object codeStr = (chanCodeString!=null)?(chanCodeString+" "):"";
       final String codeFreqPadStr = GuiUtils.getFillerStr(codeFreqFieldWidth,codeStr);
       final int rssiVal = getRssiVal();     //pad string for RSSI-value column:
       final String rssiValStr = Integer.toString(rssiVal);
@@ -1310,40 +1529,11 @@ public class GraphScanFragment extends Fragment
      */
     public void setFreqVal(int freqVal)
     {
-      setX(freqVal);
-    }
-
-    /**
-     * Sets the X (frequency) value for this entry item.
-     * @param val X value for item.
-     */
-    @Override
-    public void setX(float val)
-    {
-      super.setX(val);
-      dataModifiedFlag = true;         //indicate need to update 'displayString'
-    }
-
-    /**
-     * Sets the Y (RSSI) value for this entry item.
-     * @param val Y value for item.
-     */
-    @Override
-    public void setY(float val)
-    {
-      super.setY(val);
-      dataModifiedFlag = true;         //indicate need to update 'displayString'
-    }
-
-    /**
-     * Sets the data obj (channel-code string) for this entry item.
-     * @param obj data object for item.
-     */
-    @Override
-    public void setData(Object obj)
-    {
-      super.setData(obj);
-      dataModifiedFlag = true;         //indicate need to update 'displayString'
+      if(freqVal != freqValue)
+      {
+        freqValue = freqVal;
+        dataModifiedFlag = true;       //indicate need to update 'displayString'
+      }
     }
 
     /**
@@ -1352,7 +1542,7 @@ public class GraphScanFragment extends Fragment
      */
     public int getFreqVal()
     {
-      return Math.round(getX());
+      return freqValue;
     }
 
     /**
@@ -1361,7 +1551,11 @@ public class GraphScanFragment extends Fragment
      */
     public void setRssiVal(int rssiVal)
     {
-      setY(rssiVal);
+      if(rssiVal != rssiValue)
+      {
+        rssiValue = rssiVal;
+        dataModifiedFlag = true;       //indicate need to update 'displayString'
+      }
     }
 
     /**
@@ -1370,7 +1564,7 @@ public class GraphScanFragment extends Fragment
      */
     public int getRssiVal()
     {
-      return Math.round(getY());
+      return rssiValue;
     }
 
     /**
@@ -1379,7 +1573,8 @@ public class GraphScanFragment extends Fragment
      */
     public void setChanCodeStr(String chanCodeStr)
     {
-      setData(chanCodeStr);
+      chanCodeString = chanCodeStr;
+      dataModifiedFlag = true;         //indicate need to update 'displayString'
     }
 
     /**
@@ -1388,27 +1583,7 @@ public class GraphScanFragment extends Fragment
      */
     public String getChanCodeStr()
     {
-      return (getData() instanceof String) ? (String)getData() : null;
-    }
-
-    /**
-     * Sets the value for the flag determining whether or not the frequency
-     * value should be shown above the bar on the graph.
-     * @param flagVal true to show the value; false to not show the value.
-     */
-    public void setShowFreqAboveBarFlag(boolean flagVal)
-    {
-      showFreqAboveBarFlag = flagVal;
-    }
-
-    /**
-     * Returns the value for the flag determining whether or not the frequency
-     * value should be shown above the bar on the graph.
-     * @return true to show the value; false to not show the value.
-     */
-    public boolean getShowFreqAboveBarFlag()
-    {
-      return showFreqAboveBarFlag;
+      return chanCodeString;
     }
 
     /**
@@ -6,13 +6,16 @@
 package com.etheli.arduvidrx.app;
 
 import android.app.Activity;
+import android.app.AlertDialog;
 import android.app.Dialog;
 import android.app.Fragment;
 import android.app.FragmentManager;
 import android.app.FragmentTransaction;
+import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.os.Environment;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
@@ -23,14 +26,33 @@ import android.view.MenuItem;
 import android.view.MotionEvent;
 import android.view.View;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.Toast;
 
 import com.etheli.arduvidrx.R;
 import com.etheli.arduvidrx.bt.BluetoothSerialService;
 import com.etheli.arduvidrx.rec.FrequencyTable;
+import com.etheli.arduvidrx.rec.ReceiverSettingsCache;
+import com.etheli.arduvidrx.rec.SessionRecorder;
 import com.etheli.arduvidrx.rec.VidReceiverManager;
+import com.etheli.arduvidrx.sim.SimulatedRfEnvironment;
+import com.etheli.arduvidrx.sim.SimulatorSocketServer;
+import com.etheli.arduvidrx.transport.NioStreamTransport;
+import com.etheli.arduvidrx.transport.PtySerialTransport;
+import com.etheli.arduvidrx.transport.ReplaySerialTransport;
+import com.etheli.arduvidrx.transport.SerialTransport;
+import com.etheli.arduvidrx.transport.SerialTransportHolder;
+import com.etheli.arduvidrx.transport.TcpSerialTransport;
+import com.etheli.arduvidrx.transport.TransportStateListener;
+import com.etheli.util.AppScheduler;
 import com.etheli.util.DataWriteReceiver;
+import com.etheli.util.RawStreamCapture;
+import com.etheli.util.StreamReplayer;
 import com.etheli.util.SwipeGestureDispatcher;
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 
 /**
  * Class MainActivity defines the main activity for the ArduVidRx Controller.
@@ -45,17 +67,36 @@ public class MainActivity extends Activity
   public static final String LAST_BTDEV_NAME = "last_btdev_name";
     /** SharedPreferences key for last-connected bluetooth device MAC address. */
   public static final String LAST_BTDEV_ADDRESS = "last_btdev_address";
+    /** SharedPreferences key for last-connected network device ("host:port" or path). */
+  public static final String LAST_NETDEV_ADDRESS = "last_netdev_address";
+    /** Default port number for network devices. */
+  public static final int DEF_NETDEV_PORT = 23;
+    /** Value for 'arg2' on handler messages from non-Bluetooth transports. */
+  public static final int TRANSPORT_MSG_ARG2 = 1;
+    /** Name for SharedPreferences access to receiver-settings cache. */
+  public static final String SETTINGS_CACHE_PREFS_NAME = "ArduVidRxSettingsCache";
+    /** Name of file (in app-files directory) for channel-occupancy statistics. */
+  public static final String OCCUPANCY_FILE_NAME = "chan_occupancy.dat";
+    /** Speed factors for replay (must match 'entries_replay_speed' array). */
+  public static final float [] REPLAY_SPEEDS_ARR = { 1.0f, 4.0f, 10.0f,
+                                                          StreamReplayer.MAX_SPEED_FACTOR };
+    /** Lane for starting/stopping recording and capture (file open/close off UI thread). */
+  private static final AppScheduler.SerialLane recordingIoLaneObj =
+                                   AppScheduler.getAppScheduler().createSerialLane("recordingIo");
 
   private final ProgramResources programResourcesObj = ProgramResources.getProgramResourcesObj();
   private final FrequencyTable videoFrequencyTableObj = new FrequencyTable();
   private final SwipeGestureDispatcher swipeGestureDispatcherObj =  new SwipeGestureDispatcher();
   private View fragementContainerViewObj = null;
   private BluetoothSerialService bluetoothSerialServiceObj = null;
+  private SerialTransportHolder serialTransportHolderObj = null;
+  private SimulatorSocketServer simulatorServerObj = null;
   private VidReceiverManager vidReceiverManagerObj = null;
   private ConnectFragment connectFragmentObj = null;
   private int bluetoothSerServiceState = BluetoothSerialService.STATE_NONE;
   private String lastDeviceNameString = null;
   private String lastDeviceAddressString = null;
+  private String lastNetDeviceString = null;
 
   /**
    * Called when the activity is starting.
@@ -71,17 +112,29 @@ public class MainActivity extends Activity
     setContentView(R.layout.fragment_container);      //show content frame
 
     if((bluetoothSerialServiceObj=programResourcesObj.getBluetoothSerialServiceObj()) == null ||
+             (serialTransportHolderObj=programResourcesObj.getSerialTransportHolderObj()) == null ||
                   (vidReceiverManagerObj=programResourcesObj.getVidReceiverManagerObj()) == null)
     {  //resources not created via previous instance; create them now
       bluetoothSerialServiceObj = new BluetoothSerialService(
                                                   this,bluetoothHandlerObj,bluetoothWriteRecObj);
       programResourcesObj.setBluetoothSerialServiceObj(bluetoothSerialServiceObj);
-      vidReceiverManagerObj = new VidReceiverManager(bluetoothSerialServiceObj);
+              //holder uses Bluetooth unless another transport is selected:
+      serialTransportHolderObj = new SerialTransportHolder(bluetoothSerialServiceObj);
+      programResourcesObj.setSerialTransportHolderObj(serialTransportHolderObj);
+      vidReceiverManagerObj = new VidReceiverManager(serialTransportHolderObj);
       programResourcesObj.setVidReceiverManagerObj(vidReceiverManagerObj);
+              //load channel-occupancy statistics from past sessions:
+      vidReceiverManagerObj.setOccupancyStoreFileObj(new File(getFilesDir(),OCCUPANCY_FILE_NAME));
+              //cache receiver settings per device/firmware (skips fetch at startup):
+      vidReceiverManagerObj.setSettingsCacheObj(new ReceiverSettingsCache(
+                new PrefsSettingsEntryStore(getSharedPreferences(SETTINGS_CACHE_PREFS_NAME,0))));
       programResourcesObj.setFrequencyTableObj(videoFrequencyTableObj);
       setupTerminalStartupAction();    //setup startup action for terminal
                                        //setup action to be invoked when connection stopped:
       bluetoothSerialServiceObj.setConnectionStopActionObj(bluetoothConnStopActionObj);
+                                       //pass data read to capture object (if started):
+      bluetoothSerialServiceObj.setRawStreamCaptureObj(
+                                              programResourcesObj.getRawStreamCaptureObj());
     }
     else if(!programResourcesObj.isTerminalActive())  //if not resuming after terminal activity
       ensureConnectionClosed();             //make sure connection not stuck
@@ -131,6 +184,35 @@ public class MainActivity extends Activity
   @Override
   public void onDestroy()
   {
+    if(!programResourcesObj.isTerminalActive())
+    {  //terminal not running; stop session recording, disconnect any other transport
+       // and stop simulator
+      final SessionRecorder recorderObj = (vidReceiverManagerObj != null) ?
+                                          vidReceiverManagerObj.getSessionRecorderObj() : null;
+      final RawStreamCapture captureObj = programResourcesObj.getRawStreamCaptureObj();
+      recordingIoLaneObj.execute("stopRecordingOnDestroy",new Runnable()
+          {     //stop recording and capture via lane (waits for files to be closed)
+            @Override
+            public void run()
+            {
+              if(recorderObj != null)
+                recorderObj.stopRecording();
+              captureObj.stopCapture();
+            }
+          });
+      if(vidReceiverManagerObj != null)
+        vidReceiverManagerObj.saveOccupancyStore();
+      final StreamReplayer replayerObj;
+      if((replayerObj=programResourcesObj.getStreamReplayerObj()) != null)
+        replayerObj.stopReplay();
+      if(serialTransportHolderObj != null)
+        serialTransportHolderObj.disconnectActiveTransport();
+      if(simulatorServerObj != null)
+      {
+        simulatorServerObj.stopServer();
+        simulatorServerObj = null;
+      }
+    }
     if(bluetoothSerialServiceObj != null)
     {
       if(!programResourcesObj.isTerminalActive())     //if terminal not running then
@@ -138,6 +220,7 @@ public class MainActivity extends Activity
       bluetoothSerialServiceObj.clearDestinationObjects(   //release objects for this instance
                                                        bluetoothHandlerObj,bluetoothWriteRecObj);
     }
+    Log.d(LOG_TAG, "Background tasks:  " + AppScheduler.getAppScheduler().getStatusStr());
     super.onDestroy();
   }
 
@@ -154,6 +237,38 @@ public class MainActivity extends Activity
     return true;
   }
 
+  /**
+   * Prepares the options menu to be displayed (updates the title of the
+   * session-recording item).
+   * @param menu Menu: The options menu as last shown or first initialized.
+   * @return true (for the menu to be displayed).
+   */
+  @Override
+  public boolean onPrepareOptionsMenu(Menu menu)
+  {
+    MenuItem itemObj;
+    if((itemObj=menu.findItem(R.id.menu_session_record)) != null &&
+                                                                vidReceiverManagerObj != null)
+    {  //menu item found OK; set title for current recording state
+      itemObj.setTitle(vidReceiverManagerObj.getSessionRecorderObj().isRecording() ?
+                          R.string.menu_stop_session_rec : R.string.menu_start_session_rec);
+    }
+    if((itemObj=menu.findItem(R.id.menu_stream_capture)) != null)
+    {  //menu item found OK; set title for current capture state
+      itemObj.setTitle(programResourcesObj.getRawStreamCaptureObj().isCapturing() ?
+                    R.string.menu_stop_stream_capture : R.string.menu_start_stream_capture);
+    }
+    if((itemObj=menu.findItem(R.id.menu_replay_capture)) != null)
+    {  //menu item found OK; set title for current replay state
+      final StreamReplayer replayerObj = programResourcesObj.getStreamReplayerObj();
+      itemObj.setTitle(((replayerObj != null && replayerObj.isReplaying()) ||
+                          serialTransportHolderObj.getActiveTransportObj() instanceof
+                                                                     ReplaySerialTransport) ?
+                                      R.string.menu_stop_replay : R.string.menu_replay_capture);
+    }
+    return super.onPrepareOptionsMenu(menu);
+  }
+
   /**
    * Hook called when an item in the options menu is selected.
    * @param item MenuItem: The menu item that was selected.
@@ -164,6 +279,27 @@ public class MainActivity extends Activity
   {
     switch(item.getItemId())
     {
+      case R.id.menu_connect_net:
+        showConnectNetDeviceDialog();
+        return true;
+      case R.id.menu_simulator:
+        connectSimulatedReceiver();
+        return true;
+      case R.id.menu_session_record:
+        toggleSessionRecording();
+        return true;
+      case R.id.menu_stream_capture:
+        toggleStreamCapture();
+        return true;
+      case R.id.menu_replay_capture:
+        final StreamReplayer replayerObj = programResourcesObj.getStreamReplayerObj();
+        if(serialTransportHolderObj.getActiveTransportObj() instanceof ReplaySerialTransport)
+          serialTransportHolderObj.disconnectActiveTransport();   //end offline replay
+        else if(replayerObj != null && replayerObj.isReplaying())
+          replayerObj.stopReplay();            //replay in progress; stop it
+        else
+          showReplayCaptureDialog();
+        return true;
       case R.id.menu_about:
         showAboutDialog();
         return true;
@@ -171,6 +307,393 @@ public class MainActivity extends Activity
     return false;
   }
 
+  /**
+   * Displays a dialog for entering the address of a network device
+   * ("host:port") or the path of a local device file, and connects to it.
+   */
+  private void showConnectNetDeviceDialog()
+  {
+    final EditText editTextObj = new EditText(this);
+    editTextObj.setSingleLine(true);
+    if(lastNetDeviceString != null)
+      editTextObj.setText(lastNetDeviceString);
+    new AlertDialog.Builder(this).setTitle(R.string.dialog_title_connect_net).
+        setView(editTextObj).
+        setPositiveButton(R.string.alert_dialog_ok, new DialogInterface.OnClickListener()
+          {
+            @Override
+            public void onClick(DialogInterface dialog, int which)
+            {
+              connectNetDevice(editTextObj.getText().toString().trim());
+            }
+          }).
+        setNegativeButton(R.string.alert_dialog_cancel,null).show();
+  }
+
+  /**
+   * Connects to a network device or local device file.
+   * @param addrStr "host:port" (or "host" for the default port) for a
+   * network device, or a path (i.e., "/dev/pts/3") for a device file.
+   */
+  private void connectNetDevice(String addrStr)
+  {
+    if(addrStr.length() <= 0)
+      return;
+    final SerialTransport transportObj;
+    if(addrStr.startsWith("/"))
+      transportObj = new PtySerialTransport(addrStr);
+    else
+    {  //network device
+      final int p;
+      int portNum = DEF_NETDEV_PORT;
+      String hostStr = addrStr;
+      if((p=addrStr.lastIndexOf(':')) > 0)
+      {  //port number given
+        try
+        {
+          portNum = Integer.parseInt(addrStr.substring(p+1).trim());
+          hostStr = addrStr.substring(0,p).trim();
+        }
+        catch(NumberFormatException ex)
+        {  //unable to parse port number
+          Toast.makeText(getApplicationContext(), getString(R.string.msg_invalid_netdev) +
+                                                   " " + addrStr, Toast.LENGTH_SHORT).show();
+          return;
+        }
+      }
+      transportObj = new TcpSerialTransport(hostStr,portNum);
+    }
+    lastNetDeviceString = addrStr;
+    saveDevPersistentSettings();
+    connectSerialTransport(transportObj);
+  }
+
+  /**
+   * Connects to a simulated receiver, served via a TCP socket on the
+   * loopback interface.
+   */
+  private void connectSimulatedReceiver()
+  {
+    try
+    {
+      if(simulatorServerObj == null)
+      {  //simulator server not yet started; start it now
+        simulatorServerObj = new SimulatorSocketServer(0,
+                 SimulatedRfEnvironment.createDefaultEnvironment(System.currentTimeMillis()),
+                                                                    videoFrequencyTableObj);
+        simulatorServerObj.startServer();
+      }
+      connectSerialTransport(new TcpSerialTransport(
+                                            "127.0.0.1",simulatorServerObj.getPortNumber()));
+    }
+    catch(Exception ex)
+    {  //some kind of exception error; log it
+      Log.e(LOG_TAG, "Exception starting simulated receiver", ex);
+      simulatorServerObj = null;
+    }
+  }
+
+  /**
+   * Starts session recording (of channel/RSSI reports and graph sweeps) to
+   * a new file on external storage, or stops it if in progress.  The file
+   * is opened (or the writer thread is waited on) via the recording-I/O
+   * lane, and the result is shown via the UI thread.
+   */
+  private void toggleSessionRecording()
+  {
+    final SessionRecorder recorderObj = vidReceiverManagerObj.getSessionRecorderObj();
+    final File fileObj = new File(Environment.getExternalStorageDirectory(),
+                           "arduvidrx_" + (new SimpleDateFormat("yyyyMMdd_HHmmss")).format(
+                                                                  new Date()) + ".avrs");
+    recordingIoLaneObj.execute("toggleSessionRecording",new Runnable()
+        {
+          @Override
+          public void run()
+          {
+            String msgStr;
+            int durationVal = Toast.LENGTH_SHORT;
+            try
+            {
+              if(recorderObj.isRecording())
+              {  //recording in progress; stop it
+                recorderObj.stopRecording();
+                Log.d(LOG_TAG, "Session recording stopped (" + recorderObj.getSessionFileObj() +
+                                                         "):  " + recorderObj.getCountsStr());
+                msgStr = getString(R.string.msg_session_rec_stopped);
+              }
+              else
+              {  //recording not in progress; start it
+                recorderObj.startRecording(fileObj);
+                msgStr = getString(R.string.msg_session_rec_started) + "\n\n" +
+                                                                    fileObj.getAbsolutePath();
+                durationVal = Toast.LENGTH_LONG;
+              }
+            }
+            catch(Exception ex)
+            {  //some kind of exception error; log it and show message
+              Log.e(LOG_TAG, "Exception in toggleSessionRecording()", ex);
+              msgStr = getString(R.string.msg_session_rec_failed);
+            }
+            showToastViaUiThread(msgStr,durationVal);
+          }
+        });
+  }
+
+  /**
+   * Starts capturing the raw data received from the connection to a new
+   * file on external storage, or stops it if in progress.  The file is
+   * opened (or the writer thread is waited on) via the recording-I/O lane,
+   * and the result is shown via the UI thread.
+   */
+  private void toggleStreamCapture()
+  {
+    final RawStreamCapture captureObj = programResourcesObj.getRawStreamCaptureObj();
+    final File fileObj = new File(Environment.getExternalStorageDirectory(),
+                           "arduvidrx_" + (new SimpleDateFormat("yyyyMMdd_HHmmss")).format(
+                                                                  new Date()) + ".avrc");
+    recordingIoLaneObj.execute("toggleStreamCapture",new Runnable()
+        {
+          @Override
+          public void run()
+          {
+            String msgStr;
+            int durationVal = Toast.LENGTH_SHORT;
+            try
+            {
+              if(captureObj.isCapturing())
+              {  //capture in progress; stop it
+                captureObj.stopCapture();
+                Log.d(LOG_TAG, "Raw capture stopped (" + captureObj.getCaptureFileObj() +
+                                                          "):  " + captureObj.getCountsStr());
+                msgStr = getString(R.string.msg_stream_capture_stopped);
+              }
+              else
+              {  //capture not in progress; start it
+                captureObj.startCapture(fileObj);
+                msgStr = getString(R.string.msg_stream_capture_started) + "\n\n" +
+                                                                    fileObj.getAbsolutePath();
+                durationVal = Toast.LENGTH_LONG;
+              }
+            }
+            catch(Exception ex)
+            {  //some kind of exception error; log it and show message
+              Log.e(LOG_TAG, "Exception in toggleStreamCapture()", ex);
+              msgStr = getString(R.string.msg_stream_capture_failed);
+            }
+            showToastViaUiThread(msgStr,durationVal);
+          }
+        });
+  }
+
+  /**
+   * Shows a toast message via the UI thread.  May be called from any
+   * thread.
+   * @param msgStr message to show.
+   * @param durationVal 'Toast.LENGTH_SHORT' or 'Toast.LENGTH_LONG'.
+   */
+  private void showToastViaUiThread(final String msgStr, final int durationVal)
+  {
+    runOnUiThread(new Runnable()
+        {
+          @Override
+          public void run()
+          {
+            Toast.makeText(getApplicationContext(), msgStr, durationVal).show();
+          }
+        });
+  }
+
+  /**
+   * Shows a dialog for selecting the replay speed and then replays the
+   * most recent capture file into the video-receiver manager (as if the
+   * data had been received from the connection).
+   */
+  private void showReplayCaptureDialog()
+  {
+    final File fileObj = findLatestCaptureFile();
+    if(fileObj == null || vidReceiverManagerObj == null)
+    {  //no capture file found
+      Toast.makeText(getApplicationContext(),
+                           getString(R.string.msg_no_capture_file), Toast.LENGTH_SHORT).show();
+      return;
+    }
+    new AlertDialog.Builder(this).setTitle(getString(R.string.dialog_title_replay_speed) +
+                                                            ":  " + fileObj.getName()).
+        setItems(R.array.entries_replay_speed, new DialogInterface.OnClickListener()
+          {
+            @Override
+            public void onClick(DialogInterface dialog, int which)
+            {
+              if(which >= 0 && which < REPLAY_SPEEDS_ARR.length)
+                startCaptureReplay(fileObj,REPLAY_SPEEDS_ARR[which]);
+            }
+          }).
+        setNegativeButton(R.string.alert_dialog_cancel,null).show();
+  }
+
+  /**
+   * Replays the given capture file offline:  a replay transport is made
+   * the active connection, so the operation UI and the video-receiver
+   * manager (in replay mode) are started as for a receiver connection,
+   * and the replay is started once the manager is ready.  When the
+   * replay finishes its throughput and latency statistics are logged
+   * and shown.
+   * @param fileObj capture file.
+   * @param speedVal speed factor (or 'StreamReplayer.MAX_SPEED_FACTOR').
+   */
+  private void startCaptureReplay(final File fileObj, final float speedVal)
+  {
+    if(isReceiverInputActive())
+    {  //connected (or connecting) to receiver or replay running; refuse replay
+         //(replayed data would be a second producer into the receive path)
+      Toast.makeText(getApplicationContext(),
+                         getString(R.string.msg_replay_not_idle), Toast.LENGTH_LONG).show();
+      return;
+    }
+    try
+    {
+      final ReplaySerialTransport transportObj = new ReplaySerialTransport(fileObj,speedVal);
+      transportObj.setCompletionActionObj(new Runnable()
+          {
+            @Override
+            public void run()
+            {
+              final StreamReplayer replayerObj = transportObj.getStreamReplayerObj();
+              Log.i(LOG_TAG, "Replay of " + fileObj.getName() + " (speed=" + speedVal +
+                                                       ") finished:  " + replayerObj.getStatsStr());
+              runOnUiThread(new Runnable()
+                  {
+                    @Override
+                    public void run()
+                    {
+                      Toast.makeText(getApplicationContext(),
+                                        getString(R.string.msg_replay_finished) + "\n\n" +
+                                        replayerObj.getStatsStr(), Toast.LENGTH_LONG).show();
+                    }
+                  });
+            }
+          });
+      connectSerialTransport(transportObj);      //UI and manager started via state change
+      Toast.makeText(getApplicationContext(),
+                            getString(R.string.msg_replay_started), Toast.LENGTH_SHORT).show();
+    }
+    catch(Exception ex)
+    {  //some kind of exception error; log it and show message
+      Log.e(LOG_TAG, "Exception in startCaptureReplay()", ex);
+      Toast.makeText(getApplicationContext(),
+                             getString(R.string.msg_replay_failed), Toast.LENGTH_SHORT).show();
+    }
+  }
+
+  /**
+   * Starts the video-receiver manager in replay mode and then (once the
+   * manager is ready) starts the replay via the given transport.  If the
+   * replay cannot be started then the transport is disconnected.
+   * @param transportObj replay transport.
+   */
+  private void startManagerForReplay(final ReplaySerialTransport transportObj)
+  {
+    programResourcesObj.setStreamReplayerObj(transportObj.getStreamReplayerObj());
+    vidReceiverManagerObj.startManagerForReplay(new Runnable()
+        {
+          @Override
+          public void run()
+          {
+            try
+            {
+              transportObj.startReplay();
+            }
+            catch(IOException ex)
+            {  //unable to start replay; log it, show message and disconnect
+              Log.e(LOG_TAG, "Unable to start replay", ex);
+              runOnUiThread(new Runnable()
+                  {
+                    @Override
+                    public void run()
+                    {
+                      Toast.makeText(getApplicationContext(),
+                             getString(R.string.msg_replay_failed), Toast.LENGTH_SHORT).show();
+                      serialTransportHolderObj.disconnectActiveTransport();
+                    }
+                  });
+            }
+          }
+        });
+  }
+
+  /**
+   * Determines if data is (or may soon be) arriving in the receive path of
+   * the video-receiver manager:  a transport is connected, the Bluetooth
+   * service is connecting or connected, or a replay is running.
+   * @return true if receive-path input is active; false if not.
+   */
+  private boolean isReceiverInputActive()
+  {
+    if(vidReceiverManagerObj != null && vidReceiverManagerObj.isReceiverSerialConnected())
+      return true;
+    final int btState;
+    if(bluetoothSerialServiceObj != null &&
+                       ((btState=bluetoothSerialServiceObj.getState()) ==
+                                                    BluetoothSerialService.STATE_CONNECTING ||
+                               btState == BluetoothSerialService.STATE_CONNECTED ||
+                               btState == BluetoothSerialService.STATE_RECONNECTING))
+    {
+      return true;
+    }
+    final StreamReplayer replayerObj;
+    return ((replayerObj=programResourcesObj.getStreamReplayerObj()) != null &&
+                                                                    replayerObj.isReplaying());
+  }
+
+  /**
+   * Returns the most recent capture file:  the file for the current (or
+   * last) capture, or else the newest capture file on external storage.
+   * @return The capture file, or null if none found.
+   */
+  private File findLatestCaptureFile()
+  {
+    File fileObj = programResourcesObj.getRawStreamCaptureObj().getCaptureFileObj();
+    if(fileObj != null && fileObj.isFile())
+      return fileObj;
+    fileObj = null;
+    final File [] filesArr = Environment.getExternalStorageDirectory().listFiles();
+    if(filesArr != null)
+    {  //directory listed OK; find newest capture file
+      for(File fObj : filesArr)
+      {
+        if(fObj.getName().endsWith(".avrc") && fObj.isFile() &&
+                               (fileObj == null || fObj.lastModified() > fileObj.lastModified()))
+        {
+          fileObj = fObj;
+        }
+      }
+    }
+    return fileObj;
+  }
+
+  /**
+   * Makes the given transport the active one and starts connecting it.
+   * @param transportObj transport to connect.
+   */
+  private void connectSerialTransport(SerialTransport transportObj)
+  {
+    if(bluetoothSerServiceState != BluetoothSerialService.STATE_NONE ||
+                                        serialTransportHolderObj.getActiveTransportObj() != null)
+    {  //connection already active
+      Toast.makeText(getApplicationContext(),
+                          getString(R.string.msg_already_connected), Toast.LENGTH_SHORT).show();
+      return;
+    }
+    serialTransportHolderObj.setActiveTransportObj(transportObj);
+    if(transportObj instanceof NioStreamTransport)
+    {  //transport supports capture; pass data read to capture object (if started)
+      ((NioStreamTransport)transportObj).setRawStreamCaptureObj(
+                                              programResourcesObj.getRawStreamCaptureObj());
+    }
+    transportObj.setReceiverObjs(bluetoothWriteRecObj,transportStateListenerObj);
+    transportObj.connect();
+  }
+
   /**
    * Displays the "About" dialog.
    */
@@ -201,6 +724,7 @@ public class MainActivity extends Activity
       final SharedPreferences sPrefsObj = getSharedPreferences(SHARED_PREFS_NAME,0);
       lastDeviceNameString = sPrefsObj.getString(LAST_BTDEV_NAME,null);
       lastDeviceAddressString = sPrefsObj.getString(LAST_BTDEV_ADDRESS,null);
+      lastNetDeviceString = sPrefsObj.getString(LAST_NETDEV_ADDRESS,null);
     }
     catch(Exception ex)
     {  //some kind of exception reading prefs; ignore and move one
@@ -218,6 +742,7 @@ public class MainActivity extends Activity
       final SharedPreferences.Editor prefsEdObj = sPrefsObj.edit();
       prefsEdObj.putString(LAST_BTDEV_NAME,lastDeviceNameString);
       prefsEdObj.putString(LAST_BTDEV_ADDRESS,lastDeviceAddressString);
+      prefsEdObj.putString(LAST_NETDEV_ADDRESS,lastNetDeviceString);
       prefsEdObj.commit();
     }
     catch(Exception ex)
@@ -237,8 +762,22 @@ public class MainActivity extends Activity
       final FragmentTransaction fragTransObj = getFragmentManager().beginTransaction();
       fragTransObj.replace(R.id.fragment_container,opFragObj);    //swap in new fragment
       fragTransObj.commit();
+      final SerialTransport transportObj = serialTransportHolderObj.getActiveTransportObj();
+      final StreamReplayer replayerObj;
+      if(!(transportObj instanceof ReplaySerialTransport) &&
+                            (replayerObj=programResourcesObj.getStreamReplayerObj()) != null)
+      {  //not an offline replay; stop any replay (receive path has one producer)
+        replayerObj.stopReplay();
+      }
       if(vidReceiverManagerObj != null)
-        vidReceiverManagerObj.startManager();      //start receiver-manager threads
+      {  //set device ID (for settings cache) and start receiver-manager threads
+        vidReceiverManagerObj.setReceiverDeviceIdStr((transportObj != null) ?
+                                     transportObj.getDescriptionStr() : lastDeviceAddressString);
+        if(transportObj instanceof ReplaySerialTransport)
+          startManagerForReplay((ReplaySerialTransport)transportObj);
+        else
+          vidReceiverManagerObj.startManager();
+      }
            //if tabs then setup so operation-fragment TabHost responds to swipe gestures:
       if(opFragObj.isTabHostInUse())
         swipeGestureDispatcherObj.setSwipeGestureEventIntfObj(opFragObj);
@@ -249,6 +788,14 @@ public class MainActivity extends Activity
     }
   }
 
+  //Returns the GraphScanFragment if it is currently showing, or null if not.
+  private GraphScanFragment getActiveGraphScanFragment()
+  {
+    final Fragment fObj = getFragmentManager().findFragmentById(R.id.fragment_container);
+    return (fObj instanceof GraphScanFragment && fObj.isVisible()) ?
+                                                           (GraphScanFragment)fObj : null;
+  }
+
   //Stops the video-receiver manager and shows the ConnectFragment.
   private void stopReceiverOperations()
   {
@@ -283,7 +830,7 @@ public class MainActivity extends Activity
 
   /**
    * Makes sure that the video-receiver manager is stopped and the
-   * bluetooth-serial service is disconnected.
+   * bluetooth-serial service (and any other transport) is disconnected.
    */
   private void ensureConnectionClosed()
   {
@@ -298,6 +845,19 @@ public class MainActivity extends Activity
       Log.e(LOG_TAG, "Exception in ensureConnectionClosed() vidRecMgr", ex);
     }
     try
+    {
+      final SerialTransportHolder holderObj;
+      if((holderObj=
+               ProgramResources.getProgramResourcesObj().getSerialTransportHolderObj()) != null)
+      {
+        holderObj.disconnectActiveTransport();
+      }
+    }
+    catch(Exception ex)
+    {  //some kind of exception error; log it
+      Log.e(LOG_TAG, "Exception in ensureConnectionClosed() transport", ex);
+    }
+    try
     {
       final BluetoothSerialService serviceObj;
       if((serviceObj=
@@ -392,17 +952,53 @@ public class MainActivity extends Activity
                     switch(msgObj.arg1)
                     {
                       case BluetoothSerialService.STATE_CONNECTED:
+                        if(bluetoothSerServiceState == BluetoothSerialService.STATE_RECONNECTING)
+                        {  //reconnected after connection lost; resync receiver state
+                          if(vidReceiverManagerObj != null)
+                          {  //if graph scan active then restart its scanning after resync
+                            final GraphScanFragment graphFragObj = getActiveGraphScanFragment();
+                            vidReceiverManagerObj.resyncAfterReconnect((graphFragObj == null) ?
+                                        null : new Runnable()
+                                          {
+                                            @Override
+                                            public void run()
+                                            {
+                                              runOnUiThread(new Runnable()
+                                                  {
+                                                    @Override
+                                                    public void run()
+                                                    {
+                                                      graphFragObj.resumeAfterReconnect();
+                                                    }
+                                                  });
+                                            }
+                                          });
+                          }
+                          break;
+                        }
                         connectFragmentObj = null;         //release ConnectFragment object
                         startReceiverOperations();
                         break;
+                      case BluetoothSerialService.STATE_RECONNECTING:
+                        Toast.makeText(getApplicationContext(),
+                                getString(R.string.msg_reconnecting), Toast.LENGTH_SHORT).show();
+                        if(vidReceiverManagerObj != null)     //no polling while link is down
+                          vidReceiverManagerObj.noteConnectionLost();
+                        final GraphScanFragment graphFragObj;   //no graph scan while down
+                        if((graphFragObj=getActiveGraphScanFragment()) != null)
+                          graphFragObj.pauseForReconnect();
+                        break;
                       case BluetoothSerialService.STATE_CONNECTING:
                         if(connectFragmentObj == null)
                         {  //ConnectFragment not active (to display message); show as popup
                           Toast.makeText(getApplicationContext(),
                                   getString(R.string.msg_connecting), Toast.LENGTH_SHORT).show();
                         }
-                        lastDeviceNameString = null;       //clear so if connect fails next
-                        lastDeviceAddressString = null;    // 'Connect' click will show devices
+                        if(msgObj.arg2 != TRANSPORT_MSG_ARG2)
+                        {  //message is from Bluetooth service
+                          lastDeviceNameString = null;     //clear so if connect fails next
+                          lastDeviceAddressString = null;  // 'Connect' click will show devices
+                        }
                         break;
                       case BluetoothSerialService.STATE_LISTEN:
                       case BluetoothSerialService.STATE_NONE:
@@ -463,6 +1059,43 @@ public class MainActivity extends Activity
               }
             };
 
+  //Listener that gets state changes from non-Bluetooth transports and
+  // passes them on as the equivalent Bluetooth-service messages
+  private final TransportStateListener transportStateListenerObj =
+          new TransportStateListener()
+            {
+              @Override
+              public void transportStateChanged(SerialTransport transportObj, int newState,
+                                                                                   String msgStr)
+              {
+                try
+                {
+                  Bundle bundleObj;
+                  Message msgObj;
+                  if(msgStr != null)
+                  {  //message given; send it to be displayed
+                    msgObj = bluetoothHandlerObj.obtainMessage(
+                                                       BluetoothSerialService.MESSAGE_SHOWTEXT);
+                    bundleObj = new Bundle();
+                    bundleObj.putString(BluetoothSerialService.SHOW_TEXT,msgStr);
+                    msgObj.setData(bundleObj);
+                    bluetoothHandlerObj.sendMessage(msgObj);
+                  }
+                  msgObj = bluetoothHandlerObj.obtainMessage(
+                         BluetoothSerialService.MESSAGE_STATE_CHANGE,newState,TRANSPORT_MSG_ARG2);
+                  bundleObj = new Bundle();
+                  bundleObj.putString(BluetoothSerialService.DEVICE_NAME,
+                                                              transportObj.getDescriptionStr());
+                  msgObj.setData(bundleObj);
+                  bluetoothHandlerObj.sendMessage(msgObj);
+                }
+                catch(Exception ex)
+                {  //some kind of exception error; log it
+                  Log.e(LOG_TAG, "Exception in transportStateListenerObj", ex);
+                }
+              }
+            };
+
   //Action to be invoked when bluetooth connection is stopped.  The
   // receiver-update worker is paused and the receiver-serial echo
   // is enabled.
@@ -484,4 +1117,47 @@ public class MainActivity extends Activity
             }
           }
         };
+
+
+  /**
+   * Class PrefsSettingsEntryStore persists receiver-settings cache entries
+   * via a SharedPreferences object.  (Static so the long-lived cache does
+   * not hold a reference to the activity.)
+   */
+  private static class PrefsSettingsEntryStore implements ReceiverSettingsCache.EntryStore
+  {
+    private final SharedPreferences sharedPrefsObj;
+
+    /**
+     * Creates an entry store.
+     * @param sPrefsObj SharedPreferences object to use.
+     */
+    public PrefsSettingsEntryStore(SharedPreferences sPrefsObj)
+    {
+      sharedPrefsObj = sPrefsObj;
+    }
+
+    /**
+     * Returns the entry string stored for the given key.
+     * @param keyStr key string.
+     * @return The entry string, or null if none stored for the key.
+     */
+    @Override
+    public String getEntryStr(String keyStr)
+    {
+      return sharedPrefsObj.getString(keyStr,null);
+    }
+
+    /**
+     * Stores the given entry string for the given key.  The value is
+     * written to storage asynchronously.
+     * @param keyStr key string.
+     * @param entryStr entry string.
+     */
+    @Override
+    public void putEntryStr(String keyStr, String entryStr)
+    {
+      sharedPrefsObj.edit().putString(keyStr,entryStr).apply();
+    }
+  }
 }
@@ -25,14 +25,18 @@ import android.widget.TextView;
 
 import com.etheli.arduvidrx.R;
 import com.etheli.arduvidrx.bt.BluetoothSerialService;
+import com.etheli.arduvidrx.rec.ChannelOccupancyStore;
 import com.etheli.arduvidrx.rec.ChannelTracker;
 import com.etheli.arduvidrx.rec.FrequencyTable;
+import com.etheli.arduvidrx.rec.PeakDetector;
 import com.etheli.arduvidrx.rec.ScanListManager;
 import com.etheli.arduvidrx.rec.VidReceiverManager;
+import com.etheli.arduvidrx.transport.SerialTransportHolder;
 import com.etheli.util.Averager;
 import com.etheli.util.DataMsgProcHandler;
 import com.etheli.util.DialogUtils;
 import com.etheli.util.GuiUtils;
+import com.etheli.util.StreamReplayer;
 import com.etheli.util.SwipeGestureDispatcher;
 import net.mabboud.android_tone_player.ContinuousBuzzer;
 import es.pymasde.blueterm.BlueTerm;
@@ -52,6 +56,7 @@ public class OperationFragment extends Fragment
   private TextView rssiValueTextViewObj = null;
   private TabHost operationFragTabHostObj = null;
   private boolean vidRecSerialConnectedFlag = false;
+  private boolean receiverScanningFlag = false;
   private VidReceiverManager vidReceiverManagerObj = null;
   private FrequencyTable videoFrequencyTableObj = null;
   private ChannelTracker videoChannelTrackerObj = null;
@@ -162,6 +167,19 @@ public class OperationFragment extends Fragment
          //setup access to display widgets (in 'onCreateView()' is too early):
       versionTextViewObj = (TextView)getActivity().findViewById(R.id.versionTextView);
       freqCodeTextViewObj = (TextView)getActivity().findViewById(R.id.freqCodeTextView);
+      if(freqCodeTextViewObj != null)
+      {  //view found OK; setup click action (aborts receiver scanning in progress)
+        freqCodeTextViewObj.setOnClickListener(
+            new View.OnClickListener()
+              {
+                @Override
+                public void onClick(View vObj)
+                {
+                  if(receiverScanningFlag && vidReceiverManagerObj != null)
+                    vidReceiverManagerObj.abortReceiverScanning();
+                }
+              });
+      }
       rssiProgressBarObj = (ProgressBar)getActivity().findViewById(R.id.rssiProgressBar);
       rssiValueTextViewObj = (TextView)getActivity().findViewById(R.id.rssiValueTextView);
          //setup "delta" period for RSSI-audio-tone generator:
@@ -405,6 +423,9 @@ public class OperationFragment extends Fragment
       case R.id.fullScanButton:        //do full-scan and select channel
         vidReceiverManagerObj.startScanSelectChanFunction(true);
         break;               //result handled via 'showSelChanDialogForScanStr()' method
+      case R.id.cleanChanButton:       //select from channels ranked by past occupancy
+        showCleanChannelsDialog();
+        break;
       case R.id.graphScanButton:       //show graph-scan fragment
         final FragmentManager fragMgrObj = getFragmentManager();
         final FragmentTransaction fragTransObj = fragMgrObj.beginTransaction();
@@ -422,6 +443,12 @@ public class OperationFragment extends Fragment
   {
     try
     {
+      final SerialTransportHolder holderObj;
+      if((holderObj=programResourcesObj.getSerialTransportHolderObj()) != null &&
+                                                        holderObj.disconnectActiveTransport())
+      {  //non-Bluetooth transport was active and has been disconnected
+        return;
+      }
       final BluetoothSerialService serviceObj;
       if((serviceObj=programResourcesObj.getBluetoothSerialServiceObj()) != null)
         serviceObj.doDisconnectDeviceAction();
@@ -496,8 +523,32 @@ public class OperationFragment extends Fragment
       final FrequencyTable.FreqChannelItem [] itemsArr;
       if((itemsArr=videoFrequencyTableObj.getFChanItemsArrForScanStr(scanStr)) != null &&
                                                                              itemsArr.length > 0)
-      {  //entries-list string parsed OK; show dialog and handle response
-        showSelectChannelChoiceDialog(R.string.chansel_dialog_title,itemsArr,-1);
+      {  //entries-list string parsed OK; find strongest entry
+                   //entries are not in frequency order, so sort indices by frequency
+                   // (so the detector sees adjacent channels as adjacent bins):
+        final int [] sortedIdxArr = new int[itemsArr.length];
+        int i, j, idx;
+        for(i=0; i<itemsArr.length; ++i)
+        {  //insertion-sort each item index by frequency
+          for(j=i; j > 0 && itemsArr[sortedIdxArr[j-1]].frequencyVal >
+                                                         itemsArr[i].frequencyVal; --j)
+          {
+            sortedIdxArr[j] = sortedIdxArr[j-1];
+          }
+          sortedIdxArr[j] = i;
+        }
+        final PeakDetector detectorObj = new PeakDetector(itemsArr.length);
+        detectorObj.beginSweep();
+        for(i=0; i<itemsArr.length; ++i)
+        {
+          idx = sortedIdxArr[i];
+          detectorObj.addBin(itemsArr[idx].frequencyVal,itemsArr[idx].getDisplayRssiValue());
+        }
+        detectorObj.endSweep();
+        final int binIdx = detectorObj.getMaxRssiBinIdx();
+                   //show dialog (strongest entry selected) and handle response:
+        showSelectChannelChoiceDialog(R.string.chansel_dialog_title,itemsArr,
+                                                   (binIdx >= 0) ? sortedIdxArr[binIdx] : -1);
       }
       else
       {  //entries-list string parsing failed
@@ -515,6 +566,38 @@ public class OperationFragment extends Fragment
       GuiUtils.showPopupMessage(getActivity(),R.string.msg_unable_scanrec);
   }
 
+  /**
+   * Shows a select-channel choice dialog with the channels ranked from
+   * cleanest to busiest (using the channel-occupancy statistics from past
+   * and current sessions, so no scan is needed) and handles the response.
+   * The percentage of time each channel was occupied is shown with it.
+   */
+  private void showCleanChannelsDialog()
+  {
+    if(vidReceiverManagerObj == null)
+      return;
+    final ChannelOccupancyStore storeObj = vidReceiverManagerObj.getChannelOccupancyStoreObj();
+    final int [] freqsArr = storeObj.rankCleanFreqs(true);
+    if(freqsArr.length <= 0)
+    {  //no statistics available
+      GuiUtils.showPopupMessage(getActivity(),R.string.msg_no_occupancy_data);
+      return;
+    }
+    final FrequencyTable.FreqChannelItem [] itemsArr =
+                                            new FrequencyTable.FreqChannelItem[freqsArr.length];
+    FrequencyTable.FreqChannelItem itemObj;
+    for(int i=0; i<freqsArr.length; ++i)
+    {  //for each ranked frequency; create item showing occupied percentage
+      if((itemObj=videoFrequencyTableObj.getFreqChannelItemObj(null,(short)freqsArr[i])) != null)
+        itemObj = new FrequencyTable.FreqChannelItem(itemObj);
+      else
+        itemObj = new FrequencyTable.FreqChannelItem("",(short)freqsArr[i],-1);
+      itemObj.setDisplayRssiValue((short)storeObj.getOccupiedPercent(freqsArr[i],true));
+      itemsArr[i] = itemObj;
+    }
+    showSelectChannelChoiceDialog(R.string.cleanchan_dialog_title,itemsArr,0);
+  }
+
   /**
    * Shows a monitor/scan-list multi-choice dialog and handles the response.
    * @param clearAllFlag true to clear all selections on entry.
@@ -662,6 +745,10 @@ public class OperationFragment extends Fragment
               setFreqCodeTextViewStr("Freq:  " + freqVal + " MHz" + codeStr + dispStr);
             }
             setRssiDisplayValue(msgObj.arg2);
+            final StreamReplayer replayerObj =   //if replay in progress then enter latency
+                               ProgramResources.getProgramResourcesObj().getStreamReplayerObj();
+            if(replayerObj != null)
+              replayerObj.noteUiUpdate();
             break;
           case VidReceiverManager.VRECMGR_RESP_CHANTEXT:   //set value for freqCodeTextView
             if(msgObj.obj instanceof String)
@@ -693,11 +780,13 @@ public class OperationFragment extends Fragment
           case VidReceiverManager.VRECMGR_RESP_SCANBEGIN:  //video-receiver scanning started
                                                       //disable buttons while scanning:
             GuiUtils.setViewButtonsEnabledState(getView(),false);
+            receiverScanningFlag = true;              //tap on status text aborts scan
             setRssiDisplayValue(0);                   //set RSSI display to zero
                                                       //show "Scanning..." text while scanning:
             setFreqCodeTextViewStr(getString(R.string.scanning_status_text));
             break;
           case VidReceiverManager.VRECMGR_RESP_SCANEND:    //video-receiver scanning finished
+            receiverScanningFlag = false;
             setFreqCodeTextViewStr("");               //clear "Scanning..." text
             GuiUtils.setViewButtonsEnabledState(getView(),true);       //re-enable buttons
             break;
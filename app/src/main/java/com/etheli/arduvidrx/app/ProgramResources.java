@@ -8,6 +8,9 @@ package com.etheli.arduvidrx.app;
 import com.etheli.arduvidrx.bt.BluetoothSerialService;
 import com.etheli.arduvidrx.rec.FrequencyTable;
 import com.etheli.arduvidrx.rec.VidReceiverManager;
+import com.etheli.arduvidrx.transport.SerialTransportHolder;
+import com.etheli.util.RawStreamCapture;
+import com.etheli.util.StreamReplayer;
 
 /**
  * Class ProgramResources defines a global program resources singleton.
@@ -21,10 +24,13 @@ public class ProgramResources
 
   private static ProgramResources programResourcesObj = null;
   private BluetoothSerialService bluetoothSerialServiceObj = null;
+  private SerialTransportHolder serialTransportHolderObj = null;
   private VidReceiverManager vidReceiverManagerObj = null;
   private FrequencyTable videoFrequencyTableObj = null;
   private Runnable terminalStartupActionObj = null;
   private boolean terminalActiveFlag = false;
+  private final RawStreamCapture rawStreamCaptureObj = new RawStreamCapture();
+  private volatile StreamReplayer streamReplayerObj = null;
 
   /**
    * Returns the ProgramResources object, creating it if needed.
@@ -55,6 +61,24 @@ public class ProgramResources
     return bluetoothSerialServiceObj;
   }
 
+  /**
+   * Sets the SerialTransportHolder object.
+   * @param holderObj SerialTransportHolder object.
+   */
+  public void setSerialTransportHolderObj(SerialTransportHolder holderObj)
+  {
+    serialTransportHolderObj = holderObj;
+  }
+
+  /**
+   * Returns the SerialTransportHolder object.
+   * @return The SerialTransportHolder object, or null if none set.
+   */
+  public SerialTransportHolder getSerialTransportHolderObj()
+  {
+    return serialTransportHolderObj;
+  }
+
   /**
    * Returns the VidReceiverManager object.
    * @return The VidReceiverManager object, or null if none set.
@@ -126,4 +150,31 @@ public class ProgramResources
   {
     return terminalStartupActionObj;
   }
+
+  /**
+   * Returns the RawStreamCapture object (for capturing received data).
+   * @return The RawStreamCapture object.
+   */
+  public RawStreamCapture getRawStreamCaptureObj()
+  {
+    return rawStreamCaptureObj;
+  }
+
+  /**
+   * Sets the StreamReplayer object for the replay in progress.
+   * @param replayerObj StreamReplayer object, or null for none.
+   */
+  public void setStreamReplayerObj(StreamReplayer replayerObj)
+  {
+    streamReplayerObj = replayerObj;
+  }
+
+  /**
+   * Returns the StreamReplayer object for the replay in progress.
+   * @return The StreamReplayer object, or null if none.
+   */
+  public StreamReplayer getStreamReplayerObj()
+  {
+    return streamReplayerObj;
+  }
 }
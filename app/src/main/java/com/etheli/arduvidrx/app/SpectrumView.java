@@ -0,0 +1,791 @@
+//SpectrumView.java:  Bar-graph display of frequency/RSSI scan values.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.app;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+import java.util.Arrays;
+
+/**
+ * Class SpectrumView shows frequency/RSSI scan values as a bar graph (one
+ * bar per frequency, positioned by frequency value).  Values are held in
+ * primitive arrays and drawn directly.  Bar positions and axis labels are
+ * computed only when the layout, the set of frequencies or the visible
+ * range changes, so drawing a frame does no allocation or layout work.
+ * Peak bars may be labeled with their frequency values, one bar may be
+ * highlighted, and taps are hit-tested to the nearest bar.  Up to
+ * 'MAX_NUM_TRACES' traces (one value per bar, such as max-hold or average
+ * values) may be shown as step lines over the bars, and the bars themselves
+ * may be hidden.  The graph may be zoomed (pinch or double-tap) and dragged
+ * horizontally.  Methods should be called via the UI thread, except where
+ * noted.
+ */
+public class SpectrumView extends View
+{
+    /** Width of each bar, in MHz. */
+  public static final float BAR_WIDTH_MHZ = 10.0f;
+    /** Margin on each side of the full frequency range, in MHz. */
+  public static final float RANGE_MARGIN_MHZ = 20.0f;
+    /** RSSI value at top of graph. */
+  public static final int MAX_RSSI_DISPLAY = 110;
+    /** Maximum number of traces shown over the bars. */
+  public static final int MAX_NUM_TRACES = 4;
+  private static final float MIN_VISIBLE_RANGE_MHZ = 40.0f;
+  private static final float DEF_LABELS_TEXT_SIZE_DP = 14.0f;
+  private static final int [] XLABEL_STEPS_ARR = { 10, 20, 50, 100, 200, 500, 1000 };
+  private static final int MAX_NUM_XLABELS = 64;
+  private static final int YLABEL_STEP = 20;
+  private static final String [] YLABEL_STRS_ARR = { "0", "20", "40", "60", "80", "100" };
+  private short [] freqValsArr = new short[0];
+  private byte [] rssiValsArr = new byte[0];
+  private boolean [] peakFlagsArr = new boolean[0];
+  private String [] freqStrsArr = new String[0];
+  private float [] barCenterXArr = new float[0];
+  private final byte [][] traceValsArr = new byte[MAX_NUM_TRACES][0];
+  private final boolean [] traceShownFlagsArr = new boolean[MAX_NUM_TRACES];
+  private final Paint [] tracePaintsArr = new Paint[MAX_NUM_TRACES];
+  private float [] traceLinePtsArr = new float[0];
+  private boolean barsShownFlag = true;
+  private int numBars = 0;
+  private int highlightIdx = -1;
+  private boolean geometryValidFlag = false;
+  private float visibleLowFreq = 0.0f, visibleHighFreq = 0.0f;
+  private boolean zoomedFlag = false;
+  private boolean rangeChangedFlag = false;
+  private float plotLeftX, plotRightX, plotTopY, plotBottomY;
+  private float pixelsPerMhz = 1.0f, barHalfWidthPx = 1.0f, pixelsPerRssi = 1.0f;
+  private float labelsPadPx = 4.0f, labelsTextHeightPx = 0.0f;
+  private final float [] xLabelPosArr = new float[MAX_NUM_XLABELS];
+  private final String [] xLabelStrsArr = new String[MAX_NUM_XLABELS];
+  private int numXLabels = 0;
+  private final Paint barPaintObj = new Paint();
+  private final Paint highlightPaintObj = new Paint();
+  private final Paint labelsPaintObj = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private final Paint yLabelsPaintObj = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private final Paint axisPaintObj = new Paint();
+  private ScaleGestureDetector scaleGestureDetectorObj = null;
+  private GestureDetector gestureDetectorObj = null;
+  private SpectrumViewListener spectrumViewListenerObj = null;
+  private long lastDrawTimeNs = 0L;
+  private long maxDrawTimeNs = 0L;
+
+  /**
+   * Creates a spectrum view.
+   * @param context context for view.
+   */
+  public SpectrumView(Context context)
+  {
+    super(context);
+    initView(context);
+  }
+
+  /**
+   * Creates a spectrum view (via layout XML).
+   * @param context context for view.
+   * @param attrs attributes for view.
+   */
+  public SpectrumView(Context context, AttributeSet attrs)
+  {
+    super(context,attrs);
+    initView(context);
+  }
+
+  /**
+   * Sets up the paint objects and gesture detectors for the view.
+   * @param context context for view.
+   */
+  private void initView(Context context)
+  {
+    barPaintObj.setColor(Color.BLACK);
+    barPaintObj.setStyle(Paint.Style.FILL);
+    highlightPaintObj.setColor(Color.GREEN);
+    highlightPaintObj.setStyle(Paint.Style.FILL);
+    axisPaintObj.setColor(Color.GRAY);
+    labelsPaintObj.setColor(Color.BLACK);
+    labelsPaintObj.setTextAlign(Paint.Align.CENTER);
+    yLabelsPaintObj.setColor(Color.BLACK);
+    yLabelsPaintObj.setTextAlign(Paint.Align.RIGHT);
+    final float strokeWidthPx = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP,2.0f,
+                                                         getResources().getDisplayMetrics());
+    for(int t=0; t<MAX_NUM_TRACES; ++t)
+    {  //setup paint for each trace (default color)
+      tracePaintsArr[t] = new Paint(Paint.ANTI_ALIAS_FLAG);
+      tracePaintsArr[t].setColor(Color.RED);
+      tracePaintsArr[t].setStrokeWidth(strokeWidthPx);
+    }
+    setLabelsTextSizeDp(DEF_LABELS_TEXT_SIZE_DP);
+    scaleGestureDetectorObj = new ScaleGestureDetector(context,new SpectrumScaleListener());
+    gestureDetectorObj = new GestureDetector(context,new SpectrumGestureListener());
+  }
+
+  /**
+   * Sets the size of the text for axis and peak labels.
+   * @param sizeDp text size, in density-independent pixels.
+   */
+  public void setLabelsTextSizeDp(float sizeDp)
+  {
+    final float sizePx = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP,sizeDp,
+                                                       getResources().getDisplayMetrics());
+    labelsPaintObj.setTextSize(sizePx);
+    yLabelsPaintObj.setTextSize(sizePx);
+    final Paint.FontMetrics fmObj = labelsPaintObj.getFontMetrics();
+    labelsTextHeightPx = fmObj.descent - fmObj.ascent;
+    labelsPadPx = sizePx / 4;
+    geometryValidFlag = false;
+    invalidate();
+  }
+
+  /**
+   * Sets the listener for bar selections and visible-range changes.
+   * @param listenerObj listener object, or null for none.
+   */
+  public void setSpectrumViewListener(SpectrumViewListener listenerObj)
+  {
+    spectrumViewListenerObj = listenerObj;
+  }
+
+  /**
+   * Sets the number of bars shown.  The value arrays are enlarged if needed
+   * (keeping their current values).
+   * @param num number of bars.
+   */
+  public void setNumBars(int num)
+  {
+    if(num > freqValsArr.length)
+    {  //arrays need to be larger (grow by doubling in case bars added one at a time)
+      final int newLen = Math.max(num,freqValsArr.length*2);
+      final short [] newFreqsArr = new short[newLen];
+      final byte [] newRssisArr = new byte[newLen];
+      final boolean [] newPeaksArr = new boolean[newLen];
+      final String [] newStrsArr = new String[newLen];
+      System.arraycopy(freqValsArr,0,newFreqsArr,0,numBars);
+      System.arraycopy(rssiValsArr,0,newRssisArr,0,numBars);
+      System.arraycopy(peakFlagsArr,0,newPeaksArr,0,numBars);
+      System.arraycopy(freqStrsArr,0,newStrsArr,0,numBars);
+      freqValsArr = newFreqsArr;
+      rssiValsArr = newRssisArr;
+      peakFlagsArr = newPeaksArr;
+      freqStrsArr = newStrsArr;
+      barCenterXArr = new float[newLen];
+      byte [] newTraceArr;
+      for(int t=0; t<MAX_NUM_TRACES; ++t)
+      {  //for each trace; enlarge array (new entries have no value)
+        newTraceArr = new byte[newLen];
+        System.arraycopy(traceValsArr[t],0,newTraceArr,0,numBars);
+        Arrays.fill(newTraceArr,numBars,newLen,(byte)-1);
+        traceValsArr[t] = newTraceArr;
+      }
+      traceLinePtsArr = new float[newLen*8];      //two line segments per bar
+    }
+    numBars = num;
+    if(highlightIdx >= num)
+      highlightIdx = -1;
+    geometryValidFlag = false;
+    invalidate();
+  }
+
+  /**
+   * Returns the number of bars shown.
+   * @return The number of bars shown.
+   */
+  public int getNumBars()
+  {
+    return numBars;
+  }
+
+  /**
+   * Sets the values for the given bar.  The frequency values for the bars
+   * should be in ascending order.  The view is not invalidated (so a set
+   * of bars may be updated before one call to 'invalidate()').
+   * @param idx index of bar.
+   * @param freqVal frequency value (MHz).
+   * @param rssiVal RSSI value.
+   */
+  public void setBarValues(int idx, int freqVal, int rssiVal)
+  {
+    if(idx < 0 || idx >= numBars)
+      return;
+    if(freqValsArr[idx] != freqVal || freqStrsArr[idx] == null)
+    {  //frequency changed; update label and bar position
+      freqValsArr[idx] = (short)freqVal;
+      freqStrsArr[idx] = Integer.toString(freqVal);
+      geometryValidFlag = false;
+    }
+    rssiValsArr[idx] = (byte)((rssiVal < 0) ? 0 :
+                                   ((rssiVal <= Byte.MAX_VALUE) ? rssiVal : Byte.MAX_VALUE));
+  }
+
+  /**
+   * Returns the frequency value for the given bar.
+   * @param idx index of bar.
+   * @return The frequency value, or 0 if index out of range.
+   */
+  public int getBarFreqVal(int idx)
+  {
+    return (idx >= 0 && idx < numBars) ? freqValsArr[idx] : 0;
+  }
+
+  /**
+   * Sets whether or not the given bar is labeled as a peak (with its
+   * frequency value shown above the bar).  May be called via any thread
+   * (the caller should then use 'postInvalidate()').
+   * @param idx index of bar.
+   * @param flagVal true to label the bar; false to not.
+   */
+  public void setPeakFlag(int idx, boolean flagVal)
+  {
+    if(idx >= 0 && idx < numBars)
+      peakFlagsArr[idx] = flagVal;
+  }
+
+  /**
+   * Clears the peak labels for all bars.  May be called via any thread.
+   */
+  public void clearPeakFlags()
+  {
+    final int num = numBars;
+    for(int i=0; i<num; ++i)
+      peakFlagsArr[i] = false;
+  }
+
+  /**
+   * Sets the highlighted bar and invalidates the view.
+   * @param idx index of bar, or -1 for none.
+   */
+  public void setHighlightIdx(int idx)
+  {
+    highlightIdx = (idx >= 0 && idx < numBars) ? idx : -1;
+    invalidate();
+  }
+
+  /**
+   * Sets the highlighted bar to the one with the given frequency value
+   * and invalidates the view.
+   * @param freqVal frequency value, or 0 for none.
+   */
+  public void setHighlightFreqVal(int freqVal)
+  {
+    int idx = -1;
+    if(freqVal > 0)
+    {  //find bar for frequency
+      for(int i=0; i<numBars; ++i)
+      {
+        if(freqValsArr[i] == freqVal)
+        {
+          idx = i;
+          break;
+        }
+      }
+    }
+    setHighlightIdx(idx);
+  }
+
+  /**
+   * Returns the index of the highlighted bar.
+   * @return The index of the highlighted bar, or -1 if none.
+   */
+  public int getHighlightIdx()
+  {
+    return highlightIdx;
+  }
+
+  /**
+   * Sets the value for the given trace at the given bar.  The view is not
+   * invalidated.  May be called via any thread (the caller should then use
+   * 'postInvalidate()').
+   * @param traceIdx index of trace (0 to 'MAX_NUM_TRACES'-1).
+   * @param idx index of bar.
+   * @param rssiVal RSSI value, or -1 for none.
+   */
+  public void setTraceValue(int traceIdx, int idx, int rssiVal)
+  {
+    if(traceIdx < 0 || traceIdx >= MAX_NUM_TRACES || idx < 0 || idx >= numBars)
+      return;
+    traceValsArr[traceIdx][idx] = (byte)((rssiVal < 0) ? -1 :
+                                   ((rssiVal <= Byte.MAX_VALUE) ? rssiVal : Byte.MAX_VALUE));
+  }
+
+  /**
+   * Clears all values for the given trace.
+   * @param traceIdx index of trace (0 to 'MAX_NUM_TRACES'-1).
+   */
+  public void clearTraceValues(int traceIdx)
+  {
+    if(traceIdx >= 0 && traceIdx < MAX_NUM_TRACES)
+      Arrays.fill(traceValsArr[traceIdx],(byte)-1);
+  }
+
+  /**
+   * Sets the color for the given trace.
+   * @param traceIdx index of trace (0 to 'MAX_NUM_TRACES'-1).
+   * @param colorVal color value.
+   */
+  public void setTraceColor(int traceIdx, int colorVal)
+  {
+    if(traceIdx >= 0 && traceIdx < MAX_NUM_TRACES)
+      tracePaintsArr[traceIdx].setColor(colorVal);
+  }
+
+  /**
+   * Sets whether or not the given trace is shown, and invalidates the view.
+   * @param traceIdx index of trace (0 to 'MAX_NUM_TRACES'-1).
+   * @param flagVal true to show the trace; false to hide it.
+   */
+  public void setTraceShown(int traceIdx, boolean flagVal)
+  {
+    if(traceIdx >= 0 && traceIdx < MAX_NUM_TRACES)
+    {
+      traceShownFlagsArr[traceIdx] = flagVal;
+      invalidate();
+    }
+  }
+
+  /**
+   * Determines whether or not the given trace is shown.
+   * @param traceIdx index of trace (0 to 'MAX_NUM_TRACES'-1).
+   * @return true if the trace is shown; false if not.
+   */
+  public boolean isTraceShown(int traceIdx)
+  {
+    return traceIdx >= 0 && traceIdx < MAX_NUM_TRACES && traceShownFlagsArr[traceIdx];
+  }
+
+  /**
+   * Sets whether or not the bars (live values) are shown, and invalidates
+   * the view.  Peak labels are shown either way.
+   * @param flagVal true to show the bars; false to hide them.
+   */
+  public void setBarsShown(boolean flagVal)
+  {
+    barsShownFlag = flagVal;
+    invalidate();
+  }
+
+  /**
+   * Determines whether or not the bars (live values) are shown.
+   * @return true if the bars are shown; false if not.
+   */
+  public boolean isBarsShown()
+  {
+    return barsShownFlag;
+  }
+
+  /**
+   * Returns the lowest frequency value visible on the graph.
+   * @return The lowest visible frequency (MHz).
+   */
+  public float getVisibleLowFreq()
+  {
+    if(!geometryValidFlag)
+      computeGeometry();
+    return visibleLowFreq;
+  }
+
+  /**
+   * Returns the highest frequency value visible on the graph.
+   * @return The highest visible frequency (MHz).
+   */
+  public float getVisibleHighFreq()
+  {
+    if(!geometryValidFlag)
+      computeGeometry();
+    return visibleHighFreq;
+  }
+
+  /**
+   * Sets the range of frequencies visible on the graph (zooms the graph).
+   * The range is limited to the full range of the bars; if it covers the
+   * full range then the graph is not zoomed.
+   * @param lowFreq lowest visible frequency (MHz).
+   * @param highFreq highest visible frequency (MHz).
+   */
+  public void setVisibleRange(float lowFreq, float highFreq)
+  {
+    final float fullLowFreq = getFullLowFreq(), fullHighFreq = getFullHighFreq();
+    float widthVal = Math.max(highFreq - lowFreq, MIN_VISIBLE_RANGE_MHZ);
+    if(widthVal >= fullHighFreq - fullLowFreq)
+      zoomedFlag = false;
+    else
+    {  //range is within full range; keep it inside full range
+      if(lowFreq < fullLowFreq)
+        lowFreq = fullLowFreq;
+      else if(lowFreq + widthVal > fullHighFreq)
+        lowFreq = fullHighFreq - widthVal;
+      visibleLowFreq = lowFreq;
+      visibleHighFreq = lowFreq + widthVal;
+      zoomedFlag = true;
+    }
+    rangeChangedFlag = true;
+    computeGeometry();       //update now so following gesture events use new range
+    invalidate();
+  }
+
+  /**
+   * Resets the graph to show the full range of frequencies.
+   */
+  public void fitFullRange()
+  {
+    zoomedFlag = false;
+    rangeChangedFlag = true;
+    computeGeometry();
+    invalidate();
+  }
+
+  /**
+   * Determines the bar at the given horizontal position.
+   * @param xPos horizontal position (pixels) in view.
+   * @return The index of the nearest bar, or -1 if no bar near the position.
+   */
+  public int getBarIdxAtPos(float xPos)
+  {
+    if(!geometryValidFlag)
+      computeGeometry();
+    if(numBars <= 0 || xPos < plotLeftX || xPos > plotRightX)
+      return -1;
+    int loIdx = 0, hiIdx = numBars - 1;
+    while(loIdx < hiIdx)
+    {  //binary search for first bar with center at or right of position
+      final int midIdx = (loIdx + hiIdx) >>> 1;
+      if(barCenterXArr[midIdx] < xPos)
+        loIdx = midIdx + 1;
+      else
+        hiIdx = midIdx;
+    }
+    if(loIdx > 0 && xPos - barCenterXArr[loIdx-1] < barCenterXArr[loIdx] - xPos)
+      --loIdx;                         //previous bar is nearer
+              //accept if within twice the bar half-width (easier to hit thin bars):
+    return (Math.abs(barCenterXArr[loIdx] - xPos) <= Math.max(barHalfWidthPx*2,labelsPadPx*4)) ?
+                                                                                  loIdx : -1;
+  }
+
+  /**
+   * Returns the time taken to draw the last frame.
+   * @return The draw time, in microseconds.
+   */
+  public long getLastDrawTimeUs()
+  {
+    return lastDrawTimeNs / 1000;
+  }
+
+  /**
+   * Returns the longest time taken to draw a frame (since the last call
+   * to 'clearMaxDrawTime()').
+   * @return The maximum draw time, in microseconds.
+   */
+  public long getMaxDrawTimeUs()
+  {
+    return maxDrawTimeNs / 1000;
+  }
+
+  /**
+   * Clears the tracked maximum draw time.
+   */
+  public void clearMaxDrawTime()
+  {
+    maxDrawTimeNs = 0L;
+  }
+
+  /**
+   * Called when the size of the view changes.
+   * @param w new width.
+   * @param h new height.
+   * @param oldw old width.
+   * @param oldh old height.
+   */
+  @Override
+  protected void onSizeChanged(int w, int h, int oldw, int oldh)
+  {
+    super.onSizeChanged(w,h,oldw,oldh);
+    geometryValidFlag = false;
+  }
+
+  /**
+   * Draws the view.
+   * @param canvas canvas to draw on.
+   */
+  @Override
+  protected void onDraw(Canvas canvas)
+  {
+    super.onDraw(canvas);
+    final long startTimeNs = System.nanoTime();
+    if(!geometryValidFlag)
+      computeGeometry();
+              //draw axis lines and labels:
+    canvas.drawLine(plotLeftX,plotTopY,plotLeftX,plotBottomY,axisPaintObj);
+    canvas.drawLine(plotLeftX,plotBottomY,plotRightX,plotBottomY,axisPaintObj);
+    final float yTextOffs = labelsTextHeightPx / 3;
+    float yPos;
+    for(int i=0; i<YLABEL_STRS_ARR.length; ++i)
+    {
+      yPos = plotBottomY - i * YLABEL_STEP * pixelsPerRssi;
+      canvas.drawText(YLABEL_STRS_ARR[i],plotLeftX-labelsPadPx,yPos+yTextOffs,yLabelsPaintObj);
+    }
+    final float xLabelsY = plotBottomY + labelsPadPx + labelsTextHeightPx * 0.8f;
+    for(int i=0; i<numXLabels; ++i)
+      canvas.drawText(xLabelStrsArr[i],xLabelPosArr[i],xLabelsY,labelsPaintObj);
+              //draw bars and peak labels (clipped to plot area):
+    canvas.save();
+    canvas.clipRect(plotLeftX,0,plotRightX,plotBottomY);
+    final int num = numBars;
+    float xPos;
+    for(int i=0; i<num; ++i)
+    {  //for each bar
+      xPos = barCenterXArr[i];
+      if(xPos + barHalfWidthPx < plotLeftX)
+        continue;            //bar is left of visible area
+      if(xPos - barHalfWidthPx > plotRightX)
+        break;               //bar (and all after it) right of visible area
+      yPos = plotBottomY - rssiValsArr[i] * pixelsPerRssi;
+      if(barsShownFlag || i == highlightIdx)
+      {
+        canvas.drawRect(xPos-barHalfWidthPx,yPos,xPos+barHalfWidthPx,plotBottomY,
+                                       (i == highlightIdx) ? highlightPaintObj : barPaintObj);
+      }
+      if(peakFlagsArr[i] && freqStrsArr[i] != null)
+        canvas.drawText(freqStrsArr[i],xPos,yPos-labelsPadPx,labelsPaintObj);
+    }
+    for(int t=0; t<MAX_NUM_TRACES; ++t)
+    {  //for each trace; draw it if shown
+      if(traceShownFlagsArr[t])
+        drawTrace(canvas,t);
+    }
+    canvas.restore();
+    lastDrawTimeNs = System.nanoTime() - startTimeNs;
+    if(lastDrawTimeNs > maxDrawTimeNs)
+      maxDrawTimeNs = lastDrawTimeNs;
+  }
+
+  /**
+   * Draws the given trace as a step line (a level segment across the width
+   * of each bar that has a value, joined to the segment for the previous
+   * bar).  The line points are built into a preallocated array and drawn
+   * with one call.
+   * @param canvas canvas to draw on.
+   * @param traceIdx index of trace.
+   */
+  private void drawTrace(Canvas canvas, int traceIdx)
+  {
+    final byte [] valsArr = traceValsArr[traceIdx];
+    final float [] ptsArr = traceLinePtsArr;
+    final int num = numBars;
+    int numPts = 0, val;
+    float xPos, yPos, prevX = 0.0f, prevY = 0.0f;
+    boolean prevFlag = false;
+    for(int i=0; i<num; ++i)
+    {  //for each bar
+      xPos = barCenterXArr[i];
+      if((val=valsArr[i]) < 0 || xPos + barHalfWidthPx < plotLeftX)
+      {  //no value for bar or bar is left of visible area
+        prevFlag = false;
+        continue;
+      }
+      yPos = plotBottomY - val * pixelsPerRssi;
+      if(prevFlag)
+      {  //previous bar has value; join to its segment
+        ptsArr[numPts++] = prevX;
+        ptsArr[numPts++] = prevY;
+        ptsArr[numPts++] = xPos - barHalfWidthPx;
+        ptsArr[numPts++] = yPos;
+      }
+      prevX = xPos + barHalfWidthPx;
+      prevY = yPos;
+      ptsArr[numPts++] = xPos - barHalfWidthPx;
+      ptsArr[numPts++] = yPos;
+      ptsArr[numPts++] = prevX;
+      ptsArr[numPts++] = yPos;
+      prevFlag = true;
+      if(xPos - barHalfWidthPx > plotRightX)
+        break;               //bar (and all after it) right of visible area
+    }
+    if(numPts > 0)
+      canvas.drawLines(ptsArr,0,numPts,tracePaintsArr[traceIdx]);
+  }
+
+  /**
+   * Processes touch events (for zoom, drag and bar selection).
+   * @param event touch event.
+   * @return true if the event was handled.
+   */
+  @Override
+  public boolean onTouchEvent(MotionEvent event)
+  {
+    scaleGestureDetectorObj.onTouchEvent(event);
+    if(!scaleGestureDetectorObj.isInProgress())
+      gestureDetectorObj.onTouchEvent(event);
+    final int actionVal = event.getAction() & MotionEvent.ACTION_MASK;
+    if((actionVal == MotionEvent.ACTION_UP || actionVal == MotionEvent.ACTION_CANCEL) &&
+                                                                           rangeChangedFlag)
+    {  //gesture ended and visible range was changed; notify listener
+      rangeChangedFlag = false;
+      if(spectrumViewListenerObj != null)
+        spectrumViewListenerObj.visibleRangeChanged();
+    }
+    return true;
+  }
+
+  /**
+   * Computes the plot area, the bar positions, the scaling values and the
+   * X-axis labels.  Called when the layout, the set of frequencies or the
+   * visible range changes.
+   */
+  private void computeGeometry()
+  {
+    final int viewWidth = getWidth(), viewHeight = getHeight();
+    final float fullLowFreq = getFullLowFreq(), fullHighFreq = getFullHighFreq();
+    if(!zoomedFlag)
+    {  //not zoomed; show full range
+      visibleLowFreq = fullLowFreq;
+      visibleHighFreq = fullHighFreq;
+    }
+    if(viewWidth <= 0 || viewHeight <= 0)
+      return;                //view not yet laid out
+    plotLeftX = yLabelsPaintObj.measureText("100") + labelsPadPx * 2;
+    plotRightX = viewWidth - labelsPadPx;
+    plotTopY = labelsTextHeightPx / 2;
+    plotBottomY = viewHeight - labelsTextHeightPx - labelsPadPx * 2;
+    pixelsPerMhz = (plotRightX - plotLeftX) / Math.max(visibleHighFreq - visibleLowFreq,1.0f);
+    barHalfWidthPx = Math.max(BAR_WIDTH_MHZ * pixelsPerMhz / 2, 0.5f);
+    pixelsPerRssi = (plotBottomY - plotTopY) / MAX_RSSI_DISPLAY;
+    for(int i=0; i<numBars; ++i)
+      barCenterXArr[i] = plotLeftX + (freqValsArr[i] - visibleLowFreq) * pixelsPerMhz;
+              //select X-label step that leaves room between labels:
+    final float minSpacingPx = labelsPaintObj.measureText("00000") * 1.5f;
+    int stepVal = XLABEL_STEPS_ARR[XLABEL_STEPS_ARR.length-1];
+    for(int s : XLABEL_STEPS_ARR)
+    {
+      if(s * pixelsPerMhz >= minSpacingPx)
+      {
+        stepVal = s;
+        break;
+      }
+    }
+    numXLabels = 0;
+    for(int val = (int)Math.ceil(visibleLowFreq / stepVal) * stepVal;
+                             val <= visibleHighFreq && numXLabels < MAX_NUM_XLABELS; val += stepVal)
+    {  //for each X-axis label position
+      xLabelPosArr[numXLabels] = plotLeftX + (val - visibleLowFreq) * pixelsPerMhz;
+      xLabelStrsArr[numXLabels] = Integer.toString(val);
+      ++numXLabels;
+    }
+    geometryValidFlag = true;
+  }
+
+  /**
+   * Returns the lowest frequency of the full range (including margin).
+   * @return The lowest frequency (MHz) of the full range.
+   */
+  private float getFullLowFreq()
+  {
+    return (numBars > 0) ? freqValsArr[0] - RANGE_MARGIN_MHZ - BAR_WIDTH_MHZ/2 : 0.0f;
+  }
+
+  /**
+   * Returns the highest frequency of the full range (including margin).
+   * @return The highest frequency (MHz) of the full range.
+   */
+  private float getFullHighFreq()
+  {
+    return (numBars > 0) ? freqValsArr[numBars-1] + RANGE_MARGIN_MHZ + BAR_WIDTH_MHZ/2 :
+                                                                       MIN_VISIBLE_RANGE_MHZ;
+  }
+
+
+  /**
+   * Interface SpectrumViewListener defines methods invoked (via the UI
+   * thread) when a bar is selected or the visible range is changed.
+   */
+  public interface SpectrumViewListener
+  {
+    /**
+     * Invoked when a bar is tapped.
+     * @param idx index of bar.
+     */
+    public void barSelected(int idx);
+
+    /**
+     * Invoked when a zoom or drag gesture that changed the visible range
+     * has ended.
+     */
+    public void visibleRangeChanged();
+  }
+
+
+  /**
+   * Class SpectrumScaleListener zooms the graph horizontally for pinch
+   * gestures (centered on the gesture focus).
+   */
+  private class SpectrumScaleListener extends ScaleGestureDetector.SimpleOnScaleGestureListener
+  {
+    @Override
+    public boolean onScale(ScaleGestureDetector detector)
+    {
+      final float factorVal = detector.getScaleFactor();
+      if(factorVal <= 0.0f || pixelsPerMhz <= 0.0f)
+        return false;
+      final float focusFreq = visibleLowFreq + (detector.getFocusX() - plotLeftX) / pixelsPerMhz;
+      final float widthVal = (visibleHighFreq - visibleLowFreq) / factorVal;
+      final float fractVal = (detector.getFocusX() - plotLeftX) / (plotRightX - plotLeftX);
+      final float lowFreq = focusFreq - fractVal * widthVal;
+      setVisibleRange(lowFreq,lowFreq+widthVal);
+      return true;
+    }
+  }
+
+
+  /**
+   * Class SpectrumGestureListener handles drag, tap and double-tap
+   * gestures on the graph.
+   */
+  private class SpectrumGestureListener extends GestureDetector.SimpleOnGestureListener
+  {
+    @Override
+    public boolean onDown(MotionEvent e)
+    {
+      return true;
+    }
+
+    @Override
+    public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY)
+    {
+      if(!zoomedFlag || pixelsPerMhz <= 0.0f)
+        return false;
+      final float shiftFreq = distanceX / pixelsPerMhz;
+      setVisibleRange(visibleLowFreq+shiftFreq,visibleHighFreq+shiftFreq);
+      return true;
+    }
+
+    @Override
+    public boolean onSingleTapConfirmed(MotionEvent e)
+    {
+      final int idx;
+      if((idx=getBarIdxAtPos(e.getX())) >= 0 && spectrumViewListenerObj != null)
+        spectrumViewListenerObj.barSelected(idx);
+      return true;
+    }
+
+    @Override
+    public boolean onDoubleTap(MotionEvent e)
+    {
+      if(zoomedFlag)
+        fitFullRange();      //zoomed; return to full range
+      else if(pixelsPerMhz > 0.0f)
+      {  //not zoomed; zoom in by factor of 2 around tap position
+        final float tapFreq = visibleLowFreq + (e.getX() - plotLeftX) / pixelsPerMhz;
+        final float widthVal = (visibleHighFreq - visibleLowFreq) / 2;
+        setVisibleRange(tapFreq-widthVal/2,tapFreq+widthVal/2);
+      }
+      return true;
+    }
+  }
+}
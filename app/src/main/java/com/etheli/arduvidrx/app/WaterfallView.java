@@ -0,0 +1,165 @@
+//WaterfallView.java:  Scrolling waterfall display of full-band scan history.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.app;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.util.AttributeSet;
+import android.view.View;
+
+import com.etheli.arduvidrx.rec.ScanFrameBuffer;
+import com.etheli.arduvidrx.rec.ScanHistoryStore;
+
+/**
+ * Class WaterfallView shows the history of full-band sweeps held by a
+ * ScanHistoryStore as a scrolling waterfall (newest sweep at the top, one
+ * pixel row per sweep, RSSI shown via color).  The rows are held in a
+ * bitmap used as a ring:  each new sweep is drawn as a single row into the
+ * bitmap, and the display is scrolled by drawing the two parts of the ring
+ * in order, so the history is never redrawn.  Methods should be called
+ * via the UI thread.
+ */
+public class WaterfallView extends View
+{
+  private static final int [] RSSI_COLORS_ARR = createRssiColorsArray();
+  private ScanHistoryStore scanHistoryStoreObj = null;
+  private Bitmap waterfallBitmapObj = null;
+  private int [] rowPixelsArr = null;
+  private byte [] rowRssiValsArr = null;
+  private int bitmapNumCols = 0;
+  private int topRowIdx = 0;               //bitmap row holding newest sweep
+  private long renderedRowsCount = 0L;
+  private final Rect srcRectObj = new Rect();
+  private final Rect dstRectObj = new Rect();
+  private final Paint bitmapPaintObj = new Paint();
+
+  /**
+   * Creates a waterfall view.
+   * @param context context for view.
+   */
+  public WaterfallView(Context context)
+  {
+    super(context);
+  }
+
+  /**
+   * Creates a waterfall view (via layout XML).
+   * @param context context for view.
+   * @param attrs attributes for view.
+   */
+  public WaterfallView(Context context, AttributeSet attrs)
+  {
+    super(context,attrs);
+  }
+
+  /**
+   * Sets the scan-history store shown by this view.
+   * @param storeObj scan-history store.
+   */
+  public void setScanHistoryStoreObj(ScanHistoryStore storeObj)
+  {
+    scanHistoryStoreObj = storeObj;
+    waterfallBitmapObj = null;             //setup bitmap on next update
+    renderedRowsCount = 0L;
+    invalidate();
+  }
+
+  /**
+   * Draws any rows entered into the scan-history store since the previous
+   * call into the waterfall bitmap, and invalidates the view.
+   */
+  public void updateFromHistoryStore()
+  {
+    final ScanHistoryStore storeObj;
+    if((storeObj=scanHistoryStoreObj) == null)
+      return;
+    final int numCols = storeObj.getNumCols();
+    final int maxRows = storeObj.getMaxNumRows();
+    if(numCols <= 0)
+      return;
+    if(waterfallBitmapObj == null || numCols != bitmapNumCols)
+    {  //bitmap not yet created or set of frequencies changed; (re)create bitmap
+      waterfallBitmapObj = Bitmap.createBitmap(numCols,maxRows,Bitmap.Config.ARGB_8888);
+      waterfallBitmapObj.eraseColor(Color.BLACK);
+      rowPixelsArr = new int[numCols];
+      rowRssiValsArr = new byte[numCols];
+      bitmapNumCols = numCols;
+      topRowIdx = 0;
+      renderedRowsCount = storeObj.getTotalRowsAdded() - storeObj.getNumRows();
+    }
+              //determine number of new rows (no more than are held):
+    int numNew = (int)Math.min(storeObj.getTotalRowsAdded() - renderedRowsCount,
+                                                                     storeObj.getNumRows());
+    renderedRowsCount = storeObj.getTotalRowsAdded();
+    int len, col;
+    while(--numNew >= 0)
+    {  //for each new row (oldest first); draw it above previous rows
+      len = storeObj.copyRow(numNew,rowRssiValsArr);
+      for(col=0; col<len; ++col)
+        rowPixelsArr[col] = RSSI_COLORS_ARR[rowRssiValsArr[col] & 0x7F];
+      if(--topRowIdx < 0)
+        topRowIdx = maxRows - 1;
+      waterfallBitmapObj.setPixels(rowPixelsArr,0,numCols,0,topRowIdx,len,1);
+    }
+    invalidate();
+  }
+
+  /**
+   * Draws the view.
+   * @param canvas canvas to draw on.
+   */
+  @Override
+  protected void onDraw(Canvas canvas)
+  {
+    super.onDraw(canvas);
+    final Bitmap bitmapObj;
+    if((bitmapObj=waterfallBitmapObj) == null)
+      return;
+    final int numRows = bitmapObj.getHeight();
+    final int viewWidth = getWidth(), viewHeight = getHeight();
+    final int firstPartRows = numRows - topRowIdx;
+              //draw newest rows (from top-row index to end of bitmap) at top:
+    final int splitY = viewHeight * firstPartRows / numRows;
+    srcRectObj.set(0,topRowIdx,bitmapNumCols,numRows);
+    dstRectObj.set(0,0,viewWidth,splitY);
+    canvas.drawBitmap(bitmapObj,srcRectObj,dstRectObj,bitmapPaintObj);
+    if(topRowIdx > 0)
+    {  //ring wraps; draw older rows (from start of bitmap) below
+      srcRectObj.set(0,0,bitmapNumCols,topRowIdx);
+      dstRectObj.set(0,splitY,viewWidth,viewHeight);
+      canvas.drawBitmap(bitmapObj,srcRectObj,dstRectObj,bitmapPaintObj);
+    }
+  }
+
+  /**
+   * Creates the array of colors used for RSSI values (black through blue,
+   * green and yellow to red).
+   * @return A new array of color values, indexed by RSSI value.
+   */
+  private static int [] createRssiColorsArray()
+  {
+    final int numColors = ScanFrameBuffer.MAX_RSSI_VAL + 1;
+    final int [] colorsArr = new int[numColors];
+    float fVal;
+    for(int i=0; i<numColors; ++i)
+    {  //for each RSSI value; map 0-100 range onto color gradient
+      fVal = Math.min(i,100) / 25.0f;
+      if(fVal < 1.0f)            //black to blue
+        colorsArr[i] = Color.rgb(0,0,Math.round(255*fVal));
+      else if(fVal < 2.0f)       //blue to green
+        colorsArr[i] = Color.rgb(0,Math.round(255*(fVal-1)),Math.round(255*(2-fVal)));
+      else if(fVal < 3.0f)       //green to yellow
+        colorsArr[i] = Color.rgb(Math.round(255*(fVal-2)),255,0);
+      else                       //yellow to red
+        colorsArr[i] = Color.rgb(255,Math.round(255*(4-fVal)),0);
+    }
+    return colorsArr;
+  }
+}
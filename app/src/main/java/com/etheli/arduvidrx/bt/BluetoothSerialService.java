@@ -23,8 +23,8 @@ package com.etheli.arduvidrx.bt;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.lang.reflect.Method;
-import java.util.UUID;
+import java.util.ArrayDeque;
+import java.util.Random;
 
 import android.app.Activity;
 import android.app.AlertDialog;
@@ -33,13 +33,16 @@ import android.bluetooth.BluetoothDevice;
 import android.bluetooth.BluetoothSocket;
 import android.content.DialogInterface;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Message;
 import android.util.Log;
 
 import com.etheli.arduvidrx.R;
+import com.etheli.util.AppScheduler;
 import com.etheli.util.DataWriteReceiver;
+import com.etheli.util.RawStreamCapture;
 import com.etheli.util.SerialWriterInterface;
 
 /**
@@ -58,8 +61,6 @@ public class BluetoothSerialService implements SerialWriterInterface
     public static final int REQUEST_CONNECT_DEVICE = 1;
     public static final int REQUEST_ENABLE_BT = 2;
 
-	private static final UUID SerialPortServiceClass_UUID = UUID.fromString("00001101-0000-1000-8000-00805F9B34FB");
-
     // Member fields
 	private BluetoothAdapter mBluetoothAdapter = null;
     private Handler mHandler;
@@ -69,17 +70,33 @@ public class BluetoothSerialService implements SerialWriterInterface
 	private boolean mEnablingFlag = false;
 
     private boolean mAllowInsecureConnections;
+    private final SharedPreferences mConnectCachePrefs;
+    private BluetoothDevice mConnectedDevice = null;
+    private volatile boolean mAutoReconnectEnabled = true;
+    private final Random mJitterRandom = new Random();
 
     private DataWriteReceiver mDataWriteReceiverObj;
     private Activity mParentActivityObj;
     private Runnable mConnectionStopActionObj = null;
     private final Object mDestinationThreadSyncObj = new Object();
+    private volatile boolean mWriteEchoEnabled = false;
+    private volatile RawStreamCapture mRawStreamCaptureObj = null;
+
+    // Limits for outbound queue (drained by writer thread)
+    private static final int OUTBOUND_MAX_QUEUED_BYTES = 8192;
+    private static final int OUTBOUND_MAX_COALESCE_BYTES = 512;
+
+    // Parameters for automatic reconnect after connection lost
+    private static final int RECONNECT_BASE_DELAYMS = 200;
+    private static final int RECONNECT_MAX_DELAYMS = 4000;
+    private static final int RECONNECT_MAX_TIMEMS = 45000;
 
     // Constants that indicate the current connection state
     public static final int STATE_NONE = 0;       // we're doing nothing
     public static final int STATE_LISTEN = 1;     // now listening for incoming connections
     public static final int STATE_CONNECTING = 2; // now initiating an outgoing connection
     public static final int STATE_CONNECTED = 3;  // now connected to a remote device
+    public static final int STATE_RECONNECTING = 4; // connection lost; reconnecting
 
     // Key names sent from the BluetoothReadService Handler
     public static final String DEVICE_NAME = "device_name";
@@ -105,6 +122,16 @@ public class BluetoothSerialService implements SerialWriterInterface
         mDataWriteReceiverObj = dataWriteRecObj;
         mParentActivityObj = context;
         mAllowInsecureConnections = true;
+        mConnectCachePrefs = context.getSharedPreferences(BtSocketConnector.PREFS_NAME, 0);
+    }
+
+    /**
+     * Sets whether the service automatically reconnects to the device
+     * (with backoff) when the connection is lost.
+     * @param flgVal true to enable automatic reconnect; false to disable.
+     */
+    public void setAutoReconnectEnabled(boolean flgVal) {
+        mAutoReconnectEnabled = flgVal;
     }
 
     /**
@@ -119,9 +146,30 @@ public class BluetoothSerialService implements SerialWriterInterface
             mParentActivityObj = parentActObj;
             mHandler = handlerObj;
             mDataWriteReceiverObj = dataWriteRecObj;
+            mWriteEchoEnabled = false;      //new destination must enable echo
         }
     }
 
+    /**
+     * Sets whether or not sent data is echoed back to the handler (via
+     * MESSAGE_WRITE messages).  This should only be enabled while a
+     * terminal is showing local echo, and is cleared when the destination
+     * objects are changed.
+     * @param flgVal true to send MESSAGE_WRITE messages; false to not.
+     */
+    public void setWriteEchoEnabled(boolean flgVal) {
+        mWriteEchoEnabled = flgVal;
+    }
+
+    /**
+     * Sets the capture object that is given each chunk of data read from
+     * the serial channel (with the time of the read).
+     * @param captureObj RawStreamCapture object, or null for none.
+     */
+    public void setRawStreamCaptureObj(RawStreamCapture captureObj) {
+        mRawStreamCaptureObj = captureObj;
+    }
+
     /**
      * Clears the destination objects for the service.  If the objects match those
      * most-recently set then they will be cleared so they are no longer invoked.
@@ -130,8 +178,10 @@ public class BluetoothSerialService implements SerialWriterInterface
      */
     public void clearDestinationObjects(Handler handlerObj, DataWriteReceiver dataWriteRecObj) {
         synchronized(mDestinationThreadSyncObj) {
-            if(handlerObj == mHandler)
+            if(handlerObj == mHandler) {
                 mHandler = null;
+                mWriteEchoEnabled = false;
+            }
             if(dataWriteRecObj == mDataWriteReceiverObj)
                 mDataWriteReceiverObj = null;
         }
@@ -221,22 +271,21 @@ public class BluetoothSerialService implements SerialWriterInterface
      */
     public void stopIfDestinationObjsStayClear(final int delayMs) {
         if(mState == STATE_CONNECTED) {
-            (new Thread("stopIfDestinationObjsStayClear") {
+            final ConnectedThread connThreadObj = mConnectedThread;
+            AppScheduler.getAppScheduler().schedule("stopIfDestinationObjsStayClear",
+                                                                          new Runnable() {
                 public void run() {
-                    try {
-                        for(int i=0; i<11; ++i) {
-                            sleep(delayMs/10);
-                            if(mState != STATE_CONNECTED)       //if disconnected while waiting
-                                return;                         // then don't do anything
+                    try {        //if disconnected (or reconnected) while waiting then do nothing;
+                        if(mState == STATE_CONNECTED && mConnectedThread == connThreadObj &&
+                                                         areDestinationObjectsClear()) {
+                            BluetoothSerialService.this.stop();  //no dest objs setup; stop service
                         }
-                        if(areDestinationObjectsClear())        //if no dest objs have been setup
-                            BluetoothSerialService.this.stop(); // then stop service
                     }
                     catch(Exception ex) {
                         Log.e(TAG, "Exception in 'stopIfDestinationObjsStayClear()'", ex);
                     }
                 }
-            }).start();
+            }, delayMs + delayMs/10);
         }
     }
 
@@ -460,7 +509,7 @@ public class BluetoothSerialService implements SerialWriterInterface
         if (D) Log.d(TAG, "connect to: " + device);
 
         // Cancel any thread attempting to make a connection
-        if (mState == STATE_CONNECTING) {
+        if (mState == STATE_CONNECTING || mState == STATE_RECONNECTING) {
             if (mConnectThread != null) {mConnectThread.cancel(); mConnectThread = null;}
         }
 
@@ -468,7 +517,7 @@ public class BluetoothSerialService implements SerialWriterInterface
         if (mConnectedThread != null) {mConnectedThread.cancel(); mConnectedThread = null;}
 
         // Start the thread to connect with the given device
-        mConnectThread = new ConnectThread(device);
+        mConnectThread = new ConnectThread(device, false);
         mConnectThread.start();
         setState(STATE_CONNECTING);
     }
@@ -496,6 +545,7 @@ public class BluetoothSerialService implements SerialWriterInterface
         // Start the thread to manage the connection and perform transmissions
         mConnectedThread = new ConnectedThread(socket);
         mConnectedThread.start();
+        mConnectedDevice = device;
 
         // Send the name of the connected device back to the UI Activity
         final Message msg = obtainMHandlerMessage(MESSAGE_DEVICE_INFO);
@@ -533,7 +583,9 @@ public class BluetoothSerialService implements SerialWriterInterface
     }
 
     /**
-     * Write to the ConnectedThread in an unsynchronized manner
+     * Write to the ConnectedThread in an unsynchronized manner.  The data
+     * is queued and sent by the connection's writer thread, so this method
+     * does not block on socket I/O.
      * @param out The bytes to write
      * @see ConnectedThread#write(byte[])
      */
@@ -570,10 +622,33 @@ public class BluetoothSerialService implements SerialWriterInterface
         }
     }
 
+    /**
+     * Indicate that reconnecting after a lost connection failed and notify
+     * the UI Activity.
+     */
+    private void reconnectFailed() {
+        synchronized (this) {
+            mConnectThread = null;
+        }
+        connectionLost(false);
+    }
+
     /**
      * Indicate that the connection was lost and notify the UI Activity.
+     * If automatic reconnect is enabled (and the disconnect was not
+     * requested) then a reconnect to the device is started instead.
      */
-    private void connectionLost(boolean canceledFlag) {
+    private synchronized void connectionLost(boolean canceledFlag) {
+        if(!canceledFlag && mAutoReconnectEnabled && mState == STATE_CONNECTED &&
+                                                                  mConnectedDevice != null) {
+            // Start reconnecting (connected thread has exited)
+            Log.i(TAG, "Connection lost; reconnecting to " + mConnectedDevice.getAddress());
+            mConnectedThread = null;
+            mConnectThread = new ConnectThread(mConnectedDevice, true);
+            mConnectThread.start();
+            setState(STATE_RECONNECTING);
+            return;
+        }
         setState(STATE_NONE);
 
         if(!canceledFlag) {       //if not canceled by user
@@ -590,77 +665,93 @@ public class BluetoothSerialService implements SerialWriterInterface
 
     /**
      * This thread runs while attempting to make an outgoing connection
-     * with a device. It runs straight through; the connection either
-     * succeeds or fails.
+     * with a device. The candidate connect methods are raced via the
+     * socket connector (with the method that last worked for the device
+     * attempted first); the connection either succeeds or fails.  In
+     * reconnect mode, attempts are repeated with jittered exponential
+     * backoff until the connection succeeds, the thread is canceled or
+     * the reconnect time limit is reached.
      */
     private class ConnectThread extends Thread {
-        private final BluetoothSocket mmSocket;
         private final BluetoothDevice mmDevice;
+        private final boolean mmReconnectFlag;
+        // Connector for this thread only (race state is not shared with other threads)
+        private final BtSocketConnector mmSocketConnector =
+                                                new BtSocketConnector(mConnectCachePrefs);
+        private volatile boolean mmCanceledFlag = false;
 
-        public ConnectThread(BluetoothDevice device) {
+        public ConnectThread(BluetoothDevice device, boolean reconnectFlag) {
             mmDevice = device;
-            BluetoothSocket tmp = null;
-
-            // Get a BluetoothSocket for a connection with the
-            // given BluetoothDevice
-            try {
-            	if ( mAllowInsecureConnections ) {
-            		Method method;
-
-            		method = device.getClass().getMethod("createRfcommSocket", new Class[] { int.class } );
-                    tmp = (BluetoothSocket) method.invoke(device, 1);
-            	}
-            	else {
-            		tmp = device.createRfcommSocketToServiceRecord( SerialPortServiceClass_UUID );
-            	}
-            } catch (Exception e) {
-                Log.e(TAG, "create() failed", e);
-            }
-            mmSocket = tmp;
+            mmReconnectFlag = reconnectFlag;
         }
 
         public void run() {
-            Log.i(TAG, "BEGIN mConnectThread");
-            setName("ConnectThread");
-
-            // Always cancel discovery because it will slow down a connection
-            final BluetoothAdapter btAdapterObj;
-            if((btAdapterObj=BluetoothAdapter.getDefaultAdapter()) != null)
-                btAdapterObj.cancelDiscovery();
-
-            // Make a connection to the BluetoothSocket
-            try {
-                // This is a blocking call and will only return on a
-                // successful connection or an exception
-                mmSocket.connect();
-            } catch (IOException e) {
-                connectionFailed();
-                // Close the socket
+            Log.i(TAG, "BEGIN mConnectThread" + (mmReconnectFlag ? " (reconnect)" : ""));
+            setName(mmReconnectFlag ? "ReconnectThread" : "ConnectThread");
+
+            final long endTimeMs = System.currentTimeMillis() + RECONNECT_MAX_TIMEMS;
+            int delayMs = RECONNECT_BASE_DELAYMS;
+            int attemptCount = 0;
+            BluetoothSocket socket = null;
+            while (!mmCanceledFlag) {
+                if (mmReconnectFlag) {
+                    // Wait backoff delay (randomized 50%-150% to avoid lockstep retries)
+                    try {
+                        sleep(delayMs / 2 + mJitterRandom.nextInt(delayMs));
+                    } catch (InterruptedException e) {
+                        // Interrupted via cancel
+                    }
+                    if (mmCanceledFlag)
+                        break;
+                    delayMs = Math.min(delayMs * 2, RECONNECT_MAX_DELAYMS);
+                }
+                ++attemptCount;
                 try {
-                    mmSocket.close();
-                } catch (IOException e2) {
-                    Log.e(TAG, "unable to close() socket during connection failure", e2);
+                    // This is a blocking call and will only return on a
+                    // successful connection or an exception
+                    socket = mmSocketConnector.connectSocket(mmDevice, mAllowInsecureConnections);
+                    break;
+                } catch (IOException e) {
+                    Log.d(TAG, "Connect attempt " + attemptCount + " failed: " + e);
+                }
+                if (!mmReconnectFlag || System.currentTimeMillis() >= endTimeMs)
+                    break;
+            }
+
+            if (socket == null) {
+                if (!mmCanceledFlag) {
+                    if (mmReconnectFlag)
+                        reconnectFailed();
+                    else
+                        connectionFailed();
                 }
-                // Start the service over to restart listening mode
-                //BluetoothSerialService.this.start();
                 return;
             }
+            if (mmReconnectFlag)
+                Log.i(TAG, "Reconnected after " + attemptCount + " attempt(s)");
 
             // Reset the ConnectThread because we're done
             synchronized (BluetoothSerialService.this) {
+                if (mmCanceledFlag) {
+                    // Canceled after connect completed; close socket
+                    try {
+                        socket.close();
+                    } catch (IOException e2) {
+                        Log.e(TAG, "unable to close() socket after cancel", e2);
+                    }
+                    return;
+                }
                 mConnectThread = null;
             }
 
             // Start the connected thread
-            connected(mmSocket, mmDevice);
+            connected(socket, mmDevice);
         }
 
         public void cancel() {
-            try {
-                mmSocket.close();
-            } catch (IOException e) {
-                Log.e(TAG, "close() of connect socket failed", e);
-            }
+            mmCanceledFlag = true;
+            mmSocketConnector.cancel();
+            interrupt();
         }
 
         public BluetoothDevice getDeviceObj() {
@@ -676,7 +767,9 @@ public class BluetoothSerialService implements SerialWriterInterface
         private final BluetoothSocket mmSocket;
         private final InputStream mmInStream;
         private final OutputStream mmOutStream;
-        private boolean mmCanceledFlag = false;
+        private final OutboundWriterThread mmWriterThread;
+        private volatile boolean mmCanceledFlag = false;
+        private boolean mmLostReportedFlag = false;
 
 
         public ConnectedThread(BluetoothSocket socket) {
@@ -695,18 +788,24 @@ public class BluetoothSerialService implements SerialWriterInterface
 
             mmInStream = tmpIn;
             mmOutStream = tmpOut;
+            mmWriterThread = new OutboundWriterThread(tmpOut, this);
         }
 
         public void run() {
             Log.i(TAG, "BEGIN mConnectedThread");
+            mmWriterThread.start();
             byte[] buffer = new byte[1024];
             int bytes;
+            RawStreamCapture captureObj;
 
             // Keep listening to the InputStream while connected
             while (true) {
                 try {
                     // Read from the InputStream
                     bytes = mmInStream.read(buffer);
+                    // Capture the data (with read time) if capture is in use
+                    if((captureObj=mRawStreamCaptureObj) != null)
+                        captureObj.captureChunk(buffer, bytes);
 
                     synchronized(mDestinationThreadSyncObj) {
                         if(mDataWriteReceiverObj != null)
@@ -717,34 +816,63 @@ public class BluetoothSerialService implements SerialWriterInterface
                 } catch (IOException e) {
                     if(mmCanceledFlag)
                       Log.d(TAG, "disconnected by user");
-                    else
+                    else {
                       Log.e(TAG, "disconnected", e);
-                    connectionLost(mmCanceledFlag);
+                      // Release writer and socket so a reconnect can proceed
+                      mmWriterThread.terminate();
+                      try {
+                          mmSocket.close();
+                      } catch (IOException e2) {
+                          Log.e(TAG, "close() of lost socket failed", e2);
+                      }
+                    }
+                    reportConnectionLost();
                     break;
                 }
             }
         }
 
         /**
-         * Write to the connected OutStream.
-         * @param buffer  The bytes to write
+         * Called by the writer thread when a write to the socket fails.
+         * Releases the writer and socket (which also ends the read loop)
+         * and reports the lost connection.
          */
-        public void write(byte[] buffer) {
+        public void writeFailed() {
+            if(mmCanceledFlag)
+                return;           // already disconnected by user
+            mmWriterThread.terminate();
             try {
-                mmOutStream.write(buffer);
-
-                // Share the sent message back to the UI Activity
-                final Message msgObj =
-                                  obtainMHandlerMessage(MESSAGE_WRITE, buffer.length, -1, buffer);
-                if(msgObj != null)
-                    msgObj.sendToTarget();
+                mmSocket.close();
             } catch (IOException e) {
-                Log.e(TAG, "Exception during write", e);
+                Log.e(TAG, "close() of lost socket failed", e);
             }
+            reportConnectionLost();
+        }
+
+        /**
+         * Report the lost connection, only once (the reader and writer
+         * threads may both notice it).
+         */
+        private void reportConnectionLost() {
+            synchronized (this) {
+                if (mmLostReportedFlag)
+                    return;
+                mmLostReportedFlag = true;
+            }
+            connectionLost(mmCanceledFlag);
+        }
+
+        /**
+         * Queue data to be written to the connected OutStream.
+         * @param buffer  The bytes to write
+         */
+        public void write(byte[] buffer) {
+            mmWriterThread.enqueue(buffer);
         }
 
         public void cancel() {
             mmCanceledFlag = true;
+            mmWriterThread.terminate();
             try {
                 mmSocket.close();
             } catch (IOException e) {
@@ -753,6 +881,104 @@ public class BluetoothSerialService implements SerialWriterInterface
         }
     }
 
+    /**
+     * This thread drains the outbound queue for a connection.  Buffers
+     * queued back-to-back are coalesced into a single write to the socket.
+     * A failed write ends the thread and reports the lost connection.
+     */
+    private class OutboundWriterThread extends Thread {
+        private final OutputStream mmOutStream;
+        private final ConnectedThread mmConnectedThread;
+        private final ArrayDeque<byte[]> mmQueue = new ArrayDeque<byte[]>();
+        private final byte[] mmCoalesceBuffer = new byte[OUTBOUND_MAX_COALESCE_BYTES];
+        private int mmQueuedBytes = 0;
+        private boolean mmTerminateFlag = false;
+
+        public OutboundWriterThread(OutputStream outStream, ConnectedThread connectedThread) {
+            super("BtOutboundWriter");
+            mmOutStream = outStream;
+            mmConnectedThread = connectedThread;
+        }
+
+        /**
+         * Add data to the outbound queue (without blocking).
+         * @param buffer  The bytes to write
+         */
+        public synchronized void enqueue(byte[] buffer) {
+            if(mmTerminateFlag || buffer == null || buffer.length <= 0)
+                return;
+            if(mmQueuedBytes + buffer.length > OUTBOUND_MAX_QUEUED_BYTES) {
+                Log.e(TAG, "Outbound queue full; discarding " + buffer.length + " bytes");
+                return;
+            }
+            mmQueue.addLast(buffer);
+            mmQueuedBytes += buffer.length;
+            notifyAll();
+        }
+
+        /**
+         * Stop the thread (any queued data is discarded).
+         */
+        public synchronized void terminate() {
+            mmTerminateFlag = true;
+            mmQueue.clear();
+            mmQueuedBytes = 0;
+            notifyAll();
+        }
+
+        public void run() {
+            byte[] buffer;
+            int len;
+            try {
+                while (true) {
+                    synchronized (this) {
+                        while (mmQueue.isEmpty() && !mmTerminateFlag)
+                            wait();
+                        if (mmTerminateFlag)
+                            break;
+                        buffer = mmQueue.peekFirst();
+                        if (buffer.length >= mmCoalesceBuffer.length) {
+                            // Large buffer; write it by itself
+                            mmQueue.removeFirst();
+                            len = buffer.length;
+                        }
+                        else {
+                            // Coalesce queued buffers that fit into a single write
+                            len = 0;
+                            while ((buffer=mmQueue.peekFirst()) != null &&
+                                               len + buffer.length <= mmCoalesceBuffer.length) {
+                                mmQueue.removeFirst();
+                                System.arraycopy(buffer, 0, mmCoalesceBuffer, len, buffer.length);
+                                len += buffer.length;
+                            }
+                            buffer = mmCoalesceBuffer;
+                        }
+                        mmQueuedBytes -= len;
+                    }
+                    try {
+                        mmOutStream.write(buffer, 0, len);
+                    } catch (IOException e) {
+                        // Socket is dead; stop writing and report the lost connection
+                        Log.e(TAG, "Exception during write", e);
+                        mmConnectedThread.writeFailed();
+                        break;
+                    }
+                    if (mWriteEchoEnabled) {
+                        // Share the sent data back to the terminal
+                        final byte[] echoBuf = new byte[len];
+                        System.arraycopy(buffer, 0, echoBuf, 0, len);
+                        final Message msgObj =
+                                        obtainMHandlerMessage(MESSAGE_WRITE, len, -1, echoBuf);
+                        if(msgObj != null)
+                            msgObj.sendToTarget();
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Interrupted; exit thread
+            }
+        }
+    }
+
     public void setAllowInsecureConnections( boolean allowInsecureConnections ) {
     	mAllowInsecureConnections = allowInsecureConnections;
     }
@@ -0,0 +1,460 @@
+//BtSocketConnector.java:  Connects Bluetooth RFCOMM sockets, remembering
+//                         the method and channel that worked per device.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.bt;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothSocket;
+import android.content.SharedPreferences;
+
+import com.etheli.util.ULog;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Class BtSocketConnector connects Bluetooth RFCOMM sockets to devices.
+ * For each device address the connect method (direct RFCOMM channel,
+ * insecure service-record lookup or secure service-record lookup) and the
+ * RFCOMM channel that last worked are remembered (via SharedPreferences),
+ * and that method is attempted first on the next connect.  The candidate
+ * methods are raced in a staggered fashion:  the first attempt is started
+ * immediately, and each following attempt is started when the previous
+ * ones have failed or after a stagger delay (whichever comes first), with
+ * the first socket to connect used and the others closed.  (Attempts are
+ * staggered rather than all started at once because simultaneous RFCOMM
+ * connects to the same device tend to interfere with each other.)
+ * The state of each race is held per call, and a connector that has been
+ * canceled stays canceled, so each connecting thread should use its own
+ * connector object.
+ */
+public class BtSocketConnector
+{
+    /** Tag string for logging. */
+  public static final String LOG_TAG = "BtSocketConnector";
+    /** Name for SharedPreferences access to connect cache. */
+  public static final String PREFS_NAME = "ArduVidRxBtConnectCache";
+    /** Connect method:  direct RFCOMM channel (no service-record lookup). */
+  public static final int METHOD_CHANNEL = 1;
+    /** Connect method:  insecure RFCOMM via service-record (SDP) lookup. */
+  public static final int METHOD_INSECURE_SDP = 2;
+    /** Connect method:  secure RFCOMM via service-record (SDP) lookup. */
+  public static final int METHOD_SECURE_SDP = 3;
+    /** Default RFCOMM channel for the direct-channel method. */
+  public static final int DEF_RFCOMM_CHANNEL = 1;
+    /** Delay (ms) before starting the next attempt while others are pending. */
+  public static final int STAGGER_DELAYMS = 1500;
+    /** Serial-port-profile service UUID. */
+  public static final UUID SERIAL_PORT_UUID =
+                                      UUID.fromString("00001101-0000-1000-8000-00805F9B34FB");
+  private static final String METHOD_KEY_SUFFIX = "|method";
+  private static final String CHANNEL_KEY_SUFFIX = "|channel";
+  private final SharedPreferences sharedPrefsObj;
+  private final Object raceSyncObj = new Object();
+  private RaceResult activeRaceObj = null;
+  private boolean canceledFlag = false;
+
+  /**
+   * Creates a socket connector.
+   * @param sPrefsObj SharedPreferences object used to persist the method
+   * and channel that worked for each device.
+   */
+  public BtSocketConnector(SharedPreferences sPrefsObj)
+  {
+    sharedPrefsObj = sPrefsObj;
+  }
+
+  /**
+   * Connects a socket to the given device, racing the candidate connect
+   * methods (with the one that last worked for the device attempted
+   * first).  This method blocks until a socket is connected, all attempts
+   * have failed or 'cancel()' is called (after which all calls fail).
+   * @param deviceObj device to connect to.
+   * @param allowInsecureFlag true to allow insecure connect methods; false
+   * to only use the secure method.
+   * @return The connected socket.
+   * @throws IOException if all attempts failed or the connect was canceled.
+   */
+  public BluetoothSocket connectSocket(BluetoothDevice deviceObj, boolean allowInsecureFlag)
+                                                                             throws IOException
+  {
+    final String addrStr = deviceObj.getAddress();
+    final int cachedMethod = getCachedMethod(addrStr);
+    final int channelVal = getCachedChannel(addrStr);
+    final List<Integer> methodsList = new ArrayList<Integer>();
+    if(allowInsecureFlag)
+    {  //insecure methods allowed; cached method first, then direct channel
+      if(cachedMethod > 0)
+        methodsList.add(cachedMethod);
+      addIfAbsent(methodsList,METHOD_CHANNEL);
+      addIfAbsent(methodsList,METHOD_INSECURE_SDP);
+      addIfAbsent(methodsList,METHOD_SECURE_SDP);
+    }
+    else
+      methodsList.add(METHOD_SECURE_SDP);
+         //always cancel discovery because it will slow down a connection:
+    final BluetoothAdapter btAdapterObj;
+    if((btAdapterObj=BluetoothAdapter.getDefaultAdapter()) != null)
+      btAdapterObj.cancelDiscovery();
+    final RaceResult resultObj = new RaceResult();
+    synchronized(raceSyncObj)
+    {
+      if(canceledFlag)
+        throw new IOException("Connect canceled");
+      activeRaceObj = resultObj;       //make race visible to 'cancel()'
+    }
+    int nextIdx = 0;
+    synchronized(resultObj)
+    {
+      while(true)
+      {
+        if(resultObj.winnerAttemptObj != null || resultObj.canceledFlag)
+          break;
+        if(nextIdx < methodsList.size())
+        {  //more methods to attempt; start next one
+          startAttempt(deviceObj,methodsList.get(nextIdx++),channelVal,resultObj);
+          final long endTimeMs = System.currentTimeMillis() + STAGGER_DELAYMS;
+          long waitMs;     //wait for stagger delay, success, all-failed or cancel:
+          while(resultObj.winnerAttemptObj == null && resultObj.pendingCount > 0 &&
+               !resultObj.canceledFlag && (waitMs=endTimeMs-System.currentTimeMillis()) > 0)
+          {
+            waitForResult(resultObj,waitMs);
+          }
+        }
+        else if(resultObj.pendingCount > 0)
+          waitForResult(resultObj,STAGGER_DELAYMS);      //wait for remaining attempts
+        else
+          break;        //all attempts failed
+      }
+    }
+    synchronized(raceSyncObj)
+    {  //race finished; later 'cancel()' will not close returned socket
+      activeRaceObj = null;
+    }
+    final ConnectAttempt winnerObj = resultObj.winnerAttemptObj;
+    closeAttempts(resultObj,winnerObj);          //close any other attempts
+    final boolean cancelFlag;
+    synchronized(resultObj)
+    {
+      cancelFlag = resultObj.canceledFlag;
+    }
+    if(winnerObj == null)
+    {
+      throw new IOException(cancelFlag ? "Connect canceled" :
+                                                 "Unable to connect to device " + addrStr);
+    }
+    if(cancelFlag)
+    {  //canceled after socket connected; close it
+      closeSocket(winnerObj.socketObj);
+      throw new IOException("Connect canceled");
+    }
+    final int connChannel = (winnerObj.methodCode == METHOD_CHANNEL) ? winnerObj.channelVal :
+                                                             readSocketChannel(winnerObj.socketObj);
+    ULog.d(LOG_TAG, "Connected to " + addrStr + " via method " + winnerObj.methodCode +
+                                                                  ", channel " + connChannel);
+    putCachedValues(addrStr,winnerObj.methodCode,connChannel);
+    return winnerObj.socketObj;
+  }
+
+  /**
+   * Cancels any connect in progress (closing the sockets for all pending
+   * attempts and waking the connecting thread).  All later connects via
+   * this connector fail.
+   */
+  public void cancel()
+  {
+    final RaceResult resultObj;
+    synchronized(raceSyncObj)
+    {
+      canceledFlag = true;
+      resultObj = activeRaceObj;
+    }
+    if(resultObj != null)
+    {  //race in progress; cancel it
+      synchronized(resultObj)
+      {
+        resultObj.canceledFlag = true;
+        resultObj.notifyAll();         //wake connecting thread
+      }
+      closeAttempts(resultObj,null);
+    }
+  }
+
+  /**
+   * Returns the connect method that last worked for the given device.
+   * @param addrStr device address.
+   * @return One of the 'METHOD_...' values, or 0 if none cached.
+   */
+  public int getCachedMethod(String addrStr)
+  {
+    try
+    {
+      final int val = sharedPrefsObj.getInt(addrStr+METHOD_KEY_SUFFIX,0);
+      return (val >= METHOD_CHANNEL && val <= METHOD_SECURE_SDP) ? val : 0;
+    }
+    catch(Exception ex)
+    {  //some kind of exception reading prefs; ignore and move on
+      return 0;
+    }
+  }
+
+  /**
+   * Returns the RFCOMM channel that last worked for the given device.
+   * @param addrStr device address.
+   * @return The RFCOMM channel, or 'DEF_RFCOMM_CHANNEL' if none cached.
+   */
+  public int getCachedChannel(String addrStr)
+  {
+    try
+    {
+      final int val = sharedPrefsObj.getInt(addrStr+CHANNEL_KEY_SUFFIX,0);
+      return (val > 0 && val <= 30) ? val : DEF_RFCOMM_CHANNEL;
+    }
+    catch(Exception ex)
+    {  //some kind of exception reading prefs; ignore and move on
+      return DEF_RFCOMM_CHANNEL;
+    }
+  }
+
+  /**
+   * Enters the connect method and RFCOMM channel that worked for the given
+   * device (written to storage asynchronously, and only if changed).
+   * @param addrStr device address.
+   * @param methodCode connect method (one of the 'METHOD_...' values).
+   * @param channelVal RFCOMM channel, or 0 if not known.
+   */
+  private void putCachedValues(String addrStr, int methodCode, int channelVal)
+  {
+    try
+    {
+      if(getCachedMethod(addrStr) == methodCode &&
+                                      (channelVal <= 0 || getCachedChannel(addrStr) == channelVal))
+      {
+        return;         //values not changed
+      }
+      final SharedPreferences.Editor prefsEdObj = sharedPrefsObj.edit();
+      prefsEdObj.putInt(addrStr+METHOD_KEY_SUFFIX,methodCode);
+      if(channelVal > 0)
+        prefsEdObj.putInt(addrStr+CHANNEL_KEY_SUFFIX,channelVal);
+      prefsEdObj.apply();
+    }
+    catch(Exception ex)
+    {  //some kind of exception writing prefs; log it and move on
+      ULog.e(LOG_TAG, "Error saving connect-cache values", ex);
+    }
+  }
+
+  /**
+   * Creates a socket for the given method and starts a connect attempt
+   * with it.  If the socket cannot be created then the attempt is entered
+   * as failed.  The caller should hold the lock on the result object.
+   * @param deviceObj device to connect to.
+   * @param methodCode connect method (one of the 'METHOD_...' values).
+   * @param channelVal RFCOMM channel (for direct-channel method).
+   * @param resultObj result object for race.
+   */
+  private void startAttempt(BluetoothDevice deviceObj, int methodCode, int channelVal,
+                                                                          RaceResult resultObj)
+  {
+    final BluetoothSocket socketObj;
+    try
+    {
+      switch(methodCode)
+      {
+        case METHOD_CHANNEL:          //hidden API; must be invoked via reflection
+          final Method methodObj =
+                         deviceObj.getClass().getMethod("createRfcommSocket",int.class);
+          socketObj = (BluetoothSocket)methodObj.invoke(deviceObj,channelVal);
+          break;
+        case METHOD_INSECURE_SDP:
+          socketObj = deviceObj.createInsecureRfcommSocketToServiceRecord(SERIAL_PORT_UUID);
+          break;
+        default:
+          socketObj = deviceObj.createRfcommSocketToServiceRecord(SERIAL_PORT_UUID);
+          break;
+      }
+    }
+    catch(Exception ex)
+    {  //unable to create socket; skip method
+      ULog.e(LOG_TAG, "Unable to create socket for method " + methodCode, ex);
+      return;
+    }
+    final ConnectAttempt attemptObj =
+                              new ConnectAttempt(socketObj,methodCode,channelVal,resultObj);
+    if(resultObj.canceledFlag)
+    {  //connect was canceled; don't start attempt
+      closeSocket(socketObj);
+      return;
+    }
+    resultObj.attemptsList.add(attemptObj);
+    ++resultObj.pendingCount;
+    attemptObj.start();
+  }
+
+  /**
+   * Closes the sockets for all attempts in the given race except the given
+   * one.
+   * @param resultObj result object for race.
+   * @param keepAttemptObj attempt to leave open, or null for none.
+   */
+  private static void closeAttempts(RaceResult resultObj, ConnectAttempt keepAttemptObj)
+  {
+    final ConnectAttempt [] attemptsArr;
+    synchronized(resultObj)
+    {
+      attemptsArr = resultObj.attemptsList.toArray(
+                                             new ConnectAttempt[resultObj.attemptsList.size()]);
+    }
+    for(ConnectAttempt attemptObj : attemptsArr)
+    {
+      if(attemptObj != keepAttemptObj)
+        closeSocket(attemptObj.socketObj);
+    }
+  }
+
+  /**
+   * Waits (on the given result object) for an attempt to finish.  The
+   * caller should hold the lock on the result object.
+   * @param resultObj result object for race.
+   * @param waitMs maximum number of milliseconds to wait.
+   */
+  private static void waitForResult(RaceResult resultObj, long waitMs)
+  {
+    try
+    {
+      resultObj.wait(waitMs);
+    }
+    catch(InterruptedException ex)
+    {  //interrupted; just return
+    }
+  }
+
+  /**
+   * Adds the given value to the given list if not already present.
+   * @param listObj list of values.
+   * @param val value to add.
+   */
+  private static void addIfAbsent(List<Integer> listObj, int val)
+  {
+    if(!listObj.contains(val))
+      listObj.add(val);
+  }
+
+  /**
+   * Closes the given socket, ignoring any error.
+   * @param socketObj socket to close.
+   */
+  private static void closeSocket(BluetoothSocket socketObj)
+  {
+    try
+    {
+      socketObj.close();
+    }
+    catch(IOException ex)
+    {  //ignore any exception on close
+    }
+  }
+
+  /**
+   * Returns the RFCOMM channel for the given connected socket, as held by
+   * its (non-public) port field.
+   * @param socketObj connected socket.
+   * @return The RFCOMM channel, or 0 if not available.
+   */
+  private static int readSocketChannel(BluetoothSocket socketObj)
+  {
+    try
+    {
+      final Field fieldObj = socketObj.getClass().getDeclaredField("mPort");
+      fieldObj.setAccessible(true);
+      return fieldObj.getInt(socketObj);
+    }
+    catch(Exception ex)
+    {  //field not available on this platform version
+      return 0;
+    }
+  }
+
+
+  /**
+   * Class RaceResult holds the state of a single connect race.  Access is
+   * guarded by the lock on the object, which is also used to notify the
+   * racing thread when an attempt finishes or the race is canceled.
+   */
+  private static class RaceResult
+  {
+    public final List<ConnectAttempt> attemptsList = new ArrayList<ConnectAttempt>();
+    public ConnectAttempt winnerAttemptObj = null;
+    public int pendingCount = 0;
+    public boolean canceledFlag = false;
+  }
+
+
+  /**
+   * Class ConnectAttempt defines a thread that attempts to connect a
+   * socket.
+   */
+  private class ConnectAttempt extends Thread
+  {
+    public final BluetoothSocket socketObj;
+    public final int methodCode;
+    public final int channelVal;
+    private final RaceResult raceResultObj;
+
+    /**
+     * Creates a connect-attempt thread.
+     * @param socketObj socket to connect.
+     * @param methodCode connect method (one of the 'METHOD_...' values).
+     * @param channelVal RFCOMM channel (for direct-channel method).
+     * @param resultObj result object for race.
+     */
+    public ConnectAttempt(BluetoothSocket socketObj, int methodCode, int channelVal,
+                                                                        RaceResult resultObj)
+    {
+      super("btConnectAttempt" + methodCode);
+      this.socketObj = socketObj;
+      this.methodCode = methodCode;
+      this.channelVal = channelVal;
+      raceResultObj = resultObj;
+    }
+
+    /**
+     * Executing method for thread.
+     */
+    public void run()
+    {
+      boolean successFlag;
+      try
+      {       //blocking call; returns on successful connection or exception
+        socketObj.connect();
+        successFlag = true;
+      }
+      catch(IOException ex)
+      {
+        ULog.d(LOG_TAG, "Connect attempt via method " + methodCode + " failed:  " + ex);
+        successFlag = false;
+      }
+      synchronized(raceResultObj)
+      {
+        --raceResultObj.pendingCount;
+        if(successFlag)
+        {  //connected
+          if(raceResultObj.winnerAttemptObj == null)
+            raceResultObj.winnerAttemptObj = this;     //first to connect wins
+          else
+            closeSocket(socketObj);    //another attempt already won; close this one
+        }
+        else
+          closeSocket(socketObj);
+        raceResultObj.notifyAll();
+      }
+    }
+  }
+}
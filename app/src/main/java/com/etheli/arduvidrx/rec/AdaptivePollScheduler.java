@@ -0,0 +1,158 @@
+//AdaptivePollScheduler.java:  Determines the delay between channel/RSSI
+//                             polls of the receiver.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.rec;
+
+/**
+ * Class AdaptivePollScheduler determines the delay between channel/RSSI
+ * ("~") polls of the receiver.  The poll period is shortened while the
+ * RSSI is changing quickly or the user is issuing commands (i.e., tuning),
+ * and lengthened gradually while the signal is stable, down to an idle
+ * rate after a long stable period.  The round-trip time of each poll is
+ * measured and subtracted from the target period, so when the target
+ * period is short the next poll is issued as soon as the previous one
+ * completes.  Methods are synchronized because results are entered by
+ * the update worker while user activity is noted by other threads.
+ */
+public class AdaptivePollScheduler
+{
+    /** Target poll period (ms) while RSSI changing quickly or user active. */
+  public static final int FAST_PERIODMS = 40;
+    /** Target poll period (ms) for normal operation. */
+  public static final int BASE_PERIODMS = 100;
+    /** Maximum target poll period (ms) while signal stable. */
+  public static final int STABLE_MAX_PERIODMS = 300;
+    /** Target poll period (ms) after a long stable period. */
+  public static final int IDLE_PERIODMS = 750;
+    /** Delay (ms) after a failed poll. */
+  public static final int FAILURE_DELAYMS = 200;
+    /** Minimum delay (ms) between polls. */
+  public static final int MIN_GAPMS = 5;
+    /** Length of time (ms) that polling stays fast after user activity. */
+  public static final int ACTIVITY_HOLDMS = 3000;
+    /** Length of time (ms) of stable signal before idle rate is used. */
+  public static final int IDLE_AFTERMS = 30000;
+    /** RSSI change (per poll) at or above which polling goes fast. */
+  public static final int FAST_RSSI_DELTA = 4;
+    /** RSSI change (per poll) at or below which signal is considered stable. */
+  public static final int STABLE_RSSI_DELTA = 1;
+  private static final int STABLE_STEPMS = 20;
+
+  private int lastFreqVal = 0;
+  private int lastRssiVal = -1;
+  private int numStablePolls = 0;
+  private long stableStartTimeMs = 0L;
+  private long fastUntilTimeMs = 0L;
+  private long lastRttMs = 0L;
+  private long avgRttMs = 0L;
+  private boolean lastFailedFlag = false;
+  private long totalPollsCount = 0L;
+
+  /**
+   * Enters the result of a successful poll.
+   * @param freqVal frequency value reported by the receiver.
+   * @param rssiVal RSSI value reported by the receiver.
+   * @param rttMs round-trip time of the poll, in milliseconds.
+   */
+  public synchronized void enterPollResult(int freqVal, int rssiVal, long rttMs)
+  {
+    final long timeMs = System.currentTimeMillis();
+    ++totalPollsCount;
+    lastFailedFlag = false;
+    lastRttMs = rttMs;                 //track RTT (average weights new value by 1/4)
+    avgRttMs = (avgRttMs > 0L) ? (avgRttMs*3 + rttMs) / 4 : rttMs;
+    final int deltaVal = (lastRssiVal >= 0) ? Math.abs(rssiVal - lastRssiVal) : 0;
+    if(freqVal != lastFreqVal || deltaVal >= FAST_RSSI_DELTA)
+    {  //frequency changed or RSSI changing quickly; poll fast for a while
+      fastUntilTimeMs = timeMs + ACTIVITY_HOLDMS;
+      numStablePolls = 0;
+      stableStartTimeMs = timeMs;
+    }
+    else if(deltaVal <= STABLE_RSSI_DELTA)
+    {  //signal stable
+      if(numStablePolls++ == 0)
+        stableStartTimeMs = timeMs;
+    }
+    else
+    {  //signal changing moderately
+      numStablePolls = 0;
+      stableStartTimeMs = timeMs;
+    }
+    lastFreqVal = freqVal;
+    lastRssiVal = rssiVal;
+  }
+
+  /**
+   * Enters a failed poll.
+   */
+  public synchronized void enterPollFailure()
+  {
+    ++totalPollsCount;
+    lastFailedFlag = true;
+    numStablePolls = 0;
+  }
+
+  /**
+   * Notes user activity (i.e., tuning), so polling goes fast for a while.
+   */
+  public synchronized void noteUserActivity()
+  {
+    final long timeMs = System.currentTimeMillis();
+    fastUntilTimeMs = timeMs + ACTIVITY_HOLDMS;
+    numStablePolls = 0;
+    stableStartTimeMs = timeMs;
+  }
+
+  /**
+   * Returns the target poll period for the current conditions.
+   * @return The target poll period, in milliseconds.
+   */
+  public synchronized int getTargetPeriodMs()
+  {
+    final long timeMs = System.currentTimeMillis();
+    if(timeMs < fastUntilTimeMs)
+      return FAST_PERIODMS;
+    if(numStablePolls > 0)
+    {  //signal stable; lengthen period as stable time increases
+      if(timeMs - stableStartTimeMs >= IDLE_AFTERMS)
+        return IDLE_PERIODMS;
+      final int periodMs = BASE_PERIODMS + numStablePolls*STABLE_STEPMS;
+      return (periodMs < STABLE_MAX_PERIODMS) ? periodMs : STABLE_MAX_PERIODMS;
+    }
+    return BASE_PERIODMS;
+  }
+
+  /**
+   * Returns the delay to be executed before the next poll.  The measured
+   * round-trip time of the last poll is subtracted from the target period.
+   * @return The delay before the next poll, in milliseconds.
+   */
+  public synchronized long getNextDelayMs()
+  {
+    if(lastFailedFlag)
+      return FAILURE_DELAYMS;
+    final long delayMs = getTargetPeriodMs() - lastRttMs;
+    return (delayMs > MIN_GAPMS) ? delayMs : MIN_GAPMS;
+  }
+
+  /**
+   * Returns the average round-trip time for polls.
+   * @return The average round-trip time, in milliseconds.
+   */
+  public synchronized long getAvgRttMs()
+  {
+    return avgRttMs;
+  }
+
+  /**
+   * Returns the total number of polls entered.
+   * @return The total number of polls entered.
+   */
+  public synchronized long getTotalPollsCount()
+  {
+    return totalPollsCount;
+  }
+}
@@ -0,0 +1,478 @@
+//ChannelOccupancyStore.java:  Persistent per-frequency channel-occupancy
+//                             statistics.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.rec;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.TimeZone;
+
+/**
+ * Class ChannelOccupancyStore keeps channel-occupancy statistics for each
+ * frequency in the frequency table, accumulated across sessions from
+ * completed full-band sweeps (so every frequency is sampled at the same
+ * rate).  For each frequency (bin) an RSSI histogram is kept, along with
+ * time-of-day buckets (one per hour) holding the number of samples and
+ * the number of "occupied" samples (RSSI at or above
+ * 'OCCUPIED_MIN_RSSI').  Values are entered
+ * incrementally (into arrays allocated at construction), and when a bin's
+ * sample count reaches 'MAX_BIN_SAMPLES' its counts are halved (so older
+ * data is gradually aged out).  The statistics may be saved to and loaded
+ * from a compact fixed-size file, so clean channels may be ranked from
+ * past sessions without running a new scan.  Methods are synchronized
+ * because values are entered and requested by different threads.
+ * <p>
+ * File format (all values big-endian):  magic value 'FILE_MAGIC'
+ * (4 bytes), format version (1 byte), number of bins (2 bytes); then for
+ * each bin:  frequency (2 bytes), RSSI-histogram counts (4 bytes each),
+ * time-of-day sample counts (4 bytes each) and time-of-day occupied counts
+ * (4 bytes each).
+ */
+public class ChannelOccupancyStore
+{
+    /** Magic value at start of store file ("AVOC"). */
+  public static final int FILE_MAGIC = 0x41564F43;
+    /** Version of store-file format. */
+  public static final int FORMAT_VERSION = 1;
+    /** Width of each RSSI-histogram bucket. */
+  public static final int RSSI_BUCKET_WIDTH = 16;
+    /** Number of RSSI-histogram buckets. */
+  public static final int NUM_RSSI_BUCKETS =
+                                   (ScanFrameBuffer.MAX_RSSI_VAL + 1) / RSSI_BUCKET_WIDTH;
+    /** Number of time-of-day buckets (one per hour). */
+  public static final int NUM_TOD_BUCKETS = 24;
+    /** Minimum RSSI value for a sample to be considered "occupied". */
+  public static final int OCCUPIED_MIN_RSSI = 2 * RSSI_BUCKET_WIDTH;
+    /** Sample count for a bin at which its counts are halved. */
+  public static final int MAX_BIN_SAMPLES = 1000000;
+    /** Minimum number of samples in a time-of-day bucket for it to be used. */
+  public static final int MIN_TOD_SAMPLES = 20;
+  private static final long MS_PER_HOUR = 60L * 60L * 1000L;
+  private static final int OCCUPIED_BUCKET_IDX = OCCUPIED_MIN_RSSI / RSSI_BUCKET_WIDTH;
+  private final int numBins;
+  private final short [] binFreqValsArr;
+  private final int minFreqVal;
+  private final short [] freqToBinIdxArr;    //bin index + 1 for each frequency (0 = none)
+  private final int [] binSamplesArr;
+  private final int [][] rssiHistArr;        //[bin][bucket]
+  private final int [][] todSamplesArr;      //[bin][hour]
+  private final int [][] todOccupiedArr;     //[bin][hour]
+  private final Object saveFileSyncObj = new Object();
+  private final TimeZone timeZoneObj = TimeZone.getDefault();
+  private long tzOffsetMs = 0L;
+  private long tzOffsetCheckTimeMs = 0L;
+  private boolean storeChangedFlag = false;
+  private long valuesEnteredCount = 0L;
+
+  /**
+   * Creates a channel-occupancy store.
+   * @param freqValsArr sorted array of frequency values (MHz) for bins
+   * (without duplicates).
+   */
+  public ChannelOccupancyStore(int [] freqValsArr)
+  {
+    numBins = freqValsArr.length;
+    binFreqValsArr = new short[numBins];
+    for(int i=0; i<numBins; ++i)
+      binFreqValsArr[i] = (short)freqValsArr[i];
+    minFreqVal = (numBins > 0) ? freqValsArr[0] : 0;
+    freqToBinIdxArr = new short[(numBins > 0) ? (freqValsArr[numBins-1] - minFreqVal + 1) : 0];
+    for(int i=0; i<numBins; ++i)
+      freqToBinIdxArr[freqValsArr[i]-minFreqVal] = (short)(i + 1);
+    binSamplesArr = new int[numBins];
+    rssiHistArr = new int[numBins][NUM_RSSI_BUCKETS];
+    todSamplesArr = new int[numBins][NUM_TOD_BUCKETS];
+    todOccupiedArr = new int[numBins][NUM_TOD_BUCKETS];
+  }
+
+  /**
+   * Enters an RSSI value for the given frequency.  Values for frequencies
+   * not in the store are ignored.
+   * @param freqVal frequency value (MHz).
+   * @param rssiVal RSSI value.
+   * @param timeMs time the value was received (ms since 1/1/1970).
+   */
+  public synchronized void enterValue(int freqVal, int rssiVal, long timeMs)
+  {
+    final int binIdx;
+    if((binIdx=getBinIdx(freqVal)) < 0)
+      return;
+    rssiVal = (rssiVal < 0) ? 0 : ((rssiVal <= ScanFrameBuffer.MAX_RSSI_VAL) ? rssiVal :
+                                                               ScanFrameBuffer.MAX_RSSI_VAL);
+    if(binSamplesArr[binIdx] >= MAX_BIN_SAMPLES)
+      halveBinCounts(binIdx);
+    final int hourIdx = getHourOfDay(timeMs);
+    ++binSamplesArr[binIdx];
+    ++rssiHistArr[binIdx][rssiVal/RSSI_BUCKET_WIDTH];
+    ++todSamplesArr[binIdx][hourIdx];
+    if(rssiVal >= OCCUPIED_MIN_RSSI)
+      ++todOccupiedArr[binIdx][hourIdx];
+    storeChangedFlag = true;
+    ++valuesEnteredCount;
+  }
+
+  /**
+   * Enters an RSSI value for the given frequency, received now.
+   * @param freqVal frequency value (MHz).
+   * @param rssiVal RSSI value.
+   */
+  public void enterValue(int freqVal, int rssiVal)
+  {
+    enterValue(freqVal,rssiVal,System.currentTimeMillis());
+  }
+
+  /**
+   * Returns the number of samples entered for the given frequency.
+   * @param freqVal frequency value (MHz).
+   * @return The number of samples (after any aging), or 0 if none or if
+   * the frequency is not in the store.
+   */
+  public synchronized int getSampleCount(int freqVal)
+  {
+    final int binIdx;
+    return ((binIdx=getBinIdx(freqVal)) >= 0) ? binSamplesArr[binIdx] : 0;
+  }
+
+  /**
+   * Returns the percentage of samples for the given frequency that were
+   * "occupied" (RSSI at or above 'OCCUPIED_MIN_RSSI').
+   * @param freqVal frequency value (MHz).
+   * @param todFlag true to use the time-of-day bucket for the current
+   * hour (if it has enough samples); false to use all samples.
+   * @return The occupied percentage (0-100), or -1 if no samples.
+   */
+  public synchronized int getOccupiedPercent(int freqVal, boolean todFlag)
+  {
+    final int binIdx;
+    if((binIdx=getBinIdx(freqVal)) < 0 || binSamplesArr[binIdx] <= 0)
+      return -1;
+    return (int)((getOccupiedFraction(binIdx,
+                          todFlag ? getHourOfDay(System.currentTimeMillis()) : -1) * 100.0) + 0.5);
+  }
+
+  /**
+   * Returns the mean RSSI value for the given frequency (estimated from
+   * the RSSI histogram).
+   * @param freqVal frequency value (MHz).
+   * @return The mean RSSI value, or -1 if no samples.
+   */
+  public synchronized int getMeanRssiVal(int freqVal)
+  {
+    final int binIdx;
+    if((binIdx=getBinIdx(freqVal)) < 0 || binSamplesArr[binIdx] <= 0)
+      return -1;
+    return (int)(getMeanRssi(binIdx) + 0.5);
+  }
+
+  /**
+   * Ranks the frequencies that have samples from cleanest to busiest.
+   * Frequencies are ordered by their occupied fraction (using the
+   * time-of-day bucket for the current hour when it has enough samples),
+   * then by their mean RSSI.
+   * @param todFlag true to use time-of-day buckets; false to use all
+   * samples.
+   * @return A new array of frequency values (MHz), cleanest first (empty
+   * if no frequencies have samples).
+   */
+  public synchronized int [] rankCleanFreqs(boolean todFlag)
+  {
+    final int hourIdx = todFlag ? getHourOfDay(System.currentTimeMillis()) : -1;
+    final int [] binsArr = new int[numBins];
+    final double [] scoresArr = new double[numBins];
+    int num = 0, p;
+    double scoreVal;
+    for(int binIdx=0; binIdx<numBins; ++binIdx)
+    {  //for each bin with samples; insert into ranking (lowest score first)
+      if(binSamplesArr[binIdx] <= 0)
+        continue;
+              //score is occupied fraction, with mean RSSI as tie-breaker:
+      scoreVal = getOccupiedFraction(binIdx,hourIdx) +
+                                   getMeanRssi(binIdx) / (ScanFrameBuffer.MAX_RSSI_VAL * 1000.0);
+      p = num;
+      while(p > 0 && scoresArr[p-1] > scoreVal)
+      {
+        binsArr[p] = binsArr[p-1];
+        scoresArr[p] = scoresArr[p-1];
+        --p;
+      }
+      binsArr[p] = binIdx;
+      scoresArr[p] = scoreVal;
+      ++num;
+    }
+    final int [] retArr = new int[num];
+    for(int i=0; i<num; ++i)
+      retArr[i] = binFreqValsArr[binsArr[i]];
+    return retArr;
+  }
+
+  /**
+   * Clears all statistics.
+   */
+  public synchronized void clear()
+  {
+    for(int binIdx=0; binIdx<numBins; ++binIdx)
+    {
+      binSamplesArr[binIdx] = 0;
+      for(int i=0; i<NUM_RSSI_BUCKETS; ++i)
+        rssiHistArr[binIdx][i] = 0;
+      for(int i=0; i<NUM_TOD_BUCKETS; ++i)
+        todSamplesArr[binIdx][i] = todOccupiedArr[binIdx][i] = 0;
+    }
+    storeChangedFlag = true;
+  }
+
+  /**
+   * Determines if the statistics have changed since they were last saved
+   * or loaded.
+   * @return true if the statistics have changed; false if not.
+   */
+  public synchronized boolean isStoreChanged()
+  {
+    return storeChangedFlag;
+  }
+
+  /**
+   * Returns the number of values entered (since the store was created).
+   * @return The number of values entered.
+   */
+  public synchronized long getValuesEnteredCount()
+  {
+    return valuesEnteredCount;
+  }
+
+  /**
+   * Loads statistics from the given file, adding them to the current
+   * statistics (so samples entered before the load, such as while the
+   * load was running in the background, are kept).  Bins in the file for
+   * frequencies not in the store are ignored.  The store is marked as
+   * unchanged only if it held no samples before the load.
+   * @param fileObj store file.
+   * @return true if the file was loaded; false if it does not exist.
+   * @throws IOException if an I/O error occurs or the file is not valid.
+   */
+  public boolean loadFromFile(File fileObj) throws IOException
+  {
+    if(!fileObj.isFile())
+      return false;
+    final byte [] dataArr = new byte[(int)fileObj.length()];
+    final DataInputStream inStm = new DataInputStream(new FileInputStream(fileObj));
+    try
+    {  //read entire file into array
+      inStm.readFully(dataArr);
+    }
+    finally
+    {
+      inStm.close();
+    }
+    final DataInputStream dataStm = new DataInputStream(new ByteArrayInputStream(dataArr));
+    if(dataStm.readInt() != FILE_MAGIC)
+      throw new IOException("Not a channel-occupancy file:  " + fileObj);
+    final int verVal;
+    if((verVal=dataStm.read()) != FORMAT_VERSION)
+      throw new IOException("Unsupported channel-occupancy file version (" + verVal + ")");
+    final int fileNumBins = dataStm.readUnsignedShort();
+    if(dataArr.length != 7 + fileNumBins * getBinRecordLength())
+      throw new IOException("Invalid length for channel-occupancy file:  " + fileObj);
+    synchronized(this)
+    {  //merge file data into current statistics
+      boolean hadSamplesFlag = false;
+      for(int binIdx=0; binIdx<numBins; ++binIdx)
+      {  //check if any samples were entered before the load
+        if(binSamplesArr[binIdx] > 0)
+        {
+          hadSamplesFlag = true;
+          break;
+        }
+      }
+      int binIdx, val;
+      for(int b=0; b<fileNumBins; ++b)
+      {  //for each bin in file
+        binIdx = getBinIdx(dataStm.readUnsignedShort());
+        for(int i=0; i<NUM_RSSI_BUCKETS; ++i)
+        {
+          val = dataStm.readInt();
+          if(binIdx >= 0)
+          {
+            rssiHistArr[binIdx][i] += val;
+            binSamplesArr[binIdx] += val;
+          }
+        }
+        for(int i=0; i<NUM_TOD_BUCKETS; ++i)
+        {
+          val = dataStm.readInt();
+          if(binIdx >= 0)
+            todSamplesArr[binIdx][i] += val;
+        }
+        for(int i=0; i<NUM_TOD_BUCKETS; ++i)
+        {
+          val = dataStm.readInt();
+          if(binIdx >= 0)
+            todOccupiedArr[binIdx][i] += val;
+        }
+        if(binIdx >= 0 && binSamplesArr[binIdx] >= MAX_BIN_SAMPLES)
+          halveBinCounts(binIdx);
+      }
+              //if samples were already present then merged statistics
+              // differ from file; leave flag set so they are saved:
+      if(!hadSamplesFlag)
+        storeChangedFlag = false;
+    }
+    return true;
+  }
+
+  /**
+   * Saves the statistics to the given file.  The data is written to a
+   * temporary file which then replaces the given file, so an interrupted
+   * save does not leave a partial file.
+   * @param fileObj store file.
+   * @throws IOException if an I/O error occurs.
+   */
+  public void saveToFile(File fileObj) throws IOException
+  {
+    synchronized(saveFileSyncObj)
+    {  //only one save at a time (they use the same temporary file)
+      doSaveToFile(fileObj);
+    }
+  }
+
+  /**
+   * Saves the statistics to the given file (via a temporary file).  The
+   * caller should hold the lock on 'saveFileSyncObj'.
+   * @param fileObj store file.
+   * @throws IOException if an I/O error occurs.
+   */
+  private void doSaveToFile(File fileObj) throws IOException
+  {
+    final File tempFileObj = new File(fileObj.getPath() + ".tmp");
+    final DataOutputStream outStm = new DataOutputStream(
+                                 new BufferedOutputStream(new FileOutputStream(tempFileObj)));
+    try
+    {
+      outStm.writeInt(FILE_MAGIC);
+      outStm.write(FORMAT_VERSION);
+      outStm.writeShort(numBins);
+      synchronized(this)
+      {
+        for(int binIdx=0; binIdx<numBins; ++binIdx)
+        {  //for each bin
+          outStm.writeShort(binFreqValsArr[binIdx]);
+          for(int i=0; i<NUM_RSSI_BUCKETS; ++i)
+            outStm.writeInt(rssiHistArr[binIdx][i]);
+          for(int i=0; i<NUM_TOD_BUCKETS; ++i)
+            outStm.writeInt(todSamplesArr[binIdx][i]);
+          for(int i=0; i<NUM_TOD_BUCKETS; ++i)
+            outStm.writeInt(todOccupiedArr[binIdx][i]);
+        }
+        storeChangedFlag = false;
+      }
+    }
+    finally
+    {
+      outStm.close();
+    }
+    if(!tempFileObj.renameTo(fileObj))
+    {  //unable to rename; try deleting target first
+      fileObj.delete();
+      if(!tempFileObj.renameTo(fileObj))
+        throw new IOException("Unable to rename channel-occupancy file to:  " + fileObj);
+    }
+  }
+
+  /**
+   * Returns the length of the record for each bin in the store file.
+   * @return The length of the record, in bytes.
+   */
+  private static int getBinRecordLength()
+  {
+    return 2 + (NUM_RSSI_BUCKETS + 2*NUM_TOD_BUCKETS) * 4;
+  }
+
+  /**
+   * Returns the bin index for the given frequency.
+   * @param freqVal frequency value (MHz).
+   * @return The bin index, or -1 if the frequency is not in the store.
+   */
+  private int getBinIdx(int freqVal)
+  {
+    final int idx = freqVal - minFreqVal;
+    return (idx >= 0 && idx < freqToBinIdxArr.length) ? freqToBinIdxArr[idx] - 1 : -1;
+  }
+
+  /**
+   * Returns the fraction of samples for the given bin that were
+   * "occupied".  The caller should hold the lock.
+   * @param binIdx bin index.
+   * @param hourIdx index of time-of-day bucket to use (if it has enough
+   * samples), or -1 to use all samples.
+   * @return The occupied fraction (0.0 to 1.0).
+   */
+  private double getOccupiedFraction(int binIdx, int hourIdx)
+  {
+    if(hourIdx >= 0 && todSamplesArr[binIdx][hourIdx] >= MIN_TOD_SAMPLES)
+      return (double)todOccupiedArr[binIdx][hourIdx] / todSamplesArr[binIdx][hourIdx];
+    int occCount = 0;
+    for(int i=OCCUPIED_BUCKET_IDX; i<NUM_RSSI_BUCKETS; ++i)
+      occCount += rssiHistArr[binIdx][i];
+    return (double)occCount / binSamplesArr[binIdx];
+  }
+
+  /**
+   * Returns the mean RSSI value for the given bin (estimated from the
+   * RSSI histogram, using the center of each bucket).  The caller should
+   * hold the lock.
+   * @param binIdx bin index.
+   * @return The mean RSSI value.
+   */
+  private double getMeanRssi(int binIdx)
+  {
+    long sumVal = 0L;
+    for(int i=0; i<NUM_RSSI_BUCKETS; ++i)
+      sumVal += (long)rssiHistArr[binIdx][i] * (i*RSSI_BUCKET_WIDTH + RSSI_BUCKET_WIDTH/2);
+    return (double)sumVal / binSamplesArr[binIdx];
+  }
+
+  /**
+   * Halves all counts for the given bin (so older data is aged out).  The
+   * caller should hold the lock.
+   * @param binIdx bin index.
+   */
+  private void halveBinCounts(int binIdx)
+  {
+    int total = 0;
+    for(int i=0; i<NUM_RSSI_BUCKETS; ++i)
+      total += (rssiHistArr[binIdx][i] /= 2);
+    binSamplesArr[binIdx] = total;
+    for(int i=0; i<NUM_TOD_BUCKETS; ++i)
+    {
+      todSamplesArr[binIdx][i] /= 2;
+      todOccupiedArr[binIdx][i] /= 2;
+    }
+  }
+
+  /**
+   * Returns the local hour of day for the given time.  The time-zone
+   * offset is refreshed once per hour, so this method does no allocation.
+   * The caller should hold the lock.
+   * @param timeMs time value (ms since 1/1/1970).
+   * @return The hour of day (0-23).
+   */
+  private int getHourOfDay(long timeMs)
+  {
+    if(timeMs - tzOffsetCheckTimeMs >= MS_PER_HOUR || timeMs < tzOffsetCheckTimeMs)
+    {  //time to refresh time-zone offset (in case of daylight-saving change)
+      tzOffsetMs = timeZoneObj.getOffset(timeMs);
+      tzOffsetCheckTimeMs = timeMs;
+    }
+    final long hourVal = ((timeMs + tzOffsetMs) / MS_PER_HOUR) % NUM_TOD_BUCKETS;
+    return (int)((hourVal >= 0) ? hourVal : hourVal + NUM_TOD_BUCKETS);
+  }
+}
@@ -23,6 +23,15 @@ public class ChannelTracker
     this.frequencyTableObj = frequencyTableObj;
   }
 
+  /**
+   * Returns the frequency-table object used by this tracker.
+   * @return The frequency-table object used by this tracker.
+   */
+  public FrequencyTable getFrequencyTableObj()
+  {
+    return frequencyTableObj;
+  }
+
   /**
    * Sets the current channel.
    * @param chanCodeStr code value for channel (i.e., "F4"), or null for none.
@@ -0,0 +1,204 @@
+//FreqRssiParser.java:  Parses frequency/RSSI responses from the receiver.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.rec;
+
+/**
+ * Class FreqRssiParser parses "freqCC=rssi" and "freq=rssi" responses
+ * from the receiver directly from their characters into primitive values
+ * (without creating substrings or other objects).  The parsed values are
+ * held by the parser object until the next parse, so each thread should
+ * use its own parser object.
+ */
+public class FreqRssiParser
+{
+  private final FrequencyTable frequencyTableObj;
+  private int parsedFreqVal = 0;
+  private int parsedRssiVal = 0;
+  private String parsedChanCodeStr = null;
+  private boolean parsedMonitorFlag = false;
+  private int parsedEndPos = 0;
+
+  /**
+   * Creates a frequency/RSSI parser.
+   * @param freqTableObj frequency-table object used to look up channel-code
+   * strings (so they do not need to be created), or null for none.
+   */
+  public FreqRssiParser(FrequencyTable freqTableObj)
+  {
+    frequencyTableObj = freqTableObj;
+  }
+
+  /**
+   * Parses a "freqCC=rssi" response line, which may have a leading '>'
+   * prompt and leading spaces, and may have a trailing " M" (for 'monitor'
+   * mode).
+   * @param seq response line.
+   * @param minEqualsPos minimum position (after leading characters are
+   * skipped) for the equals-sign character.
+   * @return true if successful; false if parsing error.
+   */
+  public boolean parseFreqChanRssi(CharSequence seq, int minEqualsPos)
+  {
+    int sPos = 0, ePos = seq.length();
+    if(sPos < ePos && seq.charAt(sPos) == '>')     //ignore any leading '>' prompt
+      ++sPos;
+    while(sPos < ePos && seq.charAt(sPos) <= ' ')  //skip leading spaces
+      ++sPos;
+    while(ePos > sPos && seq.charAt(ePos-1) <= ' ')     //skip trailing spaces
+      --ePos;
+    final int p;
+    if((p=indexOf(seq,'=',sPos,ePos)) - sPos <= 0 || p - sPos < minEqualsPos)
+      return false;
+    final int fEndPos = (p-sPos < 4) ? p : sPos+4;    //parse digits as freq (max of 4)
+    if((parsedFreqVal=parseDigits(seq,sPos,fEndPos)) < 0)
+      return false;
+    parsedChanCodeStr = (p-sPos >= 6) ? getChannelCodeStr(seq,sPos+4) : null;
+    int q;                   //check for trailing space
+    if((q=indexOf(seq,' ',p+1,ePos)) > 0)
+    {  //trailing space found; check for 'M' (for 'monitor' mode)
+      parsedMonitorFlag = (q+1 < ePos && seq.charAt(q+1) == 'M');
+    }
+    else
+    {  //no trailing space found
+      q = ePos;
+      parsedMonitorFlag = false;
+    }
+    parsedEndPos = ePos;
+    return ((parsedRssiVal=parseDigits(seq,p+1,q)) >= 0);
+  }
+
+  /**
+   * Parses a "freq=rssi" entry from a list of space-delimited entries.
+   * @param seq character sequence containing list.
+   * @param startPos position at which to start parsing; leading spaces
+   * are skipped.
+   * @return true if successful (and 'getEndPos()' returns the position
+   * after the entry); false if parsing error or no more entries.
+   */
+  public boolean parseScanEntry(CharSequence seq, int startPos)
+  {
+    final int seqLen = seq.length();
+    int sPos = startPos;
+    while(sPos < seqLen && seq.charAt(sPos) == ' ')     //skip leading spaces
+      ++sPos;
+    int ePos;
+    if((ePos=indexOf(seq,' ',sPos,seqLen)) < 0)
+      ePos = seqLen;
+    parsedEndPos = ePos;
+    parsedChanCodeStr = null;
+    parsedMonitorFlag = false;
+    final int p;
+    if((p=indexOf(seq,'=',sPos,ePos)) <= sPos || p >= ePos-1)
+      return false;
+    return ((parsedFreqVal=parseDigits(seq,sPos,p)) >= 0 &&
+                                               (parsedRssiVal=parseDigits(seq,p+1,ePos)) >= 0);
+  }
+
+  /**
+   * Returns the frequency value from the last parse.
+   * @return The frequency value from the last parse.
+   */
+  public int getFreqVal()
+  {
+    return parsedFreqVal;
+  }
+
+  /**
+   * Returns the RSSI value from the last parse.
+   * @return The RSSI value from the last parse.
+   */
+  public int getRssiVal()
+  {
+    return parsedRssiVal;
+  }
+
+  /**
+   * Returns the channel-code string (i.e., "F4") from the last parse.
+   * @return The channel-code string from the last parse, or null if none.
+   */
+  public String getChanCodeStr()
+  {
+    return parsedChanCodeStr;
+  }
+
+  /**
+   * Returns the 'monitor'-mode indicator from the last parse.
+   * @return true if the last parsed response had a trailing " M"; false if not.
+   */
+  public boolean getMonitorFlag()
+  {
+    return parsedMonitorFlag;
+  }
+
+  /**
+   * Returns the position after the last parsed entry.
+   * @return The position after the last parsed entry.
+   */
+  public int getEndPos()
+  {
+    return parsedEndPos;
+  }
+
+  /**
+   * Returns the channel-code string for the two characters at the given
+   * position.  If the code is in the frequency table then the table's
+   * string is returned (so no new object is created).
+   * @param seq character sequence.
+   * @param pos position of channel-code characters.
+   * @return The channel-code string.
+   */
+  private String getChannelCodeStr(CharSequence seq, int pos)
+  {
+    final String str;
+    if(frequencyTableObj != null &&
+          (str=frequencyTableObj.getChannelCodeStr(seq.charAt(pos),seq.charAt(pos+1))) != null)
+    {  //channel code found in table
+      return str;
+    }
+    return seq.subSequence(pos,pos+2).toString();
+  }
+
+  /**
+   * Returns the position of the given character in the given range.
+   * @param seq character sequence.
+   * @param ch character to find.
+   * @param sPos start position.
+   * @param ePos end position.
+   * @return The position of the character, or -1 if not found.
+   */
+  private static int indexOf(CharSequence seq, char ch, int sPos, int ePos)
+  {
+    for(int i=sPos; i<ePos; ++i)
+    {
+      if(seq.charAt(i) == ch)
+        return i;
+    }
+    return -1;
+  }
+
+  /**
+   * Parses the given range of decimal digits into a non-negative integer.
+   * @param seq character sequence.
+   * @param sPos start position.
+   * @param ePos end position.
+   * @return The parsed value, or -1 if the range is empty, contains a
+   * non-digit character or is too long.
+   */
+  public static int parseDigits(CharSequence seq, int sPos, int ePos)
+  {
+    if(sPos >= ePos || ePos - sPos > 9)
+      return -1;
+    int val = 0;
+    char ch;
+    for(int i=sPos; i<ePos; ++i)
+    {
+      if((ch=seq.charAt(i)) < '0' || ch > '9')
+        return -1;
+      val = val*10 + (ch - '0');
+    }
+    return val;
+  }
+}
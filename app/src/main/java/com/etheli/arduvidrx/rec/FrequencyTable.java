@@ -7,6 +7,7 @@ package com.etheli.arduvidrx.rec;
 
 import com.etheli.util.ULog;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -23,6 +24,7 @@ public class FrequencyTable
           new FrequencyBand("L", new short[] {5362,5399,5436,5473,5510,5547,5584,5621})
   };
   private final FreqChannelItem[] freqChannelItemsArray;
+  private final int [] sortedFreqValsArray;
     /** Tag string for logging. */
   public static final String LOG_TAG = "FreqTable";
 
@@ -47,6 +49,18 @@ public class FrequencyTable
         ++iArrPos;
       }
     }
+              //create sorted array of frequency values (without duplicates):
+    final int [] freqsArr = new int[numItems];
+    for(int i=0; i<numItems; ++i)
+      freqsArr[i] = freqChannelItemsArray[i].frequencyVal;
+    Arrays.sort(freqsArr);
+    int numUnique = 0;
+    for(int i=0; i<numItems; ++i)
+    {
+      if(numUnique == 0 || freqsArr[i] != freqsArr[numUnique-1])
+        freqsArr[numUnique++] = freqsArr[i];
+    }
+    sortedFreqValsArray = Arrays.copyOf(freqsArr,numUnique);
   }
 
   /**
@@ -59,6 +73,17 @@ public class FrequencyTable
     return freqChannelItemsArray;
   }
 
+  /**
+   * Returns an array of all the frequency values in the table, in
+   * ascending order and without duplicates.  The returned array should
+   * not be modified.
+   * @return An array of frequency values.
+   */
+  public int [] getSortedFreqValsArray()
+  {
+    return sortedFreqValsArray;
+  }
+
   /**
    * Returns the length of the frequency-channel-items array (containing items
    * for all frequencies in the table).
@@ -102,6 +127,27 @@ public class FrequencyTable
                                               itemObj.channelCodeStr : null;
   }
 
+  /**
+   * Returns the table's channel-code string for the given characters.
+   * @param bandCh band-prefix character (i.e., 'F').
+   * @param numCh channel-number character (i.e., '4').
+   * @return Code-value string (i.e., "F4") held by the table, or null if
+   * no match.
+   */
+  public String getChannelCodeStr(char bandCh, char numCh)
+  {
+    String str;
+    for(int i=0; i<freqChannelItemsArray.length; ++i)
+    {  //for each item in array; check for match
+      if((str=freqChannelItemsArray[i].channelCodeStr) != null && str.length() == 2 &&
+                                           str.charAt(0) == bandCh && str.charAt(1) == numCh)
+      {
+        return str;
+      }
+    }
+    return null;
+  }
+
   /**
    * Returns the frequency-channel-item object for the given array index.
    * @param idx channel-array-index value.
@@ -127,23 +173,18 @@ public class FrequencyTable
       final int scanStrLen = scanStr.length();
       if(scanStrLen > 2 && Character.isDigit(scanStr.charAt(0)))
       {  //given string starts with a numeric (not an error message)
-        int ePos, sPos = 0;
-        FreqChannelItem itemObj;
+        final FreqRssiParser parserObj = new FreqRssiParser(this);
+        int sPos = 0;
         while(sPos < scanStrLen)
-        {  //for each "freq=RSSI" entry
-          if((ePos=scanStr.indexOf(' ',sPos+1)) < 0)
-            ePos = scanStrLen;
-          if(ePos > sPos)
-          {  //non-empty entry; parse into new 'FreqChannelItem' object
-            if((itemObj=createItemForScanEntryStr(scanStr.substring(sPos,ePos))) != null)
-              itemsList.add(itemObj);
-            else
-            {  //error parsing
-              ULog.e(LOG_TAG, "Unable to parse entry in getFChanItemsArrForScanStr():  " +
-                                                                   scanStr.substring(sPos,ePos));
-            }
+        {  //for each "freq=RSSI" entry; parse into new 'FreqChannelItem' object
+          if(parserObj.parseScanEntry(scanStr,sPos))
+            itemsList.add(createItemForFreqRssi(parserObj.getFreqVal(),parserObj.getRssiVal()));
+          else if(parserObj.getEndPos() > sPos)
+          {  //error parsing non-empty entry
+            ULog.e(LOG_TAG, "Unable to parse entry in getFChanItemsArrForScanStr():  " +
+                                              scanStr.substring(sPos,parserObj.getEndPos()));
           }
-          sPos = ePos + 1;
+          sPos = parserObj.getEndPos() + 1;
         }
       }
     }
@@ -166,18 +207,11 @@ public class FrequencyTable
   {
     try
     {
-      final int p;
-      if((p=entryStr.indexOf('=')) > 0 && p < entryStr.length()-1)
-      {  //found equals-sign character; parse numbers on either side
-        final short freqVal = Short.parseShort(entryStr.substring(0,p).trim());
-        final short rssiVal = Short.parseShort(entryStr.substring(p+1).trim());
-        FreqChannelItem itemObj;  //get item with matching frequency from table:
-        if((itemObj=getFreqChannelItemObj(null,freqVal)) != null)
-          itemObj = new FreqChannelItem(itemObj);     //create copy of item from table
-        else
-          itemObj = new FreqChannelItem("",freqVal,-1);    //create new item for freq value
-        itemObj.setDisplayRssiValue(rssiVal);
-        return itemObj;
+      final FreqRssiParser parserObj = new FreqRssiParser(this);
+      if(parserObj.parseScanEntry(entryStr,0) &&
+                                           parserObj.getEndPos() >= entryStr.trim().length())
+      {  //single entry parsed OK
+        return createItemForFreqRssi(parserObj.getFreqVal(),parserObj.getRssiVal());
       }
     }
     catch(Exception ex)
@@ -186,6 +220,25 @@ public class FrequencyTable
     return null;
   }
 
+  /**
+   * Creates a frequency-channel-item object for the given frequency and
+   * RSSI values.
+   * @param freqVal frequency value.
+   * @param rssiVal RSSI value.
+   * @return A new frequency-channel-item object containing the specified
+   * frequency and RSSI values.
+   */
+  protected FreqChannelItem createItemForFreqRssi(int freqVal, int rssiVal)
+  {
+    FreqChannelItem itemObj;  //get item with matching frequency from table:
+    if((itemObj=getFreqChannelItemObj(null,(short)freqVal)) != null)
+      itemObj = new FreqChannelItem(itemObj);     //create copy of item from table
+    else
+      itemObj = new FreqChannelItem("",(short)freqVal,-1);    //create new item for freq value
+    itemObj.setDisplayRssiValue((short)rssiVal);
+    return itemObj;
+  }
+
   /**
    * Converts given string of space or comma-separated numeric values to
    * a list of 'Short' objects.
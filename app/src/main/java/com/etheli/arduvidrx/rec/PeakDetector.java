@@ -0,0 +1,265 @@
+//PeakDetector.java:  Incremental single-pass peak detection for scan data.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.rec;
+
+/**
+ * Class PeakDetector finds peaks in a sweep of frequency/RSSI values in
+ * a single pass, updating its state as each new bin (frequency slot)
+ * arrives.  A candidate peak is confirmed once the sweep has moved at
+ * least the minimum spacing past it (and the RSSI has dropped by at least
+ * the hysteresis amount below it), and is at least the minimum spacing
+ * from the previous confirmed peak.  A run of 4 or more bins at the peak
+ * level is reported at its center bin.  The bin with the highest RSSI is
+ * also tracked (with the same centering).  Bins should be entered in
+ * frequency order, so that runs of bins are adjacent in frequency.  All
+ * arrays are allocated at construction.  This class should only be used
+ * by a single thread.
+ */
+public class PeakDetector
+{
+  private final short [] binFreqValsArr;
+  private final byte [] binRssiValsArr;
+  private final int [] peakBinIdxArr;
+  private int minPeakRssiVal = 5;
+  private int minPeakSpacing = 10;
+  private int hysteresisVal = 0;
+  private int numBins = 0;
+  private int numPeaks = 0;
+  private int lastRssiVal = 0;
+  private int prevPeakIdx = -1;        //last confirmed peak
+  private int curPeakIdx = -1;         //candidate peak
+  private int curPeakRssiVal = 0;
+  private int curPlateauEndIdx = -1;   //last bin of run at candidate level
+  private int curMinSinceRssiVal = 0;  //lowest RSSI since candidate
+  private int maxRssiIdx = -1;
+  private int maxPlateauEndIdx = -1;
+
+  /**
+   * Creates a peak detector.
+   * @param maxBins maximum number of bins per sweep (additional bins are
+   * ignored).
+   */
+  public PeakDetector(int maxBins)
+  {
+    binFreqValsArr = new short[maxBins];
+    binRssiValsArr = new byte[maxBins];
+    peakBinIdxArr = new int[maxBins];
+  }
+
+  /**
+   * Sets the parameters for peak detection.  Takes effect on the next
+   * sweep.
+   * @param minRssiVal RSSI value that a peak must be above.
+   * @param minSpacing minimum spacing (in bins) between peaks.
+   * @param hysteresis amount the RSSI must drop below a candidate peak
+   * before it is confirmed (0 for none).
+   */
+  public void setParams(int minRssiVal, int minSpacing, int hysteresis)
+  {
+    minPeakRssiVal = minRssiVal;
+    minPeakSpacing = (minSpacing > 0) ? minSpacing : 1;
+    hysteresisVal = (hysteresis > 0) ? hysteresis : 0;
+  }
+
+  /**
+   * Returns the minimum spacing (in bins) between peaks.
+   * @return The minimum spacing between peaks.
+   */
+  public int getMinPeakSpacing()
+  {
+    return minPeakSpacing;
+  }
+
+  /**
+   * Begins a new sweep (clearing the results of the previous sweep).
+   */
+  public void beginSweep()
+  {
+    numBins = 0;
+    numPeaks = 0;
+    lastRssiVal = 0;
+    prevPeakIdx = -1;
+    resetCandidate();
+    maxRssiIdx = -1;
+    maxPlateauEndIdx = -1;
+  }
+
+  /**
+   * Enters the next bin of the sweep.
+   * @param freqVal frequency value for bin.
+   * @param rssiVal RSSI value for bin.
+   * @return The bin index of a peak confirmed by this bin, or -1 if none.
+   */
+  public int addBin(int freqVal, int rssiVal)
+  {
+    final int idx = numBins;
+    if(idx >= binFreqValsArr.length)
+      return -1;
+    rssiVal = (rssiVal < 0) ? 0 : ((rssiVal <= ScanFrameBuffer.MAX_RSSI_VAL) ? rssiVal :
+                                                               ScanFrameBuffer.MAX_RSSI_VAL);
+    binFreqValsArr[idx] = (short)freqVal;
+    binRssiValsArr[idx] = (byte)rssiVal;
+    numBins = idx + 1;
+              //track highest-RSSI bin (and run of bins at that level):
+    if(maxRssiIdx < 0 || rssiVal > binRssiValsArr[maxRssiIdx])
+      maxRssiIdx = maxPlateauEndIdx = idx;
+    else if(rssiVal == binRssiValsArr[maxRssiIdx] && maxPlateauEndIdx == idx-1)
+      maxPlateauEndIdx = idx;
+    int retIdx = -1;
+    if(rssiVal > lastRssiVal && rssiVal > curPeakRssiVal)
+    {  //RSSI increasing and larger than current candidate; make new candidate
+      curPeakIdx = curPlateauEndIdx = idx;
+      curPeakRssiVal = curMinSinceRssiVal = rssiVal;
+    }
+    else if(curPeakIdx >= 0)
+    {  //candidate peak exists
+      if(rssiVal == curPeakRssiVal && curPlateauEndIdx == idx-1)
+        curPlateauEndIdx = idx;        //extend run of bins at candidate level
+      if(rssiVal < curMinSinceRssiVal)
+        curMinSinceRssiVal = rssiVal;
+      if((prevPeakIdx < 0 || curPeakIdx - prevPeakIdx >= minPeakSpacing) &&
+                                                      idx - curPeakIdx >= minPeakSpacing &&
+                                       curPeakRssiVal - curMinSinceRssiVal >= hysteresisVal)
+      {  //candidate has enough space from previous peak and scan pos; confirm peak
+        retIdx = confirmCandidate();
+      }
+    }
+    lastRssiVal = rssiVal;
+    return retIdx;
+  }
+
+  /**
+   * Ends the sweep.  The last candidate peak is confirmed if it has enough
+   * space from the previous peak.
+   * @return The bin index of a peak confirmed at the end of the sweep, or
+   * -1 if none.
+   */
+  public int endSweep()
+  {
+    if(curPeakIdx >= 0 && (prevPeakIdx < 0 || curPeakIdx - prevPeakIdx >= minPeakSpacing))
+      return confirmCandidate();
+    resetCandidate();
+    return -1;
+  }
+
+  /**
+   * Returns the maximum number of bins per sweep.
+   * @return The maximum number of bins per sweep.
+   */
+  public int getMaxNumBins()
+  {
+    return binFreqValsArr.length;
+  }
+
+  /**
+   * Returns the number of bins entered for the sweep.
+   * @return The number of bins entered.
+   */
+  public int getNumBins()
+  {
+    return numBins;
+  }
+
+  /**
+   * Returns the number of confirmed peaks for the sweep.
+   * @return The number of confirmed peaks.
+   */
+  public int getNumPeaks()
+  {
+    return numPeaks;
+  }
+
+  /**
+   * Returns the bin index for the given peak.
+   * @param peakIdx index of peak (0 to 'getNumPeaks()'-1, in sweep order).
+   * @return The bin index for the peak.
+   */
+  public int getPeakBinIdx(int peakIdx)
+  {
+    return peakBinIdxArr[peakIdx];
+  }
+
+  /**
+   * Returns the frequency value for the given peak.
+   * @param peakIdx index of peak (0 to 'getNumPeaks()'-1, in sweep order).
+   * @return The frequency value for the peak.
+   */
+  public int getPeakFreqVal(int peakIdx)
+  {
+    return binFreqValsArr[peakBinIdxArr[peakIdx]];
+  }
+
+  /**
+   * Returns the RSSI value for the given peak.
+   * @param peakIdx index of peak (0 to 'getNumPeaks()'-1, in sweep order).
+   * @return The RSSI value for the peak.
+   */
+  public int getPeakRssiVal(int peakIdx)
+  {
+    return binRssiValsArr[peakBinIdxArr[peakIdx]];
+  }
+
+  /**
+   * Returns the bin index for the highest-RSSI bin entered.  If 4 or more
+   * consecutive bins are at the highest level then the center bin is used.
+   * @return The bin index, or -1 if no bins entered.
+   */
+  public int getMaxRssiBinIdx()
+  {
+    if(maxRssiIdx < 0)
+      return -1;
+    final int runLen = maxPlateauEndIdx - maxRssiIdx;
+    return (runLen >= 3) ? maxRssiIdx + runLen/2 : maxRssiIdx;
+  }
+
+  /**
+   * Returns the frequency value for the given bin.
+   * @param binIdx bin index.
+   * @return The frequency value, or 0 if index out of range.
+   */
+  public int getBinFreqVal(int binIdx)
+  {
+    return (binIdx >= 0 && binIdx < numBins) ? binFreqValsArr[binIdx] : 0;
+  }
+
+  /**
+   * Returns the RSSI value for the given bin.
+   * @param binIdx bin index.
+   * @return The RSSI value, or -1 if index out of range.
+   */
+  public int getBinRssiVal(int binIdx)
+  {
+    return (binIdx >= 0 && binIdx < numBins) ? binRssiValsArr[binIdx] : -1;
+  }
+
+  /**
+   * Confirms the current candidate peak (moving it to the center of a run
+   * of 4 or more bins at the peak level) and resets the candidate.
+   * @return The bin index of the confirmed peak.
+   */
+  private int confirmCandidate()
+  {
+    int idx = curPeakIdx;
+    final int runLen = curPlateauEndIdx - curPeakIdx;
+    if(runLen >= 3)                    //if 4+ bars at max level then
+      idx += runLen / 2;               //move index up to center bar
+    peakBinIdxArr[numPeaks++] = idx;
+    prevPeakIdx = idx;                 //save as new "previous" peak
+    resetCandidate();
+    return idx;
+  }
+
+  /**
+   * Resets the candidate peak.
+   */
+  private void resetCandidate()
+  {
+    curPeakIdx = -1;
+    curPeakRssiVal = minPeakRssiVal;         //candidate must be above minimum
+    curPlateauEndIdx = -1;
+    curMinSinceRssiVal = 0;
+  }
+}
@@ -0,0 +1,228 @@
+//ReceivedLineClassifier.java:  Classifies lines received from the
+//                              receiver as they arrive.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.rec;
+
+import com.etheli.util.LineView;
+
+/**
+ * Class ReceivedLineClassifier classifies the lines received from the
+ * receiver as they arrive (on the thread receiving data from the serial
+ * connection), and publishes a typed event for each to a listener.  This
+ * lets receiver state changes (such as a monitor-mode channel change or
+ * the start of a scan) be reflected with line-arrival latency rather than
+ * poll latency.  The "scanning" banner is detected as soon as its text is
+ * received (the banner line is not terminated until the scan finishes).
+ * This class should only be used by a single thread.
+ */
+public class ReceivedLineClassifier
+{
+    /** Event type:  line not otherwise classified (i.e., command echo). */
+  public static final int EVENT_OTHER = 0;
+    /** Event type:  prompt (line containing only a '>' character). */
+  public static final int EVENT_PROMPT = 1;
+    /** Event type:  "freqCC=rssi" channel/RSSI report. */
+  public static final int EVENT_RSSI_REPORT = 2;
+    /** Event type:  channel/RSSI report with a new 'monitor'-mode channel. */
+  public static final int EVENT_MONITOR_CHANGE = 3;
+    /** Event type:  "scanning" banner received (scan started). */
+  public static final int EVENT_SCAN_STARTED = 4;
+    /** Event type:  "scanning" banner line terminated (scan finished). */
+  public static final int EVENT_SCAN_FINISHED = 5;
+    /** Event type:  list of "freq=rssi" scan results. */
+  public static final int EVENT_SCAN_RESULT = 6;
+    /** Number of event types. */
+  public static final int NUM_EVENT_TYPES = 7;
+    /** Receiver output indicating that scanning is in progress. */
+  public static final String SCANNING_CHECK_STR = " Scanning";
+  private static final int SCANNING_CHKSTR_LEN = SCANNING_CHECK_STR.length();
+
+  private final LineEventListener lineEventListenerObj;
+  private final LineView curLineViewObj;
+  private final char [] curLineCharsArr;
+  private final FreqRssiParser freqRssiParserObj;
+  private final long [] eventCountsArr = new long[NUM_EVENT_TYPES];
+  private int curLineLength = 0;
+  private int scanStrMatchPos = 0;     //-1 for mismatch, >= length for match
+  private volatile boolean scanningInProgressFlag = false;
+  private int lastMonitorFreqVal = 0;
+  private volatile long rssiReportCount = 0L;
+
+  /**
+   * Creates a received-line classifier.
+   * @param listenerObj listener to receive events.
+   * @param freqTableObj frequency-table object used to look up channel-code
+   * strings, or null for none.
+   * @param maxLineChars maximum number of characters per line (longer
+   * lines are truncated).
+   */
+  public ReceivedLineClassifier(LineEventListener listenerObj, FrequencyTable freqTableObj,
+                                                                            int maxLineChars)
+  {
+    lineEventListenerObj = listenerObj;
+    curLineCharsArr = new char[maxLineChars];
+    curLineViewObj = new LineView(maxLineChars);
+    freqRssiParserObj = new FreqRssiParser(freqTableObj);
+  }
+
+  /**
+   * Enters a received character (not a line terminator).
+   * @param ch received character.
+   */
+  public void putChar(char ch)
+  {
+    if(curLineLength < curLineCharsArr.length)
+      curLineCharsArr[curLineLength++] = ch;
+    if(scanStrMatchPos >= 0 && scanStrMatchPos < SCANNING_CHKSTR_LEN)
+    {  //matcher position is not -1 (for mismatch) or >= length (for match complete)
+      if(ch == SCANNING_CHECK_STR.charAt(scanStrMatchPos))
+      {  //character matches at position; check if all have been matched
+        if(++scanStrMatchPos >= SCANNING_CHKSTR_LEN)
+        {  //'scanning' string received
+          scanningInProgressFlag = true;
+          publishEvent(EVENT_SCAN_STARTED,null);
+        }
+      }
+      else  //character does not match at position
+        scanStrMatchPos = -1;        //set value to stop checking
+    }
+  }
+
+  /**
+   * Ends the current line, classifies it and publishes its event.
+   */
+  public void endLine()
+  {
+    final int len = curLineLength;
+    curLineLength = 0;
+    scanStrMatchPos = 0;
+    if(scanningInProgressFlag)
+    {  //line was 'scanning' banner; indicate scan finished
+      scanningInProgressFlag = false;
+      publishEvent(EVENT_SCAN_FINISHED,null);
+      return;
+    }
+    curLineViewObj.setChars(curLineCharsArr,len);
+    int pos = 0;
+    if(pos < len && curLineCharsArr[pos] == '>')
+      ++pos;
+    while(pos < len && curLineCharsArr[pos] <= ' ')
+      ++pos;
+    if(pos >= len)
+    {  //line is empty or only contains prompt
+      publishEvent((len > 0) ? EVENT_PROMPT : EVENT_OTHER,null);
+      return;
+    }
+    final FreqRssiParser parserObj = freqRssiParserObj;
+    if(parserObj.parseFreqChanRssi(curLineViewObj,4) && (parserObj.getChanCodeStr() != null ||
+                                 parserObj.getMonitorFlag() || isSingleEntryLine(pos,len)))
+    {  //"freqCC=rssi" report (channel code is absent for off-table frequencies)
+      ++rssiReportCount;
+      if(parserObj.getMonitorFlag())
+      {  //receiver is in 'monitor' mode; check if channel changed
+        final int freqVal = parserObj.getFreqVal();
+        if(freqVal != lastMonitorFreqVal)
+        {
+          lastMonitorFreqVal = freqVal;
+          publishEvent(EVENT_MONITOR_CHANGE,parserObj);
+          return;
+        }
+      }
+      else
+        lastMonitorFreqVal = 0;
+      publishEvent(EVENT_RSSI_REPORT,parserObj);
+      return;
+    }
+    if(parserObj.parseScanEntry(curLineViewObj,pos))
+    {  //list of "freq=rssi" entries
+      publishEvent(EVENT_SCAN_RESULT,null);
+      return;
+    }
+    publishEvent(EVENT_OTHER,null);
+  }
+
+  /**
+   * Determines if the current line holds a single entry (no spaces between
+   * its first and last non-space characters), as opposed to a list of
+   * "freq=rssi" scan results.
+   * @param startPos position of first non-space character in line.
+   * @param len length of line.
+   * @return true if the line holds a single entry; false if not.
+   */
+  private boolean isSingleEntryLine(int startPos, int len)
+  {
+    int ePos = len;
+    while(ePos > startPos && curLineCharsArr[ePos-1] <= ' ')
+      --ePos;
+    for(int i=startPos; i<ePos; ++i)
+    {
+      if(curLineCharsArr[i] == ' ')
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Determines if the "scanning" banner has been received and the scan
+   * has not yet finished.
+   * @return true if scanning is in progress; false if not.
+   */
+  public boolean isScanningInProgress()
+  {
+    return scanningInProgressFlag;
+  }
+
+  /**
+   * Returns the number of channel/RSSI reports received (polled or
+   * unsolicited).  The count is updated before the line is published to
+   * the received-lines buffer.
+   * @return The number of channel/RSSI reports received.
+   */
+  public long getRssiReportCount()
+  {
+    return rssiReportCount;
+  }
+
+  /**
+   * Returns the number of events published for the given event type.
+   * @param eventType event type (one of the 'EVENT_...' values).
+   * @return The number of events published.
+   */
+  public long getEventCount(int eventType)
+  {
+    return (eventType >= 0 && eventType < NUM_EVENT_TYPES) ? eventCountsArr[eventType] : 0L;
+  }
+
+  /**
+   * Publishes an event to the listener.
+   * @param eventType event type (one of the 'EVENT_...' values).
+   * @param parserObj parser holding the values for a channel/RSSI report,
+   * or null for none.
+   */
+  private void publishEvent(int eventType, FreqRssiParser parserObj)
+  {
+    ++eventCountsArr[eventType];
+    if(lineEventListenerObj != null)
+      lineEventListenerObj.lineEvent(eventType,parserObj);
+  }
+
+
+  /**
+   * Interface LineEventListener defines a listener for events published
+   * by the classifier.
+   */
+  public interface LineEventListener
+  {
+    /**
+     * Called (on the thread receiving data) when an event is published.
+     * @param eventType event type (one of the 'EVENT_...' values).
+     * @param parserObj parser holding the frequency, channel-code, RSSI
+     * and 'monitor' values for a channel/RSSI report, or null for other
+     * event types.  The parser is only valid during the call.
+     */
+    public void lineEvent(int eventType, FreqRssiParser parserObj);
+  }
+}
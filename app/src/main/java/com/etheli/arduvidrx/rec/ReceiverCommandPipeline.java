@@ -0,0 +1,307 @@
+//ReceiverCommandPipeline.java:  Sends a set of commands to the receiver
+//                               together and matches up the responses.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.rec;
+
+import com.etheli.util.SerialWriterInterface;
+import com.etheli.util.ULog;
+import java.util.ArrayList;
+
+/**
+ * Class ReceiverCommandPipeline sends a set of commands to the receiver
+ * together (so that several commands are in flight at once) and matches
+ * each received response line to its originating command.  Because the
+ * receiver processes commands in order, the response lines are assigned
+ * to the commands in order, using the number of lines each command is
+ * known to produce (including the initial "echo" line).  Commands are
+ * written in groups of up to MAX_INFLIGHT_BYTES bytes, so the serial
+ * input buffer on the receiver is not overrun.  This class should only
+ * be used while the receiver-update worker is stopped or paused.
+ */
+public class ReceiverCommandPipeline
+{
+    /** Maximum number of command bytes sent before waiting for responses. */
+  public static final int MAX_INFLIGHT_BYTES = 60;
+  private final SerialWriterInterface serialWriterObj;
+  private final VidReceiverManager vidReceiverManagerObj;
+  private final ArrayList<PipelinedCommand> commandsList = new ArrayList<PipelinedCommand>();
+  private final int respWaitTimeMs;
+
+  /**
+   * Creates a command pipeline.
+   * @param sWriterObj serial-writer object for sending commands.
+   * @param vidRecMgrObj video-receiver manager holding the received lines.
+   * @param respWaitTimeMs maximum number of milliseconds to wait for each
+   * response line.
+   */
+  public ReceiverCommandPipeline(SerialWriterInterface sWriterObj,
+                                           VidReceiverManager vidRecMgrObj, int respWaitTimeMs)
+  {
+    serialWriterObj = sWriterObj;
+    vidReceiverManagerObj = vidRecMgrObj;
+    this.respWaitTimeMs = respWaitTimeMs;
+  }
+
+  /**
+   * Adds a command to the pipeline.
+   * @param cmdBuff command to be sent.
+   * @param numRespLines number of lines the receiver returns for the
+   * command (including the initial "echo" line).
+   * @param listenerObj listener to be called when the command is completed
+   * (or fails), or null for none.
+   * @return A new pipelined-command object.
+   */
+  public PipelinedCommand addCommand(byte [] cmdBuff, int numRespLines,
+                                                                 CommandListener listenerObj)
+  {
+    final PipelinedCommand cmdObj = new PipelinedCommand(cmdBuff,numRespLines,listenerObj);
+    commandsList.add(cmdObj);
+    return cmdObj;
+  }
+
+  /**
+   * Adds a command to the pipeline.
+   * @param cmdBuff command to be sent.
+   * @param numRespLines number of lines the receiver returns for the
+   * command (including the initial "echo" line).
+   * @return A new pipelined-command object.
+   */
+  public PipelinedCommand addCommand(byte [] cmdBuff, int numRespLines)
+  {
+    return addCommand(cmdBuff,numRespLines,null);
+  }
+
+  /**
+   * Returns the number of commands in the pipeline.
+   * @return The number of commands in the pipeline.
+   */
+  public int getNumCommands()
+  {
+    return commandsList.size();
+  }
+
+  /**
+   * Sends the commands in the pipeline and receives their responses.  The
+   * listener for each command is called (on the calling thread) as the
+   * command is completed.  If a response line is not received then the
+   * command and all following commands are failed (because the response
+   * lines can no longer be matched up).
+   * @return true if all commands completed successfully; false if not.
+   */
+  public boolean execute()
+  {
+    final int numCmds = commandsList.size();
+    int cmdIdx = 0;
+    try
+    {
+      vidReceiverManagerObj.clearBuffer();       //clear anything already received
+      int grpEndIdx, grpLen, i;
+      byte [] grpBuff;
+      PipelinedCommand cmdObj;
+      String str;
+      while(cmdIdx < numCmds)
+      {  //for each group of commands
+        grpEndIdx = cmdIdx;           //determine commands in group (at least one)
+        grpLen = 0;
+        do
+          grpLen += commandsList.get(grpEndIdx++).cmdBuff.length;
+        while(grpEndIdx < numCmds &&
+                    grpLen + commandsList.get(grpEndIdx).cmdBuff.length <= MAX_INFLIGHT_BYTES);
+        grpBuff = new byte[grpLen];   //combine commands into single write
+        grpLen = 0;
+        for(i=cmdIdx; i<grpEndIdx; ++i)
+        {
+          cmdObj = commandsList.get(i);
+          System.arraycopy(cmdObj.cmdBuff,0,grpBuff,grpLen,cmdObj.cmdBuff.length);
+          grpLen += cmdObj.cmdBuff.length;
+        }
+        serialWriterObj.write(grpBuff);
+        while(cmdIdx < grpEndIdx)
+        {  //for each command in group; receive response lines
+          cmdObj = commandsList.get(cmdIdx);
+          while(cmdObj.numLinesReceived < cmdObj.numRespLines)
+          {  //for each response line expected
+            if((str=vidReceiverManagerObj.getNextReceivedLine(respWaitTimeMs)) == null)
+            {  //response line not received; fail remaining commands
+              ULog.d(VidReceiverManager.LOG_TAG,
+                          "Response not received for pipelined command:  " + cmdObj.toString());
+              failRemainingCommands(cmdIdx);
+              return false;
+            }
+            cmdObj.respLinesArr[cmdObj.numLinesReceived++] = str;
+          }
+          cmdObj.setCompleted(true);
+          ++cmdIdx;
+        }
+      }
+      return true;
+    }
+    catch(Exception ex)
+    {  //some kind of exception error; log it and fail remaining commands
+      ULog.e(VidReceiverManager.LOG_TAG, "Error executing command pipeline", ex);
+      failRemainingCommands(cmdIdx);
+      return false;
+    }
+    finally
+    {
+      commandsList.clear();
+    }
+  }
+
+  /**
+   * Fails all commands starting at the given index.
+   * @param startIdx index of first command to be failed.
+   */
+  private void failRemainingCommands(int startIdx)
+  {
+    final int numCmds = commandsList.size();
+    for(int i=startIdx; i<numCmds; ++i)
+      commandsList.get(i).setCompleted(false);
+  }
+
+
+  /**
+   * Interface CommandListener defines a listener called when a pipelined
+   * command is completed (or fails).
+   */
+  public interface CommandListener
+  {
+    /**
+     * Called when the command is completed (or fails).
+     * @param cmdObj pipelined-command object.
+     */
+    public void commandCompleted(PipelinedCommand cmdObj);
+  }
+
+
+  /**
+   * Class PipelinedCommand defines a command sent via the pipeline, along
+   * with its received response lines.
+   */
+  public static class PipelinedCommand
+  {
+    public final byte [] cmdBuff;
+    public final int numRespLines;
+    private final String [] respLinesArr;
+    private final CommandListener commandListenerObj;
+    private int numLinesReceived = 0;
+    private boolean completedFlag = false;
+    private boolean successFlag = false;
+
+    /**
+     * Creates a pipelined-command object.
+     * @param cmdBuff command to be sent.
+     * @param numRespLines number of lines the receiver returns for the
+     * command (including the initial "echo" line).
+     * @param listenerObj listener to be called when the command is
+     * completed (or fails), or null for none.
+     */
+    public PipelinedCommand(byte [] cmdBuff, int numRespLines, CommandListener listenerObj)
+    {
+      this.cmdBuff = cmdBuff;
+      this.numRespLines = numRespLines;
+      respLinesArr = new String[numRespLines];
+      commandListenerObj = listenerObj;
+    }
+
+    /**
+     * Marks the command as completed, notifies any waiting threads and
+     * calls the listener.
+     * @param successFlag true if all response lines were received.
+     */
+    private void setCompleted(boolean successFlag)
+    {
+      synchronized(this)
+      {
+        this.successFlag = successFlag;
+        completedFlag = true;
+        notifyAll();
+      }
+      if(commandListenerObj != null)
+      {
+        try
+        {
+          commandListenerObj.commandCompleted(this);
+        }
+        catch(Exception ex)
+        {  //some kind of exception error; log it and move on
+          ULog.e(VidReceiverManager.LOG_TAG, "Exception in pipelined-command listener", ex);
+        }
+      }
+    }
+
+    /**
+     * Waits for the command to be completed (or fail).
+     * @param timeoutMs maximum number of milliseconds to wait.
+     * @return true if the command completed successfully; false if it
+     * failed or the timeout was reached.
+     */
+    public synchronized boolean waitForCompletion(long timeoutMs)
+    {
+      final long endTimeMs = System.currentTimeMillis() + timeoutMs;
+      long waitMs;
+      while(!completedFlag && (waitMs=endTimeMs-System.currentTimeMillis()) > 0)
+      {
+        try
+        {
+          wait(waitMs);
+        }
+        catch(InterruptedException ex)
+        {
+          break;
+        }
+      }
+      return successFlag;
+    }
+
+    /**
+     * Determines if the command has been completed (or failed).
+     * @return true if the command has been completed (or failed).
+     */
+    public synchronized boolean isCompleted()
+    {
+      return completedFlag;
+    }
+
+    /**
+     * Determines if the command completed successfully.
+     * @return true if the command completed successfully; false if not.
+     */
+    public synchronized boolean isSuccessful()
+    {
+      return successFlag;
+    }
+
+    /**
+     * Returns a received response line.
+     * @param idx index of response line (0 == "echo" line).
+     * @return The response line, or null if not received.
+     */
+    public synchronized String getRespLine(int idx)
+    {
+      return (idx >= 0 && idx < numLinesReceived) ? respLinesArr[idx] : null;
+    }
+
+    /**
+     * Returns the last expected response line.
+     * @return The last expected response line, or null if not received.
+     */
+    public String getLastRespLine()
+    {
+      return getRespLine(numRespLines-1);
+    }
+
+    /**
+     * Returns a string representation of the command.
+     * @return A string representation of the command.
+     */
+    @Override
+    public String toString()
+    {
+      return new String(cmdBuff).trim();
+    }
+  }
+}
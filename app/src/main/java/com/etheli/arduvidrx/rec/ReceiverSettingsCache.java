@@ -0,0 +1,215 @@
+//ReceiverSettingsCache.java:  Cache of receiver settings values, keyed
+//                             by device and firmware version.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.rec;
+
+import com.etheli.util.ULog;
+
+/**
+ * Class ReceiverSettingsCache holds the settings values (min-RSSI,
+ * monitor-interval and monitor/scan list) last fetched from each
+ * receiver, keyed by the device identifier (Bluetooth address or
+ * transport description) and the firmware version string.  The values
+ * are persisted via an entry-store object (so they survive between
+ * sessions), allowing the manager to use them optimistically at startup
+ * (and revalidate them in the background) instead of fetching them from
+ * the receiver before the first channel/RSSI poll.
+ */
+public class ReceiverSettingsCache
+{
+    /** Prefix for cache-entry keys. */
+  public static final String KEY_PREFIX_STR = "rxset|";
+  private static final char FIELD_SEP_CHAR = '|';
+  private final EntryStore entryStoreObj;
+
+  /**
+   * Creates a receiver-settings cache.
+   * @param storeObj entry-store object used to persist the cache entries.
+   */
+  public ReceiverSettingsCache(EntryStore storeObj)
+  {
+    entryStoreObj = storeObj;
+  }
+
+  /**
+   * Creates a cache-entry key for the given device and firmware version.
+   * @param deviceIdStr device identifier (Bluetooth address or transport
+   * description).
+   * @param versionStr firmware version string, as received from the
+   * receiver.
+   * @return A new key string, or null if either parameter is null or
+   * empty.
+   */
+  public static String makeKeyStr(String deviceIdStr, String versionStr)
+  {
+    if(deviceIdStr == null || (deviceIdStr=deviceIdStr.trim()).length() <= 0 ||
+                                  versionStr == null || (versionStr=versionStr.trim()).length() <= 0)
+    {
+      return null;
+    }
+    return KEY_PREFIX_STR + deviceIdStr + FIELD_SEP_CHAR + versionStr;
+  }
+
+  /**
+   * Returns the cached settings values for the given key.
+   * @param keyStr cache-entry key (from 'makeKeyStr()').
+   * @return A new 'Settings' object, or null if no valid entry is cached
+   * for the key.
+   */
+  public Settings getSettings(String keyStr)
+  {
+    if(keyStr == null)
+      return null;
+    final String entryStr;
+    try
+    {
+      if((entryStr=entryStoreObj.getEntryStr(keyStr)) == null)
+        return null;
+    }
+    catch(Exception ex)
+    {  //some kind of exception error; log it
+      ULog.e(VidReceiverManager.LOG_TAG, "Error reading receiver-settings cache", ex);
+      return null;
+    }
+    return Settings.parseEntryStr(entryStr);
+  }
+
+  /**
+   * Enters the given settings values for the given key.  The entry is
+   * persisted only if it differs from the currently-cached entry.
+   * @param keyStr cache-entry key (from 'makeKeyStr()').
+   * @param settingsObj settings values to enter.
+   * @return true if the cached entry was changed; false if not.
+   */
+  public boolean putSettings(String keyStr, Settings settingsObj)
+  {
+    if(keyStr == null || settingsObj == null)
+      return false;
+    final String entryStr = settingsObj.toEntryStr();
+    try
+    {
+      if(entryStr.equals(entryStoreObj.getEntryStr(keyStr)))
+        return false;           //entry not changed
+      entryStoreObj.putEntryStr(keyStr,entryStr);
+      return true;
+    }
+    catch(Exception ex)
+    {  //some kind of exception error; log it
+      ULog.e(VidReceiverManager.LOG_TAG, "Error writing receiver-settings cache", ex);
+      return false;
+    }
+  }
+
+
+  /**
+   * Interface EntryStore defines the methods used to persist the cache
+   * entries (i.e., via Android 'SharedPreferences').
+   */
+  public interface EntryStore
+  {
+    /**
+     * Returns the entry string stored for the given key.
+     * @param keyStr key string.
+     * @return The entry string, or null if none stored for the key.
+     */
+    public String getEntryStr(String keyStr);
+
+    /**
+     * Stores the given entry string for the given key.  This method
+     * should not block on storage I/O.
+     * @param keyStr key string.
+     * @param entryStr entry string.
+     */
+    public void putEntryStr(String keyStr, String entryStr);
+  }
+
+
+  /**
+   * Class Settings holds a set of receiver settings values.
+   */
+  public static class Settings
+  {
+    public final int minRssiVal;
+    public final int monIntvlVal;
+    public final String scanListStr;
+
+    /**
+     * Creates a set of receiver settings values.
+     * @param minRssiVal minimum-RSSI-for-scans value.
+     * @param monIntvlVal monitor-interval value (in seconds).
+     * @param scanListStr monitor/scan list string (space-separated
+     * frequency values), or null for none.
+     */
+    public Settings(int minRssiVal, int monIntvlVal, String scanListStr)
+    {
+      this.minRssiVal = minRssiVal;
+      this.monIntvlVal = monIntvlVal;
+      this.scanListStr = (scanListStr != null) ? scanListStr.trim() : "";
+    }
+
+    /**
+     * Determines if the given settings values are equal to these values.
+     * @param settingsObj settings values to compare.
+     * @return true if equal; false if not.
+     */
+    public boolean isEqualTo(Settings settingsObj)
+    {
+      return (settingsObj != null && settingsObj.minRssiVal == minRssiVal &&
+                                                  settingsObj.monIntvlVal == monIntvlVal &&
+                                                  settingsObj.scanListStr.equals(scanListStr));
+    }
+
+    /**
+     * Returns the entry string for these settings values,
+     * "minRssi|monIntvl|scanList".
+     * @return A new string.
+     */
+    public String toEntryStr()
+    {
+      return Integer.toString(minRssiVal) + FIELD_SEP_CHAR + monIntvlVal +
+                                                                 FIELD_SEP_CHAR + scanListStr;
+    }
+
+    /**
+     * Returns a string representation of these settings values.
+     * @return A new string.
+     */
+    @Override
+    public String toString()
+    {
+      return "minRssi=" + minRssiVal + ", monIntvl=" + monIntvlVal +
+                                                           ", scanList=\"" + scanListStr + "\"";
+    }
+
+    /**
+     * Parses the given entry string into a set of settings values.
+     * @param entryStr entry string, "minRssi|monIntvl|scanList".
+     * @return A new 'Settings' object, or null if the string could not be
+     * parsed.
+     */
+    public static Settings parseEntryStr(String entryStr)
+    {
+      try
+      {
+        final int p1, p2;
+        if((p1=entryStr.indexOf(FIELD_SEP_CHAR)) <= 0 ||
+                                            (p2=entryStr.indexOf(FIELD_SEP_CHAR,p1+1)) <= p1)
+        {
+          return null;
+        }
+        final String listStr = entryStr.substring(p2+1);
+        if(listStr.trim().length() > 0 && FrequencyTable.convStringToShortsList(listStr) == null)
+          return null;          //monitor/scan list not parsable
+        return new Settings(Integer.parseInt(entryStr.substring(0,p1)),
+                                 Integer.parseInt(entryStr.substring(p1+1,p2)),listStr);
+      }
+      catch(Exception ex)
+      {  //unable to parse entry
+        return null;
+      }
+    }
+  }
+}
@@ -0,0 +1,252 @@
+//RecentScanCache.java:  Cache of recently-received RSSI values for
+//                       frequencies.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.rec;
+
+/**
+ * Class RecentScanCache holds the most recently received RSSI value (and
+ * the time it was received) for each frequency, fed by full-band sweeps,
+ * scan results and channel/RSSI polls.  Requests such as auto-tune and
+ * scan-and-select-channel may be answered from the cache when all the
+ * frequencies involved have values newer than the time-to-live; otherwise
+ * the caller should fall back to a receiver scan.  Values are held in
+ * arrays indexed by frequency (allocated at construction).  Methods are
+ * synchronized because values are entered and requested by different
+ * threads.
+ */
+public class RecentScanCache
+{
+    /** Lowest frequency value (MHz) held in the cache. */
+  public static final int MIN_FREQ_VAL = 5000;
+    /** Highest frequency value (MHz) held in the cache. */
+  public static final int MAX_FREQ_VAL = 6199;
+    /** Default time-to-live (ms) for cached values. */
+  public static final long DEF_TTL_MS = 10000L;
+  private final byte [] rssiValsArr = new byte[MAX_FREQ_VAL-MIN_FREQ_VAL+1];
+  private final long [] entryTimesArr = new long[MAX_FREQ_VAL-MIN_FREQ_VAL+1];
+  private long timeToLiveMs = DEF_TTL_MS;
+  private long cacheHitsCount = 0L;
+  private long cacheMissesCount = 0L;
+
+  /**
+   * Sets the time-to-live for cached values.
+   * @param ttlMs time-to-live, in milliseconds.
+   */
+  public synchronized void setTimeToLiveMs(long ttlMs)
+  {
+    timeToLiveMs = ttlMs;
+  }
+
+  /**
+   * Returns the time-to-live for cached values.
+   * @return The time-to-live, in milliseconds.
+   */
+  public synchronized long getTimeToLiveMs()
+  {
+    return timeToLiveMs;
+  }
+
+  /**
+   * Enters an RSSI value for the given frequency.
+   * @param freqVal frequency value (MHz).
+   * @param rssiVal RSSI value.
+   * @param timeMs time the value was received (ms since 1/1/1970).
+   */
+  public synchronized void enterValue(int freqVal, int rssiVal, long timeMs)
+  {
+    final int idx = freqVal - MIN_FREQ_VAL;
+    if(idx < 0 || idx >= rssiValsArr.length)
+      return;
+    rssiValsArr[idx] = (byte)((rssiVal < 0) ? 0 :
+                       ((rssiVal <= ScanFrameBuffer.MAX_RSSI_VAL) ? rssiVal :
+                                                           ScanFrameBuffer.MAX_RSSI_VAL));
+    entryTimesArr[idx] = timeMs;
+  }
+
+  /**
+   * Enters an RSSI value for the given frequency, received now.
+   * @param freqVal frequency value (MHz).
+   * @param rssiVal RSSI value.
+   */
+  public void enterValue(int freqVal, int rssiVal)
+  {
+    enterValue(freqVal,rssiVal,System.currentTimeMillis());
+  }
+
+  /**
+   * Enters the values from the given frame of sweep values.
+   * @param frameObj frame of sweep values.
+   */
+  public synchronized void enterFrame(ScanFrameBuffer.ScanFrame frameObj)
+  {
+    final long timeMs = frameObj.getUpdateTimeMs();
+    final int numEntries = frameObj.getNumEntries();
+    for(int i=0; i<numEntries; ++i)
+      enterValue(frameObj.getFreqVal(i),frameObj.getRssiVal(i),timeMs);
+  }
+
+  /**
+   * Enters the results of a scan ('S' or 'F' command).  Frequencies that
+   * were scanned but are not in the results (because their RSSI values
+   * were below the minimum for scans) are entered with an RSSI of zero.
+   * @param scanStr list string of space-delimited "freq=RSSI" entries.
+   * @param scannedFreqsArr the frequencies that were scanned.
+   * @return true if the results were parsed and entered; false if not.
+   */
+  public boolean enterScanResults(String scanStr, int [] scannedFreqsArr)
+  {
+    if(scanStr == null || (scanStr=scanStr.trim()).length() <= 0 ||
+                                                         !Character.isDigit(scanStr.charAt(0)))
+    {  //no results (or error message)
+      return false;
+    }
+    final long timeMs = System.currentTimeMillis();
+    final FreqRssiParser parserObj = new FreqRssiParser(null);
+    final int scanStrLen = scanStr.length();
+    synchronized(this)
+    {
+      for(int freqVal : scannedFreqsArr)
+        enterValue(freqVal,0,timeMs);
+      int sPos = 0;
+      while(sPos < scanStrLen)
+      {  //for each "freq=RSSI" entry
+        if(parserObj.parseScanEntry(scanStr,sPos))
+          enterValue(parserObj.getFreqVal(),parserObj.getRssiVal(),timeMs);
+        sPos = parserObj.getEndPos() + 1;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the cached RSSI value for the given frequency, if fresh.
+   * @param freqVal frequency value (MHz).
+   * @return The RSSI value, or -1 if none or stale.
+   */
+  public synchronized int getFreshRssiVal(int freqVal)
+  {
+    return getFreshRssiVal(freqVal,System.currentTimeMillis()-timeToLiveMs);
+  }
+
+  /**
+   * Builds a scan-results string (as would be returned by the receiver
+   * for an 'S' or 'F' command) for the given frequencies:  entries with
+   * RSSI values at or above the given minimum, sorted strongest first.
+   * @param freqsArr frequencies to be included.
+   * @param minRssiVal minimum RSSI value for entries.
+   * @return A list string of space-delimited "freq=RSSI" entries, or null
+   * if any of the frequencies do not have fresh values.
+   */
+  public synchronized String buildScanResultsStr(int [] freqsArr, int minRssiVal)
+  {
+    final long minTimeMs = System.currentTimeMillis() - timeToLiveMs;
+    final int [] resFreqsArr = new int[freqsArr.length];
+    final int [] resRssiArr = new int[freqsArr.length];
+    int numRes = 0, rssiVal, p;
+    for(int freqVal : freqsArr)
+    {  //for each frequency; insert entry into results (sorted strongest first)
+      if((rssiVal=getFreshRssiVal(freqVal,minTimeMs)) < 0)
+      {  //value not fresh
+        ++cacheMissesCount;
+        return null;
+      }
+      if(rssiVal >= minRssiVal)
+      {
+        p = numRes;
+        while(p > 0 && resRssiArr[p-1] < rssiVal)
+        {
+          resFreqsArr[p] = resFreqsArr[p-1];
+          resRssiArr[p] = resRssiArr[p-1];
+          --p;
+        }
+        resFreqsArr[p] = freqVal;
+        resRssiArr[p] = rssiVal;
+        ++numRes;
+      }
+    }
+    ++cacheHitsCount;
+    final StringBuilder buff = new StringBuilder();
+    for(int i=0; i<numRes; ++i)
+    {
+      if(i > 0)
+        buff.append(' ');
+      buff.append(resFreqsArr[i]).append('=').append(resRssiArr[i]);
+    }
+    return buff.toString();
+  }
+
+  /**
+   * Enters the cached values for the given frequencies into the given
+   * peak detector, as a sweep (in the order given).
+   * @param freqsArr frequencies to be entered (should be sorted).
+   * @param detectorObj peak detector to receive the values.
+   * @return true if all the frequencies had fresh values (and the sweep
+   * was completed); false if not.
+   */
+  public synchronized boolean enterIntoPeakDetector(int [] freqsArr, PeakDetector detectorObj)
+  {
+    final long minTimeMs = System.currentTimeMillis() - timeToLiveMs;
+    int rssiVal;
+    detectorObj.beginSweep();
+    for(int freqVal : freqsArr)
+    {  //for each frequency
+      if((rssiVal=getFreshRssiVal(freqVal,minTimeMs)) < 0)
+      {  //value not fresh
+        ++cacheMissesCount;
+        return false;
+      }
+      detectorObj.addBin(freqVal,rssiVal);
+    }
+    detectorObj.endSweep();
+    ++cacheHitsCount;
+    return true;
+  }
+
+  /**
+   * Clears all cached values.
+   */
+  public synchronized void clear()
+  {
+    for(int i=0; i<entryTimesArr.length; ++i)
+      entryTimesArr[i] = 0L;
+  }
+
+  /**
+   * Returns the number of requests answered from the cache.
+   * @return The number of requests answered from the cache.
+   */
+  public synchronized long getCacheHitsCount()
+  {
+    return cacheHitsCount;
+  }
+
+  /**
+   * Returns the number of requests not answered because of stale values.
+   * @return The number of requests not answered from the cache.
+   */
+  public synchronized long getCacheMissesCount()
+  {
+    return cacheMissesCount;
+  }
+
+  /**
+   * Returns the cached RSSI value for the given frequency if it was
+   * entered at or after the given time.  The caller should hold the lock.
+   * @param freqVal frequency value (MHz).
+   * @param minTimeMs oldest time for value.
+   * @return The RSSI value, or -1 if none or stale.
+   */
+  private int getFreshRssiVal(int freqVal, long minTimeMs)
+  {
+    final int idx = freqVal - MIN_FREQ_VAL;
+    if(idx < 0 || idx >= rssiValsArr.length || entryTimesArr[idx] <= 0L ||
+                                                           entryTimesArr[idx] < minTimeMs)
+    {
+      return -1;
+    }
+    return rssiValsArr[idx];
+  }
+}
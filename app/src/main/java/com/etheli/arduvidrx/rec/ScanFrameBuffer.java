@@ -0,0 +1,312 @@
+//ScanFrameBuffer.java:  Triple-buffered frames of frequency/RSSI scan
+//                       values, passed from a parser thread to a renderer.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.rec;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class ScanFrameBuffer holds frames of frequency/RSSI values from a
+ * full-band sweep ("XF" command), or from a region of it, and passes them
+ * from the thread parsing the receiver output to the thread rendering them.  Three preallocated
+ * frames are used:  the parser fills the 'back' frame, publishes it
+ * (complete or partial) by atomically swapping it with the 'ready' frame,
+ * and the renderer takes the latest published frame by swapping the
+ * 'ready' frame with its 'front' frame.  Neither side ever sees a frame
+ * the other is modifying, no locks are taken, and no objects are
+ * allocated after construction.  There should be a single parser thread
+ * and a single renderer thread.
+ */
+public class ScanFrameBuffer
+{
+    /** Maximum RSSI value held in a frame (larger values are clipped). */
+  public static final int MAX_RSSI_VAL = Byte.MAX_VALUE;
+  private static final int DIRTY_BIT = 0x4;     //set when 'ready' frame not yet taken
+  private static final int INDEX_MASK = 0x3;
+  private final ScanFrame [] framesArr;
+  private final AtomicInteger readyFrameState;  //index of 'ready' frame plus dirty bit
+  private int backFrameIdx = 0;                 //used only by parser thread
+  private int frontFrameIdx = 2;                //used only by renderer thread
+  private long nextSequenceNum = 1L;            //used only by parser thread
+  private volatile long publishedFramesCount = 0L;
+
+  /**
+   * Creates a scan-frame buffer.
+   * @param maxEntries maximum number of frequency/RSSI entries per frame
+   * (additional entries are dropped).
+   */
+  public ScanFrameBuffer(int maxEntries)
+  {
+    framesArr = new ScanFrame[] { new ScanFrame(maxEntries),
+                                  new ScanFrame(maxEntries), new ScanFrame(maxEntries) };
+    readyFrameState = new AtomicInteger(1);     //frame 1 is 'ready' (not dirty)
+  }
+
+  /**
+   * Begins a new frame (discarding any unpublished entries).  Should only
+   * be called by the parser thread.
+   */
+  public void beginFrame()
+  {
+    beginRegionFrame(0,false);
+  }
+
+  /**
+   * Begins a new frame (discarding any unpublished entries) that holds
+   * values for a region (contiguous subset) of the full sweep.  Should
+   * only be called by the parser thread.
+   * @param firstEntryIdx index (within the full sweep) of the first
+   * entry in the region.
+   * @param regionFlag true if the frame holds a region of the sweep;
+   * false if it holds the full sweep.
+   */
+  public void beginRegionFrame(int firstEntryIdx, boolean regionFlag)
+  {
+    final ScanFrame frameObj = framesArr[backFrameIdx];
+    frameObj.numEntries = 0;
+    frameObj.firstEntryIdx = firstEntryIdx;
+    frameObj.regionFlag = regionFlag;
+    frameObj.completeFlag = false;
+    frameObj.sequenceNum = nextSequenceNum++;
+    frameObj.startTimeMs = frameObj.updateTimeMs = System.currentTimeMillis();
+  }
+
+  /**
+   * Adds an entry to the frame in progress.  Should only be called by the
+   * parser thread.
+   * @param freqVal frequency value (MHz).
+   * @param rssiVal RSSI value.
+   * @param chanCodeStr channel-code string held by the frequency table
+   * (i.e., "F4"), or null for none.
+   * @return true if the entry was added; false if the frame is full.
+   */
+  public boolean putEntry(int freqVal, int rssiVal, String chanCodeStr)
+  {
+    final ScanFrame frameObj = framesArr[backFrameIdx];
+    final int idx = frameObj.numEntries;
+    if(idx >= frameObj.freqValsArr.length)
+      return false;
+    frameObj.freqValsArr[idx] = (short)freqVal;
+    frameObj.rssiValsArr[idx] = (byte)((rssiVal < 0) ? 0 :
+                                         ((rssiVal <= MAX_RSSI_VAL) ? rssiVal : MAX_RSSI_VAL));
+    frameObj.chanCodesArr[idx] = chanCodeStr;
+    frameObj.numEntries = idx + 1;
+    return true;
+  }
+
+  /**
+   * Returns the number of entries in the frame in progress.  Should only
+   * be called by the parser thread.
+   * @return The number of entries in the frame in progress.
+   */
+  public int getBackFrameNumEntries()
+  {
+    return framesArr[backFrameIdx].numEntries;
+  }
+
+  /**
+   * Publishes the frame in progress, making it available to the renderer.
+   * If the frame is partial then its entries are carried over to the new
+   * back frame, so the parser continues adding entries where it left off.
+   * Should only be called by the parser thread.
+   * @param completeFlag true if the frame is complete (end of sweep);
+   * false if partial.
+   */
+  public void publishFrame(boolean completeFlag)
+  {
+    final ScanFrame frameObj = framesArr[backFrameIdx];
+    frameObj.completeFlag = completeFlag;
+    frameObj.updateTimeMs = System.currentTimeMillis();
+              //swap back frame with ready frame (and flag ready as new):
+    backFrameIdx = readyFrameState.getAndSet(backFrameIdx | DIRTY_BIT) & INDEX_MASK;
+    ++publishedFramesCount;
+    if(!completeFlag)                            //if partial frame then
+      framesArr[backFrameIdx].copyFrom(frameObj);     //continue from published entries
+  }
+
+  /**
+   * Takes the most recently published frame (if newer than the frame
+   * currently held by the renderer).  The returned frame is not modified
+   * until the next call to this method.  Should only be called by the
+   * renderer thread.
+   * @return The latest published frame, or null if no frame was published
+   * since the previous call.
+   */
+  public ScanFrame takeLatestFrame()
+  {
+    if((readyFrameState.get() & DIRTY_BIT) == 0)
+      return null;        //no new frame
+              //swap front frame with ready frame (and flag ready as taken):
+    frontFrameIdx = readyFrameState.getAndSet(frontFrameIdx) & INDEX_MASK;
+    return framesArr[frontFrameIdx];
+  }
+
+  /**
+   * Returns the frame currently held by the renderer.  Should only be
+   * called by the renderer thread.
+   * @return The frame last returned by 'takeLatestFrame()' (or an empty
+   * frame if none taken).
+   */
+  public ScanFrame getFrontFrame()
+  {
+    return framesArr[frontFrameIdx];
+  }
+
+  /**
+   * Returns the total number of frames (complete and partial) published.
+   * @return The total number of frames published.
+   */
+  public long getPublishedFramesCount()
+  {
+    return publishedFramesCount;
+  }
+
+
+  /**
+   * Class ScanFrame holds the frequency/RSSI values for one sweep (or a
+   * partial sweep).  Values are held in primitive arrays; channel codes
+   * are references to the strings held by the frequency table.
+   */
+  public static class ScanFrame
+  {
+    private final short [] freqValsArr;
+    private final byte [] rssiValsArr;
+    private final String [] chanCodesArr;
+    private int numEntries = 0;
+    private int firstEntryIdx = 0;
+    private boolean regionFlag = false;
+    private boolean completeFlag = false;
+    private long sequenceNum = 0L;
+    private long startTimeMs = 0L;
+    private long updateTimeMs = 0L;
+
+    /**
+     * Creates a scan frame.
+     * @param maxEntries maximum number of entries.
+     */
+    public ScanFrame(int maxEntries)
+    {
+      freqValsArr = new short[maxEntries];
+      rssiValsArr = new byte[maxEntries];
+      chanCodesArr = new String[maxEntries];
+    }
+
+    /**
+     * Copies the values from the given frame into this frame.
+     * @param frameObj source frame.
+     */
+    private void copyFrom(ScanFrame frameObj)
+    {
+      final int num = frameObj.numEntries;
+      System.arraycopy(frameObj.freqValsArr,0,freqValsArr,0,num);
+      System.arraycopy(frameObj.rssiValsArr,0,rssiValsArr,0,num);
+      System.arraycopy(frameObj.chanCodesArr,0,chanCodesArr,0,num);
+      numEntries = num;
+      firstEntryIdx = frameObj.firstEntryIdx;
+      regionFlag = frameObj.regionFlag;
+      completeFlag = frameObj.completeFlag;
+      sequenceNum = frameObj.sequenceNum;
+      startTimeMs = frameObj.startTimeMs;
+      updateTimeMs = frameObj.updateTimeMs;
+    }
+
+    /**
+     * Returns the number of entries in the frame.
+     * @return The number of entries in the frame.
+     */
+    public int getNumEntries()
+    {
+      return numEntries;
+    }
+
+    /**
+     * Returns the frequency value for the given entry.
+     * @param idx index of entry.
+     * @return The frequency value (MHz).
+     */
+    public int getFreqVal(int idx)
+    {
+      return freqValsArr[idx];
+    }
+
+    /**
+     * Returns the RSSI value for the given entry.
+     * @param idx index of entry.
+     * @return The RSSI value.
+     */
+    public int getRssiVal(int idx)
+    {
+      return rssiValsArr[idx];
+    }
+
+    /**
+     * Returns the channel-code string for the given entry.
+     * @param idx index of entry.
+     * @return The channel-code string (i.e., "F4"), or null if none.
+     */
+    public String getChanCodeStr(int idx)
+    {
+      return chanCodesArr[idx];
+    }
+
+    /**
+     * Returns the index (within the full sweep) of the first entry in the
+     * frame.
+     * @return The index of the first entry (0 if not a region frame).
+     */
+    public int getFirstEntryIdx()
+    {
+      return firstEntryIdx;
+    }
+
+    /**
+     * Determines if the frame holds a region (contiguous subset) of the
+     * full sweep.
+     * @return true if a region frame; false if a full-sweep frame.
+     */
+    public boolean isRegion()
+    {
+      return regionFlag;
+    }
+
+    /**
+     * Determines if the frame is complete (end of sweep).
+     * @return true if the frame is complete; false if partial.
+     */
+    public boolean isComplete()
+    {
+      return completeFlag;
+    }
+
+    /**
+     * Returns the sequence number for the sweep (partial frames from the
+     * same sweep have the same sequence number).
+     * @return The sequence number for the sweep.
+     */
+    public long getSequenceNum()
+    {
+      return sequenceNum;
+    }
+
+    /**
+     * Returns the time that the sweep was started.
+     * @return The start time, in milliseconds since 1/1/1970.
+     */
+    public long getStartTimeMs()
+    {
+      return startTimeMs;
+    }
+
+    /**
+     * Returns the time that the frame was published.
+     * @return The publish time, in milliseconds since 1/1/1970.
+     */
+    public long getUpdateTimeMs()
+    {
+      return updateTimeMs;
+    }
+  }
+}
@@ -0,0 +1,216 @@
+//ScanHistoryStore.java:  Fixed-size time-by-frequency history of
+//                        full-band scan RSSI values.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.rec;
+
+/**
+ * Class ScanHistoryStore holds a fixed-size history of full-band sweeps,
+ * as a ring of rows of RSSI values (one row per completed sweep, one
+ * column per swept frequency) indexed by sweep time.  All arrays are
+ * allocated at construction, so memory use stays fixed no matter how many
+ * sweeps are entered; once the ring is full the oldest row is reused.
+ * If the set of swept frequencies changes then the history is cleared.
+ * Methods are synchronized so rows may be read by a thread other than the
+ * one entering them.
+ */
+public class ScanHistoryStore
+{
+  private final int maxNumRows;
+  private final int maxNumCols;
+  private final byte [][] rssiRowsArr;
+  private final long [] rowTimesArr;
+  private final short [] colFreqValsArr;
+  private int numCols = 0;
+  private int numRows = 0;
+  private int nextRowIdx = 0;
+  private long totalRowsAdded = 0L;
+
+  /**
+   * Creates a scan-history store.
+   * @param maxRows maximum number of sweeps (rows) held.
+   * @param maxCols maximum number of frequencies (columns) per sweep.
+   */
+  public ScanHistoryStore(int maxRows, int maxCols)
+  {
+    maxNumRows = maxRows;
+    maxNumCols = maxCols;
+    rssiRowsArr = new byte[maxRows][maxCols];
+    rowTimesArr = new long[maxRows];
+    colFreqValsArr = new short[maxCols];
+  }
+
+  /**
+   * Enters the values for a completed sweep as the newest row.
+   * @param frameObj frame holding the values for the sweep.
+   * @return true if the set of frequencies changed (and the history was
+   * cleared); false if not.
+   */
+  public synchronized boolean addRow(ScanFrameBuffer.ScanFrame frameObj)
+  {
+    final int num = Math.min(frameObj.getNumEntries(),maxNumCols);
+    boolean changedFlag = (num != numCols);
+    if(!changedFlag)
+    {  //same number of columns; check frequencies
+      for(int col=0; col<num; ++col)
+      {
+        if(colFreqValsArr[col] != frameObj.getFreqVal(col))
+        {
+          changedFlag = true;
+          break;
+        }
+      }
+    }
+    if(changedFlag)
+    {  //set of frequencies changed; clear history and setup columns
+      for(int col=0; col<num; ++col)
+        colFreqValsArr[col] = (short)frameObj.getFreqVal(col);
+      numCols = num;
+      numRows = 0;
+      nextRowIdx = 0;
+    }
+    final byte [] rowArr = rssiRowsArr[nextRowIdx];
+    for(int col=0; col<num; ++col)
+      rowArr[col] = (byte)frameObj.getRssiVal(col);
+    rowTimesArr[nextRowIdx] = frameObj.getUpdateTimeMs();
+    if(++nextRowIdx >= maxNumRows)
+      nextRowIdx = 0;
+    if(numRows < maxNumRows)
+      ++numRows;
+    ++totalRowsAdded;
+    return changedFlag;
+  }
+
+  /**
+   * Clears the history.
+   */
+  public synchronized void clear()
+  {
+    numCols = 0;
+    numRows = 0;
+    nextRowIdx = 0;
+  }
+
+  /**
+   * Returns the maximum number of rows held.
+   * @return The maximum number of rows held.
+   */
+  public int getMaxNumRows()
+  {
+    return maxNumRows;
+  }
+
+  /**
+   * Returns the number of rows held.
+   * @return The number of rows held.
+   */
+  public synchronized int getNumRows()
+  {
+    return numRows;
+  }
+
+  /**
+   * Returns the number of columns (frequencies) per row.
+   * @return The number of columns per row.
+   */
+  public synchronized int getNumCols()
+  {
+    return numCols;
+  }
+
+  /**
+   * Returns the total number of rows entered (including rows no longer
+   * held).  May be used to determine which rows are new since a previous
+   * call.
+   * @return The total number of rows entered.
+   */
+  public synchronized long getTotalRowsAdded()
+  {
+    return totalRowsAdded;
+  }
+
+  /**
+   * Returns the frequency value for the given column.
+   * @param col column index.
+   * @return The frequency value (MHz), or 0 if index out of range.
+   */
+  public synchronized int getColFreqVal(int col)
+  {
+    return (col >= 0 && col < numCols) ? colFreqValsArr[col] : 0;
+  }
+
+  /**
+   * Returns the sweep time for the given row.
+   * @param ageIdx age index of row (0 = newest).
+   * @return The sweep time (in milliseconds since 1/1/1970), or 0 if
+   * index out of range.
+   */
+  public synchronized long getRowTimeMs(int ageIdx)
+  {
+    return (ageIdx >= 0 && ageIdx < numRows) ? rowTimesArr[ageToRingIdx(ageIdx)] : 0L;
+  }
+
+  /**
+   * Returns the RSSI value for the given row and column.
+   * @param ageIdx age index of row (0 = newest).
+   * @param col column index.
+   * @return The RSSI value, or -1 if index out of range.
+   */
+  public synchronized int getRssiVal(int ageIdx, int col)
+  {
+    return (ageIdx >= 0 && ageIdx < numRows && col >= 0 && col < numCols) ?
+                                                rssiRowsArr[ageToRingIdx(ageIdx)][col] : -1;
+  }
+
+  /**
+   * Copies the RSSI values for the given row into the given array.
+   * @param ageIdx age index of row (0 = newest).
+   * @param destArr destination array.
+   * @return The number of values copied, or 0 if index out of range.
+   */
+  public synchronized int copyRow(int ageIdx, byte [] destArr)
+  {
+    if(ageIdx < 0 || ageIdx >= numRows)
+      return 0;
+    final int num = Math.min(numCols,destArr.length);
+    System.arraycopy(rssiRowsArr[ageToRingIdx(ageIdx)],0,destArr,0,num);
+    return num;
+  }
+
+  /**
+   * Finds the row for the sweep completed at or before the given time.
+   * @param timeMs time value (in milliseconds since 1/1/1970).
+   * @return The age index of the row (0 = newest), or -1 if the given
+   * time is before the oldest row held.
+   */
+  public synchronized int findRowForTime(long timeMs)
+  {
+    int loAge = 0, hiAge = numRows - 1;
+    if(hiAge < 0 || rowTimesArr[ageToRingIdx(hiAge)] > timeMs)
+      return -1;
+    while(loAge < hiAge)
+    {  //binary search (row times increase as age decreases)
+      final int midAge = (loAge + hiAge) >>> 1;
+      if(rowTimesArr[ageToRingIdx(midAge)] <= timeMs)
+        hiAge = midAge;
+      else
+        loAge = midAge + 1;
+    }
+    return loAge;
+  }
+
+  /**
+   * Converts an age index to an index into the ring arrays.
+   * @param ageIdx age index of row (0 = newest).
+   * @return The index into the ring arrays.
+   */
+  private int ageToRingIdx(int ageIdx)
+  {
+    int idx = nextRowIdx - 1 - ageIdx;
+    if(idx < 0)
+      idx += maxNumRows;
+    return idx;
+  }
+}
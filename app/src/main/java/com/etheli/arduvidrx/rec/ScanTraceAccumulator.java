@@ -0,0 +1,210 @@
+//ScanTraceAccumulator.java:  Per-bin max-hold, min-hold and averaged
+//                            traces for scan data.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.rec;
+
+/**
+ * Class ScanTraceAccumulator maintains per-bin (frequency slot) traces
+ * computed from the scan values received over many sweeps:  max-hold,
+ * min-hold, exponential average and N-sweep average.  The traces are
+ * updated incrementally as each scan value arrives (so partial sweeps and
+ * region sweeps are handled the same as full sweeps).  The N-sweep average
+ * is kept as a running sum over a per-bin ring of the last N values.  All
+ * arrays are allocated at construction, so entering a value does no
+ * allocation.  If the frequency for a bin changes then the bin's traces
+ * are restarted.  Methods are synchronized because values are entered and
+ * requested by different threads.
+ */
+public class ScanTraceAccumulator
+{
+    /** Trace-type value for max-hold trace. */
+  public static final int TRACE_MAX_HOLD = 0;
+    /** Trace-type value for min-hold trace. */
+  public static final int TRACE_MIN_HOLD = 1;
+    /** Trace-type value for exponential-average trace. */
+  public static final int TRACE_EXP_AVG = 2;
+    /** Trace-type value for N-sweep-average trace. */
+  public static final int TRACE_SWEEP_AVG = 3;
+    /** Number of trace types. */
+  public static final int NUM_TRACE_TYPES = 4;
+    /** Default number of sweeps for N-sweep-average trace. */
+  public static final int DEF_NUM_AVG_SWEEPS = 8;
+    /** Default weighting factor for new values in exponential average. */
+  public static final float DEF_EXP_AVG_FACTOR = 0.25f;
+  private final int maxNumBins;
+  private final int numAvgSweeps;
+  private final short [] binFreqValsArr;
+  private final byte [] maxHoldValsArr;
+  private final byte [] minHoldValsArr;
+  private final float [] expAvgValsArr;
+  private final byte [] avgRingValsArr;      //ring of last N values for each bin
+  private final short [] avgRingSumsArr;
+  private final byte [] avgRingCountsArr;    //number of values in ring (up to N)
+  private final byte [] avgRingPosArr;       //next position in ring
+  private final boolean [][] binValidFlagsArr;
+  private float expAvgFactor = DEF_EXP_AVG_FACTOR;
+  private long valuesEnteredCount = 0L;
+
+  /**
+   * Creates a scan-trace accumulator.
+   * @param maxBins maximum number of bins (values for additional bins are
+   * ignored).
+   * @param numSweeps number of sweeps for N-sweep-average trace (1-127).
+   */
+  public ScanTraceAccumulator(int maxBins, int numSweeps)
+  {
+    maxNumBins = maxBins;
+    numAvgSweeps = (numSweeps < 1) ? 1 : ((numSweeps <= Byte.MAX_VALUE) ? numSweeps :
+                                                                            Byte.MAX_VALUE);
+    binFreqValsArr = new short[maxBins];
+    maxHoldValsArr = new byte[maxBins];
+    minHoldValsArr = new byte[maxBins];
+    expAvgValsArr = new float[maxBins];
+    avgRingValsArr = new byte[maxBins*numAvgSweeps];
+    avgRingSumsArr = new short[maxBins];
+    avgRingCountsArr = new byte[maxBins];
+    avgRingPosArr = new byte[maxBins];
+    binValidFlagsArr = new boolean[NUM_TRACE_TYPES][maxBins];
+  }
+
+  /**
+   * Creates a scan-trace accumulator, using the default number of sweeps
+   * for the N-sweep-average trace.
+   * @param maxBins maximum number of bins (values for additional bins are
+   * ignored).
+   */
+  public ScanTraceAccumulator(int maxBins)
+  {
+    this(maxBins,DEF_NUM_AVG_SWEEPS);
+  }
+
+  /**
+   * Sets the weighting factor for new values in the exponential average.
+   * @param factorVal weighting factor (0.0 to 1.0; larger values follow
+   * changes more quickly).
+   */
+  public synchronized void setExpAvgFactor(float factorVal)
+  {
+    expAvgFactor = (factorVal > 0.0f) ? ((factorVal <= 1.0f) ? factorVal : 1.0f) : 0.01f;
+  }
+
+  /**
+   * Returns the number of sweeps for the N-sweep-average trace.
+   * @return The number of sweeps for the N-sweep-average trace.
+   */
+  public int getNumAvgSweeps()
+  {
+    return numAvgSweeps;
+  }
+
+  /**
+   * Enters a scan value for the given bin, updating all traces for it.
+   * @param binIdx index of bin.
+   * @param freqVal frequency value for bin.
+   * @param rssiVal RSSI value.
+   */
+  public synchronized void enterValue(int binIdx, int freqVal, int rssiVal)
+  {
+    if(binIdx < 0 || binIdx >= maxNumBins)
+      return;
+    if(rssiVal < 0)
+      rssiVal = 0;
+    else if(rssiVal > ScanFrameBuffer.MAX_RSSI_VAL)
+      rssiVal = ScanFrameBuffer.MAX_RSSI_VAL;
+    if(binFreqValsArr[binIdx] != freqVal)
+    {  //frequency for bin changed; restart traces for bin
+      binFreqValsArr[binIdx] = (short)freqVal;
+      for(int t=0; t<NUM_TRACE_TYPES; ++t)
+        binValidFlagsArr[t][binIdx] = false;
+    }
+              //max-hold and min-hold:
+    if(!binValidFlagsArr[TRACE_MAX_HOLD][binIdx] || rssiVal > maxHoldValsArr[binIdx])
+      maxHoldValsArr[binIdx] = (byte)rssiVal;
+    if(!binValidFlagsArr[TRACE_MIN_HOLD][binIdx] || rssiVal < minHoldValsArr[binIdx])
+      minHoldValsArr[binIdx] = (byte)rssiVal;
+              //exponential average:
+    if(binValidFlagsArr[TRACE_EXP_AVG][binIdx])
+      expAvgValsArr[binIdx] += (rssiVal - expAvgValsArr[binIdx]) * expAvgFactor;
+    else
+      expAvgValsArr[binIdx] = rssiVal;
+              //N-sweep average (running sum over ring of last N values):
+    if(!binValidFlagsArr[TRACE_SWEEP_AVG][binIdx])
+    {  //ring for bin not in use; clear it
+      avgRingSumsArr[binIdx] = 0;
+      avgRingCountsArr[binIdx] = 0;
+      avgRingPosArr[binIdx] = 0;
+    }
+    final int ringIdx = binIdx * numAvgSweeps + avgRingPosArr[binIdx];
+    if(avgRingCountsArr[binIdx] >= numAvgSweeps)     //if ring full then
+      avgRingSumsArr[binIdx] -= avgRingValsArr[ringIdx];   //remove oldest value
+    else
+      ++avgRingCountsArr[binIdx];
+    avgRingValsArr[ringIdx] = (byte)rssiVal;
+    avgRingSumsArr[binIdx] += rssiVal;
+    if(++avgRingPosArr[binIdx] >= numAvgSweeps)
+      avgRingPosArr[binIdx] = 0;
+    for(int t=0; t<NUM_TRACE_TYPES; ++t)
+      binValidFlagsArr[t][binIdx] = true;
+    ++valuesEnteredCount;
+  }
+
+  /**
+   * Returns the value of the given trace for the given bin.
+   * @param traceType trace type (one of the 'TRACE_...' values).
+   * @param binIdx index of bin.
+   * @return The RSSI value for the trace, or -1 if none.
+   */
+  public synchronized int getTraceVal(int traceType, int binIdx)
+  {
+    if(traceType < 0 || traceType >= NUM_TRACE_TYPES || binIdx < 0 || binIdx >= maxNumBins ||
+                                                          !binValidFlagsArr[traceType][binIdx])
+    {
+      return -1;
+    }
+    switch(traceType)
+    {
+      case TRACE_MAX_HOLD:
+        return maxHoldValsArr[binIdx];
+      case TRACE_MIN_HOLD:
+        return minHoldValsArr[binIdx];
+      case TRACE_EXP_AVG:
+        return Math.round(expAvgValsArr[binIdx]);
+      default:
+        return (avgRingSumsArr[binIdx] + avgRingCountsArr[binIdx]/2) / avgRingCountsArr[binIdx];
+    }
+  }
+
+  /**
+   * Resets the given trace (so it restarts with the next values entered).
+   * @param traceType trace type (one of the 'TRACE_...' values).
+   */
+  public synchronized void resetTrace(int traceType)
+  {
+    if(traceType < 0 || traceType >= NUM_TRACE_TYPES)
+      return;
+    final boolean [] flagsArr = binValidFlagsArr[traceType];
+    for(int i=0; i<maxNumBins; ++i)
+      flagsArr[i] = false;
+  }
+
+  /**
+   * Resets all traces.
+   */
+  public synchronized void resetAllTraces()
+  {
+    for(int t=0; t<NUM_TRACE_TYPES; ++t)
+      resetTrace(t);
+  }
+
+  /**
+   * Returns the number of values entered.
+   * @return The number of values entered.
+   */
+  public synchronized long getValuesEnteredCount()
+  {
+    return valuesEnteredCount;
+  }
+}
@@ -0,0 +1,294 @@
+//SessionRecorder.java:  Records channel/RSSI samples and scan sweeps to
+//                       a compact binary session file.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.rec;
+
+import com.etheli.util.AsyncFileWriter;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Class SessionRecorder records channel/RSSI samples and scan sweeps,
+ * with monotonic timestamps, to a compact binary session file.  Records
+ * are encoded by the caller's thread and entered into the queue of an
+ * 'AsyncFileWriter', so recording does no allocation or file I/O on the
+ * receive path.  If the queue is full then new records are dropped (and
+ * counted).
+ * <p>
+ * File format (all values big-endian):  a header of magic value
+ * 'FILE_MAGIC' (4 bytes), format version (1 byte) and session-start time
+ * (8 bytes, ms since 1/1/1970); then records, each holding a payload
+ * length (2 bytes, not including the record header), a record type
+ * (1 byte), a timestamp (4 bytes, ms since session start, monotonic) and
+ * the payload:
+ * <ul>
+ * <li>'REC_CHANRSSI':  frequency (2 bytes), RSSI (1 byte).</li>
+ * <li>'REC_SWEEP' and 'REC_REGION_SWEEP':  sweep duration (4 bytes, ms),
+ * index of first entry (2 bytes), number of entries (2 bytes), then
+ * frequency (2 bytes) and RSSI (1 byte) for each entry.  The record
+ * timestamp is the start of the sweep.</li>
+ * </ul>
+ */
+public class SessionRecorder extends AsyncFileWriter
+{
+    /** Magic value at start of session file ("AVRS"). */
+  public static final int FILE_MAGIC = 0x41565253;
+    /** Version of session-file format. */
+  public static final int FORMAT_VERSION = 1;
+    /** Record type for channel/RSSI sample. */
+  public static final int REC_CHANRSSI = 1;
+    /** Record type for full-band sweep. */
+  public static final int REC_SWEEP = 2;
+    /** Record type for region sweep. */
+  public static final int REC_REGION_SWEEP = 3;
+    /** Size of record header (length, type and timestamp). */
+  public static final int REC_HEADER_LEN = 7;
+    /** Default size (in bytes) for queue of records waiting to be written. */
+  public static final int DEF_QUEUE_SIZE = 256 * 1024;
+    /** Maximum number of entries in a sweep record. */
+  public static final int MAX_SWEEP_ENTRIES = 512;
+              //staging buffer for sweep record (used only by sweeping thread):
+  private final byte [] sweepRecordArr =
+                             new byte[REC_HEADER_LEN + 8 + MAX_SWEEP_ENTRIES*3];
+  private int sweepNumEntries = 0;
+  private long sweepStartTimeNs = 0L;
+  private boolean sweepActiveFlag = false;
+              //buffer for encoding channel/RSSI record (guarded by 'queueSyncObj'):
+  private final byte [] chanRssiRecordArr = new byte[REC_HEADER_LEN + 3];
+  private long sessionStartTimeMs = 0L;
+  private long sessionStartTimeNs = 0L;
+  private File sessionFileObj = null;
+
+  /**
+   * Creates a session recorder.
+   * @param queueSize size (in bytes) of queue for records waiting to be
+   * written.
+   */
+  public SessionRecorder(int queueSize)
+  {
+    super("sessionRecorderWriter",VidReceiverManager.LOG_TAG,queueSize,false);
+  }
+
+  /**
+   * Creates a session recorder, using the default queue size.
+   */
+  public SessionRecorder()
+  {
+    this(DEF_QUEUE_SIZE);
+  }
+
+  /**
+   * Starts recording to the given file (replacing any existing file).
+   * Any recording in progress is stopped first.
+   * The file is opened via the calling thread (and any writer thread in
+   * progress is waited on), so this method should not be called on the
+   * UI thread.
+   * @param fileObj session file.
+   * @throws IOException if the file could not be created.
+   */
+  public synchronized void startRecording(File fileObj) throws IOException
+  {
+    stopRecording();
+    sweepActiveFlag = false;
+    sessionFileObj = fileObj;
+    sessionStartTimeMs = System.currentTimeMillis();
+    sessionStartTimeNs = System.nanoTime();
+    startWriter(true);
+  }
+
+  /**
+   * Stops recording.  Records in the queue are written and the file is
+   * closed.  Waits (up to 'STOP_WAIT_MS') for the writer thread to
+   * finish, so this method should not be called on the UI thread.
+   */
+  public synchronized void stopRecording()
+  {
+    stopWriter(STOP_WAIT_MS);
+  }
+
+  /**
+   * Determines if recording is in progress.
+   * @return true if recording is in progress; false if not.
+   */
+  public boolean isRecording()
+  {
+    return isWriterActive();
+  }
+
+  /**
+   * Returns the file for the current (or last) session.
+   * @return The session file, or null if none.
+   */
+  public File getSessionFileObj()
+  {
+    return sessionFileObj;
+  }
+
+  /**
+   * Records a channel/RSSI sample.  Returns immediately if recording is
+   * not in progress.
+   * @param freqVal frequency value (MHz).
+   * @param rssiVal RSSI value.
+   */
+  public void recordChanRssi(int freqVal, int rssiVal)
+  {
+    if(!isWriterActive())
+      return;
+    final int timeMs = (int)((System.nanoTime() - sessionStartTimeNs) / 1000000L);
+    synchronized(queueSyncObj)
+    {
+      final byte [] recArr = chanRssiRecordArr;
+      int pos = putRecordHeader(recArr,3,REC_CHANRSSI,timeMs);
+      recArr[pos++] = (byte)(freqVal >> 8);
+      recArr[pos++] = (byte)freqVal;
+      recArr[pos++] = (byte)clipRssiVal(rssiVal);
+      enqueueEntry(recArr,0,pos);
+    }
+  }
+
+  /**
+   * Begins a sweep record.  This method, 'putSweepEntry()' and
+   * 'endSweep()' should only be called by a single (sweeping) thread.
+   * Returns immediately if recording is not in progress.
+   * @param firstIdx index of first entry in sweep (for region sweeps).
+   * @param regionFlag true for region sweep; false for full-band sweep.
+   */
+  public void beginSweep(int firstIdx, boolean regionFlag)
+  {
+    if(!isWriterActive())
+    {
+      sweepActiveFlag = false;
+      return;
+    }
+    sweepStartTimeNs = System.nanoTime();
+    sweepNumEntries = 0;
+    sweepRecordArr[2] = (byte)(regionFlag ? REC_REGION_SWEEP : REC_SWEEP);
+    sweepRecordArr[REC_HEADER_LEN+4] = (byte)(firstIdx >> 8);
+    sweepRecordArr[REC_HEADER_LEN+5] = (byte)firstIdx;
+    sweepActiveFlag = true;
+  }
+
+  /**
+   * Enters the next entry into the sweep record.
+   * @param freqVal frequency value (MHz).
+   * @param rssiVal RSSI value.
+   */
+  public void putSweepEntry(int freqVal, int rssiVal)
+  {
+    if(!sweepActiveFlag || sweepNumEntries >= MAX_SWEEP_ENTRIES)
+      return;
+    int pos = REC_HEADER_LEN + 8 + sweepNumEntries*3;
+    sweepRecordArr[pos++] = (byte)(freqVal >> 8);
+    sweepRecordArr[pos++] = (byte)freqVal;
+    sweepRecordArr[pos] = (byte)clipRssiVal(rssiVal);
+    ++sweepNumEntries;
+  }
+
+  /**
+   * Ends the sweep record and enters it into the queue to be written.
+   */
+  public void endSweep()
+  {
+    if(!sweepActiveFlag)
+      return;
+    sweepActiveFlag = false;
+    if(!isWriterActive())
+      return;
+    final long nowNs = System.nanoTime();
+    final byte [] recArr = sweepRecordArr;
+    final int payloadLen = 8 + sweepNumEntries*3;
+    int pos = putRecordHeader(recArr,payloadLen,recArr[2],
+                                  (int)((sweepStartTimeNs - sessionStartTimeNs) / 1000000L));
+    final int durationMs = (int)((nowNs - sweepStartTimeNs) / 1000000L);
+    recArr[pos++] = (byte)(durationMs >> 24);
+    recArr[pos++] = (byte)(durationMs >> 16);
+    recArr[pos++] = (byte)(durationMs >> 8);
+    recArr[pos++] = (byte)durationMs;
+    pos += 2;                          //skip first-entry index (already entered)
+    recArr[pos++] = (byte)(sweepNumEntries >> 8);
+    recArr[pos] = (byte)sweepNumEntries;
+    enqueueEntry(recArr,0,REC_HEADER_LEN+payloadLen);
+  }
+
+  /**
+   * Returns the number of records entered into the queue.
+   * @return The number of records queued.
+   */
+  public long getRecordsQueuedCount()
+  {
+    return getEntriesQueuedCount();
+  }
+
+  /**
+   * Returns the number of records dropped because the queue was full.
+   * @return The number of records dropped.
+   */
+  public long getRecordsDroppedCount()
+  {
+    return getEntriesDroppedCount();
+  }
+
+  /**
+   * Returns a string showing the counts of records queued and dropped and
+   * bytes written.
+   * @return A new string.
+   */
+  public String getCountsStr()
+  {
+    return "records=" + getEntriesQueuedCount() + ", dropped=" +
+                          getEntriesDroppedCount() + ", bytes=" + getBytesWrittenCount();
+  }
+
+  /**
+   * Returns the session file.
+   * @param fileIdx rotation index (not used).
+   * @return The session file.
+   */
+  protected File getFileObj(int fileIdx)
+  {
+    return sessionFileObj;
+  }
+
+  /**
+   * Returns the session-file header.
+   * @return A new byte array holding the header.
+   */
+  protected byte [] getFileHeaderArr()
+  {
+    return makeFileHeaderArr(FILE_MAGIC,FORMAT_VERSION,sessionStartTimeMs);
+  }
+
+  /**
+   * Enters the record header into the given array.
+   * @param recArr array for record.
+   * @param payloadLen length of record payload.
+   * @param recType record type.
+   * @param timeMs timestamp (ms since session start).
+   * @return The position after the header.
+   */
+  private static int putRecordHeader(byte [] recArr, int payloadLen, int recType, int timeMs)
+  {
+    recArr[0] = (byte)(payloadLen >> 8);
+    recArr[1] = (byte)payloadLen;
+    recArr[2] = (byte)recType;
+    recArr[3] = (byte)(timeMs >> 24);
+    recArr[4] = (byte)(timeMs >> 16);
+    recArr[5] = (byte)(timeMs >> 8);
+    recArr[6] = (byte)timeMs;
+    return REC_HEADER_LEN;
+  }
+
+  /**
+   * Returns the given RSSI value clipped to the range 0 to 'MAX_RSSI_VAL'.
+   * @param rssiVal RSSI value.
+   * @return The clipped RSSI value.
+   */
+  private static int clipRssiVal(int rssiVal)
+  {
+    return (rssiVal < 0) ? 0 : ((rssiVal <= ScanFrameBuffer.MAX_RSSI_VAL) ? rssiVal :
+                                                               ScanFrameBuffer.MAX_RSSI_VAL);
+  }
+}
@@ -5,13 +5,20 @@
 
 package com.etheli.arduvidrx.rec;
 
+import com.etheli.util.AppScheduler;
 import com.etheli.util.DataMessageProcessor;
 import com.etheli.util.DataMsgHandlerInterface;
 import com.etheli.util.DataMsgSenderInterface;
+import com.etheli.util.LineRingBuffer;
+import com.etheli.util.LineView;
 import com.etheli.util.SerialWriterInterface;
 import com.etheli.util.PausableWorker;
 import com.etheli.util.ULog;
-import java.util.Vector;
+import com.etheli.arduvidrx.rec.ReceiverCommandPipeline.CommandListener;
+import com.etheli.arduvidrx.rec.ReceiverCommandPipeline.PipelinedCommand;
+
+import java.io.File;
+import java.util.List;
 
 /**
  * Class VidReceiverManager manages command I/O for an ArduVidRx unit.
@@ -21,12 +28,22 @@ import java.util.Vector;
  */
 public class VidReceiverManager
 {
-    /** Delay (ms) to be executed between update intervals. */
+    /** Nominal delay (ms) between update intervals (actual delay is adaptive). */
   public static final int UPDWKR_PERIODIC_DELAYMS = 100;
     /** Size of received-line buffer. */
   public static final int BUFF_MAX_LINES = 100;
+    /** Maximum number of characters per received line (longer are truncated). */
+  public static final int BUFF_MAX_LINECHARS = 1024;
     /** Length of time to wait for expected responses from receiver. */
   public static final int RESP_WAIT_TIMEMS = 250;
+    /** Length of time to wait for first character of response from receiver. */
+  public static final int FIRSTCHAR_WAIT_TIMEMS = 1000;
+    /** Interval (ms) between preemption checks while waiting for poll response. */
+  public static final int POLL_PREEMPT_CHECK_MS = 25;
+    /** Maximum length of time to wait for receiver scanning to finish. */
+  public static final int SCAN_WAIT_TIMEMS = 8000;
+    /** Interval (ms) between saves of channel-occupancy statistics. */
+  public static final long OCCUPANCY_SAVE_INTERVALMS = 5L * 60L * 1000L;
     /** String to be displayed when receiver is in 'monitor' mode. */
   public static final String MONITOR_STRING = "Monitor";
     /** Tag string for logging. */
@@ -81,6 +98,14 @@ public class VidReceiverManager
   public static final String VIDRX_MINRSSI_PRESTR = "XM";
   public static final String VIDRX_MONINTVL_PRESTR = "XI";
   public static final String VIDRX_SCANLIST_PRESTR = "L";
+    /** Number of lines returned for "V" command (echo, version and 2nd line). */
+  public static final int VIDRX_VERSION_RESPLINES = 3;
+    /** Number of lines returned for commands without a response (echo line). */
+  public static final int VIDRX_NORESP_RESPLINES = 1;
+    /** Number of lines returned for "~" command (response has no echo line). */
+  public static final int VIDRX_REPCHRSSI_RESPLINES = 1;
+    /** Number of lines returned for commands with a response (echo and value). */
+  public static final int VIDRX_VALUE_RESPLINES = 2;
 
   private static final int VIDCMD_TUNECODE_MSGC = 0;       //codes for command messages
   private static final int VIDCMD_TUNEFREQ_MSGC = 1;       // via DataMessageProcessor
@@ -101,25 +126,62 @@ public class VidReceiverManager
   private static final int VIDCMD_CHANSCAN_MSGC = 16;
   private static final int VIDCMD_FULLSCAN_MSGC = 17;
 
-  private static final String SCANNING_CHECK_STR = " Scanning";
-  private static final int SCANNING_CHKSTR_LEN = SCANNING_CHECK_STR.length();
-  private int vidrxScanInProgStrMatchPos = 0;              //position for string matching
-  private boolean vidrxScanningInProgressFlag = false;     //true while receiver scanning
 
   private final SerialWriterInterface serialServiceWriterObj;
-  private final StringBuffer receivedCharsBuffer = new StringBuffer();
-  private final Vector<String> receivedLinesList = new Vector<String>();
-  private char firstReceivedCharacter = '\0';
+         //ring of received lines; 'storeReceivedChars()' is only producer:
+  private final LineRingBuffer receivedLinesRingObj =
+                                  new LineRingBuffer(BUFF_MAX_LINES,BUFF_MAX_LINECHARS);
+         //line view and parser for "~" responses (used by startup and worker threads):
+  private final LineView chanRssiRespLineViewObj = new LineView(BUFF_MAX_LINECHARS);
+  private FreqRssiParser chanRssiRespParserObj = new FreqRssiParser(null);
+         //classifier for received lines (used by thread receiving data):
+  private volatile ReceivedLineClassifier receivedLineClassifierObj =
+                                                             createReceivedLineClassifier(null);
+  private volatile boolean lineStreamingActiveFlag = false;  //true while worker running
+  private boolean scanBeginPublishedFlag = false;
+  private final Object scanBeginSyncObj = new Object();
+  private volatile boolean scanWaitActiveFlag = false;     //true while waiting for scan
+  private long lastPolledRssiReportCount = 0L;
+  private volatile boolean replayModeFlag = false;    //true if replaying captured data
+              //pause state of worker when connection lost (for resync):
+  private boolean pausedAtConnLostFlag = false;
+  private boolean connLostPendingFlag = false;
+              //set when poll abandoned (for command) before its response arrived:
+  private volatile boolean pollRespAbandonedFlag = false;
   private ChannelTracker vidChannelTrackerObj = null;
   private DataMsgSenderInterface vidRecMgrRespProcessorObj = null;
   private char receivedLinesLastEndChar = '\0';
   private ReceiverUpdateWorker receiverUpdateWorkerObj = null;
+  private final AdaptivePollScheduler pollSchedulerObj = new AdaptivePollScheduler();
+  private final RecentScanCache recentScanCacheObj = new RecentScanCache();
+              //detector for auto-tune from cache (used only by command thread):
+  private PeakDetector autoTunePeakDetectorObj = null;
+              //recorder for channel/RSSI samples and sweeps (when session recording):
+  private final SessionRecorder sessionRecorderObj = new SessionRecorder();
+              //channel-occupancy statistics (fed by completed full-band sweeps):
+  private final ChannelOccupancyStore channelOccupancyStoreObj =
+                    new ChannelOccupancyStore(new FrequencyTable().getSortedFreqValsArray());
+              //lane for occupancy-store file I/O (so saves run after the load):
+  private static final AppScheduler.SerialLane occupancyIoLaneObj =
+                              AppScheduler.getAppScheduler().createSerialLane("occupancyIo");
+  private volatile File occupancyStoreFileObj = null;
+  private volatile long occupancyLastSaveTimeMs = 0L;
   private boolean recUpdWrkrPausedRequestedFlag = false;
   private DataMessageProcessor vidCmdMesssageProcessorObj = null;
-  private boolean monitorModeActiveFlag = false;
+         //serial lane for tasks that block on receiver I/O (startup and update worker):
+  private static final AppScheduler.SerialLane receiverIoLaneObj =
+                                     AppScheduler.getAppScheduler().createSerialLane("receiverIo");
+  private volatile boolean monitorModeActiveFlag = false;
   private int minRssiForScansValue = 30;
   private int monitorIntervalValue = 5;
   private String monitorScanListString = "";
+  private ReceiverSettingsCache receiverSettingsCacheObj = null;
+  private volatile String receiverDeviceIdStr = null;
+  private volatile String settingsCacheKeyStr = null;
+              //true when settings values are known (fetched or cached) for connection:
+  private volatile boolean settingsValuesKnownFlag = false;
+              //true when known settings values should be revalidated via worker:
+  private volatile boolean settingsRevalidateFlag = false;
 
 
   /**
@@ -139,6 +201,10 @@ public class VidReceiverManager
   public void setChannelTrackerObj(ChannelTracker chTrackerObj)
   {
     vidChannelTrackerObj = chTrackerObj;
+    final FrequencyTable freqTableObj =
+                                  (chTrackerObj != null) ? chTrackerObj.getFrequencyTableObj() : null;
+    chanRssiRespParserObj = new FreqRssiParser(freqTableObj);
+    receivedLineClassifierObj = createReceivedLineClassifier(freqTableObj);
   }
 
   /**
@@ -150,19 +216,83 @@ public class VidReceiverManager
     vidRecMgrRespProcessorObj = respMsgProcObj;
   }
 
+  /**
+   * Sets the receiver-settings cache object.  When set, settings values
+   * fetched from the receiver are entered into the cache, and cached values
+   * are used at startup (and revalidated in the background).
+   * @param cacheObj receiver-settings cache object, or null for none.
+   */
+  public void setSettingsCacheObj(ReceiverSettingsCache cacheObj)
+  {
+    receiverSettingsCacheObj = cacheObj;
+  }
+
+  /**
+   * Sets the identifier for the connected receiver device (used as part
+   * of the receiver-settings cache key).  Should be called before
+   * 'startManager()'.
+   * @param deviceIdStr device identifier (Bluetooth address or transport
+   * description), or null if unknown.
+   */
+  public void setReceiverDeviceIdStr(String deviceIdStr)
+  {
+    receiverDeviceIdStr = deviceIdStr;
+  }
+
   /**
    * Starts the video-receiver-manager threads.
    */
   public void startManager()
   {
-    recUpdWrkrPausedRequestedFlag = false;       //clear pause-requested flag
-    (new Thread("vidRecMgrStartup")
+    startManager(false);
+  }
+
+  /**
+   * Starts the video-receiver-manager threads.
+   * @param keepPausedFlag true to leave the receiver-update worker paused
+   * (for the caller that paused it to resume); false to start it.
+   */
+  private void startManager(boolean keepPausedFlag)
+  {
+    replayModeFlag = false;
+    recUpdWrkrPausedRequestedFlag = keepPausedFlag;    //set or clear pause-requested flag
+    settingsValuesKnownFlag = false;             //new connection; settings not yet known
+    settingsRevalidateFlag = false;
+    settingsCacheKeyStr = null;
+    receiverIoLaneObj.execute("vidRecMgrStartup",new Runnable()
         {
           public void run()
           {
             doManagerStartup();
           }
-        }).start();
+        });
+  }
+
+  /**
+   * Starts the video-receiver-manager threads in replay mode, for use with
+   * a transport that replays captured data (and has no receiver to answer
+   * commands).  The startup queries and the receiver-update worker are
+   * skipped; events for the replayed lines (channel/RSSI reports, scan
+   * begin/end) are published as they arrive.
+   * @param startedActionObj action to be invoked (via a non-UI thread)
+   * after the startup is done (i.e., to start the replay), or null for none.
+   */
+  public void startManagerForReplay(Runnable startedActionObj)
+  {
+    replayModeFlag = true;
+    recUpdWrkrPausedRequestedFlag = false;
+    settingsValuesKnownFlag = false;
+    settingsRevalidateFlag = false;
+    settingsCacheKeyStr = null;
+    receiverIoLaneObj.execute("vidRecMgrStartup",new Runnable()
+        {
+          public void run()
+          {
+            doManagerStartup();
+          }
+        });
+    if(startedActionObj != null)       //startup runs via lane; run action after it
+      receiverIoLaneObj.execute("vidRecMgrReplayStart",startedActionObj);
   }
 
   /**
@@ -197,6 +327,17 @@ public class VidReceiverManager
       }
 
       ULog.d(LOG_TAG, "Began manager startup");
+      receivedLinesRingObj.clearWaitAbort();     //clear any abort left from previous session
+      if(replayModeFlag)
+      {  //replay mode; no receiver to query, so just publish events for replayed lines
+        clearBuffer();
+        lineStreamingActiveFlag = true;
+        startCommandProcessor();
+        if(vidRecMgrRespProcessorObj != null)    //send notification that manager startup is done
+          vidRecMgrRespProcessorObj.sendMessage(VRECMGR_RESP_VRMGRSTARTED);
+        ULog.d(LOG_TAG, "Finished manager startup (replay mode)");
+        return;
+      }
 
          //start with " <CR><CR>" in case monitor mode is in progress
          // (prepend space to make sure isn't command-repeat via <Enter>):
@@ -204,13 +345,22 @@ public class VidReceiverManager
       try { Thread.sleep(100); }            //bit of delay in case receiver
       catch(InterruptedException ex) {}     // sends unexpected output
 
-      final String versionStr;
-      if((versionStr=queryGetVersionInfo()) != null && versionStr.trim().length() > 0)
+         //send version-query, echo-off and chan/RSSI-query commands together:
+      final ReceiverCommandPipeline pipelineObj = createCommandPipeline();
+      final PipelinedCommand verCmdObj =
+                           pipelineObj.addCommand(VIDRX_VERSION_CMD,VIDRX_VERSION_RESPLINES);
+      pipelineObj.addCommand(VIDRX_ECHOOFF_CMD,VIDRX_NORESP_RESPLINES);
+      final PipelinedCommand chRssiCmdObj =
+                      pipelineObj.addCommand(VIDRX_REPCHRSSI_CMD,VIDRX_REPCHRSSI_RESPLINES);
+      pipelineObj.execute();
+
+      final String versionStr;      //2nd line of response is version info:
+      if((versionStr=verCmdObj.getRespLine(1)) != null && versionStr.trim().length() > 0)
       {  //non-empty version string successfully fetched from receiver
         ULog.d(LOG_TAG, "Receiver version info:  " + versionStr);
         if(vidRecMgrRespProcessorObj != null)
           vidRecMgrRespProcessorObj.sendMessage(VRECMGR_RESP_VERSION,versionStr);
-        getNextReceivedLine(RESP_WAIT_TIMEMS);   //receive and discard 2nd line of response
+        loadCachedSettings(versionStr);     //use cached settings values (if any)
       }
       else
       {  //unable to fetch version string from receiver
@@ -218,9 +368,9 @@ public class VidReceiverManager
         if(vidRecMgrRespProcessorObj != null)         //respond with error notification
           vidRecMgrRespProcessorObj.sendMessage(VRECMGR_RESP_ERRFETCHVER);
       }
-      outputReceiverEchoCommand(false);     //send echo-off command
 
-      if(!queryReportChanRssiVals())   //do initial query/report of channel/RSSI values
+      final String chRssiStr;       //process initial report of channel/RSSI values:
+      if((chRssiStr=chRssiCmdObj.getRespLine(0)) == null || !processChanRssiResponse(chRssiStr))
       {  //query failed
         ULog.e(LOG_TAG, "Unable to fetch chan/RSSI");
         if(vidRecMgrRespProcessorObj != null)         //respond with error notification
@@ -232,18 +382,7 @@ public class VidReceiverManager
       receiverUpdateWorkerObj = new ReceiverUpdateWorker();
       doReceiverUpdateWorkerStartup();
 
-      if(vidCmdMesssageProcessorObj != null && vidCmdMesssageProcessorObj.isAlive())
-        vidCmdMesssageProcessorObj.quitProcessing();  //if previous proc running then stop it
-      vidCmdMesssageProcessorObj = new DataMessageProcessor(
-          new DataMsgHandlerInterface()
-            {
-              @Override
-              public boolean handleDataMessage(int msgCode, int val1, int val2, String paramStr)
-              {
-                return handleReceiverCommandMessage(msgCode,val1,val2,paramStr);
-              }
-            });
-      vidCmdMesssageProcessorObj.start();        //start command-message processor
+      startCommandProcessor();
       if(vidRecMgrRespProcessorObj != null)      //send notification that manager startup is done
         vidRecMgrRespProcessorObj.sendMessage(VRECMGR_RESP_VRMGRSTARTED);
       ULog.d(LOG_TAG, "Finished manager startup");
@@ -255,13 +394,36 @@ public class VidReceiverManager
   }
 
   /**
-   * Starts (or resumes) the receiver update worker.  Settings values are
-   * fetched from the receiver before the startup.
+   * Creates and starts the command-message processor (stopping any
+   * previous one).  All command messages are in one priority class, so
+   * they stay in FIFO order; only the background polling yields to them.
+   */
+  private void startCommandProcessor()
+  {
+    if(vidCmdMesssageProcessorObj != null && vidCmdMesssageProcessorObj.isAlive())
+      vidCmdMesssageProcessorObj.quitProcessing();  //if previous proc running then stop it
+    vidCmdMesssageProcessorObj = new DataMessageProcessor(
+        new DataMsgHandlerInterface()
+          {
+            @Override
+            public boolean handleDataMessage(int msgCode, int val1, int val2, String paramStr)
+            {
+              return handleReceiverCommandMessage(msgCode,val1,val2,paramStr);
+            }
+          }, null, DataMessageProcessor.PRIORITY_INTERACTIVE);
+    vidCmdMesssageProcessorObj.start();          //start command-message processor
+  }
+
+  /**
+   * Starts (or resumes) the receiver update worker.  If the settings values
+   * are not yet known (fetched or cached) for the connection then they are
+   * fetched from the receiver before the startup; otherwise the known values
+   * are used and are revalidated (via the worker) after it starts.  The
+   * echo-off command and the first channel/RSSI query are sent together
+   * with any settings fetch, so the first report needs only one round trip.
    */
   private void doReceiverUpdateWorkerStartup()
   {
-    try { Thread.sleep(UPDWKR_PERIODIC_DELAYMS); }
-    catch(InterruptedException ex) {}       //do one interval delay sending commands
     if(recUpdWrkrPausedRequestedFlag)
     {  //method 'pauseReceiverUpdateWorker()' was called
       ULog.d(LOG_TAG, "Aborting 'doReceiverUpdateWorkerStartup()' because of worker-pause request");
@@ -272,7 +434,28 @@ public class VidReceiverManager
       ULog.d(LOG_TAG, "Aborting 'doReceiverUpdateWorkerStartup()' because serial disconnected");
       return;
     }
-    if(outputReceiverEchoCommand(false) == null)      //send echo-off command
+    if(replayModeFlag)
+    {  //replaying captured data; no worker, just publish events for replayed lines
+      lineStreamingActiveFlag = true;
+      return;
+    }
+         //send echo-off command, fetch settings values (if needed) and
+         // query channel/RSSI together:
+    final boolean fetchSettingsFlag = !settingsValuesKnownFlag;
+    ReceiverCommandPipeline pipelineObj = createCommandPipeline();
+    final PipelinedCommand echoCmdObj =
+                              pipelineObj.addCommand(VIDRX_ECHOOFF_CMD,VIDRX_NORESP_RESPLINES);
+    if(fetchSettingsFlag)
+      addFetchSettingsCommands(pipelineObj);
+    final PipelinedCommand chRssiCmdObj =
+                      pipelineObj.addCommand(VIDRX_REPCHRSSI_CMD,VIDRX_REPCHRSSI_RESPLINES);
+    if(pipelineObj.execute())
+    {  //all commands successful
+      if(fetchSettingsFlag)
+        noteSettingsFetched();         //settings now known; enter into cache
+      processChanRssiResponse(chRssiCmdObj.getRespLine(0));     //report first values
+    }
+    else if(!echoCmdObj.isSuccessful())
     {  //no response after command (can happen while waiting for TERMINAL_STATE_STOPPED msg)
       for(int c=0; c<20; ++c)
       {  //delay and retry command
@@ -280,23 +463,38 @@ public class VidReceiverManager
         catch(InterruptedException ex) {}
         if(outputReceiverEchoCommand(false) != null)
           break;        //response received OK; move on
+      }
+         //responses to the failed pipeline may still arrive late; discard
+         // them so they are not matched (by count) to the commands below:
+      discardStaleLines(RESP_WAIT_TIMEMS,2*FIRSTCHAR_WAIT_TIMEMS);
+      if(fetchSettingsFlag)
+      {  //fetch settings values again
+        pipelineObj = createCommandPipeline();
+        addFetchSettingsCommands(pipelineObj);
+        if(pipelineObj.execute())
+          noteSettingsFetched();
+        else                               //if fetch failed then
+          settingsRevalidateFlag = true;   // fetch settings again via worker
       }
     }
-    fetchMinRssiValFromReceiver();          //get/save min-RSSI-for-scans value from receiver
-    fetchMonIntvlValFromReceiver();         //get/save monitor-interval value from receiver
-    fetchMonScanListStrFromReceiver();      //get/save monitor/scan list from receiver
-    try { Thread.sleep(UPDWKR_PERIODIC_DELAYMS); }
-    catch(InterruptedException ex) {}       //do one interval delay before starting worker
+    else if(fetchSettingsFlag)
+    {  //echo-off OK but settings fetch or chan/RSSI query failed
+      settingsRevalidateFlag = true;   //fetch settings again via worker
+    }
+    if(!fetchSettingsFlag)             //if known settings values used then
+      settingsRevalidateFlag = true;   // revalidate them via worker
     if(!recUpdWrkrPausedRequestedFlag)
     {  //method 'pauseReceiverUpdateWorker()' was not called during startup
       if(!receiverUpdateWorkerObj.isAlive())
       {  //worker thread not running
         ULog.d(LOG_TAG, "Starting receiver-update worker");
+        lineStreamingActiveFlag = true;            //publish events for received lines
         receiverUpdateWorkerObj.start();           //start update worker
       }
       else
       {  //worker thread is running (paused)
         ULog.d(LOG_TAG, "Resuming receiver-update worker in startup");
+        lineStreamingActiveFlag = true;            //publish events for received lines
         receiverUpdateWorkerObj.resumeThread();    //resume update worker
       }
     }
@@ -307,21 +505,42 @@ public class VidReceiverManager
     }
   }
 
+  /**
+   * Discards received lines until no line has been received for the
+   * given quiet time (or the maximum time is reached).  Used after a
+   * failed command so that late responses to it are not taken as
+   * responses to the commands that follow.
+   * @param quietTimeMs length of time (ms) without a received line that
+   * ends the discard.
+   * @param maxTimeMs maximum length of time (ms) to discard lines.
+   */
+  private void discardStaleLines(int quietTimeMs, int maxTimeMs)
+  {
+    final long endTimeMs = System.currentTimeMillis() + maxTimeMs;
+    String str;
+    while((str=receivedLinesRingObj.takeLine(quietTimeMs)) != null)
+    {  //for each stale line received
+      ULog.d(LOG_TAG, "Discarding stale response line:  " + str);
+      if(System.currentTimeMillis() >= endTimeMs)
+        break;
+    }
+  }
+
   /**
    * Starts up the receiver update worker (via a thread separate from the
    * caller's thread).  Settings values are fetched from the receiver
-   * before the startup.
+   * before the startup if they are not already known for the connection.
    */
   public void startupReceiverUpdateWorker()
   {
     recUpdWrkrPausedRequestedFlag = false;       //clear pause-requested flag
-    (new Thread("vidUpdWorkerStartup")
+    receiverIoLaneObj.execute("vidUpdWorkerStartup",new Runnable()
         {
           public void run()
           {
             doReceiverUpdateWorkerStartup();
           }
-        }).start();
+        });
   }
 
   /**
@@ -332,13 +551,21 @@ public class VidReceiverManager
     try
     {
       if(vidCmdMesssageProcessorObj != null)
+      {  //processor was created; log queue metrics and stop it
+        ULog.d(LOG_TAG, "Command-queue stats:  " + vidCmdMesssageProcessorObj.getQueueStatsStr());
         vidCmdMesssageProcessorObj.quitProcessing();  //stop command-message processor
+      }
+      lineStreamingActiveFlag = false;
+      abortReceiverScanning();         //end any scan wait in progress
       if(receiverUpdateWorkerObj != null)
       {  //worker was created; stop it
         ULog.d(LOG_TAG, "Stopping receiver-update worker");
         receiverUpdateWorkerObj.terminate(10);
         receiverUpdateWorkerObj = null;
       }
+      saveOccupancyStore();            //save any new channel-occupancy statistics
+      ULog.d(LOG_TAG, "Received-lines stats:  dropped=" + getDroppedLinesCount() +
+                                                  ", truncated=" + getTruncatedLinesCount());
     }
     catch(Exception ex)
     {  //some kind of exception error
@@ -346,6 +573,45 @@ public class VidReceiverManager
     }
   }
 
+  /**
+   * Notes that the connection to the receiver was lost (and is being
+   * re-established).  The pause state of the receiver-update worker is
+   * saved (for 'resyncAfterReconnect()') and the worker is paused.
+   */
+  public void noteConnectionLost()
+  {
+    if(!connLostPendingFlag)
+    {  //first notice for this outage; save pause state from before it
+      pausedAtConnLostFlag = recUpdWrkrPausedRequestedFlag;
+      connLostPendingFlag = true;
+    }
+    pauseReceiverUpdateWorker(true);
+  }
+
+  /**
+   * Resynchronizes with the receiver after the connection was lost and
+   * re-established.  The manager threads are restarted, so the receiver
+   * state (version, echo-off and channel/RSSI) is queried again.  The
+   * update worker is only restarted if it was running before the
+   * connection was lost; otherwise it is left paused for the caller that
+   * paused it (i.e., the graph scan), which may use the given task to
+   * restart its own receiver I/O.
+   * @param afterResyncObj task to be run (via a non-UI thread) after the
+   * resync queries are done, or null for none.
+   */
+  public void resyncAfterReconnect(Runnable afterResyncObj)
+  {
+    final boolean keepPausedFlag = connLostPendingFlag ? pausedAtConnLostFlag :
+                                                               recUpdWrkrPausedRequestedFlag;
+    connLostPendingFlag = false;
+    ULog.d(LOG_TAG, "Resyncing receiver state after reconnect" +
+                                   (keepPausedFlag ? " (update worker left paused)" : ""));
+    stopManager();
+    startManager(keepPausedFlag);
+    if(afterResyncObj != null)         //startup runs via lane; run task after it
+      receiverIoLaneObj.execute("vidRecMgrAfterResync",afterResyncObj);
+  }
+
   /**
    * Sends command to tune receiver to given channel-code value (i.e., "F4").
    * @param chanCodeStr channel-code value (i.e., "F4").
@@ -483,15 +749,33 @@ public class VidReceiverManager
   public boolean pauseReceiverUpdateWorker(boolean retImmedFlag)
   {
     recUpdWrkrPausedRequestedFlag = true;        //indicate pause requested
+    lineStreamingActiveFlag = false;             //received lines now handled by caller
     if(receiverUpdateWorkerObj != null && !receiverUpdateWorkerObj.isThreadPaused())
     {
 //      ULog.d(LOG_TAG, "Pausing receiver-update worker");
       receiverUpdateWorkerObj.pauseThread(retImmedFlag ? 0 : 1000);
+      discardAbandonedPollResp(retImmedFlag);
       return true;
     }
+    discardAbandonedPollResp(retImmedFlag);
     return false;
   }
 
+  /**
+   * Discards the late response to a poll that was abandoned (so it is not
+   * taken as the response to a command).  Nothing is done if no poll was
+   * abandoned or if the caller is not waiting for the pause.
+   * @param retImmedFlag true if the caller is not waiting for the pause.
+   */
+  private void discardAbandonedPollResp(boolean retImmedFlag)
+  {
+    if(pollRespAbandonedFlag && !retImmedFlag)
+    {  //poll was abandoned; discard its response (if it arrives)
+      pollRespAbandonedFlag = false;
+      discardStaleLines(2*POLL_PREEMPT_CHECK_MS,RESP_WAIT_TIMEMS);
+    }
+  }
+
   /**
    * Resumes the receiver-update worker.
    */
@@ -501,17 +785,24 @@ public class VidReceiverManager
     if(receiverUpdateWorkerObj != null)
     {
 //      ULog.d(LOG_TAG, "Resuming receiver-update worker");
+      lineStreamingActiveFlag = true;            //publish events for received lines
       receiverUpdateWorkerObj.resumeThread();
     }
   }
 
   /**
-   * Determines if the receiver-update worker thread is paused.
+   * Determines if the receiver-update worker thread is paused (or is being
+   * held paused and was not yet started, as after a reconnect resync).
+   * In replay mode (no worker) the pause-requested state is returned.
    * @return true if the receiver-update worker thread is paused; false if not.
    */
   public boolean isReceiverUpdateWorkerPaused()
   {
-    return (receiverUpdateWorkerObj != null && receiverUpdateWorkerObj.isThreadPaused());
+    if(replayModeFlag)
+      return recUpdWrkrPausedRequestedFlag;
+    final ReceiverUpdateWorker workerObj;
+    return ((workerObj=receiverUpdateWorkerObj) != null && (workerObj.isThreadPaused() ||
+      (recUpdWrkrPausedRequestedFlag && !workerObj.isAlive() && !workerObj.isTerminated())));
   }
 
   /**
@@ -525,7 +816,9 @@ public class VidReceiverManager
 
   /**
    * Receives and processes command messages via the DataMessageProcessor.
-   * The processing is performed on a (non-UI) looper-worker thread.
+   * The processing is performed on a (non-UI) looper-worker thread.  These
+   * messages are only sent via user-triggered methods, so the poll
+   * scheduler is told of the user activity (to poll fast for a while).
    * @param msgCode message code.
    * @param val1 first integer value for message.
    * @param val2 second integer value for message.
@@ -534,6 +827,12 @@ public class VidReceiverManager
    */
   private boolean handleReceiverCommandMessage(int msgCode, int val1, int val2, String paramStr)
   {
+    if(replayModeFlag)
+    {  //replaying captured data; no receiver to send commands to
+      ULog.d(LOG_TAG, "Command message (" + msgCode + ") ignored in replay mode");
+      return true;
+    }
+    pollSchedulerObj.noteUserActivity();    //poll fast when worker resumed after command
     switch(msgCode)
     {
       case VIDCMD_TUNECODE_MSGC:       //tune receiver to channel code
@@ -600,6 +899,7 @@ public class VidReceiverManager
       default:                         //unrecognized command
         return false;
     }
+    pollSchedulerObj.noteUserActivity();    //hold fast polling from end of command (scans)
     return true;
   }
 
@@ -664,11 +964,36 @@ public class VidReceiverManager
 
   /**
    * Performs the work of sending the command to auto-tune receiver to strongest channel.
+   * If the recent-scan cache holds fresh values for all channels and the
+   * strongest one (found via the peak detector, as in the graph scan) is
+   * at or above the minimum-RSSI-for-scans value then the receiver is
+   * tuned directly to it; otherwise the receiver performs
+   * the auto-tune scan (so a weak or empty band is handled the same way
+   * as without the cache).
    */
   private void doAutoTuneReceiver()
   {
     final boolean resFlag = pauseReceiverUpdateWorker();
-    if(outputCmdNoResponse(VIDRX_AUTOTUNE_CMD) != null)    //send 'A' command
+    final int [] freqsArr = getScanFreqsArray(true);
+    if(freqsArr != null && (autoTunePeakDetectorObj == null ||
+                               autoTunePeakDetectorObj.getMaxNumBins() < freqsArr.length))
+    {  //detector not yet created or too small; create it now
+      autoTunePeakDetectorObj = new PeakDetector(freqsArr.length);
+    }
+    final int binIdx;
+    if(freqsArr != null &&
+              recentScanCacheObj.enterIntoPeakDetector(freqsArr,autoTunePeakDetectorObj) &&
+                                 (binIdx=autoTunePeakDetectorObj.getMaxRssiBinIdx()) >= 0 &&
+              autoTunePeakDetectorObj.getBinRssiVal(binIdx) >= minRssiForScansValue)
+    {  //fresh values for all channels in cache and strongest is strong enough; tune to it
+      final int freqVal = autoTunePeakDetectorObj.getBinFreqVal(binIdx);
+      ULog.d(LOG_TAG, "Auto-tune served from recent-scan cache (" + freqVal + ")");
+      final String codeStr = vidChannelTrackerObj.getFrequencyTableObj().
+                                                     getChannelCodeForFreqVal((short)freqVal);
+      outputCmdNoResponse((VIDRX_TUNE_PRESTR + ((codeStr != null) ? codeStr :
+                               Integer.toString(freqVal)) + VIDRX_CR_STR).getBytes());
+    }
+    else if(outputCmdNoResponse(VIDRX_AUTOTUNE_CMD) != null)    //send 'A' command
     {  //initial newline response received OK
       processReceiverScanning();                 //wait for scanning to finish
     }
@@ -714,6 +1039,9 @@ public class VidReceiverManager
         processReceiverScanning();               //wait for scanning to finish
       retStr = getNextReceivedLine(RESP_WAIT_TIMEMS);      //get scan-data results
 //      ULog.d(LOG_TAG, "doSendScanCommandToReceiver received:  " + retStr);
+      final int [] freqsArr;           //enter results into recent-scan cache
+      if((freqsArr=getScanFreqsArray(cmdBuff == VIDRX_FULLSCAN_CMD)) != null)
+        recentScanCacheObj.enterScanResults(retStr,freqsArr);
       if(monFlag)
       {  //monitor mode was active and should be restored
         if(outputCmdNoResponse(VIDRX_MONITOR_CMD) != null)
@@ -730,14 +1058,23 @@ public class VidReceiverManager
 
   /**
    * Performs the work for the scan-and-select-channel function.  A scan
-   * is performed, and then the result is shown (with RSSI values) in a
-   * select-channel dialog.
+   * is performed (or the result is built from the recent-scan cache if
+   * it holds fresh values for all the channels), and then the result is
+   * shown (with RSSI values) in a select-channel dialog.
    * @param cmdBuff command to be sent; channel-scan ('S') or full-scan
    * command ('F').
    */
   private void doScanSelectChanFunction(byte [] cmdBuff)
   {
-    final String scanStr = doSendScanCommandToReceiver(cmdBuff,false);
+    final int [] freqsArr = getScanFreqsArray(cmdBuff == VIDRX_FULLSCAN_CMD);
+    String scanStr;
+    if(freqsArr != null &&
+           (scanStr=recentScanCacheObj.buildScanResultsStr(freqsArr,minRssiForScansValue)) != null)
+    {  //fresh values for all channels in cache
+      ULog.d(LOG_TAG, "Scan-select-channel served from recent-scan cache");
+    }
+    else    //values not in cache; have receiver do scan
+      scanStr = doSendScanCommandToReceiver(cmdBuff,false);
     if(vidRecMgrRespProcessorObj != null)
     {  //processor OK; respond with entries list
       vidRecMgrRespProcessorObj.sendMessage(VRECMGR_RESP_SELCHANNEL,scanStr);
@@ -745,19 +1082,90 @@ public class VidReceiverManager
   }
 
   /**
-   * Sends response to indicate that receiver is scanning and waits for
-   * scanning to finish.
+   * Returns the frequencies scanned by the receiver for a channel-scan
+   * ('S') or full-scan ('F') command.
+   * @param fullFlag true for full-scan; false for channel-scan (the
+   * monitor/scan list, or all channels if the list is empty).
+   * @return An array of frequency values, or null if the frequency table
+   * is not available.
+   */
+  private int [] getScanFreqsArray(boolean fullFlag)
+  {
+    final ChannelTracker trackerObj;
+    final FrequencyTable freqTableObj;
+    if((trackerObj=vidChannelTrackerObj) == null ||
+                                       (freqTableObj=trackerObj.getFrequencyTableObj()) == null)
+    {
+      return null;
+    }
+    if(!fullFlag)
+    {  //channel-scan; use monitor/scan list (if not empty)
+      final List<Short> listObj = FrequencyTable.convStringToShortsList(monitorScanListString);
+      if(listObj != null && listObj.size() > 0)
+      {
+        final int [] freqsArr = new int[listObj.size()];
+        for(int i=0; i<freqsArr.length; ++i)
+          freqsArr[i] = listObj.get(i);
+        return freqsArr;
+      }
+    }
+    return freqTableObj.getSortedFreqValsArray();
+  }
+
+  /**
+   * Aborts receiver scanning in progress.  A CR is sent to the receiver
+   * (which ends the scan), and the wait for the scan to finish is ended
+   * immediately (or, if the wait has not yet begun, it ends as soon as it
+   * begins).
+   * @return true if a scan was in progress; false if not.
+   */
+  public boolean abortReceiverScanning()
+  {
+    if(!scanWaitActiveFlag && !receivedLineClassifierObj.isScanningInProgress())
+      return false;
+    ULog.d(LOG_TAG, "Aborting receiver scanning");
+    if(serialServiceWriterObj.isConnected())
+      serialServiceWriterObj.write(VIDRX_CR_ARR);
+    receivedLinesRingObj.abortWait();
+    return true;
+  }
+
+  /**
+   * Waits for receiver scanning to finish.  The scan-begin response is sent
+   * here if not already sent (via 'processLineEvent()'), and the scan-end
+   * response is sent when the "scanning" banner line ends; if the banner
+   * does not end before the timeout (or the wait is aborted via
+   * 'abortReceiverScanning()') then the scan-end response is sent here.
    */
   private void processReceiverScanning()
   {
-    if(vidRecMgrRespProcessorObj != null)
-    {  //processor OK; notify that receiver scanning has started
-      vidRecMgrRespProcessorObj.sendMessage(VRECMGR_RESP_SCANBEGIN);
+    scanWaitActiveFlag = true;         //scan may be aborted from here on
+    synchronized(scanBeginSyncObj)
+    {  //grab lock to avoid conflict with 'processLineEvent()'
+      if(!scanBeginPublishedFlag)
+      {  //scan-begin response not yet sent (worker paused); send it now
+        scanBeginPublishedFlag = true;
+        if(vidRecMgrRespProcessorObj != null)
+          vidRecMgrRespProcessorObj.sendMessage(VRECMGR_RESP_SCANBEGIN);
+      }
     }
-    getNextReceivedLine(8000);     //wait for response (allow for scanning time)
-    if(vidRecMgrRespProcessorObj != null)
-    {  //handler OK; notify that receiver scanning is finished
-      vidRecMgrRespProcessorObj.sendMessage(VRECMGR_RESP_SCANEND);
+    try
+    {         //wait for banner line to end (allow for scanning time):
+      getNextReceivedLine(SCAN_WAIT_TIMEMS);
+    }
+    finally
+    {
+      scanWaitActiveFlag = false;
+      receivedLinesRingObj.clearWaitAbort();     //abort (if any) has been consumed
+    }
+    synchronized(scanBeginSyncObj)
+    {  //grab lock to avoid conflict with 'processLineEvent()'
+      if(scanBeginPublishedFlag)
+      {  //scan-end response not yet sent; send it now
+        scanBeginPublishedFlag = false;
+        if(vidRecMgrRespProcessorObj != null)
+          vidRecMgrRespProcessorObj.sendMessage(VRECMGR_RESP_SCANEND);
+      }
     }
   }
 
@@ -768,10 +1176,16 @@ public class VidReceiverManager
   private void doSendMinRssiValToReceiver(int minRssiVal)
   {
     final boolean resFlag = pauseReceiverUpdateWorker();
-    outputCmdNoResponse((VIDRX_MINRSSI_PRESTR + minRssiVal + VIDRX_CR_STR).getBytes());
-    fetchMinRssiValFromReceiver();                    //fetch value from receiver
+              //send new value and fetch value from receiver (together):
+    final ReceiverCommandPipeline pipelineObj = createCommandPipeline();
+    pipelineObj.addCommand((VIDRX_MINRSSI_PRESTR + minRssiVal + VIDRX_CR_STR).getBytes(),
+                                                                     VIDRX_NORESP_RESPLINES);
+    addFetchMinRssiValCommand(pipelineObj);
+    pipelineObj.execute();
     if(getMinRssiForScansValue() != minRssiVal)       //check value
       ULog.e(LOG_TAG, "Mismatch confirming min-RSSI value sent to receiver");
+    else if(settingsValuesKnownFlag)   //if other values known then
+      updateSettingsCache();           // enter new value into cache
     if(resFlag)                        //if was not already paused on entry
       resumeReceiverUpdateWorker();    // then resume worker thread
   }
@@ -783,10 +1197,16 @@ public class VidReceiverManager
   private void doSendMonIntvlValToReceiver(int intervalVal)
   {
     final boolean resFlag = pauseReceiverUpdateWorker();
-    outputCmdNoResponse((VIDRX_MONINTVL_PRESTR + intervalVal + VIDRX_CR_STR).getBytes());
-    fetchMonIntvlValFromReceiver();                   //fetch value from receiver
+              //send new value and fetch value from receiver (together):
+    final ReceiverCommandPipeline pipelineObj = createCommandPipeline();
+    pipelineObj.addCommand((VIDRX_MONINTVL_PRESTR + intervalVal + VIDRX_CR_STR).getBytes(),
+                                                                     VIDRX_NORESP_RESPLINES);
+    addFetchMonIntvlValCommand(pipelineObj);
+    pipelineObj.execute();
     if(getMonitorIntervalValue() != intervalVal)      //check value
       ULog.e(LOG_TAG, "Mismatch confirming monitor-interval value sent to receiver");
+    else if(settingsValuesKnownFlag)   //if other values known then
+      updateSettingsCache();           // enter new value into cache
     if(resFlag)                        //if was not already paused on entry
       resumeReceiverUpdateWorker();    // then resume worker thread
   }
@@ -801,20 +1221,31 @@ public class VidReceiverManager
       return;
     final boolean resFlag = pauseReceiverUpdateWorker();
 //    ULog.d(LOG_TAG, "Sending:  " + VIDRX_SCANLIST_PRESTR + listStr);
-              //send "L..." command, fetch response (expected response is # of frequencies):
-    String respStr = outputCmdRecvResponse(
-                                    (VIDRX_SCANLIST_PRESTR + listStr + VIDRX_CR_STR).getBytes());
-    if(respStr != null && (respStr=respStr.trim()).length() > 0 &&
+              //send "L..." command and fetch value from receiver (together):
+    final ReceiverCommandPipeline pipelineObj = createCommandPipeline();
+    pipelineObj.addCommand((VIDRX_SCANLIST_PRESTR + listStr + VIDRX_CR_STR).getBytes(),
+        VIDRX_VALUE_RESPLINES, new CommandListener()
+          {       //check response (expected response is # of frequencies)
+            @Override
+            public void commandCompleted(PipelinedCommand cmdObj)
+            {
+              String respStr = cmdObj.getLastRespLine();
+              if(respStr != null && (respStr=respStr.trim()).length() > 0 &&
                                                            !Character.isDigit(respStr.charAt(0)))
-    {  //response not empty and does not being with a digit (take as error message)
-      final String errStr = "List error:  " + respStr;
-      ULog.e(LOG_TAG,errStr);                          //log error message
-      if(vidRecMgrRespProcessorObj != null)           //respond with error message
-        vidRecMgrRespProcessorObj.sendMessage(VRECMGR_RESP_POPUPMSG,errStr);
-    }
-    fetchMonScanListStrFromReceiver();           //fetch value from receiver
+              {  //response not empty and does not being with a digit (take as error message)
+                final String errStr = "List error:  " + respStr;
+                ULog.e(LOG_TAG,errStr);                          //log error message
+                if(vidRecMgrRespProcessorObj != null)           //respond with error message
+                  vidRecMgrRespProcessorObj.sendMessage(VRECMGR_RESP_POPUPMSG,errStr);
+              }
+            }
+          });
+    addFetchMonScanListCommand(pipelineObj);
+    pipelineObj.execute();
     if(!isEqualToMonScanListStr(listStr))        //check given value vs fetched
       ULog.e(LOG_TAG, "Mismatch confirming monitor/scan list sent to receiver");
+    else if(settingsValuesKnownFlag)   //if other values known then
+      updateSettingsCache();           // enter new value into cache
     if(resFlag)                        //if was not already paused on entry
       resumeReceiverUpdateWorker();    // then resume worker thread
   }
@@ -871,6 +1302,23 @@ public class VidReceiverManager
     return outputCmdNoResponse(VIDRX_BANDSCAN_CMD);
   }
 
+  /**
+   * Sends the tune-frequency command followed by the report-channel/RSSI
+   * command to the receiver (in a single write, so only one link round
+   * trip is needed) and receives the "freqCC=rssi" response.  Used for
+   * phone-driven sweeps of a region of the band.  This method should only
+   * be used while the receiver worker is stopped or paused.
+   * @param freqVal frequency value to tune to.
+   * @param viewObj view object to receive the "freqCC=rssi" response.
+   * @return true if successful; false if timeout reached before receiving
+   * the response.
+   */
+  public boolean outputTuneReportRssiCommand(int freqVal, LineView viewObj)
+  {
+    return outputCmdNoResponse((VIDRX_TUNE_PRESTR + freqVal + VIDRX_CR_STR + "~").getBytes(),
+                          viewObj) && getNextReceivedLine(viewObj,RESP_WAIT_TIMEMS);
+  }
+
   /**
    * Sends the command to query the program-version information from receiver
    * (but does not receive the response).
@@ -893,6 +1341,121 @@ public class VidReceiverManager
     return monitorModeActiveFlag;
   }
 
+  /**
+   * Returns the scheduler for channel/RSSI polls of the receiver.
+   * @return The AdaptivePollScheduler object.
+   */
+  public AdaptivePollScheduler getPollSchedulerObj()
+  {
+    return pollSchedulerObj;
+  }
+
+  /**
+   * Returns the cache of recently-received RSSI values (fed by channel/RSSI
+   * reports, scan results and full-band sweeps).
+   * @return The RecentScanCache object.
+   */
+  public RecentScanCache getRecentScanCacheObj()
+  {
+    return recentScanCacheObj;
+  }
+
+  /**
+   * Returns the session recorder (which records channel/RSSI reports and
+   * graph sweeps while a session recording is in progress).
+   * @return The SessionRecorder object.
+   */
+  public SessionRecorder getSessionRecorderObj()
+  {
+    return sessionRecorderObj;
+  }
+
+  /**
+   * Returns the channel-occupancy statistics (fed by completed full-band
+   * graph sweeps, and persisted across sessions).  Values should be
+   * entered via 'enterOccupancySweep()'.
+   * @return The ChannelOccupancyStore object.
+   */
+  public ChannelOccupancyStore getChannelOccupancyStoreObj()
+  {
+    return channelOccupancyStoreObj;
+  }
+
+  /**
+   * Enters the values from a completed full-band sweep into the
+   * channel-occupancy statistics, and saves the statistics if the save
+   * interval has elapsed.  Only complete full-band sweeps should be
+   * entered, so that every channel gets the same number of samples.
+   * @param freqValsArr frequency values for sweep.
+   * @param rssiValsArr RSSI values for sweep.
+   * @param numVals number of values in arrays.
+   */
+  public void enterOccupancySweep(int [] freqValsArr, int [] rssiValsArr, int numVals)
+  {
+    final long timeMs = System.currentTimeMillis();
+    for(int i=0; i<numVals; ++i)
+      channelOccupancyStoreObj.enterValue(freqValsArr[i],rssiValsArr[i],timeMs);
+    if(timeMs - occupancyLastSaveTimeMs >= OCCUPANCY_SAVE_INTERVALMS)
+      saveOccupancyStore();            //time for periodic save of occupancy statistics
+  }
+
+  /**
+   * Sets the file for persisting the channel-occupancy statistics and
+   * loads any statistics saved in it (via a separate thread).  Saves are
+   * run via the same lane, so none is done until the load has finished.
+   * @param fileObj store file.
+   */
+  public void setOccupancyStoreFileObj(final File fileObj)
+  {
+    occupancyStoreFileObj = fileObj;
+    occupancyLastSaveTimeMs = System.currentTimeMillis();
+    occupancyIoLaneObj.execute("occupancyStoreLoad",new Runnable()
+        {
+          public void run()
+          {
+            try
+            {
+              final long startTimeMs = System.currentTimeMillis();
+              if(channelOccupancyStoreObj.loadFromFile(fileObj))
+              {
+                ULog.d(LOG_TAG, "Loaded channel-occupancy statistics (" +
+                               (System.currentTimeMillis()-startTimeMs) + " ms) from " + fileObj);
+              }
+            }
+            catch(Exception ex)
+            {  //some kind of exception error; log it
+              ULog.e(LOG_TAG, "Error loading channel-occupancy statistics", ex);
+            }
+          }
+        });
+  }
+
+  /**
+   * Saves the channel-occupancy statistics (via a separate thread, after
+   * any load in progress) if they have changed since last saved.
+   */
+  public void saveOccupancyStore()
+  {
+    final File fileObj;
+    if((fileObj=occupancyStoreFileObj) == null || !channelOccupancyStoreObj.isStoreChanged())
+      return;
+    occupancyLastSaveTimeMs = System.currentTimeMillis();
+    occupancyIoLaneObj.execute("occupancyStoreSave",new Runnable()
+        {
+          public void run()
+          {
+            try
+            {
+              channelOccupancyStoreObj.saveToFile(fileObj);
+            }
+            catch(Exception ex)
+            {  //some kind of exception error; log it
+              ULog.e(LOG_TAG, "Error saving channel-occupancy statistics", ex);
+            }
+          }
+        });
+  }
+
   /**
    * Fetches and saves the minimum-RSSI-for-scans value from the receiver.
    * This method should only be used while the receiver worker is
@@ -900,15 +1463,34 @@ public class VidReceiverManager
    */
   public void fetchMinRssiValFromReceiver()
   {
-    try
-    {         //send command, receive and save numeric response
-      minRssiForScansValue = outputCmdRecvIntResp(
-                                                 (VIDRX_MINRSSI_PRESTR+VIDRX_CR_STR).getBytes());
-    }
-    catch(Exception ex)
-    {
-      ULog.e(LOG_TAG, "Error fetching min-RSSI value from receiver", ex);
-    }
+    final ReceiverCommandPipeline pipelineObj = createCommandPipeline();
+    addFetchMinRssiValCommand(pipelineObj);
+    pipelineObj.execute();
+  }
+
+  /**
+   * Adds to the given pipeline the command to fetch and save the
+   * minimum-RSSI-for-scans value from the receiver.
+   * @param pipelineObj command-pipeline object.
+   */
+  private void addFetchMinRssiValCommand(ReceiverCommandPipeline pipelineObj)
+  {
+    pipelineObj.addCommand((VIDRX_MINRSSI_PRESTR+VIDRX_CR_STR).getBytes(),
+        VIDRX_VALUE_RESPLINES, new CommandListener()
+          {
+            @Override
+            public void commandCompleted(PipelinedCommand cmdObj)
+            {
+              try
+              {       //receive and save numeric response
+                minRssiForScansValue = parseIntResponse(cmdObj);
+              }
+              catch(Exception ex)
+              {
+                ULog.e(LOG_TAG, "Error fetching min-RSSI value from receiver", ex);
+              }
+            }
+          });
   }
 
   /**
@@ -927,15 +1509,34 @@ public class VidReceiverManager
    */
   public void fetchMonIntvlValFromReceiver()
   {
-    try
-    {         //send command, receive and save numeric response
-      monitorIntervalValue = outputCmdRecvIntResp(
-                                                (VIDRX_MONINTVL_PRESTR+VIDRX_CR_STR).getBytes());
-    }
-    catch(Exception ex)
-    {
-      ULog.e(LOG_TAG, "Error fetching monitor-interval value from receiver", ex);
-    }
+    final ReceiverCommandPipeline pipelineObj = createCommandPipeline();
+    addFetchMonIntvlValCommand(pipelineObj);
+    pipelineObj.execute();
+  }
+
+  /**
+   * Adds to the given pipeline the command to fetch and save the
+   * monitor-interval value from the receiver.
+   * @param pipelineObj command-pipeline object.
+   */
+  private void addFetchMonIntvlValCommand(ReceiverCommandPipeline pipelineObj)
+  {
+    pipelineObj.addCommand((VIDRX_MONINTVL_PRESTR+VIDRX_CR_STR).getBytes(),
+        VIDRX_VALUE_RESPLINES, new CommandListener()
+          {
+            @Override
+            public void commandCompleted(PipelinedCommand cmdObj)
+            {
+              try
+              {       //receive and save numeric response
+                monitorIntervalValue = parseIntResponse(cmdObj);
+              }
+              catch(Exception ex)
+              {
+                ULog.e(LOG_TAG, "Error fetching monitor-interval value from receiver", ex);
+              }
+            }
+          });
   }
 
   /**
@@ -954,26 +1555,148 @@ public class VidReceiverManager
    */
   public void fetchMonScanListStrFromReceiver()
   {
-    try
-    {         //send command, receive, check and save string response
-      String respStr = outputCmdRecvResponse((VIDRX_SCANLIST_PRESTR+VIDRX_CR_STR).getBytes());
-//      ULog.d(LOG_TAG, "Received (L):  " + respStr);
-      if(respStr != null && respStr.trim().length() > 0)
-      {  //string contains data
-        respStr = respStr.replace(',',' ');           //change commas to spaces
-                   //check that data can be parsed as list of numeric values:
-        if(FrequencyTable.convStringToShortsList(respStr) != null)
-          monitorScanListString = respStr;            //save response data
-        else
-          ULog.e(LOG_TAG, "Unable to parse monitor/scan list fetched from receiver:  " + respStr);
-      }
-      else
-        monitorScanListString = "";
+    final ReceiverCommandPipeline pipelineObj = createCommandPipeline();
+    addFetchMonScanListCommand(pipelineObj);
+    pipelineObj.execute();
+  }
+
+  /**
+   * Adds to the given pipeline the command to fetch and save the
+   * monitor/scan list from the receiver.
+   * @param pipelineObj command-pipeline object.
+   */
+  private void addFetchMonScanListCommand(ReceiverCommandPipeline pipelineObj)
+  {
+    pipelineObj.addCommand((VIDRX_SCANLIST_PRESTR+VIDRX_CR_STR).getBytes(),
+        VIDRX_VALUE_RESPLINES, new CommandListener()
+          {
+            @Override
+            public void commandCompleted(PipelinedCommand cmdObj)
+            {
+              try
+              {       //receive, check and save string response
+                if(!cmdObj.isSuccessful())
+                  throw new NumberFormatException("No response from receiver");
+                String respStr = cmdObj.getLastRespLine();
+//                ULog.d(LOG_TAG, "Received (L):  " + respStr);
+                if(respStr != null && respStr.trim().length() > 0)
+                {  //string contains data
+                  respStr = respStr.replace(',',' ');           //change commas to spaces
+                        //check that data can be parsed as list of numeric values:
+                  if(FrequencyTable.convStringToShortsList(respStr) != null)
+                    monitorScanListString = respStr;            //save response data
+                  else
+                  {
+                    ULog.e(LOG_TAG,
+                        "Unable to parse monitor/scan list fetched from receiver:  " + respStr);
+                  }
+                }
+                else
+                  monitorScanListString = "";
+              }
+              catch(Exception ex)
+              {
+                ULog.e(LOG_TAG, "Error fetching monitor/scan list from receiver", ex);
+              }
+            }
+          });
+  }
+
+  /**
+   * Adds to the given pipeline the commands to fetch and save the
+   * settings values (min-RSSI, monitor-interval and monitor/scan list)
+   * from the receiver.
+   * @param pipelineObj command-pipeline object.
+   */
+  private void addFetchSettingsCommands(ReceiverCommandPipeline pipelineObj)
+  {
+    addFetchMinRssiValCommand(pipelineObj);      //get/save min-RSSI-for-scans value
+    addFetchMonIntvlValCommand(pipelineObj);     //get/save monitor-interval value
+    addFetchMonScanListCommand(pipelineObj);     //get/save monitor/scan list
+  }
+
+  /**
+   * Returns the current settings values.
+   * @return A new 'ReceiverSettingsCache.Settings' object.
+   */
+  private ReceiverSettingsCache.Settings getCurrentSettings()
+  {
+    return new ReceiverSettingsCache.Settings(minRssiForScansValue,monitorIntervalValue,
+                                                                      monitorScanListString);
+  }
+
+  /**
+   * Sets up the receiver-settings cache key for the connected receiver and,
+   * if settings values are cached for it, loads them as the current values
+   * (to be revalidated via the worker after it starts).
+   * @param versionStr firmware version string received from the receiver.
+   */
+  private void loadCachedSettings(String versionStr)
+  {
+    final ReceiverSettingsCache cacheObj;
+    if((cacheObj=receiverSettingsCacheObj) == null ||
+           (settingsCacheKeyStr=ReceiverSettingsCache.makeKeyStr(
+                                                    receiverDeviceIdStr,versionStr)) == null)
+    {  //no cache or no key for receiver
+      return;
     }
-    catch(Exception ex)
+    final ReceiverSettingsCache.Settings settingsObj;
+    if((settingsObj=cacheObj.getSettings(settingsCacheKeyStr)) != null)
+    {  //values cached for receiver; use them
+      minRssiForScansValue = settingsObj.minRssiVal;
+      monitorIntervalValue = settingsObj.monIntvlVal;
+      monitorScanListString = settingsObj.scanListStr;
+      settingsValuesKnownFlag = true;
+      ULog.d(LOG_TAG, "Using cached receiver settings (" + settingsObj + ")");
+    }
+  }
+
+  /**
+   * Notes that the settings values were successfully fetched from the
+   * receiver; they are entered into the receiver-settings cache.
+   */
+  private void noteSettingsFetched()
+  {
+    settingsValuesKnownFlag = true;
+    updateSettingsCache();
+  }
+
+  /**
+   * Enters the current settings values into the receiver-settings cache
+   * (if the cache key for the connected receiver is known).
+   */
+  private void updateSettingsCache()
+  {
+    final ReceiverSettingsCache cacheObj;
+    if((cacheObj=receiverSettingsCacheObj) != null &&
+                                  cacheObj.putSettings(settingsCacheKeyStr,getCurrentSettings()))
+    {
+      ULog.d(LOG_TAG, "Updated receiver-settings cache (" + getCurrentSettings() + ")");
+    }
+  }
+
+  /**
+   * Fetches the settings values from the receiver (to revalidate values
+   * taken from the cache or fetched earlier) and enters them into the
+   * receiver-settings cache.  This method is called via the worker thread
+   * after a channel/RSSI poll.
+   */
+  private void revalidateSettings()
+  {
+    final ReceiverSettingsCache.Settings prevSettingsObj = getCurrentSettings();
+    final ReceiverCommandPipeline pipelineObj = createCommandPipeline();
+    addFetchSettingsCommands(pipelineObj);
+    if(!pipelineObj.execute())
+    {  //fetch failed; try again after next poll
+      settingsRevalidateFlag = true;
+      return;
+    }
+    if(!prevSettingsObj.isEqualTo(getCurrentSettings()))
     {
-      ULog.e(LOG_TAG, "Error fetching monitor/scan list from receiver", ex);
+      ULog.d(LOG_TAG, "Receiver settings changed on revalidation (" + prevSettingsObj +
+                                                          " -> " + getCurrentSettings() + ")");
     }
+    noteSettingsFetched();
   }
 
   /**
@@ -1034,17 +1757,6 @@ public class VidReceiverManager
     return null;
   }
 
-  /**
-   * Queries, receives and returns program-version information from receiver.
-   * This method should only be used while the receiver worker is stopped
-   * or paused.
-   * @return Program-version-information string, or null if unable to receive.
-   */
-  private String queryGetVersionInfo()
-  {
-    return outputCmdRecvResponse(VIDRX_VERSION_CMD);
-  }
-
   /**
    * Sends given command and returns received numeric response.  This
    * method should only be used while the receiver worker is stopped
@@ -1064,6 +1776,34 @@ public class VidReceiverManager
     throw new NumberFormatException("No response from receiver");
   }
 
+  /**
+   * Parses the numeric response received for the given pipelined command.
+   * @param cmdObj pipelined-command object.
+   * @return Received response value.
+   * @throws NumberFormatException If the received response could not be
+   * parsed as an integer, or if no response was received.
+   */
+  protected static int parseIntResponse(PipelinedCommand cmdObj) throws NumberFormatException
+  {
+    final String str;
+    if(cmdObj.isSuccessful() && (str=cmdObj.getLastRespLine()) != null)
+    {  //received response; attempt to parse as number
+      return Integer.parseInt(str.trim());
+    }
+    throw new NumberFormatException("No response from receiver");
+  }
+
+  /**
+   * Creates a command pipeline for sending commands to the receiver.
+   * The pipeline should only be executed while the receiver worker is
+   * stopped or paused.
+   * @return A new command-pipeline object.
+   */
+  protected ReceiverCommandPipeline createCommandPipeline()
+  {
+    return new ReceiverCommandPipeline(serialServiceWriterObj,this,RESP_WAIT_TIMEMS);
+  }
+
   /**
    * Outputs given command and returns "echo" characters (if any).
    * (Lower-level I/O).
@@ -1086,6 +1826,71 @@ public class VidReceiverManager
     }
   }
 
+  /**
+   * Outputs given command and loads "echo" characters (if any) into the
+   * given view.  (Lower-level I/O).
+   * @param cmdBuff command to be sent.
+   * @param viewObj view object to receive "echo" characters.
+   * @return true if successful; false if timeout reached before receiving
+   * an end-of-line character.
+   */
+  private boolean outputCmdNoResponse(byte [] cmdBuff, LineView viewObj)
+  {
+    try
+    {
+      clearBuffer();
+      serialServiceWriterObj.write(cmdBuff);
+      return getNextReceivedLine(viewObj,RESP_WAIT_TIMEMS);
+    }
+    catch(Exception ex)
+    {
+      ULog.e(LOG_TAG, "Error sending command to receiver", ex);
+      return false;
+    }
+  }
+
+  /**
+   * Outputs given poll command and loads "echo" characters (if any) into
+   * the given view.  While waiting, if a command message is waiting and no
+   * response characters have arrived then the poll is abandoned (and
+   * 'pollRespAbandonedFlag' is set).  (Lower-level I/O).
+   * @param cmdBuff command to be sent.
+   * @param viewObj view object to receive "echo" characters.
+   * @return true if successful; false if timeout reached before receiving
+   * an end-of-line character (or if poll abandoned).
+   */
+  private boolean outputPollCmd(byte [] cmdBuff, LineView viewObj)
+  {
+    pollRespAbandonedFlag = false;
+    try
+    {
+      clearBuffer();
+      serialServiceWriterObj.write(cmdBuff);
+      final long endTimeMs = System.currentTimeMillis() + RESP_WAIT_TIMEMS;
+      long remainingMs;
+      while((remainingMs=endTimeMs-System.currentTimeMillis()) > 0L)
+      {  //wait for response line in slices, checking for preemption between them
+        if(receivedLinesRingObj.takeLine(viewObj,
+                                    Math.min(remainingMs,(long)POLL_PREEMPT_CHECK_MS)))
+        {
+          return true;
+        }
+        if(isPollPreempted() && receivedLinesRingObj.awaitFirstChar(0L) == '\0')
+        {  //command message waiting and no response characters yet; abandon poll
+          pollRespAbandonedFlag = true;
+          return false;
+        }
+      }
+      ULog.d(LOG_TAG, "outputPollCmd() returning false (timeout)");
+      return false;
+    }
+    catch(Exception ex)
+    {
+      ULog.e(LOG_TAG, "Error sending command to receiver", ex);
+      return false;
+    }
+  }
+
   /**
    * Outputs given command and returns received response line.
    * (Lower-level I/O).
@@ -1118,57 +1923,53 @@ public class VidReceiverManager
    */
   public void clearBuffer()
   {
-    synchronized(receivedLinesList)
-    {  //grab thread lock for list
-      receivedLinesList.clear();             //clear lines list
-    }
+    receivedLinesRingObj.clear();
   }
 
   /**
-   * Stores the received characters.
+   * Returns the number of received lines dropped because the buffer was full.
+   * @return The number of received lines dropped because the buffer was full.
+   */
+  public long getDroppedLinesCount()
+  {
+    return receivedLinesRingObj.getDroppedLinesCount();
+  }
+
+  /**
+   * Returns the number of received lines truncated because they were too long.
+   * @return The number of received lines truncated because they were too long.
+   */
+  public long getTruncatedLinesCount()
+  {
+    return receivedLinesRingObj.getTruncatedLinesCount();
+  }
+
+  /**
+   * Stores the received characters.  This method should only be called
+   * by the thread receiving data from the serial connection.
    * @param buff buffer of received characters.
    * @param numChars number of characters in buffer.
    */
   public void storeReceivedChars(byte [] buff, int numChars)
   {
+    final ReceivedLineClassifier classifierObj = receivedLineClassifierObj;
     char ch;
     for(int i=0; i<numChars; ++i)
     {  //for each character received
       if((ch=(char)buff[i]) == '\r' || ch == '\n')
       {  //end of line; add received line to list
-        if(receivedCharsBuffer.length() > 0 || ch == receivedLinesLastEndChar ||
+        if(receivedLinesRingObj.getCurLineLength() > 0 || ch == receivedLinesLastEndChar ||
                                                                 receivedLinesLastEndChar == '\0')
         {  //character is not second char of CR/LF sequence
-          synchronized(receivedLinesList)
-          {  //grab thread lock for list
-            receivedLinesList.add(receivedCharsBuffer.toString());
-            receivedCharsBuffer.setLength(0);    //clear character buffer
-            if(receivedLinesList.size() > BUFF_MAX_LINES)  //if too many lines then
-              receivedLinesList.remove(0);                 //remove oldest
-            receivedLinesList.notifyAll();       //wake 'get' method if waiting
-            firstReceivedCharacter = '\0';       //clear first-received character
-          }
+          classifierObj.endLine();               //classify line and publish event
+          receivedLinesRingObj.endLine();        //publish line (wakes 'get' if waiting)
           receivedLinesLastEndChar = ch;         //track last CR/LF character
-          vidrxScanInProgStrMatchPos = 0;        //reset matcher pos for receiver scanning
-          vidrxScanningInProgressFlag = false;   //reset flag for receiver scanning
         }
       }
       else
       {  //not end of line
-        receivedCharsBuffer.append(ch);          //add to character buffer
-        if(firstReceivedCharacter == '\0')       //if no previous for line then
-          firstReceivedCharacter = ch;           //save first-received character
-              //track received chars to see if buffer matches SCANNING_CHECK_STR:
-        if(vidrxScanInProgStrMatchPos >= 0 && vidrxScanInProgStrMatchPos < SCANNING_CHKSTR_LEN)
-        {  //matcher position is not -1 (for mismatch) or > length (for match complete)
-          if(ch == SCANNING_CHECK_STR.charAt(vidrxScanInProgStrMatchPos))
-          {  //character matches at position; check if all have been matched
-            if(++vidrxScanInProgStrMatchPos >= SCANNING_CHKSTR_LEN)
-              vidrxScanningInProgressFlag = true;     //indicate 'scanning' string received
-          }
-          else  ////character does not match at position
-            vidrxScanInProgStrMatchPos = -1;     //set value to stop checking
-        }
+        receivedLinesRingObj.putChar(ch);        //add to line in progress (wakes 'peek')
+        classifierObj.putChar(ch);               //track chars (checks for 'scanning')
       }
     }
   }
@@ -1180,65 +1981,55 @@ public class VidReceiverManager
    */
   public String getNextReceivedLine(int timeoutMs)
   {
-    synchronized(receivedLinesList)
-    {  //grab thread lock for list
-      if(receivedLinesList.size() > 0)
-      {  //list not empty; fetch and return received line
-        final String str = receivedLinesList.remove(0);    //remove line from list
-        return str;
-      }
-      try
-      {       //wait for line of data received; up to timeout
-        receivedLinesList.wait(timeoutMs);
-      }
-      catch(InterruptedException ex)
-      {
-      }
-      if(receivedLinesList.size() <= 0)
-      {  //line not received before timeout
-        ULog.d(LOG_TAG, "getNextReceivedLine() returning null (timeout)");
-        return null;                        //indicate no data
-      }
-              //fetch and return received line:
-      final String str = receivedLinesList.remove(0);      //remove line from list
-      return str;
+    final String str = receivedLinesRingObj.takeLine(timeoutMs);
+    if(str == null)
+    {  //line not received before timeout
+      ULog.d(LOG_TAG, "getNextReceivedLine() returning null (timeout)");
     }
+    return str;
+  }
+
+  /**
+   * Waits for the next line of received characters, up to the timeout, and
+   * copies it into the given view (without allocating a new string).
+   * @param viewObj view object to receive line.
+   * @param timeoutMs maximum number of milliseconds to wait.
+   * @return true if a line was received; false if timeout.
+   */
+  public boolean getNextReceivedLine(LineView viewObj, int timeoutMs)
+  {
+    if(!receivedLinesRingObj.takeLine(viewObj,timeoutMs))
+    {  //line not received before timeout
+      ULog.d(LOG_TAG, "getNextReceivedLine() returning false (timeout)");
+      return false;
+    }
+    return true;
   }
 
   /**
    * Waits for and returns the first character received from the video
-   * receiver (waits up to 1 second).
+   * receiver (waits up to 'FIRSTCHAR_WAIT_TIMEMS').  The wait ends as soon
+   * as the character arrives.
    * @return The received character, or '\0' if none received.
    */
   private char peekFirstReceivedChar()
   {
-    int count = 0;
-    while(true)
-    {  //loop while waiting for character to arrive
-      if(firstReceivedCharacter != '\0')    //if character received then
-        return firstReceivedCharacter;      //return character
-      if(count % 10 == 0)
-      {  //check if full line received (but not every loop)
-        synchronized(receivedLinesList)
-        {  //grab thread lock for list
-          if(receivedLinesList.size() > 0)
-          {  //line of characters was received
-            final String str = receivedLinesList.get(0);        //get line from list
-            return (str.length() > 0) ? str.charAt(0) : '\n';   //return first char
-          }
-        }
-      }
-      if(++count > 99)       //increment loop count
-        break;               //if too many then abort
-      try
-      {       //wait 10ms each loop
-        Thread.sleep(10);
-      }
-      catch(InterruptedException ex)
-      {
-      }
-    }
-    return '\0';        //timeout reached
+    return receivedLinesRingObj.awaitFirstChar(FIRSTCHAR_WAIT_TIMEMS);
+  }
+
+  /**
+   * Determines if background polling should yield to a waiting (or
+   * in-progress) command message.  The update worker checks this before
+   * each poll and while waiting for the poll response, so a command does
+   * not wait out the response timeout.
+   * @return true if a command message is waiting or being handled; false
+   * if not.
+   */
+  private boolean isPollPreempted()
+  {
+    final DataMessageProcessor procObj;
+    return ((procObj=vidCmdMesssageProcessorObj) != null &&
+                            procObj.isPreemptRequested(DataMessageProcessor.PRIORITY_BACKGROUND));
   }
 
   /**
@@ -1247,57 +2038,154 @@ public class VidReceiverManager
    */
   private boolean queryReportChanRssiVals()
   {
-    if(vidrxScanningInProgressFlag)
+    final ReceivedLineClassifier classifierObj = receivedLineClassifierObj;
+    if(classifierObj.isScanningInProgress())
     {  //receiver returned 'scanning' indicator string
-      processReceiverScanning();       //notify and wait for scanning to finish
+      processReceiverScanning();       //wait for scanning to finish
+      return true;
+    }
+    if(monitorModeActiveFlag &&
+                     classifierObj.getRssiReportCount() != lastPolledRssiReportCount)
+    {  //receiver in 'monitor' mode and sent report since last poll; skip this poll
+      lastPolledRssiReportCount = classifierObj.getRssiReportCount();
       return true;
     }
     clearBuffer();                //clear anything already received
-    String respStr;
-                        //send "~" and get response (no LF in between):
-    if((respStr=outputCmdNoResponse(VIDRX_REPCHRSSI_CMD)) != null)
-    {  //command sent and response received OK
-      try
-      {       //parse "freqCC=rssi" response
-        if(respStr.startsWith(">"))         //ignore any leading '>' prompt
-          respStr = respStr.substring(1);
-        respStr = respStr.trim();           //remove leading space
-        final int p;
-        if((p=respStr.indexOf('=')) > 3)
-        {  //length of response OK
-          final int freqVal = Integer.parseInt(respStr.substring(0,4));
-          final String chCodeStr = (p >= 6) ? respStr.substring(4,6) : null;
-          String dispStr = null;
-          int q;             //check for trailing "M" (for 'monitor' mode)
-          if((q=respStr.indexOf(' ',p+1)) > 0)
-          {  //trailing space found
-            if(respStr.indexOf('M',q) == q+1)
-            {  //'M' found after space
-              dispStr = MONITOR_STRING;          //setup to display 'monitor' indicator
-              monitorModeActiveFlag = true;      //indicate 'monitor' mode active
+    final long startTimeMs = System.currentTimeMillis();
+                        //send "~" and get response (no LF in between);
+                        // values are reported via 'processLineEvent()':
+    final boolean retFlag;
+    if(outputPollCmd(VIDRX_REPCHRSSI_CMD,chanRssiRespLineViewObj) &&
+                              chanRssiRespParserObj.parseFreqChanRssi(chanRssiRespLineViewObj,4))
+    {  //response received and parsed OK; enter result and round-trip time
+      pollSchedulerObj.enterPollResult(chanRssiRespParserObj.getFreqVal(),
+             chanRssiRespParserObj.getRssiVal(),System.currentTimeMillis()-startTimeMs);
+      retFlag = true;
+    }
+    else if(pollRespAbandonedFlag)
+    {  //poll abandoned for command message; not a failure
+      retFlag = true;
+    }
+    else
+    {  //response not received or not parsed
+      pollSchedulerObj.enterPollFailure();
+      retFlag = false;
+    }
+    lastPolledRssiReportCount = classifierObj.getRssiReportCount();
+    return retFlag;
+  }
+
+  /**
+   * Parses and reports the channel and RSSI values in the given "~" response.
+   * @param respSeq response line, "freqCC=rssi".
+   * @return true if successful; false if error.
+   */
+  private boolean processChanRssiResponse(CharSequence respSeq)
+  {
+    final FreqRssiParser parserObj = chanRssiRespParserObj;
+            //parse "freqCC=rssi" response (with 4-digit freq value):
+    if(parserObj.parseFreqChanRssi(respSeq,4))
+    {  //response parsed OK
+      reportChanRssiValues(parserObj);
+      return true;         //indicate success
+    }
+    return false;            //indicate failure
+  }
+
+  /**
+   * Reports the channel and RSSI values held by the given parser.
+   * @param parserObj parser holding values from a "freqCC=rssi" response.
+   */
+  private void reportChanRssiValues(FreqRssiParser parserObj)
+  {
+    final String dispStr;
+    if(parserObj.getMonitorFlag())
+    {  //trailing "M" found (for 'monitor' mode)
+      dispStr = MONITOR_STRING;              //setup to display 'monitor' indicator
+      monitorModeActiveFlag = true;          //indicate 'monitor' mode active
+    }
+    else
+    {  //no trailing "M" found
+      dispStr = null;
+      monitorModeActiveFlag = false;         //indicate 'monitor' mode not active
+    }
+    final int freqVal = parserObj.getFreqVal();
+    recentScanCacheObj.enterValue(freqVal,parserObj.getRssiVal());
+    sessionRecorderObj.recordChanRssi(freqVal,parserObj.getRssiVal());
+          //send update to channel tracker:
+    if(vidChannelTrackerObj != null)
+      vidChannelTrackerObj.setFreqChannel(parserObj.getChanCodeStr(),(short)freqVal);
+          //respond with values:
+    if(vidRecMgrRespProcessorObj != null)
+    {
+      vidRecMgrRespProcessorObj.sendMessage(
+                           VRECMGR_RESP_CHANRSSI,freqVal,parserObj.getRssiVal(),dispStr);
+    }
+  }
+
+  /**
+   * Creates a classifier for received lines, with events handled via
+   * 'processLineEvent()'.
+   * @param freqTableObj frequency-table object used to look up channel-code
+   * strings, or null for none.
+   * @return A new ReceivedLineClassifier object.
+   */
+  private ReceivedLineClassifier createReceivedLineClassifier(FrequencyTable freqTableObj)
+  {
+    return new ReceivedLineClassifier(
+        new ReceivedLineClassifier.LineEventListener()
+          {
+            @Override
+            public void lineEvent(int eventType, FreqRssiParser parserObj)
+            {
+              processLineEvent(eventType,parserObj);
             }
+          },freqTableObj,BUFF_MAX_LINECHARS);
+  }
+
+  /**
+   * Processes an event for a received line (called by the thread receiving
+   * data).  While the receiver-update worker is running, channel/RSSI
+   * reports (polled or unsolicited) and scan begin/end are reported as
+   * they arrive; otherwise the received lines are handled by the caller
+   * that paused the worker.
+   * @param eventType event type (one of the 'ReceivedLineClassifier.EVENT_...'
+   * values).
+   * @param parserObj parser holding the values for a channel/RSSI report,
+   * or null for other event types.
+   */
+  private void processLineEvent(int eventType, FreqRssiParser parserObj)
+  {
+    switch(eventType)
+    {
+      case ReceivedLineClassifier.EVENT_RSSI_REPORT:
+      case ReceivedLineClassifier.EVENT_MONITOR_CHANGE:
+        if(lineStreamingActiveFlag)
+          reportChanRssiValues(parserObj);
+        break;
+      case ReceivedLineClassifier.EVENT_SCAN_STARTED:
+        if(lineStreamingActiveFlag)
+        {  //notify that receiver scanning has started
+          synchronized(scanBeginSyncObj)
+          {  //grab lock to avoid conflict with 'processReceiverScanning()'
+            scanBeginPublishedFlag = true;
+            if(vidRecMgrRespProcessorObj != null)
+              vidRecMgrRespProcessorObj.sendMessage(VRECMGR_RESP_SCANBEGIN);
           }
-          else
-          {  //no trailing space found
-            q = respStr.length();
-            monitorModeActiveFlag = false;       //indicate 'monitor' mode not active
+        }
+        break;
+      case ReceivedLineClassifier.EVENT_SCAN_FINISHED:
+        synchronized(scanBeginSyncObj)
+        {  //grab lock to avoid conflict with 'processReceiverScanning()'
+          if(scanBeginPublishedFlag)
+          {  //notify that receiver scanning is finished
+            scanBeginPublishedFlag = false;
+            if(vidRecMgrRespProcessorObj != null)
+              vidRecMgrRespProcessorObj.sendMessage(VRECMGR_RESP_SCANEND);
           }
-          final int rssiVal = Integer.parseInt(respStr.substring(p+1,q));
-              //send update to channel tracker:
-          if(vidChannelTrackerObj != null)
-            vidChannelTrackerObj.setFreqChannel(chCodeStr,(short)freqVal);
-              //respond with values:
-          if(vidRecMgrRespProcessorObj != null)
-            vidRecMgrRespProcessorObj.sendMessage(
-                                   VRECMGR_RESP_CHANRSSI,freqVal,rssiVal,dispStr);
-          return true;       //indicate success
         }
-      }
-      catch(NumberFormatException ex)
-      {  //error parsing; return false for error
-      }
+        break;
     }
-    return false;            //indicate failure
   }
 
 
@@ -1312,7 +2200,18 @@ public class VidReceiverManager
      */
     public ReceiverUpdateWorker()
     {
-      super("VidReceiverUpdateWorker",UPDWKR_PERIODIC_DELAYMS);
+      super("VidReceiverUpdateWorker",UPDWKR_PERIODIC_DELAYMS,receiverIoLaneObj);
+    }
+
+    /**
+     * Returns the delay to be executed before the next interval, as
+     * determined by the adaptive poll scheduler.
+     * @return The delay before the next interval, in milliseconds.
+     */
+    @Override
+    protected long getNextIntervalDelayMs()
+    {
+      return pollSchedulerObj.getNextDelayMs();
     }
 
   /**
@@ -1323,8 +2222,15 @@ public class VidReceiverManager
     @Override
     public boolean doWorkerTask()
     {
-      if(!queryReportChanRssiVals())                  //do query and report
-        waitForNotify(UPDWKR_PERIODIC_DELAYMS*2);     //if failure then extra delay
+      if(isPollPreempted())
+        return true;         //command waiting; skip poll (worker is about to be paused)
+      queryReportChanRssiVals();      //do query and report (scheduler handles failure delay)
+      if(settingsRevalidateFlag && !monitorModeActiveFlag && !recUpdWrkrPausedRequestedFlag &&
+                                                                           !isPollPreempted())
+      {  //settings values need revalidation (and monitor-mode reports not arriving)
+        settingsRevalidateFlag = false;
+        revalidateSettings();
+      }
       return true;
     }
   }
@@ -0,0 +1,721 @@
+//ArduVidRxSimulator.java:  Simulated ArduVidRx receiver, usable as a
+//                          stand-in for the serial connection.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.sim;
+
+import com.etheli.arduvidrx.rec.FrequencyTable;
+import com.etheli.arduvidrx.rec.FrequencyTable.FreqChannelItem;
+import com.etheli.util.DataWriteReceiver;
+import com.etheli.util.SerialWriterInterface;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class ArduVidRxSimulator defines a simulated ArduVidRx receiver.  It
+ * implements the serial-writer interface (for commands sent to the
+ * receiver) and delivers its output to a data-write receiver (in the
+ * same way as the Bluetooth serial service), so it may be used in place
+ * of a real receiver connection.  The command set of the receiver
+ * firmware is simulated ("V", "~", "E0/E1", "T", "A", "B/C/XB/XC", "U/D",
+ * "N/P/M", "S", "F", "XF", "L", "XM", "XI" and "XZ"), with RSSI values
+ * generated from a synthetic RF environment.  The latency and bandwidth
+ * of the serial link and the per-channel scan time are configurable.
+ * The simulator does not depend on any Android classes.
+ */
+public class ArduVidRxSimulator implements SerialWriterInterface
+{
+    /** Version string reported by the simulator. */
+  public static final String SIM_VERSION_STR = "ArduVidRx Simulator v1.0";
+    /** Default latency (in milliseconds) for each direction of the link. */
+  public static final int DEF_LINK_LATENCYMS = 20;
+    /** Default bandwidth (in bytes per second) for the link (~115200 baud). */
+  public static final int DEF_LINK_BYTESPERSEC = 11520;
+    /** Default scan time (in milliseconds) for each channel. */
+  public static final int DEF_CHAN_DWELLMS = 25;
+  private static final String CRLF_STR = "\r\n";
+  private static final int DEF_MINRSSI_VALUE = 30;
+  private static final int DEF_MONINTVL_VALUE = 5;
+
+  private final SimulatedRfEnvironment rfEnvironmentObj;
+  private final FrequencyTable frequencyTableObj;
+  private final FreqChannelItem [] freqChanItemsArr;
+  private final int [] sortedFreqsArr;           //unique table freqs, ascending
+  private final SimulatedSerialLink inputLinkObj;
+  private final SimulatedSerialLink outputLinkObj;
+  private final StringBuilder pendingInputBuffer = new StringBuilder();
+  private final StringBuilder cmdLineBuffer = new StringBuilder();
+  private final StringBuilder outputBuffer = new StringBuilder();
+  private FirmwareThread firmwareThreadObj = null;
+  private volatile boolean connectedFlag = false;
+  private volatile int chanDwellTimeMs = DEF_CHAN_DWELLMS;
+  private volatile long commandsProcessedCount = 0L;
+         //simulated receiver state (only accessed by firmware thread):
+  private int curFrequencyVal;
+  private boolean echoEnabledFlag = true;
+  private int minRssiForScansValue = DEF_MINRSSI_VALUE;
+  private int monitorIntervalValue = DEF_MONINTVL_VALUE;
+  private int [] scanListFreqsArr = new int[0];
+  private boolean monitorModeFlag = false;
+  private int [] monitorFreqsArr = new int[0];
+  private int [] lastScanRssiArr = new int[0];   //RSSI values for last scan
+  private int monitorFreqIndex = 0;
+  private long monitorNextChangeTimeMs = 0L;
+
+  /**
+   * Creates a simulated receiver.
+   * @param dataWriteRecObj receiver for data output by the simulator.
+   * @param rfEnvObj synthetic RF environment.
+   * @param freqTableObj frequency table.
+   */
+  public ArduVidRxSimulator(DataWriteReceiver dataWriteRecObj,
+                               SimulatedRfEnvironment rfEnvObj, FrequencyTable freqTableObj)
+  {
+    rfEnvironmentObj = rfEnvObj;
+    frequencyTableObj = freqTableObj;
+    freqChanItemsArr = freqTableObj.getFreqChannelItemsArray();
+    sortedFreqsArr = freqTableObj.getSortedFreqValsArray();
+    curFrequencyVal = (freqChanItemsArr.length > 0) ? freqChanItemsArr[0].frequencyVal : 5800;
+    inputLinkObj = new SimulatedSerialLink("simInputLink",
+        new DataWriteReceiver()
+          {
+            @Override
+            public void write(byte [] buff, int numChars)
+            {
+              enterInputChars(buff,numChars);
+            }
+          });
+    outputLinkObj = new SimulatedSerialLink("simOutputLink",dataWriteRecObj);
+    setLinkLatencyMs(DEF_LINK_LATENCYMS);
+    setLinkBandwidth(DEF_LINK_BYTESPERSEC);
+  }
+
+  /**
+   * Sets the latency for each direction of the simulated serial link.
+   * @param latencyMs latency in milliseconds.
+   */
+  public void setLinkLatencyMs(int latencyMs)
+  {
+    inputLinkObj.setLatencyMs(latencyMs);
+    outputLinkObj.setLatencyMs(latencyMs);
+  }
+
+  /**
+   * Sets the bandwidth for each direction of the simulated serial link.
+   * @param bytesPerSec bytes per second, or 0 for no limit.
+   */
+  public void setLinkBandwidth(int bytesPerSec)
+  {
+    inputLinkObj.setBandwidth(bytesPerSec);
+    outputLinkObj.setBandwidth(bytesPerSec);
+  }
+
+  /**
+   * Sets the simulated scan time for each channel.
+   * @param dwellMs scan time in milliseconds.
+   */
+  public void setChanDwellTimeMs(int dwellMs)
+  {
+    chanDwellTimeMs = (dwellMs > 0) ? dwellMs : 0;
+  }
+
+  /**
+   * Returns the synthetic RF environment used by the simulator.
+   * @return The SimulatedRfEnvironment object.
+   */
+  public SimulatedRfEnvironment getRfEnvironmentObj()
+  {
+    return rfEnvironmentObj;
+  }
+
+  /**
+   * Starts the simulator (its state will show as "connected").
+   */
+  public synchronized void start()
+  {
+    if(firmwareThreadObj != null)
+      return;
+    firmwareThreadObj = new FirmwareThread();
+    inputLinkObj.start();
+    outputLinkObj.start();
+    firmwareThreadObj.start();
+    connectedFlag = true;
+  }
+
+  /**
+   * Stops the simulator (its state will show as "not connected").  A
+   * stopped simulator cannot be restarted.
+   */
+  public synchronized void stop()
+  {
+    connectedFlag = false;
+    inputLinkObj.terminate();
+    outputLinkObj.terminate();
+    if(firmwareThreadObj != null)
+      firmwareThreadObj.interrupt();
+  }
+
+  /**
+   * Writes data to the simulated receiver.
+   * @param buff data to be written.
+   */
+  @Override
+  public void write(byte [] buff)
+  {
+    if(connectedFlag)
+      inputLinkObj.send(buff,buff.length);
+  }
+
+  /**
+   * Determines if the simulator is running.
+   * @return true if the simulator is running; false if not.
+   */
+  @Override
+  public boolean isConnected()
+  {
+    return connectedFlag;
+  }
+
+  /**
+   * Returns the number of commands processed by the simulated receiver.
+   * @return The number of commands processed by the simulated receiver.
+   */
+  public long getCommandsProcessedCount()
+  {
+    return commandsProcessedCount;
+  }
+
+  /**
+   * Returns the number of bytes received by the simulated receiver.
+   * @return The number of bytes received by the simulated receiver.
+   */
+  public long getBytesReceivedCount()
+  {
+    return inputLinkObj.getTotalBytesDelivered();
+  }
+
+  /**
+   * Returns the number of bytes sent by the simulated receiver.
+   * @return The number of bytes sent by the simulated receiver.
+   */
+  public long getBytesSentCount()
+  {
+    return outputLinkObj.getTotalBytesDelivered();
+  }
+
+  /**
+   * Enters characters that have arrived at the simulated receiver.
+   * @param buff buffer of characters.
+   * @param numChars number of characters in buffer.
+   */
+  private void enterInputChars(byte [] buff, int numChars)
+  {
+    synchronized(pendingInputBuffer)
+    {
+      for(int i=0; i<numChars; ++i)
+        pendingInputBuffer.append((char)buff[i]);
+      pendingInputBuffer.notifyAll();
+    }
+  }
+
+  /**
+   * Waits for and returns the next input character.
+   * @param timeoutMs maximum number of milliseconds to wait, or 0 to
+   * return immediately.
+   * @return The next input character, or -1 if none available.
+   * @throws InterruptedException if the thread was interrupted.
+   */
+  private int takeInputChar(long timeoutMs) throws InterruptedException
+  {
+    synchronized(pendingInputBuffer)
+    {
+      if(pendingInputBuffer.length() <= 0 && timeoutMs > 0)
+        pendingInputBuffer.wait(timeoutMs);
+      if(pendingInputBuffer.length() <= 0)
+        return -1;
+      final char ch = pendingInputBuffer.charAt(0);
+      pendingInputBuffer.deleteCharAt(0);
+      return ch;
+    }
+  }
+
+  /**
+   * Determines if a carriage return has arrived (discarding any other
+   * characters), as used to abort a scan.
+   * @return true if a carriage return has arrived.
+   */
+  private boolean checkAbortInput()
+  {
+    synchronized(pendingInputBuffer)
+    {
+      final int p;
+      if((p=pendingInputBuffer.indexOf("\r")) < 0)
+        return false;
+      pendingInputBuffer.delete(0,p+1);
+      return true;
+    }
+  }
+
+  /**
+   * Sends the contents of the output buffer over the link (and clears it).
+   */
+  private void flushOutput()
+  {
+    final int len;
+    if((len=outputBuffer.length()) > 0)
+    {
+      final byte [] buff = new byte[len];
+      for(int i=0; i<len; ++i)
+        buff[i] = (byte)outputBuffer.charAt(i);
+      outputBuffer.setLength(0);
+      outputLinkObj.send(buff,len);
+    }
+  }
+
+  /**
+   * Processes the given input character.
+   * @param ch input character.
+   * @throws InterruptedException if the thread was interrupted.
+   */
+  private void processInputChar(char ch) throws InterruptedException
+  {
+    if(ch == '~')
+    {  //report-channel/RSSI character; processed immediately
+      outputBuffer.append(getChanRssiReportStr()).append(CRLF_STR);
+      ++commandsProcessedCount;
+    }
+    else if(ch == '\r')
+    {  //end of command line
+      if(echoEnabledFlag)
+        flushOutput();       //make sure echoed chars go out first
+      outputBuffer.append(CRLF_STR);        //end of "echo" line
+      final String cmdStr = cmdLineBuffer.toString().trim();
+      cmdLineBuffer.setLength(0);
+      processCommand(cmdStr);
+      ++commandsProcessedCount;
+    }
+    else if(ch != '\n')
+    {  //command character
+      cmdLineBuffer.append(ch);
+      if(echoEnabledFlag)
+        outputBuffer.append(ch);
+    }
+    flushOutput();
+  }
+
+  /**
+   * Processes the given command string.
+   * @param cmdStr command string.
+   * @throws InterruptedException if the thread was interrupted.
+   */
+  private void processCommand(String cmdStr) throws InterruptedException
+  {
+    final String upStr = cmdStr.toUpperCase();
+    final String argStr;
+    if(upStr.length() <= 0)
+    {  //empty command; exits monitor mode
+      monitorModeFlag = false;
+      return;
+    }
+    final char cmdCh = upStr.charAt(0);
+    if(cmdCh != 'N' && cmdCh != 'P' && cmdCh != 'M')
+      monitorModeFlag = false;         //most commands exit monitor mode
+    if(cmdCh == 'X' && upStr.length() > 1)
+    {  //extended command
+      argStr = upStr.substring(2).trim();
+      switch(upStr.charAt(1))
+      {
+        case 'M':      //min-RSSI-for-scans value
+          if(argStr.length() > 0)
+            minRssiForScansValue = parseIntArg(argStr,minRssiForScansValue);
+          else
+            outputBuffer.append(minRssiForScansValue).append(CRLF_STR);
+          return;
+        case 'I':      //monitor-interval value
+          if(argStr.length() > 0)
+            monitorIntervalValue = parseIntArg(argStr,monitorIntervalValue);
+          else
+            outputBuffer.append(monitorIntervalValue).append(CRLF_STR);
+          return;
+        case 'F':      //full-band scan with "freqCC=rssi" output
+          doBandScanOutput();
+          return;
+        case 'B':      //previous band
+          stepBandChannel(true,false);
+          return;
+        case 'C':      //previous channel
+          stepBandChannel(false,false);
+          return;
+        case 'Z':      //reset
+          echoEnabledFlag = true;
+          minRssiForScansValue = DEF_MINRSSI_VALUE;
+          monitorIntervalValue = DEF_MONINTVL_VALUE;
+          scanListFreqsArr = new int[0];
+          monitorFreqsArr = new int[0];
+          return;
+      }
+      outputBuffer.append("Unrecognized command").append(CRLF_STR);
+      return;
+    }
+    argStr = upStr.substring(1).trim();
+    switch(cmdCh)
+    {
+      case 'V':        //version information
+        outputBuffer.append(SIM_VERSION_STR).append(CRLF_STR);
+        outputBuffer.append("Simulated RF environment").append(CRLF_STR);
+        break;
+      case 'E':        //echo on/off
+        echoEnabledFlag = !argStr.equals("0");
+        break;
+      case 'T':        //tune to channel code or frequency
+        tuneToChannelStr(argStr);
+        break;
+      case 'A':        //auto-tune to strongest channel
+        {
+          final int [] resultsArr = doScanWithBanner(sortedFreqsArr);
+          if(resultsArr != null && resultsArr.length > 0)
+            curFrequencyVal = resultsArr[0];
+        }
+        break;
+      case 'B':        //next band
+        stepBandChannel(true,true);
+        break;
+      case 'C':        //next channel
+        stepBandChannel(false,true);
+        break;
+      case 'U':        //up one MHz
+        ++curFrequencyVal;
+        break;
+      case 'D':        //down one MHz
+        --curFrequencyVal;
+        break;
+      case 'M':        //monitor mode
+        if(doMonitorScan())
+          startMonitorMode(0);
+        break;
+      case 'N':        //next monitored channel
+      case 'P':        //previous monitored channel
+        if(monitorFreqsArr.length > 0 || doMonitorScan())
+        {
+          final int numFreqs = monitorFreqsArr.length;
+          startMonitorMode(monitorModeFlag ?
+                ((monitorFreqIndex + ((cmdCh == 'N') ? 1 : numFreqs-1)) % numFreqs) : 0);
+        }
+        break;
+      case 'S':        //scan channels in list (or all channels)
+        outputScanResults(doScanWithBanner(getScanListOrAllFreqs()));
+        break;
+      case 'F':        //scan all channels
+        outputScanResults(doScanWithBanner(sortedFreqsArr));
+        break;
+      case 'L':        //monitor/scan list
+        if(argStr.length() > 0)
+        {  //list given; parse and save it
+          final List<Short> listObj = FrequencyTable.convStringToShortsList(argStr);
+          if(listObj != null)
+          {
+            scanListFreqsArr = new int[listObj.size()];
+            for(int i=0; i<scanListFreqsArr.length; ++i)
+              scanListFreqsArr[i] = listObj.get(i);
+            outputBuffer.append(scanListFreqsArr.length).append(CRLF_STR);
+          }
+          else
+            outputBuffer.append("Invalid list value").append(CRLF_STR);
+        }
+        else
+        {  //no list given; output current list
+          for(int i=0; i<scanListFreqsArr.length; ++i)
+          {
+            if(i > 0)
+              outputBuffer.append(',');
+            outputBuffer.append(scanListFreqsArr[i]);
+          }
+          outputBuffer.append(CRLF_STR);
+        }
+        break;
+      default:
+        outputBuffer.append("Unrecognized command").append(CRLF_STR);
+    }
+  }
+
+  /**
+   * Returns the "freqCC=rssi" report string for the current channel.
+   * @return The report string.
+   */
+  private String getChanRssiReportStr()
+  {
+    final String codeStr = frequencyTableObj.getChannelCodeForFreqVal((short)curFrequencyVal);
+    return Integer.toString(curFrequencyVal) + ((codeStr != null) ? codeStr : "") + "=" +
+                                             rfEnvironmentObj.getRssiForFreq(curFrequencyVal) +
+                                                                  (monitorModeFlag ? " M" : "");
+  }
+
+  /**
+   * Tunes to the given channel code (i.e., "F4") or frequency value.
+   * @param chanStr channel code or frequency value string.
+   */
+  private void tuneToChannelStr(String chanStr)
+  {
+    if(chanStr.length() <= 0)
+      return;
+    if(Character.isDigit(chanStr.charAt(0)))
+    {  //frequency value
+      try
+      {
+        curFrequencyVal = Integer.parseInt(chanStr);
+      }
+      catch(NumberFormatException ex)
+      {  //ignore bad value
+      }
+      return;
+    }
+    for(int i=0; i<freqChanItemsArr.length; ++i)
+    {  //for each table item; check for matching code
+      if(chanStr.equals(freqChanItemsArr[i].channelCodeStr))
+      {
+        curFrequencyVal = freqChanItemsArr[i].frequencyVal;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Steps to the next/previous band or channel in the frequency table.
+   * @param bandFlag true for band; false for channel.
+   * @param nextFlag true for next; false for previous.
+   */
+  private void stepBandChannel(boolean bandFlag, boolean nextFlag)
+  {
+    final FreqChannelItem itemObj =
+                           frequencyTableObj.getFreqChannelItemObj(null,(short)curFrequencyVal);
+    final int numItems = freqChanItemsArr.length;
+    if(numItems <= 0)
+      return;
+    final int idx = (itemObj != null) ? itemObj.itemArrayIndex : 0;
+    final int chansPerBand = 8;
+    final int bandIdx = idx / chansPerBand, chanIdx = idx % chansPerBand;
+    final int numBands = (numItems + chansPerBand - 1) / chansPerBand;
+    int newIdx;
+    if(bandFlag)
+    {
+      newIdx = ((bandIdx + (nextFlag ? 1 : numBands-1)) % numBands) * chansPerBand + chanIdx;
+    }
+    else
+    {
+      newIdx = bandIdx*chansPerBand +
+                                     (chanIdx + (nextFlag ? 1 : chansPerBand-1)) % chansPerBand;
+    }
+    if(newIdx >= numItems)
+      newIdx = numItems - 1;
+    curFrequencyVal = freqChanItemsArr[newIdx].frequencyVal;
+  }
+
+  /**
+   * Returns the scan-list frequencies, or all table frequencies if the
+   * list is empty.
+   * @return An array of frequency values.
+   */
+  private int [] getScanListOrAllFreqs()
+  {
+    return (scanListFreqsArr.length > 0) ? scanListFreqsArr : sortedFreqsArr;
+  }
+
+  /**
+   * Scans the given frequencies, outputting a " Scanning..." line while
+   * scanning.  A carriage return received during the scan aborts it.
+   * @param freqsArr frequencies to be scanned.
+   * @return Array of frequencies with RSSI values at or above the
+   * min-RSSI-for-scans value (sorted strongest first), with RSSI values
+   * in 'lastScanRssiArr'; or null if aborted.
+   * @throws InterruptedException if the thread was interrupted.
+   */
+  private int [] doScanWithBanner(int [] freqsArr) throws InterruptedException
+  {
+    outputBuffer.append(" Scanning");
+    flushOutput();
+    final int [] rssiArr = new int[freqsArr.length];
+    for(int i=0; i<freqsArr.length; ++i)
+    {  //for each frequency
+      if(chanDwellTimeMs > 0)
+        Thread.sleep(chanDwellTimeMs);
+      if(checkAbortInput())
+      {  //scan aborted
+        outputBuffer.append(CRLF_STR);
+        return null;
+      }
+      rssiArr[i] = rfEnvironmentObj.getRssiForFreq(freqsArr[i]);
+      if(i % 8 == 7)
+      {  //show progress
+        outputBuffer.append('.');
+        flushOutput();
+      }
+    }
+    outputBuffer.append(CRLF_STR);
+              //collect entries at or above min RSSI, sorted strongest first:
+    final ArrayList<int []> resultsList = new ArrayList<int []>();
+    for(int i=0; i<freqsArr.length; ++i)
+    {
+      if(rssiArr[i] >= minRssiForScansValue)
+      {
+        int p = 0;
+        while(p < resultsList.size() && resultsList.get(p)[1] >= rssiArr[i])
+          ++p;
+        resultsList.add(p,new int [] { freqsArr[i], rssiArr[i] });
+      }
+    }
+    final int [] retArr = new int[resultsList.size()];
+    lastScanRssiArr = new int[resultsList.size()];
+    for(int i=0; i<retArr.length; ++i)
+    {
+      retArr[i] = resultsList.get(i)[0];
+      lastScanRssiArr[i] = resultsList.get(i)[1];
+    }
+    return retArr;
+  }
+
+  /**
+   * Outputs the results of a scan as a line of "freq=rssi" entries.
+   * @param resultsArr frequencies returned by 'doScanWithBanner()', or
+   * null if the scan was aborted.
+   */
+  private void outputScanResults(int [] resultsArr)
+  {
+    if(resultsArr == null)
+      return;
+    for(int i=0; i<resultsArr.length; ++i)
+    {
+      if(i > 0)
+        outputBuffer.append(' ');
+      outputBuffer.append(resultsArr[i]).append('=').append(lastScanRssiArr[i]);
+    }
+    outputBuffer.append(CRLF_STR);
+  }
+
+  /**
+   * Performs the scan for monitor mode and saves the monitored frequencies
+   * (those with signals, in ascending order).
+   * @return true if any monitored frequencies were found.
+   * @throws InterruptedException if the thread was interrupted.
+   */
+  private boolean doMonitorScan() throws InterruptedException
+  {
+    final int [] resultsArr = doScanWithBanner(getScanListOrAllFreqs());
+    if(resultsArr == null || resultsArr.length <= 0)
+      return false;
+    monitorFreqsArr = Arrays.copyOf(resultsArr,resultsArr.length);
+    Arrays.sort(monitorFreqsArr);
+    return true;
+  }
+
+  /**
+   * Starts (or continues) monitor mode at the given monitored-frequency index.
+   * @param idx index into monitored frequencies.
+   */
+  private void startMonitorMode(int idx)
+  {
+    monitorFreqIndex = idx;
+    curFrequencyVal = monitorFreqsArr[idx];
+    monitorModeFlag = true;
+    monitorNextChangeTimeMs = System.currentTimeMillis() + monitorIntervalValue*1000L;
+  }
+
+  /**
+   * Performs monitor-mode processing (switching to the next monitored
+   * channel after each monitor interval, and reporting the new channel).
+   */
+  private void checkMonitorMode()
+  {
+    if(monitorModeFlag && monitorFreqsArr.length > 1 &&
+                                       System.currentTimeMillis() >= monitorNextChangeTimeMs)
+    {
+      startMonitorMode((monitorFreqIndex+1) % monitorFreqsArr.length);
+      if(cmdLineBuffer.length() <= 0)
+      {  //no command being entered; report new channel (unsolicited output)
+        outputBuffer.append(getChanRssiReportStr()).append(CRLF_STR);
+        flushOutput();
+      }
+    }
+  }
+
+  /**
+   * Outputs "freqCC=rssi" lines for all table frequencies (in ascending
+   * order), followed by "0=0".  A carriage return received during the
+   * scan aborts it.
+   * @throws InterruptedException if the thread was interrupted.
+   */
+  private void doBandScanOutput() throws InterruptedException
+  {
+    String codeStr;
+    for(int i=0; i<sortedFreqsArr.length; ++i)
+    {  //for each frequency
+      if(chanDwellTimeMs > 0)
+        Thread.sleep(chanDwellTimeMs);
+      if(checkAbortInput())
+        return;
+      codeStr = frequencyTableObj.getChannelCodeForFreqVal((short)sortedFreqsArr[i]);
+      outputBuffer.append(sortedFreqsArr[i]).append((codeStr != null) ? codeStr : "").
+              append('=').append(rfEnvironmentObj.getRssiForFreq(sortedFreqsArr[i])).
+              append(CRLF_STR);
+      flushOutput();
+    }
+    outputBuffer.append("0=0").append(CRLF_STR);
+  }
+
+  /**
+   * Parses the given integer argument.
+   * @param argStr argument string.
+   * @param defVal value returned if argument cannot be parsed.
+   * @return The parsed value, or the default value.
+   */
+  private static int parseIntArg(String argStr, int defVal)
+  {
+    try
+    {
+      return Integer.parseInt(argStr);
+    }
+    catch(NumberFormatException ex)
+    {
+      return defVal;
+    }
+  }
+
+
+  /**
+   * Class FirmwareThread defines the thread that runs the simulated
+   * receiver firmware.
+   */
+  private class FirmwareThread extends Thread
+  {
+    /**
+     * Creates the simulated-firmware thread.
+     */
+    public FirmwareThread()
+    {
+      super("simReceiverFirmware");
+      setDaemon(true);
+    }
+
+    /**
+     * Executing method for thread.
+     */
+    public void run()
+    {
+      try
+      {
+        int ch;
+        while(!isInterrupted())
+        {  //for each input character (or timeout)
+          if((ch=takeInputChar(50)) >= 0)
+            processInputChar((char)ch);
+          checkMonitorMode();
+        }
+      }
+      catch(InterruptedException ex)
+      {  //thread interrupted; exit
+      }
+    }
+  }
+}
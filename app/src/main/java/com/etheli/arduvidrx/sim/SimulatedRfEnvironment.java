@@ -0,0 +1,141 @@
+//SimulatedRfEnvironment.java:  Synthetic RF environment for the simulator.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.sim;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Class SimulatedRfEnvironment defines a synthetic RF environment of video
+ * transmitters, used by the receiver simulator to generate RSSI values.
+ * Each transmitter has a center frequency, a peak RSSI value and a
+ * bandwidth; the RSSI seen at a frequency is the strongest transmitter
+ * contribution (falling off with distance from its center) plus a noise
+ * floor and random jitter.  A seed value may be given so that the
+ * generated values are repeatable.
+ */
+public class SimulatedRfEnvironment
+{
+    /** Maximum RSSI value reported by the receiver. */
+  public static final int MAX_RSSI_VALUE = 100;
+  private final ArrayList<Transmitter> transmittersList = new ArrayList<Transmitter>();
+  private final Random randomObj;
+  private int noiseFloorValue = 3;
+  private int jitterAmplitudeValue = 2;
+
+  /**
+   * Creates a synthetic RF environment.
+   * @param seedVal seed value for random-number generator (for repeatable
+   * values).
+   */
+  public SimulatedRfEnvironment(long seedVal)
+  {
+    randomObj = new Random(seedVal);
+  }
+
+  /**
+   * Creates a synthetic RF environment with a default set of transmitters.
+   * @param seedVal seed value for random-number generator (for repeatable
+   * values).
+   * @return A new SimulatedRfEnvironment object.
+   */
+  public static SimulatedRfEnvironment createDefaultEnvironment(long seedVal)
+  {
+    final SimulatedRfEnvironment envObj = new SimulatedRfEnvironment(seedVal);
+    envObj.addTransmitter(5740,75,12);      //F1
+    envObj.addTransmitter(5800,55,12);      //F4
+    envObj.addTransmitter(5865,40,12);      //A1
+    envObj.addTransmitter(5658,28,12);      //R1
+    return envObj;
+  }
+
+  /**
+   * Adds a transmitter to the environment.
+   * @param freqVal center frequency of transmitter (in MHz).
+   * @param peakRssiVal RSSI value seen at the center frequency.
+   * @param bandwidthVal bandwidth of transmitter (in MHz); the RSSI falls
+   * to the noise floor at this distance from the center frequency.
+   */
+  public synchronized void addTransmitter(int freqVal, int peakRssiVal, int bandwidthVal)
+  {
+    transmittersList.add(new Transmitter(freqVal,peakRssiVal,bandwidthVal));
+  }
+
+  /**
+   * Removes all transmitters from the environment.
+   */
+  public synchronized void clearTransmitters()
+  {
+    transmittersList.clear();
+  }
+
+  /**
+   * Sets the noise-floor RSSI value.
+   * @param val noise-floor RSSI value.
+   */
+  public synchronized void setNoiseFloorValue(int val)
+  {
+    noiseFloorValue = val;
+  }
+
+  /**
+   * Sets the amplitude of the random jitter added to RSSI values.
+   * @param val jitter amplitude (0 for none).
+   */
+  public synchronized void setJitterAmplitudeValue(int val)
+  {
+    jitterAmplitudeValue = val;
+  }
+
+  /**
+   * Returns the RSSI value seen at the given frequency.
+   * @param freqVal frequency (in MHz).
+   * @return The RSSI value seen at the given frequency.
+   */
+  public synchronized int getRssiForFreq(int freqVal)
+  {
+    int maxVal = 0, val, dist;
+    Transmitter txObj;
+    for(int i=0; i<transmittersList.size(); ++i)
+    {  //for each transmitter; find strongest contribution at frequency
+      txObj = transmittersList.get(i);
+      if((dist=Math.abs(freqVal-txObj.frequencyVal)) < txObj.bandwidthVal)
+      {  //frequency within bandwidth of transmitter; use triangular roll-off
+        val = txObj.peakRssiVal * (txObj.bandwidthVal-dist) / txObj.bandwidthVal;
+        if(val > maxVal)
+          maxVal = val;
+      }
+    }
+    val = maxVal + noiseFloorValue;
+    if(jitterAmplitudeValue > 0)
+      val += randomObj.nextInt(jitterAmplitudeValue*2+1) - jitterAmplitudeValue;
+    return (val < 0) ? 0 : ((val > MAX_RSSI_VALUE) ? MAX_RSSI_VALUE : val);
+  }
+
+
+  /**
+   * Class Transmitter defines a simulated video transmitter.
+   */
+  private static class Transmitter
+  {
+    public final int frequencyVal;
+    public final int peakRssiVal;
+    public final int bandwidthVal;
+
+    /**
+     * Creates a simulated-transmitter object.
+     * @param frequencyVal center frequency of transmitter (in MHz).
+     * @param peakRssiVal RSSI value seen at the center frequency.
+     * @param bandwidthVal bandwidth of transmitter (in MHz).
+     */
+    public Transmitter(int frequencyVal, int peakRssiVal, int bandwidthVal)
+    {
+      this.frequencyVal = frequencyVal;
+      this.peakRssiVal = peakRssiVal;
+      this.bandwidthVal = (bandwidthVal > 0) ? bandwidthVal : 1;
+    }
+  }
+}
@@ -0,0 +1,187 @@
+//SimulatedSerialLink.java:  One direction of a simulated serial link, with
+//                           configurable latency and bandwidth.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.sim;
+
+import com.etheli.util.DataWriteReceiver;
+import java.util.ArrayDeque;
+
+/**
+ * Class SimulatedSerialLink defines one direction of a simulated serial
+ * link.  Bytes entered via 'send()' are delivered to the destination
+ * receiver (on the link's own thread) after the configured latency, and
+ * no faster than the configured bandwidth allows.  Bytes that are due at
+ * the same time are delivered together (like a read from a socket stream).
+ */
+public class SimulatedSerialLink extends Thread
+{
+    /** Maximum number of bytes delivered in one call to the receiver. */
+  public static final int MAX_DELIVERY_BYTES = 1024;
+  private static final int MAX_PIECE_BYTES = 16;
+  private final DataWriteReceiver destReceiverObj;
+  private final ArrayDeque<LinkPiece> piecesQueue = new ArrayDeque<LinkPiece>();
+  private final byte [] deliveryBuffer = new byte[MAX_DELIVERY_BYTES];
+  private long latencyNanos = 0L;
+  private long nanosPerByte = 0L;
+  private long lastByteDueNanos = 0L;
+  private long totalBytesDelivered = 0L;
+  private boolean terminateFlag = false;
+
+  /**
+   * Creates a simulated serial link.
+   * @param nameStr name for thread.
+   * @param destRecObj receiver for delivered bytes.
+   */
+  public SimulatedSerialLink(String nameStr, DataWriteReceiver destRecObj)
+  {
+    super(nameStr);
+    destReceiverObj = destRecObj;
+    setDaemon(true);
+  }
+
+  /**
+   * Sets the latency for the link.
+   * @param latencyMs time (in milliseconds) between the sending and
+   * delivery of a byte (not counting bandwidth limits).
+   */
+  public synchronized void setLatencyMs(int latencyMs)
+  {
+    latencyNanos = (latencyMs > 0) ? latencyMs*1000000L : 0L;
+  }
+
+  /**
+   * Sets the bandwidth for the link.
+   * @param bytesPerSec maximum number of bytes delivered per second, or 0
+   * for no limit.
+   */
+  public synchronized void setBandwidth(int bytesPerSec)
+  {
+    nanosPerByte = (bytesPerSec > 0) ? 1000000000L/bytesPerSec : 0L;
+  }
+
+  /**
+   * Sends bytes over the link.
+   * @param buff buffer of bytes to send.
+   * @param numBytes number of bytes to send.
+   */
+  public synchronized void send(byte [] buff, int numBytes)
+  {
+    if(terminateFlag)
+      return;
+    final long nowNanos = System.nanoTime();
+    long dueNanos = nowNanos + latencyNanos;
+    if(dueNanos < lastByteDueNanos)         //if earlier bytes still in transit then
+      dueNanos = lastByteDueNanos;          //new bytes go after them
+    int pos = 0, len;
+    byte [] pieceArr;
+    while(pos < numBytes)
+    {  //for each piece of the given buffer
+      len = numBytes - pos;
+      if(len > MAX_PIECE_BYTES)
+        len = MAX_PIECE_BYTES;
+      pieceArr = new byte[len];
+      System.arraycopy(buff,pos,pieceArr,0,len);
+      dueNanos += len * nanosPerByte;       //last byte of piece arrives after all sent
+      piecesQueue.addLast(new LinkPiece(pieceArr,dueNanos));
+      pos += len;
+    }
+    lastByteDueNanos = dueNanos;
+    notifyAll();
+  }
+
+  /**
+   * Returns the total number of bytes delivered over the link.
+   * @return The total number of bytes delivered over the link.
+   */
+  public synchronized long getTotalBytesDelivered()
+  {
+    return totalBytesDelivered;
+  }
+
+  /**
+   * Discards any bytes in transit.
+   */
+  public synchronized void clearInTransit()
+  {
+    piecesQueue.clear();
+    lastByteDueNanos = 0L;
+  }
+
+  /**
+   * Terminates the link thread.
+   */
+  public synchronized void terminate()
+  {
+    terminateFlag = true;
+    piecesQueue.clear();
+    notifyAll();
+  }
+
+  /**
+   * Executing method for thread.
+   */
+  public void run()
+  {
+    try
+    {
+      int len;
+      LinkPiece pieceObj;
+      long waitNanos = 0L;
+      while(true)
+      {
+        synchronized(this)
+        {
+          while(!terminateFlag && ((pieceObj=piecesQueue.peekFirst()) == null ||
+                                    (waitNanos=pieceObj.dueNanos-System.nanoTime()) > 0L))
+          {  //wait for piece to become due
+            if(pieceObj == null)
+              wait();
+            else
+              wait(waitNanos/1000000L,(int)(waitNanos%1000000L));
+          }
+          if(terminateFlag)
+            break;
+              //collect all due pieces (up to max delivery size):
+          len = 0;
+          final long nowNanos = System.nanoTime();
+          while((pieceObj=piecesQueue.peekFirst()) != null && pieceObj.dueNanos <= nowNanos &&
+                                      len + pieceObj.dataArr.length <= MAX_DELIVERY_BYTES)
+          {
+            piecesQueue.removeFirst();
+            System.arraycopy(pieceObj.dataArr,0,deliveryBuffer,len,pieceObj.dataArr.length);
+            len += pieceObj.dataArr.length;
+          }
+          totalBytesDelivered += len;
+        }
+        destReceiverObj.write(deliveryBuffer,len);     //deliver bytes (outside of lock)
+      }
+    }
+    catch(InterruptedException ex)
+    {  //thread interrupted; exit
+    }
+  }
+
+
+  /**
+   * Class LinkPiece defines a piece of data in transit.
+   */
+  private static class LinkPiece
+  {
+    public final byte [] dataArr;
+    public final long dueNanos;
+
+    /**
+     * Creates a piece of data in transit.
+     * @param dataArr data bytes.
+     * @param dueNanos time (via 'System.nanoTime()') when data is due.
+     */
+    public LinkPiece(byte [] dataArr, long dueNanos)
+    {
+      this.dataArr = dataArr;
+      this.dueNanos = dueNanos;
+    }
+  }
+}
@@ -0,0 +1,234 @@
+//SimulatorSocketServer.java:  Serves the receiver simulator over a TCP
+//                             socket on the loopback interface.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.sim;
+
+import com.etheli.arduvidrx.rec.FrequencyTable;
+import com.etheli.util.DataWriteReceiver;
+import com.etheli.util.ULog;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+/**
+ * Class SimulatorSocketServer serves the receiver simulator over a TCP
+ * socket on the loopback interface, so the video-receiver manager may be
+ * run (and benchmarked) against the simulator via the TCP transport.  One
+ * client is served at a time, and each client connection gets a new
+ * simulator instance.
+ */
+public class SimulatorSocketServer extends Thread
+{
+    /** Tag string for logging. */
+  public static final String LOG_TAG = "SimSocketServer";
+  private static final int READ_BUFFER_SIZE = 1024;
+  private final int requestedPortNumber;
+  private final SimulatedRfEnvironment rfEnvironmentObj;
+  private final FrequencyTable frequencyTableObj;
+  private ServerSocketChannel serverChannelObj = null;
+  private volatile SocketChannel clientChannelObj = null;
+  private volatile ArduVidRxSimulator simulatorObj = null;
+  private volatile boolean terminateFlag = false;
+  private int simLinkLatencyMs = ArduVidRxSimulator.DEF_LINK_LATENCYMS;
+  private int simLinkBytesPerSec = ArduVidRxSimulator.DEF_LINK_BYTESPERSEC;
+
+  /**
+   * Creates a simulator socket server.
+   * @param portNumber port number to listen on, or 0 for any free port.
+   * @param rfEnvObj synthetic RF environment.
+   * @param freqTableObj frequency table.
+   */
+  public SimulatorSocketServer(int portNumber, SimulatedRfEnvironment rfEnvObj,
+                                                                 FrequencyTable freqTableObj)
+  {
+    super("SimulatorSocketServer");
+    requestedPortNumber = portNumber;
+    rfEnvironmentObj = rfEnvObj;
+    frequencyTableObj = freqTableObj;
+    setDaemon(true);
+  }
+
+  /**
+   * Sets the link parameters for simulators created after this call.
+   * @param latencyMs latency in milliseconds.
+   * @param bytesPerSec bytes per second, or 0 for no limit.
+   */
+  public synchronized void setSimLinkParams(int latencyMs, int bytesPerSec)
+  {
+    simLinkLatencyMs = latencyMs;
+    simLinkBytesPerSec = bytesPerSec;
+  }
+
+  /**
+   * Binds the server socket (on the loopback interface) and starts the
+   * server thread.
+   * @throws IOException if the server socket could not be bound.
+   */
+  public void startServer() throws IOException
+  {
+    final ServerSocketChannel chObj = ServerSocketChannel.open();
+    chObj.socket().setReuseAddress(true);
+    chObj.socket().bind(new InetSocketAddress(
+                                      InetAddress.getByName(null),requestedPortNumber));
+    serverChannelObj = chObj;
+    start();
+  }
+
+  /**
+   * Returns the port number the server is listening on.
+   * @return The port number, or -1 if the server is not bound.
+   */
+  public int getPortNumber()
+  {
+    final ServerSocketChannel chObj = serverChannelObj;
+    return (chObj != null) ? chObj.socket().getLocalPort() : -1;
+  }
+
+  /**
+   * Returns the simulator for the current client connection.
+   * @return The ArduVidRxSimulator object, or null if no client connected.
+   */
+  public ArduVidRxSimulator getSimulatorObj()
+  {
+    return simulatorObj;
+  }
+
+  /**
+   * Stops the server and closes any client connection.
+   */
+  public void stopServer()
+  {
+    terminateFlag = true;
+    closeClient();
+    final ServerSocketChannel chObj = serverChannelObj;
+    if(chObj != null)
+    {
+      try
+      {
+        chObj.close();
+      }
+      catch(IOException ex)
+      {  //ignore any exception on close
+      }
+    }
+    interrupt();
+  }
+
+  /**
+   * Executing method for thread.
+   */
+  @Override
+  public void run()
+  {
+    final ByteBuffer readBuffObj = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    final byte [] recvArr = new byte[READ_BUFFER_SIZE];
+    SocketChannel cChannelObj;
+    ArduVidRxSimulator simObj;
+    int len;
+    while(!terminateFlag)
+    {  //for each client connection
+      try
+      {
+        cChannelObj = serverChannelObj.accept();
+        cChannelObj.socket().setTcpNoDelay(true);
+        clientChannelObj = cChannelObj;
+        simObj = new ArduVidRxSimulator(
+                             new SocketDataWriter(cChannelObj),rfEnvironmentObj,frequencyTableObj);
+        synchronized(this)
+        {
+          simObj.setLinkLatencyMs(simLinkLatencyMs);
+          simObj.setLinkBandwidth(simLinkBytesPerSec);
+        }
+        simulatorObj = simObj;
+        simObj.start();
+        ULog.d(LOG_TAG, "Simulator client connected");
+        while(!terminateFlag && (len=cChannelObj.read(readBuffObj)) >= 0)
+        {  //for each block of data from client; pass it to simulator
+          if(len > 0)
+          {
+            readBuffObj.flip();
+            len = readBuffObj.remaining();
+            readBuffObj.get(recvArr,0,len);
+            readBuffObj.clear();
+            simObj.write(Arrays.copyOf(recvArr,len));
+          }
+        }
+        ULog.d(LOG_TAG, "Simulator client disconnected");
+      }
+      catch(Exception ex)
+      {  //some kind of exception error; log it if not terminating
+        if(!terminateFlag)
+          ULog.d(LOG_TAG, "Simulator client connection ended:  " + ex);
+      }
+      closeClient();
+    }
+  }
+
+  /**
+   * Stops the current simulator and closes the client connection.
+   */
+  private void closeClient()
+  {
+    final ArduVidRxSimulator simObj = simulatorObj;
+    simulatorObj = null;
+    if(simObj != null)
+      simObj.stop();
+    final SocketChannel chObj = clientChannelObj;
+    clientChannelObj = null;
+    if(chObj != null)
+    {
+      try
+      {
+        chObj.close();
+      }
+      catch(IOException ex)
+      {  //ignore any exception on close
+      }
+    }
+  }
+
+
+  /**
+   * Class SocketDataWriter writes data output by the simulator to the
+   * client socket.
+   */
+  private static class SocketDataWriter implements DataWriteReceiver
+  {
+    private final SocketChannel socketChannelObj;
+
+    /**
+     * Creates a socket-data writer.
+     * @param chObj client socket channel.
+     */
+    public SocketDataWriter(SocketChannel chObj)
+    {
+      socketChannelObj = chObj;
+    }
+
+    /**
+     * Writes the given data to the client socket.
+     * @param buffer data bytes.
+     * @param length number of bytes.
+     */
+    @Override
+    public void write(byte [] buffer, int length)
+    {
+      try
+      {
+        final ByteBuffer buffObj = ByteBuffer.wrap(buffer,0,length);
+        while(buffObj.hasRemaining())
+          socketChannelObj.write(buffObj);
+      }
+      catch(IOException ex)
+      {  //error writing; connection will be closed by reader
+      }
+    }
+  }
+}
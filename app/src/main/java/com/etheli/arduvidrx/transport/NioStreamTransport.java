@@ -0,0 +1,433 @@
+//NioStreamTransport.java:  Base class for serial transports using NIO
+//                          byte channels.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.transport;
+
+import com.etheli.util.DataWriteReceiver;
+import com.etheli.util.RawStreamCapture;
+import com.etheli.util.ULog;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+
+/**
+ * Class NioStreamTransport is the base class for serial transports that
+ * use NIO byte channels.  Subclasses open the channels; this class runs
+ * a reader thread that reads into a direct buffer and delivers the data
+ * to the DataWriteReceiver, and a writer thread that coalesces queued
+ * outbound data into a direct buffer (so several small commands go out
+ * in a single channel write).
+ */
+public abstract class NioStreamTransport implements SerialTransport
+{
+    /** Tag string for logging. */
+  public static final String LOG_TAG = "SerialTransport";
+    /** Size of the direct buffer used for reading. */
+  public static final int READ_BUFFER_SIZE = 4096;
+    /** Size of the direct buffer used for writing. */
+  public static final int WRITE_BUFFER_SIZE = 1024;
+    /** Maximum number of outbound bytes held in the queue. */
+  public static final int MAX_QUEUED_BYTES = 8192;
+  private final ArrayDeque<byte []> outboundQueue = new ArrayDeque<byte []>();
+  private int outboundQueuedBytes = 0;
+  private DataWriteReceiver dataWriteReceiverObj = null;
+  private TransportStateListener stateListenerObj = null;
+  private volatile RawStreamCapture rawStreamCaptureObj = null;
+  private ReadableByteChannel readChannelObj = null;
+  private WritableByteChannel writeChannelObj = null;
+  private ConnectionThread connectionThreadObj = null;
+  private volatile WriterThread writerThreadObj = null;
+  private volatile int transportState = STATE_NONE;
+
+  /**
+   * Opens the channels for the connection.  Called on the connection
+   * thread; implementations may block.
+   * @throws IOException if the connection could not be opened.
+   */
+  protected abstract void openChannels() throws IOException;
+
+  /**
+   * Closes the channels for the connection.  May be called from any
+   * thread, and should cause a blocked read to return.
+   */
+  protected abstract void closeChannels();
+
+  /**
+   * Sets the channels for the connection.  Should be called by the
+   * 'openChannels()' implementation.
+   * @param readChObj channel for reading.
+   * @param writeChObj channel for writing.
+   */
+  protected void setChannels(ReadableByteChannel readChObj, WritableByteChannel writeChObj)
+  {
+    readChannelObj = readChObj;
+    writeChannelObj = writeChObj;
+  }
+
+  /**
+   * Sets the objects that receive data and state changes from the
+   * transport.  Should be called before 'connect()'.
+   * @param dataWriteRecObj receiver for data from the connection.
+   * @param stateListenerObj listener for state changes, or null for none.
+   */
+  @Override
+  public synchronized void setReceiverObjs(DataWriteReceiver dataWriteRecObj,
+                                                      TransportStateListener stateListenerObj)
+  {
+    dataWriteReceiverObj = dataWriteRecObj;
+    this.stateListenerObj = stateListenerObj;
+  }
+
+  /**
+   * Sets the capture object that is given each chunk of data read from
+   * the connection (with the time of the read).
+   * @param captureObj RawStreamCapture object, or null for none.
+   */
+  public void setRawStreamCaptureObj(RawStreamCapture captureObj)
+  {
+    rawStreamCaptureObj = captureObj;
+  }
+
+  /**
+   * Starts connecting.  The connection is made on a separate thread, and
+   * the result is reported via the state listener.
+   */
+  @Override
+  public synchronized void connect()
+  {
+    if(transportState != STATE_NONE)
+      return;
+    setState(STATE_CONNECTING,null);
+    connectionThreadObj = new ConnectionThread();
+    connectionThreadObj.start();
+  }
+
+  /**
+   * Closes the connection.
+   */
+  @Override
+  public void disconnect()
+  {
+    final ConnectionThread connThreadObj;
+    synchronized(this)
+    {
+      if((connThreadObj=connectionThreadObj) == null)
+        return;
+      connectionThreadObj = null;
+      connThreadObj.terminateFlag = true;
+    }
+    closeConnection();
+    connThreadObj.interrupt();
+    setState(STATE_NONE,null);
+  }
+
+  /**
+   * Writes the given data to the connection.  The data is queued and sent
+   * by the writer thread.
+   * @param out array of bytes to be written.
+   */
+  @Override
+  public void write(byte [] out)
+  {
+    final WriterThread wThreadObj = writerThreadObj;
+    if(wThreadObj == null || transportState != STATE_CONNECTED)
+      return;
+    synchronized(outboundQueue)
+    {
+      if(outboundQueuedBytes + out.length > MAX_QUEUED_BYTES)
+      {  //queue is full; discard data
+        ULog.w(LOG_TAG, "Outbound queue full; discarding " + out.length + " bytes");
+        return;
+      }
+      outboundQueue.addLast(out);
+      outboundQueuedBytes += out.length;
+      outboundQueue.notifyAll();
+    }
+  }
+
+  /**
+   * Determines if the current state is 'connected'.
+   * @return true if the current state is 'connected'.
+   */
+  @Override
+  public boolean isConnected()
+  {
+    return (transportState == STATE_CONNECTED);
+  }
+
+  /**
+   * Returns the current connection state.
+   * @return One of the 'STATE_...' values.
+   */
+  @Override
+  public int getState()
+  {
+    return transportState;
+  }
+
+  /**
+   * Returns a string representation of the transport.
+   * @return The description of the connection.
+   */
+  @Override
+  public String toString()
+  {
+    return getDescriptionStr();
+  }
+
+  /**
+   * Sets the connection state and notifies the listener (if changed).
+   * @param newState new state.
+   * @param msgStr message describing the change, or null for none.
+   */
+  private void setState(int newState, String msgStr)
+  {
+    final TransportStateListener listenerObj;
+    synchronized(this)
+    {
+      if(newState == transportState && msgStr == null)
+        return;
+      transportState = newState;
+      listenerObj = stateListenerObj;
+    }
+    ULog.d(LOG_TAG, "Transport (" + getDescriptionStr() + ") state changed to " + newState);
+    if(listenerObj != null)
+    {
+      try
+      {
+        listenerObj.transportStateChanged(this,newState,msgStr);
+      }
+      catch(Exception ex)
+      {  //some kind of exception error; log it and move on
+        ULog.e(LOG_TAG, "Exception in transport-state listener", ex);
+      }
+    }
+  }
+
+  /**
+   * Stops the writer thread, clears the outbound queue and closes the
+   * channels.
+   */
+  private void closeConnection()
+  {
+    final WriterThread wThreadObj = writerThreadObj;
+    writerThreadObj = null;
+    synchronized(outboundQueue)
+    {
+      outboundQueue.clear();
+      outboundQueuedBytes = 0;
+      if(wThreadObj != null)
+        wThreadObj.terminateFlag = true;
+      outboundQueue.notifyAll();
+    }
+    try
+    {
+      closeChannels();
+    }
+    catch(Exception ex)
+    {  //some kind of exception error; log it and move on
+      ULog.e(LOG_TAG, "Exception closing transport channels", ex);
+    }
+  }
+
+  /**
+   * Closes the connection after an error on the writer thread and reports
+   * it (as the connection being lost) via the state listener, as is done
+   * for an error on the connection (reading) thread.
+   * @param wThreadObj writer thread that failed.
+   * @param errMsgStr message describing the error.
+   */
+  private void writeConnectionLost(WriterThread wThreadObj, String errMsgStr)
+  {
+    final ConnectionThread connThreadObj;
+    synchronized(this)
+    {
+      if(writerThreadObj != wThreadObj || (connThreadObj=connectionThreadObj) == null)
+        return;        //connection already closed or replaced
+      connectionThreadObj = null;
+      connThreadObj.terminateFlag = true;
+    }
+    closeConnection();
+    connThreadObj.interrupt();
+    setState(STATE_NONE,errMsgStr);
+  }
+
+
+  /**
+   * Class ConnectionThread opens the connection and then reads data from
+   * it until it is closed.
+   */
+  private class ConnectionThread extends Thread
+  {
+    public volatile boolean terminateFlag = false;
+
+    /**
+     * Creates the connection thread.
+     */
+    public ConnectionThread()
+    {
+      super("NioStreamTransportConn");
+      setDaemon(true);
+    }
+
+    /**
+     * Executing method for thread.
+     */
+    @Override
+    public void run()
+    {
+      String errMsgStr = null;
+      try
+      {
+        openChannels();
+        if(terminateFlag)
+        {  //'disconnect()' called while connecting; make sure channels closed
+          closeChannels();
+          return;
+        }
+        final WriterThread wThreadObj = new WriterThread();
+        writerThreadObj = wThreadObj;
+        wThreadObj.start();
+        setState(STATE_CONNECTED,null);
+        final ReadableByteChannel rChannelObj = readChannelObj;
+        final ByteBuffer readBuffObj = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        final byte [] recvArr = new byte[READ_BUFFER_SIZE];
+        int len;
+        DataWriteReceiver recObj;
+        RawStreamCapture captureObj;
+        while(!terminateFlag)
+        {  //read and deliver data until connection closed
+          if((len=rChannelObj.read(readBuffObj)) < 0)
+          {  //end of stream reached
+            errMsgStr = "Connection closed by remote end";
+            break;
+          }
+          if(len > 0)
+          {  //data received; copy out of direct buffer and deliver
+            readBuffObj.flip();
+            len = readBuffObj.remaining();
+            readBuffObj.get(recvArr,0,len);
+            readBuffObj.clear();
+            if((captureObj=rawStreamCaptureObj) != null)
+              captureObj.captureChunk(recvArr,len);
+            if((recObj=dataWriteReceiverObj) != null)
+              recObj.write(recvArr,len);
+          }
+        }
+      }
+      catch(Exception ex)
+      {  //some kind of exception error; log it if not closed via 'disconnect()'
+        if(!terminateFlag)
+        {
+          ULog.e(LOG_TAG, "Error on transport connection (" + getDescriptionStr() + ")", ex);
+          errMsgStr = ex.getMessage();
+          if(errMsgStr == null)
+            errMsgStr = ex.toString();
+        }
+      }
+      if(!terminateFlag)
+      {  //not closed via 'disconnect()'; close and report state
+        synchronized(NioStreamTransport.this)
+        {
+          if(connectionThreadObj == this)
+            connectionThreadObj = null;
+        }
+        closeConnection();
+        setState(STATE_NONE,errMsgStr);
+      }
+    }
+  }
+
+
+  /**
+   * Class WriterThread sends queued outbound data, combining queued items
+   * into a single write when possible.
+   */
+  private class WriterThread extends Thread
+  {
+    public volatile boolean terminateFlag = false;
+
+    /**
+     * Creates the writer thread.
+     */
+    public WriterThread()
+    {
+      super("NioStreamTransportWriter");
+      setDaemon(true);
+    }
+
+    /**
+     * Executing method for thread.
+     */
+    @Override
+    public void run()
+    {
+      try
+      {
+        final WritableByteChannel wChannelObj = writeChannelObj;
+        final ByteBuffer writeBuffObj = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        byte [] itemArr;
+        while(!terminateFlag)
+        {
+          writeBuffObj.clear();
+          synchronized(outboundQueue)
+          {
+            while(!terminateFlag && outboundQueue.isEmpty())
+              outboundQueue.wait();
+            if(terminateFlag)
+              break;
+            itemArr = outboundQueue.peekFirst();
+            if(itemArr.length > WRITE_BUFFER_SIZE)
+            {  //item too large for buffer; send it by itself
+              outboundQueue.removeFirst();
+              outboundQueuedBytes -= itemArr.length;
+            }
+            else
+            {  //combine as many items as will fit into buffer
+              itemArr = null;
+              byte [] arr;
+              while((arr=outboundQueue.peekFirst()) != null &&
+                                                    arr.length <= writeBuffObj.remaining())
+              {
+                outboundQueue.removeFirst();
+                outboundQueuedBytes -= arr.length;
+                writeBuffObj.put(arr);
+              }
+              writeBuffObj.flip();
+            }
+          }
+          if(itemArr != null)
+          {  //send large item via wrapped buffer
+            final ByteBuffer buffObj = ByteBuffer.wrap(itemArr);
+            while(buffObj.hasRemaining())
+              wChannelObj.write(buffObj);
+          }
+          else
+          {  //send coalesced items
+            while(writeBuffObj.hasRemaining())
+              wChannelObj.write(writeBuffObj);
+          }
+        }
+      }
+      catch(InterruptedException ex)
+      {  //thread interrupted; exit
+      }
+      catch(Exception ex)
+      {  //some kind of exception error; if not terminating then log and report it
+        if(!terminateFlag)
+        {
+          ULog.e(LOG_TAG, "Error writing to transport (" + getDescriptionStr() + ")", ex);
+          String errMsgStr = ex.getMessage();
+          if(errMsgStr == null)
+            errMsgStr = ex.toString();
+          writeConnectionLost(this,errMsgStr);
+        }
+      }
+    }
+  }
+}
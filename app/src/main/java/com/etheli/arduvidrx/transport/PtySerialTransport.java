@@ -0,0 +1,97 @@
+//PtySerialTransport.java:  Serial transport via a local pseudo-terminal
+//                          or other device file.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.transport;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * Class PtySerialTransport defines a serial transport via a local
+ * pseudo-terminal or other character-device file (i.e., "/dev/pts/3"
+ * bridged to a simulator or USB-serial adapter).  Separate input and
+ * output channels are opened on the device, because a single FileChannel
+ * holds a position lock that would block writes while a read is pending.
+ */
+public class PtySerialTransport extends NioStreamTransport
+{
+  private final String devicePathStr;
+  private volatile FileChannel inChannelObj = null;
+  private volatile FileChannel outChannelObj = null;
+
+  /**
+   * Creates a pseudo-terminal serial transport.
+   * @param devicePathStr path to device file.
+   */
+  public PtySerialTransport(String devicePathStr)
+  {
+    this.devicePathStr = devicePathStr;
+  }
+
+  /**
+   * Opens the device file.
+   * @throws IOException if the device file could not be opened.
+   */
+  @Override
+  protected void openChannels() throws IOException
+  {
+    inChannelObj = new FileInputStream(devicePathStr).getChannel();
+    try
+    {
+      outChannelObj = new FileOutputStream(devicePathStr).getChannel();
+    }
+    catch(IOException ex)
+    {  //unable to open output; close input and pass on exception
+      closeQuietly(inChannelObj);
+      inChannelObj = null;
+      throw ex;
+    }
+    setChannels(inChannelObj,outChannelObj);
+  }
+
+  /**
+   * Closes the device file.
+   */
+  @Override
+  protected void closeChannels()
+  {
+    closeQuietly(inChannelObj);
+    inChannelObj = null;
+    closeQuietly(outChannelObj);
+    outChannelObj = null;
+  }
+
+  /**
+   * Returns a description of the connection.
+   * @return The device path.
+   */
+  @Override
+  public String getDescriptionStr()
+  {
+    return devicePathStr;
+  }
+
+  /**
+   * Closes the given object, ignoring any exception.
+   * @param closeableObj object to close, or null for none.
+   */
+  private static void closeQuietly(Closeable closeableObj)
+  {
+    if(closeableObj != null)
+    {
+      try
+      {
+        closeableObj.close();
+      }
+      catch(IOException ex)
+      {  //ignore any exception on close
+      }
+    }
+  }
+}
@@ -0,0 +1,190 @@
+//ReplaySerialTransport.java:  Serial transport that replays a capture file
+//                             (for offline replay).
+//
+// 10/18/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.transport;
+
+import com.etheli.util.DataWriteReceiver;
+import com.etheli.util.StreamReplayer;
+import com.etheli.util.ULog;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Class ReplaySerialTransport defines a serial transport whose received
+ * data comes from a capture file (as written by 'RawStreamCapture'), so
+ * the video-receiver manager and operation UI may be run offline against
+ * recorded traffic.  Data written to the transport is discarded (there is
+ * no receiver to answer commands).  The transport is 'connected' as soon
+ * as 'connect()' is called; the replay itself is started separately (via
+ * 'startReplay()'), so it may wait until the manager is ready for it.
+ */
+public class ReplaySerialTransport implements SerialTransport
+{
+    /** Tag string for logging. */
+  public static final String LOG_TAG = "SerialTransport";
+  private final File captureFileObj;
+  private final float speedFactor;
+  private DataWriteReceiver dataWriteReceiverObj = null;
+  private TransportStateListener stateListenerObj = null;
+  private volatile Runnable completionActionObj = null;
+  private volatile StreamReplayer streamReplayerObj = null;
+  private volatile int transportState = STATE_NONE;
+
+  /**
+   * Creates a replay transport.
+   * @param fileObj capture file to be replayed.
+   * @param speedVal speed factor (or 'StreamReplayer.MAX_SPEED_FACTOR').
+   */
+  public ReplaySerialTransport(File fileObj, float speedVal)
+  {
+    captureFileObj = fileObj;
+    speedFactor = speedVal;
+  }
+
+  /**
+   * Sets the objects that receive data and state changes from the
+   * transport.  Should be called before 'connect()'.
+   * @param dataWriteRecObj receiver for replayed data.
+   * @param stateListenerObj listener for state changes, or null for none.
+   */
+  @Override
+  public synchronized void setReceiverObjs(DataWriteReceiver dataWriteRecObj,
+                                                      TransportStateListener stateListenerObj)
+  {
+    dataWriteReceiverObj = dataWriteRecObj;
+    this.stateListenerObj = stateListenerObj;
+  }
+
+  /**
+   * Sets the action to be invoked (via the replay thread) when the replay
+   * finishes or is stopped.  Should be called before 'connect()'.
+   * @param runnableObj action object, or null for none.
+   */
+  public void setCompletionActionObj(Runnable runnableObj)
+  {
+    completionActionObj = runnableObj;
+  }
+
+  /**
+   * Creates the stream replayer and enters the 'connected' state.  The
+   * replay is not started until 'startReplay()' is called.
+   */
+  @Override
+  public void connect()
+  {
+    synchronized(this)
+    {
+      if(transportState != STATE_NONE)
+        return;
+      streamReplayerObj = new StreamReplayer(captureFileObj,dataWriteReceiverObj,speedFactor);
+      streamReplayerObj.setCompletionActionObj(completionActionObj);
+    }
+    setState(STATE_CONNECTED,null);
+  }
+
+  /**
+   * Starts the replay.  The capture-file header is read and checked
+   * before this method returns.
+   * @throws IOException if the file could not be opened or is not a
+   * valid capture file (or if the transport is not connected).
+   */
+  public void startReplay() throws IOException
+  {
+    final StreamReplayer replayerObj;
+    if((replayerObj=streamReplayerObj) == null || transportState != STATE_CONNECTED)
+      throw new IOException("Replay transport not connected");
+    replayerObj.startReplay();
+  }
+
+  /**
+   * Returns the stream replayer used by this transport.
+   * @return The StreamReplayer object, or null if not yet connected.
+   */
+  public StreamReplayer getStreamReplayerObj()
+  {
+    return streamReplayerObj;
+  }
+
+  /**
+   * Stops any replay in progress and leaves the 'connected' state.
+   */
+  @Override
+  public void disconnect()
+  {
+    final StreamReplayer replayerObj;
+    if((replayerObj=streamReplayerObj) != null)
+      replayerObj.stopReplay();
+    setState(STATE_NONE,null);
+  }
+
+  /**
+   * Discards the given data (there is no receiver to send it to).
+   * @param out array of bytes to be written.
+   */
+  @Override
+  public void write(byte [] out)
+  {
+  }
+
+  /**
+   * Determines if the current state is 'connected'.
+   * @return true if the current state is 'connected'.
+   */
+  @Override
+  public boolean isConnected()
+  {
+    return (transportState == STATE_CONNECTED);
+  }
+
+  /**
+   * Returns the current connection state.
+   * @return One of the 'STATE_...' values.
+   */
+  @Override
+  public int getState()
+  {
+    return transportState;
+  }
+
+  /**
+   * Returns a description of the connection.
+   * @return A description of the connection ("replay:" and file name).
+   */
+  @Override
+  public String getDescriptionStr()
+  {
+    return "replay:" + captureFileObj.getName();
+  }
+
+  /**
+   * Sets the connection state and notifies the listener.
+   * @param newState new state value.
+   * @param msgStr message describing the change, or null for none.
+   */
+  private void setState(int newState, String msgStr)
+  {
+    final TransportStateListener listenerObj;
+    synchronized(this)
+    {
+      if(newState == transportState && msgStr == null)
+        return;
+      transportState = newState;
+      listenerObj = stateListenerObj;
+    }
+    ULog.d(LOG_TAG, "Transport (" + getDescriptionStr() + ") state changed to " + newState);
+    if(listenerObj != null)
+    {
+      try
+      {
+        listenerObj.transportStateChanged(this,newState,msgStr);
+      }
+      catch(Exception ex)
+      {  //some kind of exception error; log it and move on
+        ULog.e(LOG_TAG, "Exception in transport-state listener", ex);
+      }
+    }
+  }
+}
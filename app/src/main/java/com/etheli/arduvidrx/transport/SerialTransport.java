@@ -0,0 +1,61 @@
+//SerialTransport.java:  Interface for a serial connection to the receiver.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.transport;
+
+import com.etheli.util.DataWriteReceiver;
+import com.etheli.util.SerialWriterInterface;
+
+/**
+ * Interface SerialTransport defines a serial connection to the receiver
+ * (i.e., a TCP socket or a local pseudo-terminal).  Received data is
+ * delivered to a DataWriteReceiver and state changes are reported to a
+ * TransportStateListener.  The state values match those used by
+ * 'BluetoothSerialService', so the same handling may be used for all
+ * connection types.
+ */
+public interface SerialTransport extends SerialWriterInterface
+{
+    /** State value:  not connected. */
+  public static final int STATE_NONE = 0;
+    /** State value:  listening for incoming connections (not used here). */
+  public static final int STATE_LISTEN = 1;
+    /** State value:  initiating an outgoing connection. */
+  public static final int STATE_CONNECTING = 2;
+    /** State value:  connected. */
+  public static final int STATE_CONNECTED = 3;
+
+  /**
+   * Sets the objects that receive data and state changes from the
+   * transport.  Should be called before 'connect()'.
+   * @param dataWriteRecObj receiver for data from the connection.
+   * @param stateListenerObj listener for state changes, or null for none.
+   */
+  public void setReceiverObjs(DataWriteReceiver dataWriteRecObj,
+                                                     TransportStateListener stateListenerObj);
+
+  /**
+   * Starts connecting.  The connection is made on a separate thread, and
+   * the result is reported via the state listener.
+   */
+  public void connect();
+
+  /**
+   * Closes the connection.
+   */
+  public void disconnect();
+
+  /**
+   * Returns the current connection state.
+   * @return One of the 'STATE_...' values.
+   */
+  public int getState();
+
+  /**
+   * Returns a description of the connection (i.e., "host:port").
+   * @return A description of the connection.
+   */
+  public String getDescriptionStr();
+}
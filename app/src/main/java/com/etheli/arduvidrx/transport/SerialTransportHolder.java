@@ -0,0 +1,92 @@
+//SerialTransportHolder.java:  Holds the active serial connection to the
+//                             receiver.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.transport;
+
+import com.etheli.util.SerialWriterInterface;
+
+/**
+ * Class SerialTransportHolder holds the active serial connection to the
+ * receiver and passes writes on to it, so the video-receiver manager can
+ * be used with any connection type.  The default writer (the Bluetooth
+ * service) is used when no other transport is active.
+ */
+public class SerialTransportHolder implements SerialWriterInterface
+{
+  private final SerialWriterInterface defaultWriterObj;
+  private volatile SerialTransport activeTransportObj = null;
+
+  /**
+   * Creates a transport holder.
+   * @param defaultWriterObj writer to use when no other transport is
+   * active, or null for none.
+   */
+  public SerialTransportHolder(SerialWriterInterface defaultWriterObj)
+  {
+    this.defaultWriterObj = defaultWriterObj;
+  }
+
+  /**
+   * Sets the active transport.
+   * @param transportObj transport to use, or null to use the default
+   * writer.
+   */
+  public void setActiveTransportObj(SerialTransport transportObj)
+  {
+    activeTransportObj = transportObj;
+  }
+
+  /**
+   * Returns the active transport.
+   * @return The active transport, or null if the default writer is in use.
+   */
+  public SerialTransport getActiveTransportObj()
+  {
+    return activeTransportObj;
+  }
+
+  /**
+   * Disconnects and clears the active transport (if any).
+   * @return true if a transport was active; false if the default writer
+   * was in use.
+   */
+  public boolean disconnectActiveTransport()
+  {
+    final SerialTransport transportObj = activeTransportObj;
+    if(transportObj == null)
+      return false;
+    activeTransportObj = null;
+    transportObj.disconnect();
+    return true;
+  }
+
+  /**
+   * Writes the given data to the active connection.
+   * @param out array of bytes to be written.
+   */
+  @Override
+  public void write(byte [] out)
+  {
+    final SerialTransport transportObj = activeTransportObj;
+    if(transportObj != null)
+      transportObj.write(out);
+    else if(defaultWriterObj != null)
+      defaultWriterObj.write(out);
+  }
+
+  /**
+   * Determines if the active connection is 'connected'.
+   * @return true if the active connection is 'connected'.
+   */
+  @Override
+  public boolean isConnected()
+  {
+    final SerialTransport transportObj = activeTransportObj;
+    if(transportObj != null)
+      return transportObj.isConnected();
+    return (defaultWriterObj != null && defaultWriterObj.isConnected());
+  }
+}
@@ -0,0 +1,96 @@
+//TcpSerialTransport.java:  Serial transport via a TCP socket.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Class TcpSerialTransport defines a serial transport via a TCP socket,
+ * for receivers bridged over a network (i.e., via a Wi-Fi serial adapter)
+ * or a simulator on the loopback interface.  The socket channel is used
+ * in blocking mode with TCP_NODELAY set, so short commands are sent
+ * without delay.
+ */
+public class TcpSerialTransport extends NioStreamTransport
+{
+    /** Default timeout for making the connection, in milliseconds. */
+  public static final int DEF_CONNECT_TIMEOUTMS = 5000;
+  private final String hostNameStr;
+  private final int portNumber;
+  private final int connectTimeoutMs;
+  private volatile SocketChannel socketChannelObj = null;
+
+  /**
+   * Creates a TCP serial transport.
+   * @param hostNameStr host name or IP address.
+   * @param portNumber port number.
+   * @param connectTimeoutMs timeout for making the connection, in
+   * milliseconds.
+   */
+  public TcpSerialTransport(String hostNameStr, int portNumber, int connectTimeoutMs)
+  {
+    this.hostNameStr = hostNameStr;
+    this.portNumber = portNumber;
+    this.connectTimeoutMs = connectTimeoutMs;
+  }
+
+  /**
+   * Creates a TCP serial transport.
+   * @param hostNameStr host name or IP address.
+   * @param portNumber port number.
+   */
+  public TcpSerialTransport(String hostNameStr, int portNumber)
+  {
+    this(hostNameStr,portNumber,DEF_CONNECT_TIMEOUTMS);
+  }
+
+  /**
+   * Opens the socket connection.
+   * @throws IOException if the connection could not be opened.
+   */
+  @Override
+  protected void openChannels() throws IOException
+  {
+    final SocketChannel chObj = SocketChannel.open();
+    socketChannelObj = chObj;          //set now so 'closeChannels()' can abort connect
+    chObj.configureBlocking(true);
+    chObj.socket().setTcpNoDelay(true);
+    chObj.socket().connect(new InetSocketAddress(hostNameStr,portNumber),connectTimeoutMs);
+    setChannels(chObj,chObj);
+  }
+
+  /**
+   * Closes the socket connection.
+   */
+  @Override
+  protected void closeChannels()
+  {
+    final SocketChannel chObj = socketChannelObj;
+    socketChannelObj = null;
+    if(chObj != null)
+    {
+      try
+      {
+        chObj.close();
+      }
+      catch(IOException ex)
+      {  //ignore any exception on close
+      }
+    }
+  }
+
+  /**
+   * Returns a description of the connection.
+   * @return A description of the connection, as "host:port".
+   */
+  @Override
+  public String getDescriptionStr()
+  {
+    return hostNameStr + ":" + portNumber;
+  }
+}
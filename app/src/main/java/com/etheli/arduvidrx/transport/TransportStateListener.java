@@ -0,0 +1,23 @@
+//TransportStateListener.java:  Listener for serial-transport state changes.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.arduvidrx.transport;
+
+/**
+ * Interface TransportStateListener defines a listener for serial-transport
+ * state changes.
+ */
+public interface TransportStateListener
+{
+  /**
+   * Called when the state of the transport changes.  May be called from
+   * any thread.
+   * @param transportObj transport whose state changed.
+   * @param newState new state (one of the 'SerialTransport.STATE_...' values).
+   * @param msgStr message describing the change (i.e., an error message),
+   * or null for none.
+   */
+  public void transportStateChanged(SerialTransport transportObj, int newState, String msgStr);
+}
@@ -0,0 +1,349 @@
+//AppScheduler.java:  App-wide runtime for one-shot, delayed and periodic
+//                    background tasks.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class AppScheduler is the app-wide runtime for background tasks.  It
+ * holds a small bounded pool of worker threads (created as needed and
+ * released when idle) that runs one-shot tasks, and a single timer thread
+ * that dispatches delayed and periodic tasks to the pool when they come
+ * due (so the timer thread never blocks on task work).  Each task is
+ * given a name; while a task runs, the pool thread carries the task name,
+ * and run counts and times are tracked per task name, so all background
+ * work may be observed in one place (see 'getStatusStr()').  The pool is
+ * meant for short tasks; tasks that block (i.e., waiting on receiver I/O)
+ * should be run on a serial lane (see 'createSerialLane()'), which has its
+ * own thread, so they cannot hold up the pool or each other's callers.
+ */
+public class AppScheduler implements TaskRunner
+{
+    /** Tag string for logging. */
+  public static final String LOG_TAG = "AppScheduler";
+    /** Maximum number of threads in the task pool. */
+  public static final int POOL_MAX_THREADS = 4;
+    /** Time (seconds) an idle pool thread is kept before being released. */
+  public static final int POOL_KEEPALIVE_SECS = 30;
+  private static final AppScheduler appSchedulerObj = new AppScheduler();
+  private final ThreadPoolExecutor taskPoolObj;
+  private final ScheduledThreadPoolExecutor timerExecutorObj;
+  private final Map<String,TaskStats> taskStatsMapObj = new HashMap<String,TaskStats>();
+  private final List<String> activeTaskNamesList = new ArrayList<String>();
+  private final List<SerialLane> serialLanesList = new ArrayList<SerialLane>();
+
+  /**
+   * Creates the scheduler.
+   */
+  private AppScheduler()
+  {
+    taskPoolObj = new ThreadPoolExecutor(POOL_MAX_THREADS,POOL_MAX_THREADS,
+                              POOL_KEEPALIVE_SECS,TimeUnit.SECONDS,
+                              new LinkedBlockingQueue<Runnable>(),new NamedThreadFactory("appPool"));
+    taskPoolObj.allowCoreThreadTimeOut(true);     //release threads when idle
+    timerExecutorObj = new ScheduledThreadPoolExecutor(1,new NamedThreadFactory("appTimer"));
+  }
+
+  /**
+   * Returns the app-wide scheduler.
+   * @return The 'AppScheduler' object.
+   */
+  public static AppScheduler getAppScheduler()
+  {
+    return appSchedulerObj;
+  }
+
+  /**
+   * Runs the given task (via a pool thread) as soon as possible.
+   * @param nameStr name for task.
+   * @param runnableObj task to run.
+   * @return A 'Future' object that may be used to cancel the task.
+   */
+  public Future<?> execute(String nameStr, Runnable runnableObj)
+  {
+    return taskPoolObj.submit(new NamedTask(nameStr,runnableObj));
+  }
+
+  /**
+   * Runs the given task (via a pool thread) after the given delay.
+   * @param nameStr name for task.
+   * @param runnableObj task to run.
+   * @param delayMs delay before running task, in milliseconds.
+   * @return A 'ScheduledFuture' object that may be used to cancel the
+   * task before it is dispatched to the pool.
+   */
+  public ScheduledFuture<?> schedule(String nameStr, Runnable runnableObj, long delayMs)
+  {
+    return scheduleOn(this,nameStr,runnableObj,delayMs);
+  }
+
+  /**
+   * Creates a serial lane:  tasks submitted to the lane run one at a time,
+   * in order, on the lane's own thread (created as needed and released
+   * when idle).  Delayed tasks are dispatched via the scheduler's timer.
+   * @param laneNameStr name for lane (used for its thread name).
+   * @return A new 'SerialLane' object.
+   */
+  public SerialLane createSerialLane(String laneNameStr)
+  {
+    final SerialLane laneObj = new SerialLane(laneNameStr);
+    synchronized(taskStatsMapObj)
+    {
+      serialLanesList.add(laneObj);
+    }
+    return laneObj;
+  }
+
+  /**
+   * Runs the given task via the given runner after the given delay.
+   * @param runnerObj runner for task.
+   * @param nameStr name for task.
+   * @param runnableObj task to run.
+   * @param delayMs delay before running task, in milliseconds.
+   * @return A 'ScheduledFuture' object that may be used to cancel the
+   * task before it is dispatched to the runner.
+   */
+  private ScheduledFuture<?> scheduleOn(final TaskRunner runnerObj, final String nameStr,
+                                                 final Runnable runnableObj, long delayMs)
+  {
+    return timerExecutorObj.schedule(new Runnable()
+        {
+          public void run()
+          {
+            runnerObj.execute(nameStr,runnableObj);
+          }
+        }, Math.max(delayMs,0L), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Returns a string showing the pool state, the names of the tasks
+   * currently running and the statistics for each task name.
+   * @return A new string.
+   */
+  public String getStatusStr()
+  {
+    final StringBuilder buff = new StringBuilder();
+    buff.append("poolThreads=").append(taskPoolObj.getPoolSize()).append(", queued=").
+                        append(taskPoolObj.getQueue().size()).append(", timerQueued=").
+                        append(timerExecutorObj.getQueue().size()).append(", completed=").
+                        append(taskPoolObj.getCompletedTaskCount());
+    synchronized(taskStatsMapObj)
+    {
+      for(SerialLane laneObj : serialLanesList)
+      {  //for each serial lane; show number of tasks queued
+        buff.append(", ").append(laneObj.laneNameStr).append("Queued=").
+                                              append(laneObj.laneExecutorObj.getQueue().size());
+      }
+      buff.append(", active=").append(activeTaskNamesList);
+      final List<String> namesList = new ArrayList<String>(taskStatsMapObj.keySet());
+      Collections.sort(namesList);
+      TaskStats statsObj;
+      for(String nameStr : namesList)
+      {  //for each task name; show statistics
+        statsObj = taskStatsMapObj.get(nameStr);
+        buff.append("\n  ").append(nameStr).append(":  runs=").append(statsObj.runCount).
+                        append(", failed=").append(statsObj.failedCount).append(", totalMs=").
+                        append(statsObj.totalRunTimeMs).append(", maxMs=").
+                        append(statsObj.maxRunTimeMs);
+      }
+    }
+    return buff.toString();
+  }
+
+  /**
+   * Enters the start of a task run.
+   * @param nameStr task name.
+   */
+  private void enterTaskStart(String nameStr)
+  {
+    synchronized(taskStatsMapObj)
+    {
+      activeTaskNamesList.add(nameStr);
+    }
+  }
+
+  /**
+   * Enters the end of a task run.
+   * @param nameStr task name.
+   * @param runTimeMs run time for task, in milliseconds.
+   * @param failedFlag true if task threw an exception.
+   */
+  private void enterTaskEnd(String nameStr, long runTimeMs, boolean failedFlag)
+  {
+    synchronized(taskStatsMapObj)
+    {
+      activeTaskNamesList.remove(nameStr);
+      TaskStats statsObj;
+      if((statsObj=taskStatsMapObj.get(nameStr)) == null)
+      {  //first run for task name; create entry
+        statsObj = new TaskStats();
+        taskStatsMapObj.put(nameStr,statsObj);
+      }
+      ++statsObj.runCount;
+      if(failedFlag)
+        ++statsObj.failedCount;
+      statsObj.totalRunTimeMs += runTimeMs;
+      if(runTimeMs > statsObj.maxRunTimeMs)
+        statsObj.maxRunTimeMs = runTimeMs;
+    }
+  }
+
+
+  /**
+   * Class SerialLane runs tasks one at a time, in order, on its own
+   * thread (so blocking tasks do not occupy the shared pool).
+   */
+  public class SerialLane implements TaskRunner
+  {
+    private final String laneNameStr;
+    private final ThreadPoolExecutor laneExecutorObj;
+
+    /**
+     * Creates a serial lane.
+     * @param nameStr name for lane.
+     */
+    private SerialLane(String nameStr)
+    {
+      laneNameStr = nameStr;
+      laneExecutorObj = new ThreadPoolExecutor(1,1,POOL_KEEPALIVE_SECS,TimeUnit.SECONDS,
+                             new LinkedBlockingQueue<Runnable>(),new NamedThreadFactory(nameStr));
+      laneExecutorObj.allowCoreThreadTimeOut(true);     //release thread when idle
+    }
+
+    /**
+     * Runs the given task (via the lane thread) after any tasks already
+     * queued on the lane.
+     * @param nameStr name for task.
+     * @param runnableObj task to run.
+     * @return A 'Future' object that may be used to cancel the task.
+     */
+    public Future<?> execute(String nameStr, Runnable runnableObj)
+    {
+      return laneExecutorObj.submit(new NamedTask(nameStr,runnableObj));
+    }
+
+    /**
+     * Queues the given task on the lane after the given delay.
+     * @param nameStr name for task.
+     * @param runnableObj task to run.
+     * @param delayMs delay before queuing task, in milliseconds.
+     * @return A 'ScheduledFuture' object that may be used to cancel the
+     * task before it is dispatched to the lane.
+     */
+    public ScheduledFuture<?> schedule(String nameStr, Runnable runnableObj, long delayMs)
+    {
+      return scheduleOn(this,nameStr,runnableObj,delayMs);
+    }
+  }
+
+
+  /**
+   * Class NamedTask wraps a task so the pool thread carries the task name
+   * while it runs and the run is entered into the statistics.
+   */
+  private class NamedTask implements Runnable
+  {
+    private final String taskNameStr;
+    private final Runnable taskRunnableObj;
+
+    /**
+     * Creates a named task.
+     * @param nameStr name for task.
+     * @param runnableObj task to run.
+     */
+    public NamedTask(String nameStr, Runnable runnableObj)
+    {
+      taskNameStr = nameStr;
+      taskRunnableObj = runnableObj;
+    }
+
+    /**
+     * Runs the task.
+     */
+    public void run()
+    {
+      final Thread threadObj = Thread.currentThread();
+      final String prevNameStr = threadObj.getName();
+      threadObj.setName(taskNameStr);
+      enterTaskStart(taskNameStr);
+      final long startTimeMs = System.currentTimeMillis();
+      boolean failedFlag = true;
+      try
+      {
+        taskRunnableObj.run();
+        failedFlag = false;
+      }
+      catch(RuntimeException ex)
+      {  //some kind of exception error; log it
+        ULog.e(LOG_TAG, "Exception in task \"" + taskNameStr + "\"", ex);
+      }
+      finally
+      {
+        enterTaskEnd(taskNameStr,System.currentTimeMillis()-startTimeMs,failedFlag);
+        threadObj.setName(prevNameStr);
+        Thread.interrupted();          //clear any interrupt left by cancel
+      }
+    }
+  }
+
+
+  /**
+   * Class TaskStats holds the run statistics for a task name.
+   */
+  private static class TaskStats
+  {
+    public long runCount = 0L;
+    public long failedCount = 0L;
+    public long totalRunTimeMs = 0L;
+    public long maxRunTimeMs = 0L;
+  }
+
+
+  /**
+   * Class NamedThreadFactory creates numbered daemon threads for the
+   * executors.
+   */
+  private static class NamedThreadFactory implements ThreadFactory
+  {
+    private final String namePrefixStr;
+    private final AtomicInteger threadCounter = new AtomicInteger(0);
+
+    /**
+     * Creates a thread factory.
+     * @param prefixStr prefix for thread names.
+     */
+    public NamedThreadFactory(String prefixStr)
+    {
+      namePrefixStr = prefixStr;
+    }
+
+    /**
+     * Creates a new thread.
+     * @param runnableObj runnable for thread.
+     * @return A new thread.
+     */
+    public Thread newThread(Runnable runnableObj)
+    {
+      final Thread threadObj =
+                    new Thread(runnableObj,namePrefixStr + "-" + threadCounter.incrementAndGet());
+      threadObj.setDaemon(true);
+      return threadObj;
+    }
+  }
+}
@@ -0,0 +1,537 @@
+//AsyncFileWriter.java:  Base class for writing data to a file via a
+//                       bounded in-memory queue and a background thread.
+//
+// 10/18/2026 -- [ET]
+//
+
+package com.etheli.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Class AsyncFileWriter is a base class for writing data to a file without
+ * doing any file I/O on the caller's thread.  Entries are copied by the
+ * caller into a fixed-size in-memory queue (allocated when the writer is
+ * first started) and written by a background thread, which keeps a single
+ * file channel open and writes the queued data in large blocks at each
+ * flush interval (or sooner when the amount queued reaches the flush
+ * threshold).  If the queue is full then new entries are dropped (and
+ * counted).  Files are only rotated on entry boundaries, so an entry is
+ * never split across two files.  Subclasses supply the encoding of entries and the naming
+ * (and any rotation) of files, via the 'getFileObj()', 'getFileHeaderArr()'
+ * and 'isRotationDue()' methods.
+ */
+public abstract class AsyncFileWriter
+{
+    /** Size of standard file header (magic, version and start time). */
+  public static final int FILE_HEADER_LEN = 13;
+    /** Default interval (ms) between flushes of queued data to the file. */
+  public static final int DEF_FLUSH_INTERVALMS = 250;
+    /** Maximum time (ms) to wait for the writer thread when stopping. */
+  public static final int STOP_WAIT_MS = 2000;
+  private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+  private final String writerNameStr;
+  private final String logTagStr;
+  private final int queueSize;
+  private final boolean appendFlag;
+  private byte [] queueBuffArr = null;
+  private int queueReadPos = 0;
+  private int queueCount = 0;
+    /** Lock for queue; subclasses may hold it while encoding entries. */
+  protected final Object queueSyncObj = new Object();
+  private int flushIntervalMs = DEF_FLUSH_INTERVALMS;
+  private int flushThreshold;
+  private volatile WriterThread writerThreadObj = null;
+  private volatile boolean writerActiveFlag = false;
+  private volatile File currentFileObj = null;
+  private long entriesQueuedCount = 0L;
+  private long entriesDroppedCount = 0L;
+  private long bytesQueuedCount = 0L;
+  private long bytesDroppedCount = 0L;
+  private long bytesWrittenCount = 0L;
+  private int filesOpenedCount = 0;
+
+  /**
+   * Creates an asynchronous file writer.
+   * @param writerNameStr name for writer thread.
+   * @param logTagStr tag string for logging.
+   * @param queueSize size (in bytes) of queue for data waiting to be
+   * written.
+   * @param appendFlag true to append to existing files; false to replace
+   * them.
+   */
+  protected AsyncFileWriter(String writerNameStr, String logTagStr, int queueSize,
+                                                                        boolean appendFlag)
+  {
+    this.writerNameStr = writerNameStr;
+    this.logTagStr = logTagStr;
+    this.queueSize = queueSize;
+    this.appendFlag = appendFlag;
+    flushThreshold = queueSize / 2;
+  }
+
+  /**
+   * Returns the file for the given rotation index.
+   * @param fileIdx rotation index (1 for the first file).
+   * @return The file object.
+   */
+  protected abstract File getFileObj(int fileIdx);
+
+  /**
+   * Returns the header to be written at the start of each new file.
+   * This default implementation returns null (no header).
+   * @return A byte array holding the header, or null for none.
+   */
+  protected byte [] getFileHeaderArr()
+  {
+    return null;
+  }
+
+  /**
+   * Determines if the current file should be rotated before data is
+   * written to it.  This default implementation returns false.
+   * @param fileSizeBytes current size of file.
+   * @param fileAgeMs time (ms) since the file was opened.
+   * @param writeLen number of bytes about to be written (0 if none).
+   * @return true if the next file in the rotation should be opened.
+   */
+  protected boolean isRotationDue(long fileSizeBytes, long fileAgeMs, int writeLen)
+  {
+    return false;
+  }
+
+  /**
+   * Sets the flush parameters.  Should be called before the writer is
+   * started.
+   * @param intervalMs interval (ms) between flushes of queued data.
+   * @param thresholdVal number of queued bytes that triggers an early
+   * flush.
+   */
+  public void setFlushParams(int intervalMs, int thresholdVal)
+  {
+    flushIntervalMs = (intervalMs > 0) ? intervalMs : DEF_FLUSH_INTERVALMS;
+    flushThreshold = thresholdVal;
+  }
+
+  /**
+   * Starts the writer.  Any writer in progress is stopped first, and the
+   * queue and counts are cleared.
+   * @param openNowFlag true to open the first file via the calling
+   * thread (so errors are reported to the caller); false to have it
+   * opened via the background thread.
+   * @throws IOException if 'openNowFlag'==true and the file could not be
+   * opened.
+   */
+  protected synchronized void startWriter(boolean openNowFlag) throws IOException
+  {
+    stopWriter(STOP_WAIT_MS);
+    synchronized(queueSyncObj)
+    {
+      if(queueBuffArr == null)
+        queueBuffArr = new byte[queueSize];
+      queueReadPos = queueCount = 0;
+      entriesQueuedCount = entriesDroppedCount = 0L;
+      bytesQueuedCount = bytesDroppedCount = bytesWrittenCount = 0L;
+      filesOpenedCount = 0;
+    }
+    final WriterThread threadObj = new WriterThread();
+    if(openNowFlag)
+      threadObj.openNextFile();
+    writerThreadObj = threadObj;
+    writerActiveFlag = true;
+    threadObj.start();
+  }
+
+  /**
+   * Stops the writer.  The background thread writes any queued data and
+   * closes the file.
+   * @param waitTimeMs maximum number of milliseconds to wait for the
+   * background thread to finish, or 0 for no wait.
+   */
+  protected synchronized void stopWriter(long waitTimeMs)
+  {
+    writerActiveFlag = false;
+    final WriterThread threadObj;
+    if((threadObj=writerThreadObj) != null)
+    {  //writer thread exists; have it drain queue and close file
+      writerThreadObj = null;
+      threadObj.requestClose();
+      if(waitTimeMs > 0)
+        threadObj.waitForTerminate(waitTimeMs);
+    }
+  }
+
+  /**
+   * Determines if the writer is active (started, not stopped and no
+   * errors writing the file).
+   * @return true if the writer is active; false if not.
+   */
+  public boolean isWriterActive()
+  {
+    return writerActiveFlag;
+  }
+
+  /**
+   * Returns the file currently (or last) being written.
+   * @return The current file, or null if none opened yet.
+   */
+  public File getCurrentFileObj()
+  {
+    return currentFileObj;
+  }
+
+  /**
+   * Enters an entry into the queue (or drops it if the queue is full).
+   * This method does no file I/O and no allocation.
+   * @param dataArr array holding entry data.
+   * @param offs offset of data in array.
+   * @param len length of data.
+   * @return true if the entry was queued; false if it was dropped (because
+   * the queue is full or the writer is not active).
+   */
+  protected boolean enqueueEntry(byte [] dataArr, int offs, int len)
+  {
+    return enqueueEntry(dataArr,0,dataArr,offs,len);
+  }
+
+  /**
+   * Enters an entry made up of a header and data into the queue (or
+   * drops it if the queue is full).  This method does no file I/O and no
+   * allocation.
+   * @param headerArr array holding entry header.
+   * @param headerLen length of header.
+   * @param dataArr array holding entry data.
+   * @param offs offset of data in array.
+   * @param len length of data.
+   * @return true if the entry was queued; false if it was dropped.
+   */
+  protected boolean enqueueEntry(byte [] headerArr, int headerLen,
+                                                         byte [] dataArr, int offs, int len)
+  {
+    final int entryLen = headerLen + len;
+    synchronized(queueSyncObj)
+    {
+      if(!writerActiveFlag)
+        return false;
+      if(queueCount + entryLen > queueBuffArr.length)
+      {  //not enough space in queue; drop entry
+        ++entriesDroppedCount;
+        bytesDroppedCount += entryLen;
+        return false;
+      }
+      putQueueData(headerArr,0,headerLen);
+      putQueueData(dataArr,offs,len);
+      ++entriesQueuedCount;
+      bytesQueuedCount += entryLen;
+      final WriterThread threadObj;
+      if(queueCount >= flushThreshold && queueCount - entryLen < flushThreshold &&
+                                                        (threadObj=writerThreadObj) != null)
+      {  //threshold reached; wake writer now
+        threadObj.notifyThread();
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the number of entries entered into the queue.
+   * @return The number of entries queued.
+   */
+  public long getEntriesQueuedCount()
+  {
+    synchronized(queueSyncObj)
+    {
+      return entriesQueuedCount;
+    }
+  }
+
+  /**
+   * Returns the number of entries dropped because the queue was full.
+   * @return The number of entries dropped.
+   */
+  public long getEntriesDroppedCount()
+  {
+    synchronized(queueSyncObj)
+    {
+      return entriesDroppedCount;
+    }
+  }
+
+  /**
+   * Returns the number of bytes entered into the queue.
+   * @return The number of bytes queued.
+   */
+  public long getBytesQueuedCount()
+  {
+    synchronized(queueSyncObj)
+    {
+      return bytesQueuedCount;
+    }
+  }
+
+  /**
+   * Returns the number of bytes dropped because the queue was full.
+   * @return The number of bytes dropped.
+   */
+  public long getBytesDroppedCount()
+  {
+    synchronized(queueSyncObj)
+    {
+      return bytesDroppedCount;
+    }
+  }
+
+  /**
+   * Returns the number of bytes written to the file(s).
+   * @return The number of bytes written.
+   */
+  public long getBytesWrittenCount()
+  {
+    synchronized(queueSyncObj)
+    {
+      return bytesWrittenCount;
+    }
+  }
+
+  /**
+   * Returns the number of files opened.
+   * @return The number of files opened.
+   */
+  public int getFilesOpenedCount()
+  {
+    synchronized(queueSyncObj)
+    {
+      return filesOpenedCount;
+    }
+  }
+
+  /**
+   * Returns a standard file header holding the given magic value (4 bytes,
+   * big-endian), format version (1 byte) and start time (8 bytes,
+   * big-endian).
+   * @param magicVal magic value.
+   * @param versionVal format version.
+   * @param startTimeMs start time (ms since 1/1/1970).
+   * @return A new byte array of length 'FILE_HEADER_LEN'.
+   */
+  public static byte [] makeFileHeaderArr(int magicVal, int versionVal, long startTimeMs)
+  {
+    final byte [] headerArr = new byte[FILE_HEADER_LEN];
+    for(int i=0; i<4; ++i)
+      headerArr[i] = (byte)(magicVal >> (24-i*8));
+    headerArr[4] = (byte)versionVal;
+    for(int i=0; i<8; ++i)
+      headerArr[5+i] = (byte)(startTimeMs >> (56-i*8));
+    return headerArr;
+  }
+
+  /**
+   * Copies the given data into the queue.  The caller should hold the
+   * lock on 'queueSyncObj' and have checked that there is enough space.
+   * @param dataArr array holding data.
+   * @param offs offset of data in array.
+   * @param len length of data.
+   */
+  private void putQueueData(byte [] dataArr, int offs, int len)
+  {
+    if(len <= 0)
+      return;
+    final int buffLen = queueBuffArr.length;
+    int writePos = queueReadPos + queueCount;
+    if(writePos >= buffLen)
+      writePos -= buffLen;
+    final int firstLen = Math.min(len,buffLen-writePos);
+    System.arraycopy(dataArr,offs,queueBuffArr,writePos,firstLen);
+    if(firstLen < len)            //if data wraps around end of buffer then copy rest
+      System.arraycopy(dataArr,offs+firstLen,queueBuffArr,0,len-firstLen);
+    queueCount += len;
+  }
+
+
+  /**
+   * Class WriterThread defines the background thread that writes the
+   * queued data to the file (and rotates the file when needed).  When
+   * closed, the thread writes any remaining data and closes the file.
+   */
+  private class WriterThread extends PausableThread
+  {
+    private final byte [] writeBuffArr = new byte[WRITE_BUFFER_SIZE];
+    private final ByteBuffer writeByteBuffObj = ByteBuffer.wrap(writeBuffArr);
+    private volatile boolean closeRequestedFlag = false;
+    private FileOutputStream fileOutStm = null;
+    private FileChannel fileChannelObj = null;
+    private int rotationIndex = 0;
+    private long fileSizeBytes = 0L;
+    private long fileOpenTimeMs = 0L;
+    private boolean atEntryBoundaryFlag = true;  //last write ended an entry
+
+    /**
+     * Creates a writer thread.
+     */
+    public WriterThread()
+    {
+      super(writerNameStr);
+    }
+
+    /**
+     * Requests that the thread write any queued data, close the file and
+     * exit.
+     */
+    public void requestClose()
+    {
+      closeRequestedFlag = true;
+      notifyThread();
+    }
+
+    /**
+     * Executing method for thread.
+     */
+    public void run()
+    {
+      boolean doneFlag = false;
+      try
+      {
+        if(fileChannelObj == null)
+          openNextFile();
+        while(!doneFlag)
+        {  //write queued data at each flush interval (or when notified)
+          if(!closeRequestedFlag)
+            waitForNotify(flushIntervalMs);
+          doneFlag = closeRequestedFlag;
+          if(atEntryBoundaryFlag &&
+                     isRotationDue(fileSizeBytes,System.currentTimeMillis()-fileOpenTimeMs,0))
+          {  //rotation due (and not in the middle of an entry); open next file
+            openNextFile();
+          }
+          while(writeQueuedData() > 0);
+        }
+      }
+      catch(Exception ex)
+      {  //some kind of exception error; log it and stop writer
+        ULog.e(logTagStr, "Exception writing file (" + currentFileObj + ")", ex);
+        if(writerThreadObj == this)
+          writerActiveFlag = false;
+      }
+      finally
+      {
+        closeFile();
+      }
+    }
+
+    /**
+     * Closes the current file (if any) and opens the next file in the
+     * rotation, writing the file header (if any).
+     * @throws IOException if the file could not be opened.
+     */
+    private void openNextFile() throws IOException
+    {
+      closeFile();
+      final File fileObj = getFileObj(++rotationIndex);
+      fileOutStm = new FileOutputStream(fileObj,appendFlag);
+      fileChannelObj = fileOutStm.getChannel();
+      fileSizeBytes = fileChannelObj.size();
+      fileOpenTimeMs = System.currentTimeMillis();
+      currentFileObj = fileObj;
+      final byte [] headerArr = getFileHeaderArr();
+      if(headerArr != null && headerArr.length > 0)
+      {  //file header given; write it
+        try
+        {
+          writeData(ByteBuffer.wrap(headerArr));
+        }
+        catch(IOException ex)
+        {
+          closeFile();
+          throw ex;
+        }
+      }
+      synchronized(queueSyncObj)
+      {
+        ++filesOpenedCount;
+      }
+    }
+
+    /**
+     * Closes the current file (if any).
+     */
+    private void closeFile()
+    {
+      if(fileOutStm != null)
+      {
+        try
+        {
+          fileOutStm.close();        //also closes channel
+        }
+        catch(IOException ex)
+        {  //ignore any exception on close
+        }
+        fileOutStm = null;
+        fileChannelObj = null;
+      }
+    }
+
+    /**
+     * Copies a block of data from the queue and writes it to the file,
+     * rotating to a new file first if called for.  Since entries are only
+     * entered into the queue whole, a block that takes all of the queued
+     * data ends on an entry boundary; a block cut short by the size of the
+     * write buffer may end in the middle of an entry, in which case the
+     * file is not rotated until a block that ends on a boundary has been
+     * written.
+     * @return The number of bytes written.
+     * @throws IOException if an I/O error occurs.
+     */
+    private int writeQueuedData() throws IOException
+    {
+      final int len;
+      final boolean endsEntryFlag;
+      synchronized(queueSyncObj)
+      {  //copy data from queue (while holding lock)
+        final int buffLen = queueBuffArr.length;
+        len = Math.min(queueCount,writeBuffArr.length);
+        endsEntryFlag = (len == queueCount);
+        final int firstLen = Math.min(len,buffLen-queueReadPos);
+        System.arraycopy(queueBuffArr,queueReadPos,writeBuffArr,0,firstLen);
+        if(firstLen < len)
+          System.arraycopy(queueBuffArr,0,writeBuffArr,firstLen,len-firstLen);
+        if((queueReadPos+=len) >= buffLen)
+          queueReadPos -= buffLen;
+        queueCount -= len;
+      }
+      if(len > 0)
+      {  //data was copied; write it (without holding lock)
+        if(atEntryBoundaryFlag &&
+                   isRotationDue(fileSizeBytes,System.currentTimeMillis()-fileOpenTimeMs,len))
+        {  //rotation due (and block starts on an entry boundary); open next file
+          openNextFile();
+        }
+        writeByteBuffObj.clear();
+        writeByteBuffObj.limit(len);
+        writeData(writeByteBuffObj);
+        atEntryBoundaryFlag = endsEntryFlag;
+      }
+      return len;
+    }
+
+    /**
+     * Writes the remaining data in the given buffer to the file.
+     * @param buffObj buffer holding data.
+     * @throws IOException if an I/O error occurs.
+     */
+    private void writeData(ByteBuffer buffObj) throws IOException
+    {
+      final int len = buffObj.remaining();
+      while(buffObj.hasRemaining())
+        fileChannelObj.write(buffObj);
+      fileSizeBytes += len;
+      synchronized(queueSyncObj)
+      {
+        bytesWrittenCount += len;
+      }
+    }
+  }
+}
@@ -0,0 +1,182 @@
+//AsyncLogAppender.java:  Appends data to a log file via a background
+//                        thread, with file rotation.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.util;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Class AsyncLogAppender appends data to a log file without doing any
+ * file I/O on the caller's thread.  Data is copied into the queue of an
+ * 'AsyncFileWriter' and written by its background thread at each flush
+ * interval (or sooner when the amount queued reaches the flush
+ * threshold).  If the queue is full then new data is dropped (and
+ * counted).  The log may be rotated to a new file when the current file
+ * reaches a maximum size and/or age (only between appended entries, so
+ * the data from one 'append()' call is never split); rotated files are named by inserting
+ * "_2", "_3", etc. before the extension of the given file name.
+ */
+public class AsyncLogAppender extends AsyncFileWriter
+{
+    /** Tag string for logging. */
+  public static final String LOG_TAG = "AsyncLogAppender";
+    /** Default size (in bytes) for queue of data waiting to be written. */
+  public static final int DEF_QUEUE_SIZE = 128 * 1024;
+    /** Default interval (ms) between flushes of queued data to the file. */
+  public static final int DEF_FLUSH_INTERVALMS = 1000;
+    /** Default number of queued bytes that triggers an early flush. */
+  public static final int DEF_FLUSH_THRESHOLD = 16 * 1024;
+    /** Default maximum size (in bytes) for a log file before rotation. */
+  public static final long DEF_MAX_FILE_BYTES = 4L * 1024 * 1024;
+    /** Default maximum age (ms) for a log file before rotation (0=none). */
+  public static final long DEF_MAX_FILE_AGEMS = 0L;
+  private final File baseFileObj;
+  private long maxFileBytes = DEF_MAX_FILE_BYTES;
+  private long maxFileAgeMs = DEF_MAX_FILE_AGEMS;
+
+  /**
+   * Creates an asynchronous log appender.
+   * @param fileObj log file (data is appended if the file exists).
+   * @param queueSize size (in bytes) of queue for data waiting to be
+   * written.
+   */
+  public AsyncLogAppender(File fileObj, int queueSize)
+  {
+    super("asyncLogAppender",LOG_TAG,queueSize,true);
+    baseFileObj = fileObj;
+    setFlushParams(DEF_FLUSH_INTERVALMS,DEF_FLUSH_THRESHOLD);
+  }
+
+  /**
+   * Creates an asynchronous log appender, using the default queue size.
+   * @param fileObj log file (data is appended if the file exists).
+   */
+  public AsyncLogAppender(File fileObj)
+  {
+    this(fileObj,DEF_QUEUE_SIZE);
+  }
+
+  /**
+   * Sets the rotation parameters.  Should be called before 'start()'.
+   * @param maxBytes maximum size (in bytes) for a log file, or 0 for no
+   * size limit.
+   * @param maxAgeMs maximum age (ms) for a log file, or 0 for no age
+   * limit.
+   */
+  public void setRotationParams(long maxBytes, long maxAgeMs)
+  {
+    maxFileBytes = maxBytes;
+    maxFileAgeMs = maxAgeMs;
+  }
+
+  /**
+   * Starts the appender.  The log file is opened via the background
+   * thread.
+   */
+  public synchronized void start()
+  {
+    if(isWriterActive())
+      return;          //already started
+    try
+    {
+      startWriter(false);
+    }
+    catch(IOException ex)
+    {  //not expected since file is opened via background thread
+      ULog.e(LOG_TAG, "Exception starting log appender", ex);
+    }
+  }
+
+  /**
+   * Requests that the appender be closed.  The background thread writes
+   * any queued data and closes the file; this method does not wait for
+   * it to do so.
+   */
+  public void close()
+  {
+    stopWriter(0);
+  }
+
+  /**
+   * Closes the appender and waits for the queued data to be written and
+   * the file to be closed.
+   * @param waitTimeMs maximum number of milliseconds to wait.
+   */
+  public void closeAndWait(long waitTimeMs)
+  {
+    stopWriter(waitTimeMs);
+  }
+
+  /**
+   * Determines if the appender is active (started, not closed and no
+   * errors writing the file).
+   * @return true if the appender is active; false if not.
+   */
+  public boolean isActive()
+  {
+    return isWriterActive();
+  }
+
+  /**
+   * Enters data to be appended to the log file.  This method does no file
+   * I/O and no allocation.
+   * @param buffer data bytes.
+   * @param offs offset of data in array.
+   * @param len number of bytes.
+   * @return true if the data was queued; false if it was dropped (because
+   * the queue is full or the appender is not active).
+   */
+  public boolean append(byte [] buffer, int offs, int len)
+  {
+    if(len <= 0)
+      return isWriterActive();
+    return enqueueEntry(buffer,offs,len);
+  }
+
+  /**
+   * Returns a string showing the counts of bytes queued, dropped and
+   * written, and the number of files opened.
+   * @return A new string.
+   */
+  public String getCountsStr()
+  {
+    return "queued=" + getBytesQueuedCount() + ", dropped=" + getBytesDroppedCount() +
+                   ", written=" + getBytesWrittenCount() + ", files=" + getFilesOpenedCount();
+  }
+
+  /**
+   * Returns the file for the given rotation index.  Rotated files are
+   * named by inserting "_2", "_3", etc. before the extension of the
+   * given file name.
+   * @param idx rotation index (1 for the first file).
+   * @return The file object.
+   */
+  protected File getFileObj(int idx)
+  {
+    if(idx <= 1)
+      return baseFileObj;
+    final String nameStr = baseFileObj.getName();
+    final int p = nameStr.lastIndexOf('.');
+    return new File(baseFileObj.getParentFile(), (p > 0) ?
+              (nameStr.substring(0,p) + "_" + idx + nameStr.substring(p)) : (nameStr + "_" + idx));
+  }
+
+  /**
+   * Determines if the current file has reached the maximum size or age
+   * and should be rotated.
+   * @param fileSizeBytes current size of file.
+   * @param fileAgeMs time (ms) since the file was opened.
+   * @param writeLen number of bytes about to be written (0 if none).
+   * @return true if the next file in the rotation should be opened.
+   */
+  protected boolean isRotationDue(long fileSizeBytes, long fileAgeMs, int writeLen)
+  {
+    return (fileSizeBytes > 0L &&
+                    ((maxFileBytes > 0L && fileSizeBytes + writeLen > maxFileBytes) ||
+                                               (maxFileAgeMs > 0L && fileAgeMs >= maxFileAgeMs)));
+  }
+}
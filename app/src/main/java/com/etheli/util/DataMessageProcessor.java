@@ -1,5 +1,6 @@
 //DataMessageProcessor.java:  Defines a message processor that decouples the
-//                            sending and handling of data messages.
+//                            sending and handling of data messages, with
+//                            priority classes.
 //
 //  5/15/2017 -- [ET]
 //
@@ -9,28 +10,76 @@ package com.etheli.util;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
+import java.util.ArrayDeque;
 
 /**
  * Class DataMessageProcessor defines a message processor that decouples the
  * sending and handling of data messages.  Data messages are passed into this
  * processor via the 'DataMsgSenderInterface' methods and dispatched to the
- * 'DataMsgHandlerInterface' object given to the constructor.
+ * 'DataMsgHandlerInterface' object given to the constructor.  Each message
+ * code may be assigned a priority class (via the constructor); waiting
+ * messages are dispatched highest-priority first (and in FIFO order within
+ * a class), and a background task may use 'isPreemptRequested()' to yield
+ * to waiting higher-priority messages.  Queue-depth and wait-time metrics
+ * are kept for each priority class.
  */
 public class DataMessageProcessor extends Thread implements DataMsgSenderInterface
 {
+    /** Priority class for interactive commands (i.e., tuning). */
+  public static final int PRIORITY_INTERACTIVE = 0;
+    /** Priority class for settings commands. */
+  public static final int PRIORITY_SETTINGS = 1;
+    /** Priority class for scan commands. */
+  public static final int PRIORITY_SCAN = 2;
+    /** Priority class for background (polling) work. */
+  public static final int PRIORITY_BACKGROUND = 3;
+  private static final int NUM_PRIORITIES = 4;
+  private static final String [] PRIORITY_NAMES_ARR =
+                                           { "interactive", "settings", "scan", "background" };
   private final DataMsgHandlerInterface dataMsgHandlerObj;
+  private final int [] msgPrioritiesArr;
+  private final int defaultPriorityVal;
   private boolean wasStartedFlag = false;
   private Handler looperHandlerObj = null;
   private Looper threadLoopObj = null;
+  private final Object queuesSyncObj = new Object();
+  private final ArrayDeque<QueuedMessage> [] msgQueuesArr;
+  private int activeMsgPriorityVal = NUM_PRIORITIES;
+  private final int [] queueMaxDepthArr = new int[NUM_PRIORITIES];
+  private final long [] dispatchCountArr = new long[NUM_PRIORITIES];
+  private final long [] totalWaitTimeMsArr = new long[NUM_PRIORITIES];
+  private final long [] maxWaitTimeMsArr = new long[NUM_PRIORITIES];
 
   /**
    * Creates a data-message processor.
    * @param msgHandlerObj data-message handler object that will receive messages.
+   * @param prioritiesArr array of priority classes indexed by message code
+   * (values 'PRIORITY_...'), or null for all messages at the default
+   * priority.
+   * @param defPriorityVal priority class for message codes not covered by
+   * the given array.
    */
-  public DataMessageProcessor(DataMsgHandlerInterface msgHandlerObj)
+  @SuppressWarnings({"unchecked","rawtypes"})
+  public DataMessageProcessor(DataMsgHandlerInterface msgHandlerObj, int [] prioritiesArr,
+                                                                            int defPriorityVal)
   {
     super("DataMessageProcessor");
     dataMsgHandlerObj = msgHandlerObj;
+    msgPrioritiesArr = prioritiesArr;
+    defaultPriorityVal = clampPriority(defPriorityVal);
+    msgQueuesArr = new ArrayDeque[NUM_PRIORITIES];
+    for(int i=0; i<NUM_PRIORITIES; ++i)
+      msgQueuesArr[i] = new ArrayDeque<QueuedMessage>();
+  }
+
+  /**
+   * Creates a data-message processor, with all messages at the
+   * 'PRIORITY_SETTINGS' priority (dispatched in FIFO order).
+   * @param msgHandlerObj data-message handler object that will receive messages.
+   */
+  public DataMessageProcessor(DataMsgHandlerInterface msgHandlerObj)
+  {
+    this(msgHandlerObj,null,PRIORITY_SETTINGS);
   }
 
   /**
@@ -41,26 +90,175 @@ public class DataMessageProcessor extends Thread implements DataMsgSenderInterfa
     wasStartedFlag = true;
     Looper.prepare();
     looperHandlerObj = new Handler()
-        {        //pass messages to data-message-handler object
+        {        //each message indicates a data message queued; dispatch next one
           @Override
           public void handleMessage(Message msgObj)
           {
-            try
-            {
-              dataMsgHandlerObj.handleDataMessage(msgObj.what,msgObj.arg1,msgObj.arg2,
-                             ((msgObj.obj instanceof String) ? ((String)(msgObj.obj)) : null));
-            }
-            catch(Exception ex)
-            {
-              System.err.println("DataMessageProcessor exception:  " + ex);
-              ex.printStackTrace();
-            }
+            dispatchNextMessage();
           }
         };
     threadLoopObj = Looper.myLooper();    //save handle to looper obj
     Looper.loop();         //run message-handling loop
   }
 
+  /**
+   * Removes the highest-priority waiting message from the queues and passes
+   * it to the data-message handler object.  Called via the looper thread.
+   */
+  private void dispatchNextMessage()
+  {
+    QueuedMessage qMsgObj = null;
+    synchronized(queuesSyncObj)
+    {
+      for(int p=0; p<NUM_PRIORITIES; ++p)
+      {  //find highest-priority waiting message
+        if((qMsgObj=msgQueuesArr[p].poll()) != null)
+        {  //message found; enter wait-time metrics
+          final long waitMs = System.currentTimeMillis() - qMsgObj.queuedTimeMs;
+          ++dispatchCountArr[p];
+          totalWaitTimeMsArr[p] += waitMs;
+          if(waitMs > maxWaitTimeMsArr[p])
+            maxWaitTimeMsArr[p] = waitMs;
+          activeMsgPriorityVal = p;
+          break;
+        }
+      }
+    }
+    if(qMsgObj == null)
+      return;
+    try
+    {
+      dataMsgHandlerObj.handleDataMessage(qMsgObj.msgCode,qMsgObj.val1,qMsgObj.val2,
+                                                                            qMsgObj.paramStr);
+    }
+    catch(Exception ex)
+    {
+      System.err.println("DataMessageProcessor exception:  " + ex);
+      ex.printStackTrace();
+    }
+    finally
+    {
+      synchronized(queuesSyncObj)
+      {
+        activeMsgPriorityVal = NUM_PRIORITIES;
+      }
+    }
+  }
+
+  /**
+   * Enters the given message into the queue for its priority class and
+   * wakes the looper thread to dispatch it.
+   * @param msgCode message code.
+   * @param val1 first integer value for message.
+   * @param val2 second integer value for message.
+   * @param paramStr parameter string for message.
+   */
+  private void queueMessage(int msgCode, int val1, int val2, String paramStr)
+  {
+    final Handler handlerObj;
+    if((handlerObj=looperHandlerObj) == null)
+      return;
+    final int priorityVal = getMsgPriority(msgCode);
+    synchronized(queuesSyncObj)
+    {
+      final ArrayDeque<QueuedMessage> queueObj = msgQueuesArr[priorityVal];
+      queueObj.add(new QueuedMessage(msgCode,val1,val2,paramStr));
+      if(queueObj.size() > queueMaxDepthArr[priorityVal])
+        queueMaxDepthArr[priorityVal] = queueObj.size();
+    }
+    handlerObj.sendEmptyMessage(0);
+  }
+
+  /**
+   * Returns the priority class for the given message code.
+   * @param msgCode message code.
+   * @return The priority class (one of the 'PRIORITY_...' values).
+   */
+  public int getMsgPriority(int msgCode)
+  {
+    return (msgPrioritiesArr != null && msgCode >= 0 && msgCode < msgPrioritiesArr.length) ?
+                               clampPriority(msgPrioritiesArr[msgCode]) : defaultPriorityVal;
+  }
+
+  /**
+   * Returns the given priority value limited to the valid range.
+   * @param priorityVal priority value.
+   * @return The priority value, between 'PRIORITY_INTERACTIVE' and
+   * 'PRIORITY_BACKGROUND'.
+   */
+  private static int clampPriority(int priorityVal)
+  {
+    return (priorityVal < PRIORITY_INTERACTIVE) ? PRIORITY_INTERACTIVE :
+                  ((priorityVal > PRIORITY_BACKGROUND) ? PRIORITY_BACKGROUND : priorityVal);
+  }
+
+  /**
+   * Determines if a message with a higher priority than the given priority
+   * class is waiting or being handled.  A background task running at the
+   * given priority should check this at each safe stopping point (i.e.,
+   * line boundary) and yield if it returns true.
+   * @param priorityVal priority class of caller (i.e.,
+   * 'PRIORITY_BACKGROUND').
+   * @return true if a higher-priority message is waiting or being handled;
+   * false if not.
+   */
+  public boolean isPreemptRequested(int priorityVal)
+  {
+    synchronized(queuesSyncObj)
+    {
+      if(activeMsgPriorityVal < priorityVal)
+        return true;
+      for(int p=0; p<priorityVal && p<NUM_PRIORITIES; ++p)
+      {
+        if(!msgQueuesArr[p].isEmpty())
+          return true;
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Returns the total number of messages waiting to be dispatched.
+   * @return The number of waiting messages.
+   */
+  public int getQueueDepth()
+  {
+    synchronized(queuesSyncObj)
+    {
+      int count = 0;
+      for(int p=0; p<NUM_PRIORITIES; ++p)
+        count += msgQueuesArr[p].size();
+      return count;
+    }
+  }
+
+  /**
+   * Returns a string showing the queue-depth and wait-time metrics for
+   * each priority class that has had messages.
+   * @return A new string.
+   */
+  public String getQueueStatsStr()
+  {
+    final StringBuilder buff = new StringBuilder();
+    synchronized(queuesSyncObj)
+    {
+      for(int p=0; p<NUM_PRIORITIES; ++p)
+      {  //for each priority class
+        if(dispatchCountArr[p] <= 0L && msgQueuesArr[p].isEmpty())
+          continue;
+        if(buff.length() > 0)
+          buff.append("; ");
+        buff.append(PRIORITY_NAMES_ARR[p]).append(":  depth=").append(msgQueuesArr[p].size()).
+                        append(", maxDepth=").append(queueMaxDepthArr[p]).append(", count=").
+                        append(dispatchCountArr[p]).append(", avgWaitMs=").
+                        append((dispatchCountArr[p] > 0L) ?
+                                      (totalWaitTimeMsArr[p] / dispatchCountArr[p]) : 0L).
+                        append(", maxWaitMs=").append(maxWaitTimeMsArr[p]);
+      }
+    }
+    return (buff.length() > 0) ? buff.toString() : "(no messages)";
+  }
+
   /**
    * Determines if the thread was previously started.
    * @return true if the thread was previously started; false if not.
@@ -71,12 +269,18 @@ public class DataMessageProcessor extends Thread implements DataMsgSenderInterfa
   }
 
   /**
-   * Terminates the send-processing thread.
+   * Terminates the send-processing thread.  Any waiting messages are
+   * discarded.
    */
   public void quitProcessing()
   {
     if(threadLoopObj != null)
       threadLoopObj.quit();
+    synchronized(queuesSyncObj)
+    {
+      for(int p=0; p<NUM_PRIORITIES; ++p)
+        msgQueuesArr[p].clear();
+    }
   }
 
   /**
@@ -85,8 +289,7 @@ public class DataMessageProcessor extends Thread implements DataMsgSenderInterfa
    */
   public void sendMessage(int msgCode)
   {
-    if(looperHandlerObj != null)
-      looperHandlerObj.obtainMessage(msgCode).sendToTarget();
+    queueMessage(msgCode,0,0,null);
   }
 
   /**
@@ -96,8 +299,7 @@ public class DataMessageProcessor extends Thread implements DataMsgSenderInterfa
    */
   public void sendMessage(int msgCode, String paramStr)
   {
-    if(looperHandlerObj != null)
-      looperHandlerObj.obtainMessage(msgCode,paramStr).sendToTarget();
+    queueMessage(msgCode,0,0,paramStr);
   }
 
   /**
@@ -107,8 +309,7 @@ public class DataMessageProcessor extends Thread implements DataMsgSenderInterfa
    */
   public void sendMessage(int msgCode, int val)
   {
-    if(looperHandlerObj != null)
-      looperHandlerObj.obtainMessage(msgCode,val,0).sendToTarget();
+    queueMessage(msgCode,val,0,null);
   }
 
   /**
@@ -120,7 +321,34 @@ public class DataMessageProcessor extends Thread implements DataMsgSenderInterfa
    */
   public void sendMessage(int msgCode, int val1, int val2, String paramStr)
   {
-    if(looperHandlerObj != null)
-      looperHandlerObj.obtainMessage(msgCode,val1,val2,paramStr).sendToTarget();
+    queueMessage(msgCode,val1,val2,paramStr);
+  }
+
+
+  /**
+   * Class QueuedMessage holds a data message waiting to be dispatched.
+   */
+  private static class QueuedMessage
+  {
+    public final int msgCode;
+    public final int val1;
+    public final int val2;
+    public final String paramStr;
+    public final long queuedTimeMs = System.currentTimeMillis();
+
+    /**
+     * Creates a queued message.
+     * @param msgCode message code.
+     * @param val1 first integer value for message.
+     * @param val2 second integer value for message.
+     * @param paramStr parameter string for message.
+     */
+    public QueuedMessage(int msgCode, int val1, int val2, String paramStr)
+    {
+      this.msgCode = msgCode;
+      this.val1 = val1;
+      this.val2 = val2;
+      this.paramStr = paramStr;
+    }
   }
 }
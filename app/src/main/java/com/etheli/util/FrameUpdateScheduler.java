@@ -0,0 +1,140 @@
+//FrameUpdateScheduler.java:  Collapses update requests into at most one
+//                            redraw per display frame.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class FrameUpdateScheduler collapses update requests (which may arrive
+ * from any thread at any rate) into at most one run of a frame action per
+ * display-frame interval.  The first request after a frame schedules the
+ * next frame (aligned to the frame interval); further requests before that
+ * frame runs are absorbed.  The frame action is run via the thread for
+ * the given looper (normally the UI thread).  Counts of the updates
+ * requested and the frames run are tracked.  (The Choreographer class is
+ * not available at the API level used, so a Handler is used to pace the
+ * frames.)
+ */
+public class FrameUpdateScheduler
+{
+    /** Default frame interval, in milliseconds (~60 frames per second). */
+  public static final int DEF_FRAME_INTERVALMS = 16;
+  private final Handler frameHandlerObj;
+  private final Runnable frameActionObj;
+  private final int frameIntervalMs;
+  private final AtomicBoolean framePendingFlag = new AtomicBoolean(false);
+  private final AtomicLong updatesRequestedCount = new AtomicLong(0L);
+  private final AtomicLong framesRunCount = new AtomicLong(0L);
+  private volatile long lastFrameTimeMs = 0L;    //uptime of last frame
+
+  /**
+   * Creates a frame-update scheduler.
+   * @param looperObj looper for the thread that runs the frame action.
+   * @param frameAction action to be run for each frame.
+   * @param intervalMs minimum interval between frames, in milliseconds.
+   */
+  public FrameUpdateScheduler(Looper looperObj, Runnable frameAction, int intervalMs)
+  {
+    frameHandlerObj = new Handler(looperObj);
+    frameActionObj = frameAction;
+    frameIntervalMs = intervalMs;
+  }
+
+  /**
+   * Creates a frame-update scheduler that runs the frame action via the
+   * UI thread, using the default frame interval.
+   * @param frameAction action to be run for each frame.
+   */
+  public FrameUpdateScheduler(Runnable frameAction)
+  {
+    this(Looper.getMainLooper(),frameAction,DEF_FRAME_INTERVALMS);
+  }
+
+  /**
+   * Requests an update.  If a frame is not already pending then one is
+   * scheduled for the next frame interval.  May be called via any thread.
+   */
+  public void requestUpdate()
+  {
+    updatesRequestedCount.incrementAndGet();
+    if(!framePendingFlag.getAndSet(true))
+    {  //frame not already pending; schedule it (aligned to frame interval)
+      final long delayMs = lastFrameTimeMs + frameIntervalMs - SystemClock.uptimeMillis();
+      frameHandlerObj.postDelayed(runFrameObj,(delayMs > 0) ? delayMs : 0);
+    }
+  }
+
+  /**
+   * Determines if a frame is pending (scheduled but not yet run).
+   * @return true if a frame is pending; false if not.
+   */
+  public boolean isFramePending()
+  {
+    return framePendingFlag.get();
+  }
+
+  /**
+   * Cancels any pending frame.
+   */
+  public void cancel()
+  {
+    frameHandlerObj.removeCallbacks(runFrameObj);
+    framePendingFlag.set(false);
+  }
+
+  /**
+   * Returns the number of updates requested.
+   * @return The number of updates requested.
+   */
+  public long getUpdatesRequestedCount()
+  {
+    return updatesRequestedCount.get();
+  }
+
+  /**
+   * Returns the number of frames run.
+   * @return The number of frames run.
+   */
+  public long getFramesRunCount()
+  {
+    return framesRunCount.get();
+  }
+
+  /**
+   * Clears the counts of updates requested and frames run.
+   */
+  public void clearCounts()
+  {
+    updatesRequestedCount.set(0L);
+    framesRunCount.set(0L);
+  }
+
+  /**
+   * Returns a string showing the counts of frames run and updates requested.
+   * @return A new string.
+   */
+  public String getCountsStr()
+  {
+    return "frames=" + framesRunCount.get() + ", updates=" + updatesRequestedCount.get();
+  }
+
+  //Runs the frame action (via the looper thread).
+  private final Runnable runFrameObj = new Runnable()
+      {
+        public void run()
+        {
+          lastFrameTimeMs = SystemClock.uptimeMillis();
+          framePendingFlag.set(false);   //clear first so requests during action schedule frame
+          framesRunCount.incrementAndGet();
+          frameActionObj.run();
+        }
+      };
+}
@@ -0,0 +1,367 @@
+//LineRingBuffer.java:  Preallocated single-producer/single-consumer ring
+//                      buffer of received lines.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Class LineRingBuffer defines a preallocated ring buffer of received lines
+ * with one producer thread (that enters characters and ends lines) and one
+ * consumer thread at a time (that takes lines).  No locks are taken and no
+ * objects are allocated on the producer side.  A waiting consumer is parked
+ * (via 'LockSupport') and unparked by the producer when a line is completed
+ * (or, for 'awaitFirstChar()', when the first character of a line arrives).
+ * Waits may be cut short via 'abortWait()' (which stays in effect until
+ * 'clearWaitAbort()' is called).  If the ring is full when the
+ * producer begins a new line then the oldest unread line is dropped (and
+ * counted).
+ */
+public class LineRingBuffer
+{
+  private final int numLineSlots;                //number of line slots in ring
+  private final int maxLineLength;               //max number of chars per line
+  private final char [][] lineCharsArr;          //character data for each slot
+  private final int [] lineLengthsArr;           //number of characters in each slot
+         //index of next line to be read (also advanced by producer on overflow):
+  private final AtomicLong readLineIndex = new AtomicLong(0L);
+         //index of next line to be written (only advanced by producer):
+  private volatile long writeLineIndex = 0L;
+         //consumer thread waiting for line (or null if none):
+  private volatile Thread waitingConsumerThread = null;
+         //consumer thread waiting for first character of line (or null if none):
+  private volatile Thread waitingFirstCharThread = null;
+  private volatile char curLineFirstChar = '\0';     //first char of line in progress
+  private volatile boolean waitAbortFlag = false;     //set to end current wait
+  private int curLineLength = 0;                 //producer position in current line
+  private boolean curLineSlotClaimedFlag = false;     //true after slot claimed for line
+  private volatile long droppedLinesCount = 0L;       //number of lines dropped on overflow
+  private volatile long truncatedLinesCount = 0L;     //number of lines truncated
+
+  /**
+   * Creates a line ring buffer.
+   * @param numLines number of lines held in the ring.
+   * @param maxLineLen maximum number of characters per line (longer
+   * lines are truncated).
+   */
+  public LineRingBuffer(int numLines, int maxLineLen)
+  {
+    if(numLines <= 0 || maxLineLen <= 0)
+    {  //bad parameter value; throw runtime exception
+      throw new RuntimeException(
+                         "Parameters 'numLines' and 'maxLineLen' must be greater than zero");
+    }
+    numLineSlots = numLines;
+    maxLineLength = maxLineLen;
+    lineCharsArr = new char[numLines][maxLineLen];
+    lineLengthsArr = new int[numLines];
+  }
+
+  /**
+   * Appends a character to the line in progress.  This method should only
+   * be called by the producer thread.
+   * @param ch character to append.
+   */
+  public void putChar(char ch)
+  {
+    if(!curLineSlotClaimedFlag)        //if first character of line then
+      claimLineSlot();                 //make sure slot available for line
+    if(curLineLength == 0)
+    {  //first character of line; save it and wake consumer if waiting for it
+      curLineFirstChar = ch;
+      final Thread threadObj;
+      if((threadObj=waitingFirstCharThread) != null)
+        LockSupport.unpark(threadObj);
+    }
+    if(curLineLength < maxLineLength)
+      lineCharsArr[(int)(writeLineIndex % numLineSlots)][curLineLength++] = ch;
+    else if(curLineLength == maxLineLength)
+    {  //line too long; count it once and drop the rest of its characters
+      ++curLineLength;
+      ++truncatedLinesCount;
+    }
+  }
+
+  /**
+   * Ends the line in progress and makes it available to the consumer.  This
+   * method should only be called by the producer thread.
+   */
+  public void endLine()
+  {
+    if(!curLineSlotClaimedFlag)        //if empty line then
+      claimLineSlot();                 //make sure slot available for line
+    final long wIdx = writeLineIndex;
+    lineLengthsArr[(int)(wIdx % numLineSlots)] =
+                               (curLineLength < maxLineLength) ? curLineLength : maxLineLength;
+    curLineLength = 0;
+    curLineSlotClaimedFlag = false;
+    writeLineIndex = wIdx + 1;         //publish line (volatile write)
+    curLineFirstChar = '\0';
+    Thread threadObj;
+    if((threadObj=waitingConsumerThread) != null)
+      LockSupport.unpark(threadObj);   //wake consumer if waiting
+    if((threadObj=waitingFirstCharThread) != null)
+      LockSupport.unpark(threadObj);   //wake first-char consumer if waiting
+  }
+
+  /**
+   * Returns the number of characters in the line in progress.  This method
+   * should only be called by the producer thread.
+   * @return The number of characters in the line in progress.
+   */
+  public int getCurLineLength()
+  {
+    return curLineLength;
+  }
+
+  /**
+   * Makes sure that the slot for the line in progress is available, dropping
+   * the oldest unread line if the ring is full.
+   */
+  private void claimLineSlot()
+  {
+    final long wIdx = writeLineIndex;
+    long rIdx;
+    while(wIdx - (rIdx=readLineIndex.get()) >= numLineSlots)
+    {  //ring is full; drop oldest line (unless consumer takes it first)
+      if(readLineIndex.compareAndSet(rIdx,rIdx+1))
+        ++droppedLinesCount;
+    }
+    curLineSlotClaimedFlag = true;
+  }
+
+  /**
+   * Removes and returns the oldest line in the ring (without waiting).
+   * @return A string containing the oldest line, or null if none available.
+   */
+  public String pollLine()
+  {
+    long rIdx;
+    int slotIdx, len;
+    String str;
+    while((rIdx=readLineIndex.get()) < writeLineIndex)
+    {  //line is available; copy it out and then confirm it was not overwritten
+      slotIdx = (int)(rIdx % numLineSlots);
+      len = lineLengthsArr[slotIdx];
+      str = new String(lineCharsArr[slotIdx],0,len);
+      if(readLineIndex.compareAndSet(rIdx,rIdx+1))
+        return str;
+         //if index changed then producer dropped the line; try next one
+    }
+    return null;
+  }
+
+  /**
+   * Waits for and returns the oldest line in the ring, up to the timeout.
+   * @param timeoutMs maximum number of milliseconds to wait.
+   * @return A string containing the oldest line, or null if timeout.
+   */
+  public String takeLine(long timeoutMs)
+  {
+    String str;
+    if((str=pollLine()) != null)       //if line available then
+      return str;                      //return it without waiting
+    final long deadlineNs = System.nanoTime() + timeoutMs*1000000L;
+    final Thread curThreadObj = Thread.currentThread();
+    waitingConsumerThread = curThreadObj;
+    try
+    {
+      long remainingNs;
+      while((str=pollLine()) == null)
+      {  //no line available; park until unparked by producer or timeout
+        if((remainingNs=deadlineNs-System.nanoTime()) <= 0L || waitAbortFlag ||
+                                                                 curThreadObj.isInterrupted())
+        {
+          break;
+        }
+        LockSupport.parkNanos(this,remainingNs);
+      }
+    }
+    finally
+    {
+      waitingConsumerThread = null;
+    }
+    return str;
+  }
+
+  /**
+   * Removes the oldest line in the ring and copies it into the given view
+   * (without waiting or allocating).
+   * @param viewObj view object to receive line.
+   * @return true if a line was copied; false if none available.
+   */
+  public boolean pollLine(LineView viewObj)
+  {
+    long rIdx;
+    int slotIdx;
+    while((rIdx=readLineIndex.get()) < writeLineIndex)
+    {  //line is available; copy it out and then confirm it was not overwritten
+      slotIdx = (int)(rIdx % numLineSlots);
+      viewObj.setChars(lineCharsArr[slotIdx],lineLengthsArr[slotIdx]);
+      if(readLineIndex.compareAndSet(rIdx,rIdx+1))
+        return true;
+         //if index changed then producer dropped the line; try next one
+    }
+    viewObj.clear();
+    return false;
+  }
+
+  /**
+   * Waits for the oldest line in the ring, up to the timeout, and copies
+   * it into the given view (without allocating).
+   * @param viewObj view object to receive line.
+   * @param timeoutMs maximum number of milliseconds to wait.
+   * @return true if a line was copied; false if timeout.
+   */
+  public boolean takeLine(LineView viewObj, long timeoutMs)
+  {
+    if(pollLine(viewObj))              //if line available then
+      return true;                     //return without waiting
+    final long deadlineNs = System.nanoTime() + timeoutMs*1000000L;
+    final Thread curThreadObj = Thread.currentThread();
+    waitingConsumerThread = curThreadObj;
+    try
+    {
+      long remainingNs;
+      while(!pollLine(viewObj))
+      {  //no line available; park until unparked by producer or timeout
+        if((remainingNs=deadlineNs-System.nanoTime()) <= 0L || waitAbortFlag ||
+                                                                 curThreadObj.isInterrupted())
+        {
+          return false;
+        }
+        LockSupport.parkNanos(this,remainingNs);
+      }
+      return true;
+    }
+    finally
+    {
+      waitingConsumerThread = null;
+    }
+  }
+
+  /**
+   * Returns the first character of the oldest line in the ring (without
+   * removing the line).
+   * @return The first character of the oldest line, '\n' if the oldest
+   * line is empty, or '\0' if no lines are available.
+   */
+  public char peekFirstChar()
+  {
+    long rIdx;
+    int slotIdx;
+    char ch;
+    while((rIdx=readLineIndex.get()) < writeLineIndex)
+    {  //line is available; fetch first char and then confirm it was not overwritten
+      slotIdx = (int)(rIdx % numLineSlots);
+      ch = (lineLengthsArr[slotIdx] > 0) ? lineCharsArr[slotIdx][0] : '\n';
+      if(readLineIndex.get() == rIdx)
+        return ch;
+    }
+    return '\0';
+  }
+
+  /**
+   * Waits for the first character of the next line to be read (the oldest
+   * unread line, or the line in progress if none), up to the timeout.  The
+   * line is not removed.
+   * @param timeoutMs maximum number of milliseconds to wait.
+   * @return The first character of the next line, '\n' if the next line
+   * is empty, or '\0' if timeout (or wait aborted).
+   */
+  public char awaitFirstChar(long timeoutMs)
+  {
+    char ch;
+    if((ch=peekFirstChar()) != '\0' || (ch=curLineFirstChar) != '\0')
+      return ch;                       //character available; return it without waiting
+    final long deadlineNs = System.nanoTime() + timeoutMs*1000000L;
+    final Thread curThreadObj = Thread.currentThread();
+    waitingFirstCharThread = curThreadObj;
+    try
+    {
+      long remainingNs;
+      while((ch=peekFirstChar()) == '\0' && (ch=curLineFirstChar) == '\0')
+      {  //no character available; park until unparked by producer or timeout
+        if((remainingNs=deadlineNs-System.nanoTime()) <= 0L || waitAbortFlag ||
+                                                                 curThreadObj.isInterrupted())
+        {
+          break;
+        }
+        LockSupport.parkNanos(this,remainingNs);
+      }
+    }
+    finally
+    {
+      waitingFirstCharThread = null;
+    }
+    return ch;
+  }
+
+  /**
+   * Ends any wait in progress (the waiting method returns as if its
+   * timeout was reached).  Later waits also end immediately until
+   * 'clearWaitAbort()' is called, so an abort that arrives just before a
+   * wait begins is not lost.
+   */
+  public void abortWait()
+  {
+    waitAbortFlag = true;
+    Thread threadObj;
+    if((threadObj=waitingConsumerThread) != null)
+      LockSupport.unpark(threadObj);
+    if((threadObj=waitingFirstCharThread) != null)
+      LockSupport.unpark(threadObj);
+  }
+
+  /**
+   * Clears the abort set via 'abortWait()', so that later waits run
+   * normally.  Should be called by the consumer when the operation that
+   * may be aborted is finished (or before a new one begins).
+   */
+  public void clearWaitAbort()
+  {
+    waitAbortFlag = false;
+  }
+
+  /**
+   * Discards all unread lines in the ring.
+   */
+  public void clear()
+  {
+    long rIdx;
+    final long wIdx = writeLineIndex;
+    while((rIdx=readLineIndex.get()) < wIdx && !readLineIndex.compareAndSet(rIdx,wIdx));
+  }
+
+  /**
+   * Returns the number of unread lines in the ring.
+   * @return The number of unread lines in the ring.
+   */
+  public int size()
+  {
+    final long val = writeLineIndex - readLineIndex.get();
+    return (val > 0L) ? (int)val : 0;
+  }
+
+  /**
+   * Returns the number of lines dropped because the ring was full.
+   * @return The number of lines dropped because the ring was full.
+   */
+  public long getDroppedLinesCount()
+  {
+    return droppedLinesCount;
+  }
+
+  /**
+   * Returns the number of lines truncated because they were too long.
+   * @return The number of lines truncated because they were too long.
+   */
+  public long getTruncatedLinesCount()
+  {
+    return truncatedLinesCount;
+  }
+}
@@ -0,0 +1,114 @@
+//LineView.java:  Reusable character-sequence view of a received line.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.util;
+
+/**
+ * Class LineView defines a reusable character-sequence view of a received
+ * line.  The characters of each new line are copied into the same backing
+ * array, so a consumer may fetch and parse any number of lines without
+ * allocating new objects.  The contents are only valid until the next line
+ * is loaded into the view.
+ */
+public class LineView implements CharSequence
+{
+  private char [] lineCharsArr;
+  private int lineLength = 0;
+
+  /**
+   * Creates a line view.
+   * @param initCapacity initial number of characters the view can hold
+   * (grown as needed).
+   */
+  public LineView(int initCapacity)
+  {
+    lineCharsArr = new char[(initCapacity > 0) ? initCapacity : 16];
+  }
+
+  /**
+   * Loads the given characters into the view.
+   * @param srcArr source array of characters.
+   * @param srcLen number of characters to load.
+   */
+  public void setChars(char [] srcArr, int srcLen)
+  {
+    if(srcLen > lineCharsArr.length)                  //if too large then
+      lineCharsArr = new char[srcLen];                //grow array
+    System.arraycopy(srcArr,0,lineCharsArr,0,srcLen);
+    lineLength = srcLen;
+  }
+
+  /**
+   * Clears the view (sets its length to zero).
+   */
+  public void clear()
+  {
+    lineLength = 0;
+  }
+
+  /**
+   * Returns the number of characters in the view.
+   * @return The number of characters in the view.
+   */
+  @Override
+  public int length()
+  {
+    return lineLength;
+  }
+
+  /**
+   * Returns the character at the given position.
+   * @param i position.
+   * @return The character at the given position.
+   */
+  @Override
+  public char charAt(int i)
+  {
+    if(i < 0 || i >= lineLength)
+      throw new IndexOutOfBoundsException("Index " + i + ", length " + lineLength);
+    return lineCharsArr[i];
+  }
+
+  /**
+   * Returns a new string containing the given range of characters.
+   * @param start start position.
+   * @param end end position.
+   * @return A new string containing the given range of characters.
+   */
+  @Override
+  public CharSequence subSequence(int start, int end)
+  {
+    if(start < 0 || end > lineLength || start > end)
+      throw new IndexOutOfBoundsException("Range " + start + "-" + end + ", length " + lineLength);
+    return new String(lineCharsArr,start,end-start);
+  }
+
+  /**
+   * Returns the position of the first occurrence of the given character,
+   * starting at the given position.
+   * @param ch character to find.
+   * @param fromIdx position to start at.
+   * @return The position of the character, or -1 if not found.
+   */
+  public int indexOf(char ch, int fromIdx)
+  {
+    for(int i=(fromIdx>0)?fromIdx:0; i<lineLength; ++i)
+    {
+      if(lineCharsArr[i] == ch)
+        return i;
+    }
+    return -1;
+  }
+
+  /**
+   * Returns a new string containing the characters in the view.
+   * @return A new string containing the characters in the view.
+   */
+  @Override
+  public String toString()
+  {
+    return new String(lineCharsArr,0,lineLength);
+  }
+}
@@ -1,5 +1,5 @@
-//PausableWorker.java:  Defines a background-worker thread with
-//                      wait/notify/terminate functionality that
+//PausableWorker.java:  Defines a background worker with
+//                      notify/terminate functionality that
 //                      may also be paused.
 //
 // 12/30/2016 -- [ET]
@@ -7,25 +7,62 @@
 
 package com.etheli.util;
 
+import java.util.concurrent.ScheduledFuture;
+
 /**
- * Class PausableWorker defines a background-worker thread with
- * wait/notify/terminate functionality that may also be paused.
+ * Class PausableWorker defines a background worker with
+ * notify/terminate functionality that may also be paused.
  * The executing method for the worker runs as a periodic task
- * at a set interval.
+ * at a set interval (which may be varied by overriding the
+ * 'getNextIntervalDelayMs()' method).  The task runs via a
+ * 'TaskRunner' (by default the app-wide 'AppScheduler' pool;
+ * the scheduler's timer dispatches each next interval), so no
+ * thread is held by the worker between intervals.  Each run is
+ * tagged with the worker's run generation, which is advanced on
+ * pause, resume and terminate, so a run that was already
+ * dispatched when the worker was paused (and could no longer
+ * be canceled) is dropped rather than starting a second chain
+ * of intervals.
  */
-public abstract class PausableWorker extends PausableThread
+public abstract class PausableWorker
 {
+  private static final int STATE_NOT_STARTED = 0;
+  private static final int STATE_RUNNING = 1;
+  private static final int STATE_PAUSED = 2;
+  private static final int STATE_TERMINATED = 3;
+    /** The default terminate wait time in milliseconds. */
+  public static final int DEFAULT_TERMINATE_WAIT_TIME = 100;
   protected final long periodicIntervalDelayMs;
+  private final String workerNameStr;
+  private final TaskRunner taskRunnerObj;
+  private final Object workerStateSyncObj = new Object();
+  private int workerState = STATE_NOT_STARTED;
+  private int runGenerationVal = 0;
+  private boolean taskInProgressFlag = false;
+  private ScheduledFuture<?> nextTaskFutureObj = null;
 
   /**
-   * Creates a background-worker thread.
-   * @param threadNameStr thread name.
+   * Creates a background worker.
+   * @param threadNameStr worker (task) name.
    * @param periodicDelayMs delay to be executed between intervals.
+   * @param runnerObj runner for the worker task (i.e., a serial lane
+   * for a task that blocks).
    */
-  public PausableWorker(String threadNameStr, long periodicDelayMs)
+  public PausableWorker(String threadNameStr, long periodicDelayMs, TaskRunner runnerObj)
   {
-    super(threadNameStr);
+    workerNameStr = threadNameStr;
     periodicIntervalDelayMs = periodicDelayMs;
+    taskRunnerObj = runnerObj;
+  }
+
+  /**
+   * Creates a background worker that runs via the 'AppScheduler' pool.
+   * @param threadNameStr worker (task) name.
+   * @param periodicDelayMs delay to be executed between intervals.
+   */
+  public PausableWorker(String threadNameStr, long periodicDelayMs)
+  {
+    this(threadNameStr,periodicDelayMs,AppScheduler.getAppScheduler());
   }
 
   /**
@@ -36,15 +73,245 @@ public abstract class PausableWorker extends PausableThread
   public abstract boolean doWorkerTask();
 
   /**
-   * Executing method for worker thread.  (Called automatically.)
+   * Returns the delay to be executed before the next interval.  This
+   * implementation returns the delay given to the constructor; subclasses
+   * may override it to vary the delay.
+   * @return The delay before the next interval, in milliseconds.
+   */
+  protected long getNextIntervalDelayMs()
+  {
+    return periodicIntervalDelayMs;
+  }
+
+  /**
+   * Starts the worker (should only be done once).  The first task is run
+   * immediately.
+   */
+  public void start()
+  {
+    synchronized(workerStateSyncObj)
+    {
+      if(workerState != STATE_NOT_STARTED)
+        return;
+      workerState = STATE_RUNNING;
+      submitWorkerRun(0L);
+    }
+  }
+
+  /**
+   * Submits a run of the worker task, tagged with the current run
+   * generation.  The caller should hold the lock on 'workerStateSyncObj'.
+   * @param delayMs delay before the run, or 0 to run as soon as possible.
+   */
+  private void submitWorkerRun(long delayMs)
+  {
+    final int genVal = runGenerationVal;
+    final Runnable runObj = new Runnable()
+        {
+          public void run()
+          {
+            runWorkerTask(genVal);
+          }
+        };
+    if(delayMs > 0L)
+      nextTaskFutureObj = taskRunnerObj.schedule(workerNameStr,runObj,delayMs);
+    else
+    {
+      nextTaskFutureObj = null;
+      taskRunnerObj.execute(workerNameStr,runObj);
+    }
+  }
+
+  /**
+   * Runs the worker task for an interval (if the worker is running) and
+   * schedules the next interval.  Called via the task runner.
+   * @param genVal run generation when the run was submitted; if the
+   * generation has since changed then the run is stale and is dropped.
+   */
+  private void runWorkerTask(int genVal)
+  {
+    synchronized(workerStateSyncObj)
+    {
+      if(genVal != runGenerationVal || workerState != STATE_RUNNING || taskInProgressFlag)
+        return;         //stale run, paused, terminated or already running
+      nextTaskFutureObj = null;
+      taskInProgressFlag = true;
+    }
+    boolean contFlag = false;
+    try
+    {
+      contFlag = doWorkerTask();
+    }
+    finally
+    {
+      synchronized(workerStateSyncObj)
+      {
+        taskInProgressFlag = false;
+        if(!contFlag)                  //if false returned (or exception)
+          workerState = STATE_TERMINATED;   // then terminate
+        else if(workerState == STATE_RUNNING)
+        {  //not paused or terminated; schedule next interval
+          submitWorkerRun(Math.max(getNextIntervalDelayMs(),1L));
+        }
+        workerStateSyncObj.notifyAll();     //notify task finished
+      }
+    }
+  }
+
+  /**
+   * Runs the next interval's task now (instead of after the delay), if
+   * the worker is running and the task is not in progress.
+   */
+  public void notifyThread()
+  {
+    synchronized(workerStateSyncObj)
+    {
+      if(workerState != STATE_RUNNING || taskInProgressFlag ||
+                                 nextTaskFutureObj == null || !nextTaskFutureObj.cancel(false))
+      {
+        return;
+      }
+      ++runGenerationVal;         //make sure canceled run is dropped
+      submitWorkerRun(0L);
+    }
+  }
+
+  /**
+   * Pauses the worker.  If the task is in progress then it is allowed to
+   * finish, and no further intervals are run until 'resumeThread()' is
+   * called.
+   * @param waitTimeMs the maximum number of milliseconds to wait for an
+   * in-progress task to finish, or 0 to return immediately.
+   * @return false if the worker is not running or if a timeout occurred
+   * before the pause could be confirmed; true otherwise.
+   */
+  public boolean pauseThread(long waitTimeMs)
+  {
+    synchronized(workerStateSyncObj)
+    {
+      if(workerState == STATE_TERMINATED || workerState == STATE_NOT_STARTED)
+        return false;        //if terminated or not started then just return
+      workerState = STATE_PAUSED;
+      ++runGenerationVal;         //drop any run already dispatched
+      if(nextTaskFutureObj != null)
+      {  //next interval scheduled; cancel it
+        nextTaskFutureObj.cancel(false);
+        nextTaskFutureObj = null;
+      }
+      waitForTaskFinished(waitTimeMs);
+      return !taskInProgressFlag;
+    }
+  }
+
+  /**
+   * Resumes the paused worker; the next interval's task is run
+   * immediately.  Has no effect if the worker is not paused.
+   */
+  public void resumeThread()
+  {
+    synchronized(workerStateSyncObj)
+    {
+      if(workerState != STATE_PAUSED)
+        return;
+      workerState = STATE_RUNNING;
+      ++runGenerationVal;         //drop any run dispatched before pause
+      if(!taskInProgressFlag)     //if in progress then task schedules next interval
+        submitWorkerRun(0L);
+    }
+  }
+
+  /**
+   * Terminates the worker, waiting (up to 'DEFAULT_TERMINATE_WAIT_TIME'
+   * milliseconds) for any in-progress task to finish.
+   */
+  public void terminate()
+  {
+    terminate(DEFAULT_TERMINATE_WAIT_TIME);
+  }
+
+  /**
+   * Terminates the worker.
+   * @param waitTimeMs the maximum number of milliseconds to wait for any
+   * in-progress task to finish, or 0 to return immediately.
+   */
+  public void terminate(long waitTimeMs)
+  {
+    synchronized(workerStateSyncObj)
+    {
+      if(workerState == STATE_NOT_STARTED || workerState == STATE_TERMINATED)
+      {  //not started or already terminated; just set state
+        workerState = STATE_TERMINATED;
+        return;
+      }
+      workerState = STATE_TERMINATED;
+      ++runGenerationVal;
+      if(nextTaskFutureObj != null)
+      {  //next interval scheduled; cancel it
+        nextTaskFutureObj.cancel(false);
+        nextTaskFutureObj = null;
+      }
+      waitForTaskFinished(waitTimeMs);
+    }
+  }
+
+  /**
+   * Waits for any in-progress task to finish.  The caller should hold the
+   * lock on 'workerStateSyncObj'.
+   * @param waitTimeMs the maximum number of milliseconds to wait, or 0 to
+   * return immediately.
+   */
+  private void waitForTaskFinished(long waitTimeMs)
+  {
+    if(waitTimeMs <= 0L)
+      return;
+    final long endTimeMs = System.currentTimeMillis() + waitTimeMs;
+    long remainingMs;
+    while(taskInProgressFlag && (remainingMs=endTimeMs-System.currentTimeMillis()) > 0L)
+    {
+      try
+      {
+        workerStateSyncObj.wait(remainingMs);
+      }
+      catch(InterruptedException ex)
+      {  //interrupted; stop waiting
+        break;
+      }
+    }
+  }
+
+  /**
+   * Determines if the worker has been started and not terminated.
+   * @return true if the worker is running or paused; false if not.
+   */
+  public boolean isAlive()
+  {
+    synchronized(workerStateSyncObj)
+    {
+      return (workerState == STATE_RUNNING || workerState == STATE_PAUSED);
+    }
+  }
+
+  /**
+   * Determines if the worker is terminated.
+   * @return true if the worker is terminated; false if not.
+   */
+  public boolean isTerminated()
+  {
+    synchronized(workerStateSyncObj)
+    {
+      return (workerState == STATE_TERMINATED);
+    }
+  }
+
+  /**
+   * Determines if the worker is paused (with no task in progress).
+   * @return true if paused; false if not.
    */
-  public void run()
+  public boolean isThreadPaused()
   {
-    while(!isTerminated())
-    {  //loop if thread not terminated
-      if(!doWorkerTask())         //run worker task
-        break;               //if false returned then terminate
-      waitForNotify(periodicIntervalDelayMs);    //do delay and/or pause
+    synchronized(workerStateSyncObj)
+    {
+      return (workerState == STATE_PAUSED && !taskInProgressFlag);
     }
   }
 
@@ -0,0 +1,188 @@
+//RawStreamCapture.java:  Captures a raw inbound byte stream, with read
+//                        timestamps, to a file for later replay.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.util;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Class RawStreamCapture captures a raw inbound byte stream, one chunk per
+ * read from the connection and with the time of each read, to a capture
+ * file that may be played back via 'StreamReplayer'.  Chunks are copied by
+ * the reading thread into the queue of an 'AsyncFileWriter' (allocated when
+ * capture is first started), so capturing does no allocation or file I/O
+ * on the receive path.  If the queue is full then new chunks are dropped
+ * (and counted).
+ * <p>
+ * File format (all values big-endian):  a header of magic value
+ * 'FILE_MAGIC' (4 bytes), format version (1 byte) and capture-start time
+ * (8 bytes, ms since 1/1/1970); then chunks, each holding a read time
+ * (8 bytes, microseconds since capture start, monotonic), a data length
+ * (2 bytes) and the data bytes.
+ */
+public class RawStreamCapture extends AsyncFileWriter
+{
+    /** Tag string for logging. */
+  public static final String LOG_TAG = "RawStreamCapture";
+    /** Magic value at start of capture file ("AVRC"). */
+  public static final int FILE_MAGIC = 0x41565243;
+    /** Version of capture-file format. */
+  public static final int FORMAT_VERSION = 1;
+    /** Size of chunk header (read time and data length). */
+  public static final int CHUNK_HEADER_LEN = 10;
+    /** Maximum number of data bytes in a chunk. */
+  public static final int MAX_CHUNK_LEN = 0xFFFF;
+    /** Default size (in bytes) for queue of chunks waiting to be written. */
+  public static final int DEF_QUEUE_SIZE = 256 * 1024;
+              //buffer for chunk header (guarded by 'queueSyncObj'):
+  private final byte [] chunkHeaderArr = new byte[CHUNK_HEADER_LEN];
+  private long captureStartTimeMs = 0L;
+  private long captureStartTimeNs = 0L;
+  private File captureFileObj = null;
+
+  /**
+   * Creates a raw-stream capture.
+   * @param queueSize size (in bytes) of queue for chunks waiting to be
+   * written.
+   */
+  public RawStreamCapture(int queueSize)
+  {
+    super("rawStreamCaptureWriter",LOG_TAG,queueSize,false);
+  }
+
+  /**
+   * Creates a raw-stream capture, using the default queue size.
+   */
+  public RawStreamCapture()
+  {
+    this(DEF_QUEUE_SIZE);
+  }
+
+  /**
+   * Starts capturing to the given file (replacing any existing file).
+   * Any capture in progress is stopped first.
+   * The file is opened via the calling thread (and any writer thread in
+   * progress is waited on), so this method should not be called on the
+   * UI thread.
+   * @param fileObj capture file.
+   * @throws IOException if the file could not be created.
+   */
+  public synchronized void startCapture(File fileObj) throws IOException
+  {
+    stopCapture();
+    captureFileObj = fileObj;
+    captureStartTimeMs = System.currentTimeMillis();
+    captureStartTimeNs = System.nanoTime();
+    startWriter(true);
+  }
+
+  /**
+   * Stops capturing.  Chunks in the queue are written and the file is
+   * closed.  Waits (up to 'STOP_WAIT_MS') for the writer thread to
+   * finish, so this method should not be called on the UI thread.
+   */
+  public synchronized void stopCapture()
+  {
+    stopWriter(STOP_WAIT_MS);
+  }
+
+  /**
+   * Determines if capturing is in progress.
+   * @return true if capturing is in progress; false if not.
+   */
+  public boolean isCapturing()
+  {
+    return isWriterActive();
+  }
+
+  /**
+   * Returns the file for the current (or last) capture.
+   * @return The capture file, or null if none.
+   */
+  public File getCaptureFileObj()
+  {
+    return captureFileObj;
+  }
+
+  /**
+   * Captures a chunk of received data.  This method should be called by
+   * the reading thread immediately after each read, so the timestamp
+   * reflects the read time.  Returns immediately if capturing is not in
+   * progress.
+   * @param buffer data bytes.
+   * @param length number of bytes.
+   */
+  public void captureChunk(byte [] buffer, int length)
+  {
+    if(length <= 0 || !isWriterActive())
+      return;
+    final long readTimeUs = (System.nanoTime() - captureStartTimeNs) / 1000L;
+    int pos = 0, len;
+    synchronized(queueSyncObj)
+    {
+      while(pos < length)
+      {  //enter data as one or more chunks (only if more than 64K bytes)
+        len = Math.min(length-pos,MAX_CHUNK_LEN);
+        for(int i=0; i<8; ++i)
+          chunkHeaderArr[i] = (byte)(readTimeUs >> (56-i*8));
+        chunkHeaderArr[8] = (byte)(len >> 8);
+        chunkHeaderArr[9] = (byte)len;
+        if(!enqueueEntry(chunkHeaderArr,CHUNK_HEADER_LEN,buffer,pos,len))
+          return;             //chunk dropped; don't enter rest of data
+        pos += len;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of chunks queued for writing.
+   * @return The number of chunks queued.
+   */
+  public long getChunksQueuedCount()
+  {
+    return getEntriesQueuedCount();
+  }
+
+  /**
+   * Returns the number of chunks dropped because the queue was full.
+   * @return The number of chunks dropped.
+   */
+  public long getChunksDroppedCount()
+  {
+    return getEntriesDroppedCount();
+  }
+
+  /**
+   * Returns a string showing the counts of chunks queued and dropped and
+   * bytes written.
+   * @return A new string.
+   */
+  public String getCountsStr()
+  {
+    return "chunks=" + getEntriesQueuedCount() + ", dropped=" +
+                          getEntriesDroppedCount() + ", bytes=" + getBytesWrittenCount();
+  }
+
+  /**
+   * Returns the capture file.
+   * @param fileIdx rotation index (not used).
+   * @return The capture file.
+   */
+  protected File getFileObj(int fileIdx)
+  {
+    return captureFileObj;
+  }
+
+  /**
+   * Returns the capture-file header.
+   * @return A new byte array holding the header.
+   */
+  protected byte [] getFileHeaderArr()
+  {
+    return makeFileHeaderArr(FILE_MAGIC,FORMAT_VERSION,captureStartTimeMs);
+  }
+}
@@ -0,0 +1,367 @@
+//StreamReplayer.java:  Replays a captured raw byte stream into a data
+//                      receiver, with throughput and latency statistics.
+//
+// 10/17/2026 -- [ET]
+//
+
+package com.etheli.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class StreamReplayer replays a capture file (as written by
+ * 'RawStreamCapture') into a data-write receiver, delivering the same
+ * chunks that were originally read from the connection.  The replay may
+ * be paced at the original rate, at a multiple of it, or run at maximum
+ * speed, so the same traffic may be fed repeatedly through the receive
+ * path.  Throughput (bytes and lines per second) is tracked, and if the
+ * receiving code calls 'noteUiUpdate()' when its results are shown then
+ * the end-to-end latency (from delivery of a line to the resulting UI
+ * update) is also tracked.
+ */
+public class StreamReplayer
+{
+    /** Speed-factor value for replay at maximum speed. */
+  public static final float MAX_SPEED_FACTOR = 0.0f;
+  private static final int READ_BUFFER_SIZE = 8192;
+  private final File captureFileObj;
+  private final DataWriteReceiver targetReceiverObj;
+  private final float speedFactor;
+  private volatile ReplayThread replayThreadObj = null;
+  private volatile Runnable completionActionObj = null;
+  private volatile boolean finishedFlag = false;
+  private volatile long replayStartTimeNs = 0L;
+  private volatile long replayEndTimeNs = 0L;
+  private volatile long bytesDeliveredCount = 0L;
+  private volatile long linesDeliveredCount = 0L;
+  private volatile long chunksDeliveredCount = 0L;
+              //time oldest line not yet reflected in UI was delivered (0 = none):
+  private final AtomicLong pendingLineTimeNs = new AtomicLong(0L);
+  private long latencyCount = 0L;
+  private long latencySumNs = 0L;
+  private long latencyMinNs = 0L;
+  private long latencyMaxNs = 0L;
+  private String errorMessageStr = null;
+
+  /**
+   * Creates a stream replayer.
+   * @param fileObj capture file to be replayed.
+   * @param targetObj receiver for replayed data.
+   * @param speedVal speed factor (1.0 for original rate, 2.0 for twice
+   * the original rate, etc.), or 'MAX_SPEED_FACTOR' (or any value not
+   * greater than zero) for maximum speed.
+   */
+  public StreamReplayer(File fileObj, DataWriteReceiver targetObj, float speedVal)
+  {
+    captureFileObj = fileObj;
+    targetReceiverObj = targetObj;
+    speedFactor = speedVal;
+  }
+
+  /**
+   * Sets the action to be invoked (via the replay thread) when the replay
+   * finishes or is stopped.
+   * @param runnableObj action object, or null for none.
+   */
+  public void setCompletionActionObj(Runnable runnableObj)
+  {
+    completionActionObj = runnableObj;
+  }
+
+  /**
+   * Starts the replay.  The capture-file header is read and checked
+   * before this method returns.
+   * @throws IOException if the file could not be opened or is not a
+   * valid capture file.
+   */
+  public synchronized void startReplay() throws IOException
+  {
+    if(replayThreadObj != null)
+      return;          //already started
+    final DataInputStream inStm = new DataInputStream(
+                        new BufferedInputStream(new FileInputStream(captureFileObj),65536));
+    try
+    {  //read and check file header
+      if(inStm.readInt() != RawStreamCapture.FILE_MAGIC)
+        throw new IOException("Not a capture file:  " + captureFileObj);
+      final int verVal;
+      if((verVal=inStm.read()) != RawStreamCapture.FORMAT_VERSION)
+        throw new IOException("Unsupported capture-file version (" + verVal + ")");
+      inStm.readLong();           //skip capture-start time
+    }
+    catch(IOException ex)
+    {
+      inStm.close();
+      throw ex;
+    }
+    replayThreadObj = new ReplayThread(inStm);
+    replayThreadObj.start();
+  }
+
+  /**
+   * Stops the replay.
+   */
+  public void stopReplay()
+  {
+    final ReplayThread threadObj;
+    if((threadObj=replayThreadObj) != null)
+      threadObj.terminate(1000);
+  }
+
+  /**
+   * Determines if the replay is running.
+   * @return true if the replay has been started and has not finished.
+   */
+  public boolean isReplaying()
+  {
+    return (replayThreadObj != null && !finishedFlag);
+  }
+
+  /**
+   * Determines if the replay has finished (or was stopped).
+   * @return true if the replay has finished.
+   */
+  public boolean isFinished()
+  {
+    return finishedFlag;
+  }
+
+  /**
+   * Returns the capture file being replayed.
+   * @return The capture file.
+   */
+  public File getCaptureFileObj()
+  {
+    return captureFileObj;
+  }
+
+  /**
+   * Returns the speed factor for the replay.
+   * @return The speed factor, or a value not greater than zero for
+   * maximum speed.
+   */
+  public float getSpeedFactor()
+  {
+    return speedFactor;
+  }
+
+  /**
+   * Returns the message for the error that ended the replay.
+   * @return The error message, or null if none.
+   */
+  public String getErrorMessageStr()
+  {
+    return errorMessageStr;
+  }
+
+  /**
+   * Notes that the UI has been updated with results from the replayed
+   * data.  If any lines have been delivered since the last call then the
+   * time since the oldest of them was delivered is entered as a latency
+   * value.  May be called via any thread (normally the UI thread).
+   */
+  public void noteUiUpdate()
+  {
+    final long lineTimeNs;
+    if((lineTimeNs=pendingLineTimeNs.getAndSet(0L)) == 0L)
+      return;          //no lines delivered since last update
+    final long latencyNs = System.nanoTime() - lineTimeNs;
+    synchronized(this)
+    {
+      if(latencyCount <= 0L || latencyNs < latencyMinNs)
+        latencyMinNs = latencyNs;
+      if(latencyNs > latencyMaxNs)
+        latencyMaxNs = latencyNs;
+      latencySumNs += latencyNs;
+      ++latencyCount;
+    }
+  }
+
+  /**
+   * Returns the number of bytes delivered.
+   * @return The number of bytes delivered.
+   */
+  public long getBytesDeliveredCount()
+  {
+    return bytesDeliveredCount;
+  }
+
+  /**
+   * Returns the number of lines delivered.
+   * @return The number of lines delivered.
+   */
+  public long getLinesDeliveredCount()
+  {
+    return linesDeliveredCount;
+  }
+
+  /**
+   * Returns the elapsed time for the replay.
+   * @return The elapsed time (ms) from the start of the replay to its end
+   * (or to now if still running).
+   */
+  public long getElapsedTimeMs()
+  {
+    final long startNs;
+    if((startNs=replayStartTimeNs) == 0L)
+      return 0L;
+    final long endNs = replayEndTimeNs;
+    return (((endNs != 0L) ? endNs : System.nanoTime()) - startNs) / 1000000L;
+  }
+
+  /**
+   * Returns a string showing the throughput and latency statistics for
+   * the replay.
+   * @return A new string.
+   */
+  public String getStatsStr()
+  {
+    final long elapsedMs = getElapsedTimeMs();
+    final double elapsedSecs = (elapsedMs > 0) ? elapsedMs / 1000.0 : 0.001;
+    final StringBuilder buff = new StringBuilder();
+    buff.append("bytes=").append(bytesDeliveredCount).append(", lines=").
+                         append(linesDeliveredCount).append(", chunks=").
+                         append(chunksDeliveredCount).append(", ms=").append(elapsedMs).
+                         append(", bytes/s=").append(Math.round(bytesDeliveredCount/elapsedSecs)).
+                         append(", lines/s=").append(Math.round(linesDeliveredCount/elapsedSecs));
+    synchronized(this)
+    {
+      if(latencyCount > 0L)
+      {  //latency values entered
+        buff.append(", latencyMs(min/avg/max)=").
+                         append(formatMsVal(latencyMinNs)).append('/').
+                         append(formatMsVal(latencySumNs/latencyCount)).append('/').
+                         append(formatMsVal(latencyMaxNs)).append(" (n=").
+                         append(latencyCount).append(')');
+      }
+    }
+    return buff.toString();
+  }
+
+  /**
+   * Returns a string for the given nanoseconds value as milliseconds,
+   * with one decimal place.
+   * @param valNs value in nanoseconds.
+   * @return A new string.
+   */
+  private static String formatMsVal(long valNs)
+  {
+    final long tenthsVal = (valNs + 50000L) / 100000L;
+    return (tenthsVal / 10) + "." + (tenthsVal % 10);
+  }
+
+
+  /**
+   * Class ReplayThread defines the thread that reads the chunks from the
+   * capture file and delivers them to the target receiver.
+   */
+  private class ReplayThread extends PausableThread
+  {
+    private final DataInputStream replayInStm;
+    private byte [] chunkBuffArr = new byte[READ_BUFFER_SIZE];
+
+    /**
+     * Creates a replay thread.
+     * @param inStm input stream for capture file (positioned after the
+     * file header).
+     */
+    public ReplayThread(DataInputStream inStm)
+    {
+      super("streamReplayer");
+      replayInStm = inStm;
+    }
+
+    /**
+     * Executing method for thread.
+     */
+    public void run()
+    {
+      final boolean pacedFlag = (speedFactor > 0.0f);
+      boolean lastWasCrFlag = false;
+      long chunkTimeUs, delayNs, deliverTimeNs;
+      int len, numLines;
+      byte b;
+      replayStartTimeNs = System.nanoTime();
+      try
+      {
+        while(!isTerminated())
+        {  //for each chunk in file
+          try
+          {
+            chunkTimeUs = replayInStm.readLong();
+          }
+          catch(EOFException ex)
+          {  //end of file reached
+            break;
+          }
+          len = replayInStm.readUnsignedShort();
+          if(len > chunkBuffArr.length)
+            chunkBuffArr = new byte[len];
+          replayInStm.readFully(chunkBuffArr,0,len);
+          if(pacedFlag)
+          {  //replay is paced; wait until time for chunk (scaled by speed factor)
+            while((delayNs=replayStartTimeNs + (long)(chunkTimeUs*1000.0/speedFactor) -
+                                                System.nanoTime()) >= 1000000L && !isTerminated())
+            {
+              waitForNotify(delayNs/1000000L);
+            }
+            if(isTerminated())
+              break;
+          }
+          numLines = 0;
+          for(int i=0; i<len; ++i)
+          {  //count line ends (CR/LF pair is counted as one)
+            if((b=chunkBuffArr[i]) == (byte)'\r')
+            {
+              ++numLines;
+              lastWasCrFlag = true;
+            }
+            else
+            {
+              if(b == (byte)'\n' && !lastWasCrFlag)
+                ++numLines;
+              lastWasCrFlag = false;
+            }
+          }
+          deliverTimeNs = System.nanoTime();
+          targetReceiverObj.write(chunkBuffArr,len);
+          bytesDeliveredCount += len;
+          ++chunksDeliveredCount;
+          if(numLines > 0)
+          {  //chunk completed line(s); set time for latency (unless already set)
+            linesDeliveredCount += numLines;
+            pendingLineTimeNs.compareAndSet(0L,deliverTimeNs);
+          }
+        }
+      }
+      catch(Exception ex)
+      {  //some kind of exception error; log it
+        ULog.e(RawStreamCapture.LOG_TAG, "Exception replaying capture file", ex);
+        errorMessageStr = ex.toString();
+      }
+      finally
+      {
+        replayEndTimeNs = System.nanoTime();
+        try
+        {
+          replayInStm.close();
+        }
+        catch(IOException ex)
+        {  //ignore any exception on close
+        }
+      }
+      finishedFlag = true;
+      ULog.d(RawStreamCapture.LOG_TAG, "Replay of " + captureFileObj + " finished:  " +
+                                                                               getStatsStr());
+      final Runnable actionObj;
+      if((actionObj=completionActionObj) != null)
+        actionObj.run();
+    }
+  }
+}
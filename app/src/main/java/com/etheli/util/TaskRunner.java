@@ -0,0 +1,35 @@
+//TaskRunner.java:  Defines methods for submitting named background tasks.
+//
+// 10/18/2026 -- [ET]
+//
+
+package com.etheli.util;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Interface TaskRunner defines the methods for submitting named background
+ * tasks, implemented by 'AppScheduler' (for its shared pool) and by its
+ * serial lanes.
+ */
+public interface TaskRunner
+{
+  /**
+   * Runs the given task as soon as possible.
+   * @param nameStr name for task.
+   * @param runnableObj task to run.
+   * @return A 'Future' object that may be used to cancel the task.
+   */
+  public Future<?> execute(String nameStr, Runnable runnableObj);
+
+  /**
+   * Runs the given task after the given delay.
+   * @param nameStr name for task.
+   * @param runnableObj task to run.
+   * @param delayMs delay before running task, in milliseconds.
+   * @return A 'ScheduledFuture' object that may be used to cancel the
+   * task before it is dispatched.
+   */
+  public ScheduledFuture<?> schedule(String nameStr, Runnable runnableObj, long delayMs);
+}
@@ -37,6 +37,7 @@ import android.widget.Toast;
 import com.etheli.arduvidrx.bt.BluetoothSerialService;
 import com.etheli.arduvidrx.app.ProgramResources;
 import com.etheli.arduvidrx.R;
+import com.etheli.util.AppScheduler;
 
 import java.io.File;
 import java.text.SimpleDateFormat;
@@ -263,6 +264,8 @@ public class BlueTerm extends Activity {
 	public void onDestroy() {
 		if (DEBUG)
 			Log.e(LOG_TAG, "--- ON DESTROY ---");
+        if (mEmulatorView != null)      //close any log file (written via appender thread)
+            mEmulatorView.stopRecording();
         if (mSerialService != null) {
                    //disconnect terminal from bluetooth-serial I/O:
             mSerialService.clearDestinationObjects(mHandlerBT,mEmulatorView);
@@ -278,22 +281,24 @@ public class BlueTerm extends Activity {
     private void runTerminalStartupAction() {
         final Runnable actionObj;
         if((actionObj=programResourcesObj.getTerminalStartupActionObj()) != null) {
-            (new Thread("terminalStartupAction") {
-                public void run() {         //separate thread so not on main-UI thread
+            //background task so not on main-UI thread; delay to let terminal I/O setup
+            AppScheduler.getAppScheduler().schedule("terminalStartupAction", new Runnable() {
+                public void run() {
                     try {
-                        sleep(100);         //delay to let terminal I/O setup
                         actionObj.run();
                     }
                     catch(Exception ex) {
                         Log.e(BlueTerm.LOG_TAG, "Exception running terminal-startup action", ex);
                     }
                 }
-            }).start();
+            }, 100);
         }
     }
 
     private void readPrefs() {
         mLocalEcho = mPrefs.getBoolean(LOCALECHO_KEY, mLocalEcho);
+        if (mSerialService != null)     //only have written data echoed back if showing it
+            mSerialService.setWriteEchoEnabled(mLocalEcho);
         mFontSize = readIntPref(FONTSIZE_KEY, mFontSize, 20);
         mColorId = readIntPref(COLOR_KEY, mColorId, COLOR_SCHEMES.length - 1);
         mControlKeyId = readIntPref(CONTROLKEY_KEY, mControlKeyId, CONTROL_KEY_SCHEMES.length - 1);
@@ -414,6 +419,7 @@ public class BlueTerm extends Activity {
                     break;
 
                 case BluetoothSerialService.STATE_CONNECTING:
+                case BluetoothSerialService.STATE_RECONNECTING:
                     mTitle.setText(R.string.title_connecting);
                     break;
 
@@ -23,13 +23,12 @@ import android.view.inputmethod.ExtractedText;
 import android.view.inputmethod.ExtractedTextRequest;
 import android.view.inputmethod.InputConnection;
 
+import com.etheli.util.AsyncLogAppender;
 import com.etheli.util.DataWriteReceiver;
 import com.etheli.arduvidrx.R;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.Date;
 
 /**
@@ -137,9 +136,20 @@ public class EmulatorView extends View implements DataWriteReceiver, GestureDete
     public static final int UPDATE = 1;
 
 
+    /**
+     * Maximum size (in bytes) for a log file before it is rotated.
+     */
+    private static final long LOG_MAX_FILE_BYTES = AsyncLogAppender.DEF_MAX_FILE_BYTES;
+
+    /**
+     * Maximum age (ms) for a log file before it is rotated.
+     */
+    private static final long LOG_MAX_FILE_AGE_MS = 24L * 60 * 60 * 1000;
+
     private String mFileNameLog;
     private Date mOldTimeLog = new Date();
     private boolean mRecording = false;
+    private AsyncLogAppender mLogAppender = null;
 
     private GestureDetector mGestureDetector;
     private float mScrollRemainder;
@@ -678,11 +688,10 @@ public class EmulatorView extends View implements DataWriteReceiver, GestureDete
         int bytesToRead = Math.min(bytesAvailable, mReceiveBuffer.length);
         try {
             int bytesRead = mByteQueue.read(mReceiveBuffer, 0, bytesToRead);
-            String stringRead = new String(mReceiveBuffer, 0, bytesRead);
             append(mReceiveBuffer, 0, bytesRead);
 
             if(mRecording) {
-            	this.writeLog( stringRead );
+            	this.writeLog( mReceiveBuffer, 0, bytesRead );
             }
         } catch (InterruptedException e) {
         }
@@ -730,42 +739,51 @@ public class EmulatorView extends View implements DataWriteReceiver, GestureDete
     	mFileNameLog = fileNameLog;
     }
 
+    /**
+     * Starts logging received data to the file set via 'setFileNameLog()'.
+     * The file is opened and written by a background appender thread, so
+     * the UI thread does no disk I/O.  The log is rotated to a new file
+     * when it reaches 'LOG_MAX_FILE_BYTES' or 'LOG_MAX_FILE_AGE_MS'.
+     */
     public void startRecording() {
+    	stopRecording();
+    	if (!Environment.MEDIA_MOUNTED.equals(Environment.getExternalStorageState()))
+    		return;       // external storage not writable
+    	mLogAppender = new AsyncLogAppender(new File(mFileNameLog));
+    	mLogAppender.setRotationParams(LOG_MAX_FILE_BYTES, LOG_MAX_FILE_AGE_MS);
+    	mLogAppender.start();
     	mRecording = true;
     }
 
+    /**
+     * Stops logging received data.  Data already queued is written and the
+     * file is closed by the appender thread (this method does not wait).
+     */
     public void stopRecording() {
     	mRecording = false;
+    	if (mLogAppender != null) {
+    		mLogAppender.close();
+    		mLogAppender = null;
+    	}
     }
 
-    public boolean writeLog(String buffer) {
-    	String state = Environment.getExternalStorageState();
-		File logFile = new File ( mFileNameLog );
-
-	    if (Environment.MEDIA_MOUNTED.equals(state)) {
-
-	    	try {
-	            FileOutputStream f = new FileOutputStream( logFile, true );
-
-	            PrintWriter pw = new PrintWriter(f);
-	            pw.print( buffer );
-	            pw.flush();
-	            pw.close();
-
-	            f.close();
-	        } catch (IOException e) {
-	            e.printStackTrace();
-	        }
-	    }
-	    else if (Environment.MEDIA_MOUNTED_READ_ONLY.equals(state)) {
-	    	this.stopRecording();
-	    	return false;
-	    } else {
-	    	this.stopRecording();
-	    	return false;
-	    }
-
-    	return true;
+    /**
+     * Queues the given data to be appended to the log file.
+     * @param buffer data bytes.
+     * @param offset offset of data in array.
+     * @param length number of bytes.
+     * @return true if the data was queued; false if logging is not active
+     * or the data was dropped.
+     */
+    public boolean writeLog(byte[] buffer, int offset, int length) {
+    	if (mLogAppender == null)
+    		return false;
+    	if (!mLogAppender.isActive()) {
+    		// log file could not be opened or written; stop logging
+    		this.stopRecording();
+    		return false;
+    	}
+    	return mLogAppender.append(buffer, offset, length);
     }
 
     public void setIncomingEoL_0D( int eol ) {